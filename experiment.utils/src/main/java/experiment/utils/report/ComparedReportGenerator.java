@@ -6,7 +6,6 @@ package experiment.utils.report;
 import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
@@ -14,9 +13,10 @@ import java.util.Map;
 import org.apache.poi.ss.usermodel.IndexedColors;
 
 import experiment.utils.report.Records.Record;
-import experiment.utils.report.excel.ExcelReader;
 import experiment.utils.report.excel.ExcelUtils;
-import experiment.utils.report.excel.ExcelWriter;
+import experiment.utils.report.excel.StreamingExcelReader;
+import experiment.utils.report.excel.StreamingExcelReader.RowHandler;
+import experiment.utils.report.excel.StreamingExcelWriter;
 import sav.common.core.SavRtException;
 import sav.common.core.utils.CollectionUtils;
 import sav.common.core.utils.FileUtils;
@@ -30,39 +30,49 @@ public class ComparedReportGenerator {
 	private static final int HEADER_ROW_IDX = ExcelUtils.HEADER_ROW_NUM;
 
 	public static void generateReport(String resultFile, List<String> reportsFiles, Map<String, List<String>> keyCols) {
+		List<StreamingExcelReader> allExeclReader = new ArrayList<>();
+		StreamingExcelWriter excelWriter = null;
 		try {
 			File file = new File(resultFile);
 			if (file.exists()) {
 				FileUtils.backupFile(file.getAbsolutePath());
 				file.delete();
 			}
-			List<ExcelReader> allExeclReader = new ArrayList<>();
 			for (String otherReport : reportsFiles) {
-				ExcelReader excelReader = new ExcelReader(new File(otherReport), HEADER_ROW_IDX);
+				StreamingExcelReader excelReader = new StreamingExcelReader(new File(otherReport), HEADER_ROW_IDX);
 				allExeclReader.add(excelReader);
 			}
-			ExcelWriter excelWriter = new ExcelWriter(new File(resultFile));
+			excelWriter = new StreamingExcelWriter(new File(resultFile));
 			for (String sheetName : allExeclReader.get(0).listSheetNames()) {
 				List<String> mergedHeaders = mergeHeaders(allExeclReader.get(0), allExeclReader, sheetName);
 				List<Records> allRecords = new ArrayList<>();
-				for (ExcelReader reader : allExeclReader) {
+				for (StreamingExcelReader reader : allExeclReader) {
 					allRecords.add(listRecords(reader, sheetName, keyCols, mergedHeaders));
 				}
 				writeComparation(allRecords, excelWriter, sheetName,
 						mergedHeaders.toArray(new String[mergedHeaders.size()]));
 			}
+			excelWriter.close();
 		} catch (Exception e) {
 			e.printStackTrace();
 			throw new SavRtException(e.getMessage());
+		} finally {
+			for (StreamingExcelReader reader : allExeclReader) {
+				try {
+					reader.close();
+				} catch (IOException e) {
+					// ignore
+				}
+			}
 		}
 
 	}
 
-	private static List<String> mergeHeaders(ExcelReader oldExcelReader, List<ExcelReader> newExcelReaders,
-			String sheetName) {
+	private static List<String> mergeHeaders(StreamingExcelReader oldExcelReader,
+			List<StreamingExcelReader> newExcelReaders, String sheetName) {
 		List<String> oldHeaders = oldExcelReader.listHeader(sheetName);
 		List<String> mergedHeaders = new ArrayList<>(oldHeaders);
-		for (ExcelReader newExcelReader : newExcelReaders) {
+		for (StreamingExcelReader newExcelReader : newExcelReaders) {
 			List<String> newHeaders = newExcelReader.listHeader(sheetName);
 			for (String newHeader : newHeaders) {
 				if (!mergedHeaders.contains(newHeader)) {
@@ -73,9 +83,9 @@ public class ComparedReportGenerator {
 		return mergedHeaders;
 	}
 
-	private static void writeComparation(List<Records> allRecordsList, ExcelWriter excelWriter, String sheetName,
-			String[] mergedHeaders) throws IOException {
-		excelWriter.createSheet(sheetName, mergedHeaders, HEADER_ROW_IDX);
+	private static void writeComparation(List<Records> allRecordsList, StreamingExcelWriter excelWriter,
+			String sheetName, String[] mergedHeaders) throws IOException {
+		excelWriter.createSheet(sheetName, mergedHeaders);
 		List<IndexedColors> fontColors = new ArrayList<>();
 		int s = 3;
 		for (int i = 0; i < allRecordsList.size(); i++) {
@@ -90,30 +100,24 @@ public class ComparedReportGenerator {
 			for (Records records : allRecordsList) {
 				Record record = records.getRecord(key);
 				if (record != null) {
-					List<List<Object>> rows = toRowData(Arrays.asList(record));
-					excelWriter.writeSheet(sheetName, rows, null, fontColors.get(i));
+					excelWriter.writeRow(sheetName, record.getCellValues(), null, fontColors.get(i), null);
 				}
 				i++;
 			}
 		}
 	}
 
-	private static List<List<Object>> toRowData(List<Record> records) {
-		List<List<Object>> rowData = new ArrayList<List<Object>>(records.size());
-		for (Record record : records) {
-			if (record != null) {
-				rowData.add(record.getCellValues());
-			}
-		}
-		return rowData;
-	}
+	private static Records listRecords(StreamingExcelReader excelReader, String sheetName,
+			Map<String, List<String>> keyCols, List<String> mergedHeaders) {
+		final Records records = new Records(mergedHeaders, getKeyCols(keyCols, sheetName));
+		excelReader.readData(sheetName, mergedHeaders, new RowHandler() {
 
-	private static Records listRecords(ExcelReader excelReader, String sheetName, Map<String, List<String>> keyCols,
-			List<String> mergedHeaders) {
-		Records records = new Records(mergedHeaders, getKeyCols(keyCols, sheetName));
-		for (List<Object> rowData : excelReader.listData(sheetName, mergedHeaders)) {
-			records.addRecord(rowData);
-		}
+			@Override
+			public boolean handle(int rowNum, List<Object> rowData) {
+				records.addRecord(rowData);
+				return true;
+			}
+		});
 		return records;
 	}
 
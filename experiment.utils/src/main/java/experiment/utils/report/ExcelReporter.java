@@ -8,47 +8,65 @@ import java.util.List;
 import org.apache.poi.ss.usermodel.IndexedColors;
 
 import experiment.utils.report.Records.Record;
-import experiment.utils.report.excel.ExcelUtils;
-import experiment.utils.report.excel.ExcelWriter;
+import experiment.utils.report.excel.RecordDiff;
+import experiment.utils.report.excel.StreamingExcelWriter;
 import experiment.utils.report.rules.IComparisonRule;
+import sav.common.core.utils.CollectionUtils;
 
 public class ExcelReporter implements IReporter {
-	private static final int HEADER_ROW_IDX = ExcelUtils.HEADER_ROW_NUM;
-	private ExcelWriter excelWriter;
+	private StreamingExcelWriter excelWriter;
 	
 	public ExcelReporter(String resultFile) {
-		excelWriter = new ExcelWriter(new File(resultFile));
+		excelWriter = new StreamingExcelWriter(new File(resultFile));
 	}
 
 	@Override
 	public void writeChanges(ReportChanges reportChanges, String sheetName, String[] mergedHeaders)
 			throws IOException {
-		excelWriter.createSheet(sheetName, mergedHeaders, HEADER_ROW_IDX);
+		excelWriter.createSheet(sheetName, mergedHeaders);
 		List<List<Object>> missingData = toRowData(reportChanges.getMissingRecords());
-		excelWriter.writeSheet(sheetName, missingData, null, IndexedColors.RED);
+		excelWriter.writeRows(sheetName, missingData, null, IndexedColors.RED);
 		List<List<Object>> newData = toRowData(reportChanges.getAddedRecords());
-		excelWriter.writeSheet(sheetName, newData, null, IndexedColors.GREEN);
+		excelWriter.writeRows(sheetName, newData, null, IndexedColors.GREEN);
 		for (IComparisonRule rule : reportChanges.getAllRules()) {
 			String comparisonSheetName = sheetName + "_" + rule.getName();
-			excelWriter.createSheet(comparisonSheetName, mergedHeaders, HEADER_ROW_IDX);
-			excelWriter.writeNewRecord(comparisonSheetName, mergedHeaders, reportChanges.getImproves().get(rule),
-					IndexedColors.GREEN);
-			excelWriter.writeNewRecord(comparisonSheetName, mergedHeaders, reportChanges.getDeclines().get(rule),
-					IndexedColors.ORANGE);
-			excelWriter.writeNewRecord(comparisonSheetName, mergedHeaders, reportChanges.getChanges().get(rule),
-					IndexedColors.BLUE);
+			excelWriter.createSheet(comparisonSheetName, mergedHeaders);
+			writeNewRecords(comparisonSheetName, reportChanges.getImproves().get(rule), IndexedColors.GREEN);
+			writeNewRecords(comparisonSheetName, reportChanges.getDeclines().get(rule), IndexedColors.ORANGE);
+			writeNewRecords(comparisonSheetName, reportChanges.getChanges().get(rule), IndexedColors.BLUE);
 			
 			comparisonSheetName = comparisonSheetName + "_diff";
-			excelWriter.createSheet(comparisonSheetName, mergedHeaders, HEADER_ROW_IDX);
-			excelWriter.writeRecordDiffs(comparisonSheetName, mergedHeaders, 
-					reportChanges.getImproves().get(rule), IndexedColors.LIGHT_GREEN, IndexedColors.RED);
-			excelWriter.writeRecordDiffs(comparisonSheetName, mergedHeaders, 
-					reportChanges.getDeclines().get(rule), IndexedColors.LIGHT_YELLOW, IndexedColors.RED);
-			excelWriter.writeRecordDiffs(comparisonSheetName, mergedHeaders,
-					reportChanges.getChanges().get(rule), IndexedColors.GREY_25_PERCENT, IndexedColors.RED);
+			excelWriter.createSheet(comparisonSheetName, mergedHeaders);
+			writeRecordDiffs(comparisonSheetName, reportChanges.getImproves().get(rule), IndexedColors.LIGHT_GREEN,
+					IndexedColors.RED);
+			writeRecordDiffs(comparisonSheetName, reportChanges.getDeclines().get(rule), IndexedColors.LIGHT_YELLOW,
+					IndexedColors.RED);
+			writeRecordDiffs(comparisonSheetName, reportChanges.getChanges().get(rule), IndexedColors.GREY_25_PERCENT,
+					IndexedColors.RED);
 		}
 	}
 	
+	private void writeNewRecords(String sheetName, List<RecordDiff> records, IndexedColors textColor)
+			throws IOException {
+		for (RecordDiff record : CollectionUtils.nullToEmpty(records)) {
+			excelWriter.writeRow(sheetName, record.getNewRecord().getCellValues(), null, textColor, null);
+		}
+	}
+	
+	private void writeRecordDiffs(String sheetName, List<RecordDiff> records, IndexedColors backgroundColor,
+			IndexedColors highlightColor) throws IOException {
+		for (RecordDiff record : CollectionUtils.nullToEmpty(records)) {
+			excelWriter.writeRow(sheetName, record.getOldRecord().getCellValues(), backgroundColor, null, null);
+			excelWriter.writeRow(sheetName, record.getNewRecord().getCellValues(), null, highlightColor,
+					record.getDiffCols());
+		}
+	}
+	
+	@Override
+	public void close() throws IOException {
+		excelWriter.close();
+	}
+	
 	private static List<List<Object>> toRowData(List<Record> records) {
 		List<List<Object>> rowData = new ArrayList<List<Object>>(records.size());
 		for (Record record : records) {
@@ -4,13 +4,15 @@
 package experiment.utils.report;
 
 import java.io.File;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 
-import experiment.utils.report.excel.ExcelReader;
 import experiment.utils.report.excel.ExcelUtils;
+import experiment.utils.report.excel.StreamingExcelReader;
+import experiment.utils.report.excel.StreamingExcelReader.RowHandler;
 import experiment.utils.report.rules.IComparisonRule;
 import sav.common.core.SavRtException;
 import sav.common.core.utils.CollectionUtils;
@@ -25,15 +27,18 @@ public class ExperimentReportComparisonReporter {
 	
 	public static <T extends IComparisonRule> void reportChange(String resultFile, String oldReport, String newReport,
 			List<T> rules, Map<String, List<String>> keyCols) {
+		StreamingExcelReader oldExcelReader = null;
+		StreamingExcelReader newExcelReader = null;
+		IReporter reporter = null;
 		try {
 			File file = new File(resultFile);
 			if (file.exists()) {
 				FileUtils.backupFile(file.getAbsolutePath());
 				file.delete();
 			}
-			ExcelReader oldExcelReader = new ExcelReader(new File(oldReport), HEADER_ROW_IDX);
-			ExcelReader newExcelReader = new ExcelReader(new File(newReport), HEADER_ROW_IDX);
-			IReporter reporter = getReporter(resultFile);
+			oldExcelReader = new StreamingExcelReader(new File(oldReport), HEADER_ROW_IDX);
+			newExcelReader = new StreamingExcelReader(new File(newReport), HEADER_ROW_IDX);
+			reporter = getReporter(resultFile);
 			for (String sheetName : oldExcelReader.listSheetNames()) {
 				List<String> mergedHeaders = mergeHeaders(oldExcelReader, newExcelReader, sheetName);
 				Records oldRecords = listRecords(oldExcelReader, sheetName, keyCols, mergedHeaders);
@@ -42,9 +47,37 @@ public class ExperimentReportComparisonReporter {
 				reporter.writeChanges(reportChanges, sheetName,
 						mergedHeaders.toArray(new String[mergedHeaders.size()]));
 			}
+			IReporter openReporter = reporter;
+			reporter = null;
+			openReporter.close();
 		} catch(Exception e) {
 			e.printStackTrace();
 			throw new SavRtException(e.getMessage());
+		} finally {
+			/* only when the report failed, a failure of the normal close is reported above */
+			close(reporter);
+			close(oldExcelReader);
+			close(newExcelReader);
+		}
+	}
+
+	private static void close(IReporter reporter) {
+		try {
+			if (reporter != null) {
+				reporter.close();
+			}
+		} catch (IOException e) {
+			e.printStackTrace();
+		}
+	}
+
+	private static void close(StreamingExcelReader excelReader) {
+		try {
+			if (excelReader != null) {
+				excelReader.close();
+			}
+		} catch (IOException e) {
+			// ignore
 		}
 	}
 
@@ -57,7 +90,8 @@ public class ExperimentReportComparisonReporter {
 		throw new IllegalArgumentException("Invalid report file! " + resultFile);
 	}
 
-	private static List<String> mergeHeaders(ExcelReader oldExcelReader, ExcelReader newExcelReader, String sheetName) {
+	private static List<String> mergeHeaders(StreamingExcelReader oldExcelReader, StreamingExcelReader newExcelReader,
+			String sheetName) {
 		List<String> oldHeaders = oldExcelReader.listHeader(sheetName);
 		List<String> newHeaders = newExcelReader.listHeader(sheetName);
 		List<String> mergedHeaders = new ArrayList<>(oldHeaders);
@@ -69,12 +103,17 @@ public class ExperimentReportComparisonReporter {
 		return mergedHeaders;
 	}
 
-	private static Records listRecords(ExcelReader excelReader, String sheetName, Map<String, List<String>> keyCols,
-			List<String> mergedHeaders) {
-		Records records = new Records(mergedHeaders, getKeyCols(keyCols, sheetName));
-		for (List<Object> rowData : excelReader.listData(sheetName, mergedHeaders)) {
-			records.addRecord(rowData);
-		}
+	private static Records listRecords(StreamingExcelReader excelReader, String sheetName,
+			Map<String, List<String>> keyCols, List<String> mergedHeaders) {
+		final Records records = new Records(mergedHeaders, getKeyCols(keyCols, sheetName));
+		excelReader.readData(sheetName, mergedHeaders, new RowHandler() {
+
+			@Override
+			public boolean handle(int rowNum, List<Object> rowData) {
+				records.addRecord(rowData);
+				return true;
+			}
+		});
 		return records;
 	}
 
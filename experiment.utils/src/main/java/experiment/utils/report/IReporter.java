@@ -6,4 +6,6 @@ public interface IReporter {
 
 	void writeChanges(ReportChanges reportChanges, String sheetName, String[] mergedHeaders) throws IOException;
 
+	void close() throws IOException;
+
 }
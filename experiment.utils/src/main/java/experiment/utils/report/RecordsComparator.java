@@ -3,26 +3,90 @@
  */
 package experiment.utils.report;
 
+import java.util.ArrayList;
 import java.util.List;
-import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import experiment.utils.report.Records.Record;
 import experiment.utils.report.excel.RecordDiff;
 import experiment.utils.report.rules.IComparisonRule;
-import sav.common.core.utils.CollectionUtils;
+import sav.common.core.SavRtException;
 
 /**
+ * Records of both reports are indexed by their key string (see {@link Records}), the keys of
+ * each report are split into contiguous partitions which are compared in parallel, and the
+ * partial changes are merged in the order of the partitions, so the result is the same as the
+ * one of a sequential comparison.
+ * 
  * @author LLT
  *
  */
 public class RecordsComparator {
+	/* smaller reports are not worth the thread pool */
+	private static final int MIN_PARTITION_SIZE = 5000;
 	
 	public static <T extends IComparisonRule> ReportChanges compare(Records oldRecords, Records newRecords,
 			List<T> comparationRules) {
+		return compare(oldRecords, newRecords, comparationRules, Runtime.getRuntime().availableProcessors());
+	}
+	
+	public static <T extends IComparisonRule> ReportChanges compare(final Records oldRecords,
+			final Records newRecords, final List<T> comparationRules, int threadNum) {
+		final List<String> oldKeys = new ArrayList<>(oldRecords.getKeys());
+		final List<String> newKeys = new ArrayList<>(newRecords.getKeys());
+		int maxSize = Math.max(oldKeys.size(), newKeys.size());
+		final int partitionNum = Math.max(1, Math.min(threadNum, maxSize / MIN_PARTITION_SIZE));
+		ReportChanges changes = new ReportChanges(oldRecords, newRecords);
+		changes.setMissingRecords(new ArrayList<Record>());
+		changes.setAddedRecords(new ArrayList<Record>());
+		if (partitionNum == 1) {
+			changes.addAll(compare(oldRecords, newRecords, comparationRules, oldKeys, newKeys));
+			return changes;
+		}
+		ExecutorService executor = Executors.newFixedThreadPool(partitionNum);
+		try {
+			List<Future<ReportChanges>> futures = new ArrayList<>(partitionNum);
+			for (int i = 0; i < partitionNum; i++) {
+				final List<String> oldPartition = getPartition(oldKeys, i, partitionNum);
+				final List<String> newPartition = getPartition(newKeys, i, partitionNum);
+				futures.add(executor.submit(new Callable<ReportChanges>() {
+
+					@Override
+					public ReportChanges call() throws Exception {
+						return compare(oldRecords, newRecords, comparationRules, oldPartition, newPartition);
+					}
+				}));
+			}
+			/* merge each partition as soon as it and the ones before it are done */
+			for (Future<ReportChanges> future : futures) {
+				changes.addAll(future.get());
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new SavRtException(e);
+		} catch (ExecutionException e) {
+			throw new SavRtException(e.getCause());
+		} finally {
+			executor.shutdownNow();
+		}
+		return changes;
+	}
+	
+	private static <T extends IComparisonRule> ReportChanges compare(Records oldRecords, Records newRecords,
+			List<T> comparationRules, List<String> oldKeys, List<String> newKeys) {
 		ReportChanges changes = new ReportChanges(oldRecords, newRecords);
-		changes.setMissingRecords(subtract(oldRecords, newRecords));
-		changes.setAddedRecords(subtract(newRecords, oldRecords));
-		for (String key : newRecords.getKeys()) {
+		List<Record> missingRecords = new ArrayList<>();
+		for (String key : oldKeys) {
+			if (newRecords.getRecord(key) == null) {
+				missingRecords.add(oldRecords.getRecord(key));
+			}
+		}
+		List<Record> addedRecords = new ArrayList<>();
+		for (String key : newKeys) {
 			Record newRecord = newRecords.getRecord(key);
 			Record oldRecord = oldRecords.getRecord(key);
 			if (oldRecord != null) {
@@ -30,18 +94,18 @@ public class RecordsComparator {
 					RecordDiff recordDiff = rule.getRecordDiff(oldRecord, newRecord);
 					changes.addChange(oldRecord, newRecord, rule, recordDiff);
 				}
+			} else {
+				addedRecords.add(newRecord);
 			}
 		}
+		changes.setMissingRecords(missingRecords);
+		changes.setAddedRecords(addedRecords);
 		return changes;
 	}
-	
-	/**
-	 * return list of records exist in records a but missing in records b
-	 * */
-	private static List<Record> subtract(Records a, Records b) {
-		Set<String> aKeys = a.getKeys();
-		Set<String> bKeys = b.getKeys();
-		List<String> missingKeys = CollectionUtils.subtract(aKeys, bKeys);
-		return a.getRecords(missingKeys);
+
+	private static List<String> getPartition(List<String> keys, int idx, int partitionNum) {
+		int size = keys.size();
+		return keys.subList((int) ((long) size * idx / partitionNum),
+				(int) ((long) size * (idx + 1) / partitionNum));
 	}
 }
@@ -53,6 +53,24 @@ public class ReportChanges {
 		}
 	}
 	
+	/**
+	 * append the changes of another part of the same reports.
+	 */
+	public void addAll(ReportChanges other) {
+		missingRecords.addAll(other.missingRecords);
+		addedRecords.addAll(other.addedRecords);
+		addAll(changes, other.changes);
+		addAll(improves, other.improves);
+		addAll(declines, other.declines);
+	}
+
+	private static void addAll(Map<IComparisonRule, List<RecordDiff>> diffs,
+			Map<IComparisonRule, List<RecordDiff>> otherDiffs) {
+		for (Map.Entry<IComparisonRule, List<RecordDiff>> entry : otherDiffs.entrySet()) {
+			CollectionUtils.getListInitIfEmpty(diffs, entry.getKey()).addAll(entry.getValue());
+		}
+	}
+	
 	public List<Record> getMissingRecords() {
 		return missingRecords;
 	}
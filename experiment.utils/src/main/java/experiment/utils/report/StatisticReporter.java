@@ -65,5 +65,9 @@ public class StatisticReporter implements IReporter {
 		
 	}
 
+	@Override
+	public void close() throws IOException {
+		// nothing to flush, changes are appended on each write
+	}
 	
 }
@@ -0,0 +1,325 @@
+/**
+ *
+ */
+package experiment.utils.report.excel;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.parsers.SAXParserFactory;
+
+import org.apache.poi.openxml4j.exceptions.OpenXML4JException;
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackageAccess;
+import org.apache.poi.xssf.eventusermodel.ReadOnlySharedStringsTable;
+import org.apache.poi.xssf.eventusermodel.XSSFReader;
+import org.xml.sax.Attributes;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.XMLReader;
+import org.xml.sax.helpers.DefaultHandler;
+
+import sav.common.core.SavRtException;
+
+/**
+ * Streaming counterpart of {@link ExcelReader}: sheets are parsed with SAX and each data row is
+ * passed to a {@link RowHandler} as soon as it is read, so a sheet is never loaded as a whole.
+ * Cell values are read the same way as in {@link ExcelReader} (Boolean, String or Double, null
+ * for empty and formula cells).
+ *
+ * @author LLT
+ *
+ */
+public class StreamingExcelReader {
+	private OPCPackage pkg;
+	private XSSFReader xssfReader;
+	private ReadOnlySharedStringsTable sharedStrings;
+	private SAXParserFactory parserFactory;
+	private File file;
+	private int headerRowNum;
+	private Map<String, List<String>> headers = new HashMap<String, List<String>>();
+
+	public StreamingExcelReader(File file, int headerRowNum) {
+		this.headerRowNum = headerRowNum;
+		parserFactory = SAXParserFactory.newInstance();
+		parserFactory.setNamespaceAware(true);
+		reset(file);
+	}
+
+	public void reset(File file) {
+		try {
+			close();
+			pkg = OPCPackage.open(file.getAbsolutePath(), PackageAccess.READ);
+			xssfReader = new XSSFReader(pkg);
+			sharedStrings = new ReadOnlySharedStringsTable(pkg);
+			headers.clear();
+			this.file = file;
+		} catch (IOException | OpenXML4JException | SAXException e) {
+			throw new SavRtException(e);
+		}
+	}
+
+	public List<String> listSheetNames() {
+		List<String> names = new ArrayList<String>();
+		try {
+			XSSFReader.SheetIterator it = (XSSFReader.SheetIterator) xssfReader.getSheetsData();
+			while (it.hasNext()) {
+				it.next().close();
+				names.add(it.getSheetName());
+			}
+		} catch (IOException | OpenXML4JException e) {
+			throw new SavRtException(e);
+		}
+		return names;
+	}
+
+	public List<String> listHeader(String sheetName) {
+		List<String> sheetHeaders = headers.get(sheetName);
+		if (sheetHeaders == null) {
+			final List<String> result = new ArrayList<String>();
+			parse(sheetName, new RowHandler() {
+
+				@Override
+				public boolean handle(int rowNum, List<Object> rowData) {
+					if (rowNum < headerRowNum) {
+						return true;
+					}
+					if (rowNum == headerRowNum) {
+						for (Object value : rowData) {
+							if (value != null) {
+								result.add(String.valueOf(value));
+							}
+						}
+					}
+					return false;
+				}
+			});
+			sheetHeaders = result;
+			headers.put(sheetName, sheetHeaders);
+		}
+		return sheetHeaders;
+	}
+
+	/**
+	 * pass the data rows of the sheet (rows below the header) to the handler.
+	 */
+	public void readData(String sheetName, final RowHandler handler) {
+		parse(sheetName, new RowHandler() {
+
+			@Override
+			public boolean handle(int rowNum, List<Object> rowData) {
+				if (rowNum <= headerRowNum) {
+					return true;
+				}
+				return handler.handle(rowNum, rowData);
+			}
+		});
+	}
+
+	/**
+	 * same as {@link ExcelReader#listData(String, List)}, the values of each data row are
+	 * rearranged following the order of newHeaders, the values of columns which are not in
+	 * newHeaders are appended at the end.
+	 */
+	public void readData(String sheetName, final List<String> newHeaders, final RowHandler handler) {
+		List<String> thisHeaders = listHeader(sheetName);
+		final Integer[] headerIdxMap = new Integer[thisHeaders.size()];
+		for (int i = 0; i < thisHeaders.size(); i++) {
+			int newIdx = newHeaders.indexOf(thisHeaders.get(i));
+			headerIdxMap[i] = newIdx >= 0 ? newIdx : null;
+		}
+		readData(sheetName, new RowHandler() {
+
+			@Override
+			public boolean handle(int rowNum, List<Object> rowData) {
+				int rowSize = newHeaders.size();
+				for (int j = 0; j < rowData.size(); j++) {
+					if (j >= headerIdxMap.length || headerIdxMap[j] == null) {
+						rowSize++;
+					}
+				}
+				Object[] newRowData = new Object[rowSize];
+				int extIdx = newHeaders.size();
+				for (int j = 0; j < rowData.size(); j++) {
+					Integer newIdx = j < headerIdxMap.length ? headerIdxMap[j] : null;
+					if (newIdx == null) {
+						newIdx = extIdx++;
+					}
+					newRowData[newIdx] = rowData.get(j);
+				}
+				return handler.handle(rowNum, Arrays.asList(newRowData));
+			}
+		});
+	}
+
+	public List<List<Object>> listData(String sheetName, List<String> newHeaders) {
+		final List<List<Object>> data = new ArrayList<List<Object>>();
+		readData(sheetName, newHeaders, new RowHandler() {
+
+			@Override
+			public boolean handle(int rowNum, List<Object> rowData) {
+				data.add(rowData);
+				return true;
+			}
+		});
+		return data;
+	}
+
+	private void parse(String sheetName, RowHandler handler) {
+		InputStream in = null;
+		try {
+			XSSFReader.SheetIterator it = (XSSFReader.SheetIterator) xssfReader.getSheetsData();
+			while (it.hasNext()) {
+				InputStream sheetIn = it.next();
+				if (in == null && sheetName.equals(it.getSheetName())) {
+					in = sheetIn;
+				} else {
+					sheetIn.close();
+				}
+			}
+			if (in == null) {
+				throw new SavRtException("Cannot find sheet " + sheetName + " in " + getName());
+			}
+			XMLReader xmlReader = parserFactory.newSAXParser().getXMLReader();
+			xmlReader.setContentHandler(new SheetHandler(handler));
+			xmlReader.parse(new InputSource(in));
+		} catch (StopParsingException e) {
+			// stopped by the row handler
+		} catch (IOException | OpenXML4JException | SAXException | ParserConfigurationException e) {
+			throw new SavRtException(e);
+		} finally {
+			try {
+				if (in != null) {
+					in.close();
+				}
+			} catch (IOException e) {
+			}
+		}
+	}
+
+	public String getName() {
+		return file.getName();
+	}
+
+	@Override
+	public String toString() {
+		return getName();
+	}
+
+	public void close() throws IOException {
+		if (pkg != null) {
+			pkg.revert();
+			pkg = null;
+		}
+	}
+
+	public static interface RowHandler {
+		/**
+		 * @param rowNum
+		 *            0-based index of the row in the sheet.
+		 * @return false to stop reading the sheet.
+		 */
+		boolean handle(int rowNum, List<Object> rowData);
+	}
+
+	private static class StopParsingException extends SAXException {
+		private static final long serialVersionUID = 1L;
+	}
+
+	/**
+	 * handle the cells of sheet xml (row, c, v, is/t elements).
+	 */
+	private class SheetHandler extends DefaultHandler {
+		private RowHandler rowHandler;
+		private int rowNum = -1;
+		private List<Object> rowData = new ArrayList<Object>();
+		private int col;
+		private String cellType;
+		private boolean isFormula;
+		private boolean isValue;
+		private StringBuilder value = new StringBuilder();
+
+		public SheetHandler(RowHandler rowHandler) {
+			this.rowHandler = rowHandler;
+		}
+
+		@Override
+		public void startElement(String uri, String localName, String qName, Attributes attributes)
+				throws SAXException {
+			if ("row".equals(localName)) {
+				String r = attributes.getValue("r");
+				rowNum = r == null ? rowNum + 1 : Integer.parseInt(r) - 1;
+				rowData = new ArrayList<Object>();
+			} else if ("c".equals(localName)) {
+				String r = attributes.getValue("r");
+				col = r == null ? rowData.size() : toColumnIdx(r);
+				cellType = attributes.getValue("t");
+				isFormula = false;
+				value.setLength(0);
+			} else if ("f".equals(localName)) {
+				isFormula = true;
+			} else if ("v".equals(localName) || "t".equals(localName)) {
+				isValue = true;
+			}
+		}
+
+		@Override
+		public void characters(char[] ch, int start, int length) throws SAXException {
+			if (isValue) {
+				value.append(ch, start, length);
+			}
+		}
+
+		@Override
+		public void endElement(String uri, String localName, String qName) throws SAXException {
+			if ("v".equals(localName) || "t".equals(localName)) {
+				isValue = false;
+			} else if ("c".equals(localName)) {
+				while (rowData.size() <= col) {
+					rowData.add(null);
+				}
+				rowData.set(col, getCellValue());
+			} else if ("row".equals(localName)) {
+				if (!rowHandler.handle(rowNum, rowData)) {
+					throw new StopParsingException();
+				}
+			}
+		}
+
+		private Object getCellValue() {
+			if (isFormula || value.length() == 0) {
+				return null;
+			}
+			String text = value.toString();
+			if ("s".equals(cellType)) {
+				return sharedStrings.getEntryAt(Integer.parseInt(text));
+			} else if ("inlineStr".equals(cellType) || "str".equals(cellType)) {
+				return text;
+			} else if ("b".equals(cellType)) {
+				return "1".equals(text);
+			} else if ("e".equals(cellType)) {
+				return null;
+			}
+			return Double.valueOf(text);
+		}
+
+		private int toColumnIdx(String cellRef) {
+			int idx = 0;
+			for (int i = 0; i < cellRef.length(); i++) {
+				char ch = cellRef.charAt(i);
+				if (!Character.isLetter(ch)) {
+					break;
+				}
+				idx = idx * 26 + (Character.toUpperCase(ch) - 'A' + 1);
+			}
+			return idx - 1;
+		}
+	}
+}
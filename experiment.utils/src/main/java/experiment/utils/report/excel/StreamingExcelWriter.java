@@ -0,0 +1,236 @@
+/**
+ *
+ */
+package experiment.utils.report.excel;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.Font;
+import org.apache.poi.ss.usermodel.IndexedColors;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+
+/**
+ * Append-only excel writer for large reports.
+ * Unlike {@link ExcelWriter}, which rewrites the whole workbook after each append, rows are
+ * streamed into a {@link SXSSFWorkbook}: only the last {@code rowWindow} rows of each sheet are
+ * kept in memory, the others are flushed into temporary files, and the workbook is written once
+ * when the writer is closed.
+ * A sheet reaching {@code maxRowsPerSheet} rows is continued in a new sheet (name_1, name_2...)
+ * with the same header; a file reaching {@code maxRowsPerFile} rows is written and the report
+ * is continued in a new file (report_1.xlsx, report_2.xlsx...).
+ *
+ * @author LLT
+ *
+ */
+public class StreamingExcelWriter implements Closeable {
+	public static final int DEFAULT_ROW_WINDOW = 500;
+	/* xlsx sheets are limited to 1048576 rows */
+	public static final int DEFAULT_MAX_ROWS_PER_SHEET = 1000000;
+	private File file;
+	private int headerRowIdx;
+	private int rowWindow;
+	private int maxRowsPerSheet;
+	/* no rotation if not positive */
+	private int maxRowsPerFile;
+
+	private SXSSFWorkbook workbook;
+	private File curFile;
+	private int filePage;
+	private int fileRowNum;
+	private Map<String, SheetState> sheets = new LinkedHashMap<String, SheetState>();
+	private Map<String, CellStyle> cellStyles = new HashMap<String, CellStyle>();
+	private List<File> writtenFiles = new ArrayList<File>();
+
+	public StreamingExcelWriter(File file) {
+		this(file, ExcelUtils.HEADER_ROW_NUM, DEFAULT_ROW_WINDOW, DEFAULT_MAX_ROWS_PER_SHEET, -1);
+	}
+
+	public StreamingExcelWriter(File file, int headerRowIdx, int rowWindow, int maxRowsPerSheet,
+			int maxRowsPerFile) {
+		this.file = file;
+		this.headerRowIdx = headerRowIdx;
+		this.rowWindow = rowWindow;
+		this.maxRowsPerSheet = maxRowsPerSheet;
+		this.maxRowsPerFile = maxRowsPerFile;
+		this.curFile = file;
+		workbook = new SXSSFWorkbook(rowWindow);
+	}
+
+	public void createSheet(String name, String[] headers) {
+		SheetState state = sheets.get(name);
+		if (state == null) {
+			state = new SheetState(name, headers);
+			sheets.put(name, state);
+		}
+		getSheet(state);
+	}
+
+	public void writeRow(String sheetName, List<Object> rowData) throws IOException {
+		writeRow(sheetName, rowData, null, null, null);
+	}
+
+	public void writeRows(String sheetName, List<List<Object>> data, IndexedColors fillColor,
+			IndexedColors fontColor) throws IOException {
+		if (data == null) {
+			return;
+		}
+		for (List<Object> rowData : data) {
+			writeRow(sheetName, rowData, fillColor, fontColor, null);
+		}
+	}
+
+	/**
+	 * @param styledCols
+	 *            columns to apply the style, all columns if null.
+	 */
+	public void writeRow(String sheetName, List<Object> rowData, IndexedColors fillColor, IndexedColors fontColor,
+			List<Integer> styledCols) throws IOException {
+		if (maxRowsPerFile > 0 && fileRowNum >= maxRowsPerFile) {
+			rotateFile();
+		}
+		SheetState state = sheets.get(sheetName);
+		if (state == null) {
+			state = new SheetState(sheetName, null);
+			sheets.put(sheetName, state);
+		}
+		Sheet sheet = getSheet(state);
+		if (state.rowNum >= maxRowsPerSheet) {
+			state.page++;
+			state.sheet = null;
+			sheet = getSheet(state);
+		}
+		Row row = sheet.createRow(state.rowNum++);
+		fileRowNum++;
+		CellStyle cellStyle = getCellStyle(fillColor, fontColor);
+		if (cellStyle != null) {
+			row.setRowStyle(cellStyle);
+		}
+		for (int i = 0; i < rowData.size(); i++) {
+			Cell cell = row.createCell(i);
+			Object value = rowData.get(i);
+			if (value instanceof Boolean) {
+				cell.setCellValue((Boolean) value);
+			} else if (value instanceof String) {
+				cell.setCellValue((String) value);
+			} else if (value instanceof Number) {
+				cell.setCellValue(((Number) value).doubleValue());
+			}
+			if (cellStyle != null && (styledCols == null || styledCols.contains(i))) {
+				cell.setCellStyle(cellStyle);
+			}
+		}
+	}
+
+	private Sheet getSheet(SheetState state) {
+		if (state.sheet == null) {
+			String name = state.page == 0 ? state.name : state.name + "_" + state.page;
+			state.sheet = workbook.createSheet(name);
+			state.rowNum = 0;
+			if (state.headers != null) {
+				Row headerRow = state.sheet.createRow(headerRowIdx);
+				for (int i = 0; i < state.headers.length; i++) {
+					headerRow.createCell(i).setCellValue(state.headers[i]);
+				}
+				state.rowNum = headerRowIdx + 1;
+			}
+		}
+		return state.sheet;
+	}
+
+	/* styles are shared between rows, a workbook cannot have more than 64000 styles */
+	private CellStyle getCellStyle(IndexedColors fillColor, IndexedColors fontColor) {
+		if (fillColor == null && fontColor == null) {
+			return null;
+		}
+		String key = fillColor + "_" + fontColor;
+		CellStyle cellStyle = cellStyles.get(key);
+		if (cellStyle == null) {
+			cellStyle = workbook.createCellStyle();
+			if (fillColor != null) {
+				cellStyle.setFillBackgroundColor(fillColor.index);
+				cellStyle.setFillForegroundColor(fillColor.index);
+				cellStyle.setFillPattern(CellStyle.BIG_SPOTS);
+			}
+			if (fontColor != null) {
+				Font font = workbook.createFont();
+				font.setColor(fontColor.getIndex());
+				cellStyle.setFont(font);
+			}
+			cellStyles.put(key, cellStyle);
+		}
+		return cellStyle;
+	}
+
+	private void rotateFile() throws IOException {
+		writeWorkbook();
+		filePage++;
+		String path = file.getAbsolutePath();
+		int extIdx = path.lastIndexOf('.');
+		if (extIdx < path.lastIndexOf(File.separatorChar)) {
+			extIdx = path.length();
+		}
+		curFile = new File(path.substring(0, extIdx) + "_" + filePage + path.substring(extIdx));
+		workbook = new SXSSFWorkbook(rowWindow);
+		cellStyles.clear();
+		fileRowNum = 0;
+		for (SheetState state : sheets.values()) {
+			state.sheet = null;
+			state.page = 0;
+		}
+	}
+
+	private void writeWorkbook() throws IOException {
+		FileOutputStream out = null;
+		try {
+			out = new FileOutputStream(curFile);
+			workbook.write(out);
+			writtenFiles.add(curFile);
+		} finally {
+			try {
+				if (out != null) {
+					out.close();
+				}
+			} catch (IOException e) {
+			}
+			/* remove temporary files of the flushed rows */
+			workbook.dispose();
+		}
+	}
+
+	@Override
+	public void close() throws IOException {
+		if (workbook != null) {
+			writeWorkbook();
+			workbook = null;
+		}
+	}
+
+	public List<File> getWrittenFiles() {
+		return writtenFiles;
+	}
+
+	private static class SheetState {
+		private String name;
+		private String[] headers;
+		private Sheet sheet;
+		private int page;
+		private int rowNum;
+
+		public SheetState(String name, String[] headers) {
+			this.name = name;
+			this.headers = headers;
+		}
+	}
+}
@@ -8,8 +8,9 @@ import experiment.utils.report.excel.RecordDiff;
 
 public class NumberIncreaseComparisonRule implements IComparisonRule {
 	private List<String> comparedCols = new ArrayList<String>();
-	private List<Integer> oldReportCols = new ArrayList<Integer>();
-	private List<Integer> newReportCols = new ArrayList<Integer>();
+	/* initialized on the first comparison, rules are shared between comparison threads */
+	private volatile List<Integer> oldReportCols;
+	private volatile List<Integer> newReportCols;
 	
 	public NumberIncreaseComparisonRule(List<String> comparedCols) {
 		this.comparedCols = comparedCols;
@@ -41,13 +42,17 @@ public class NumberIncreaseComparisonRule implements IComparisonRule {
 	}
 	
 	private void setCol(Record oldRecord, Record newRecord) {
-		if (!oldReportCols.isEmpty()) {
+		if (oldReportCols != null) {
 			return;
 		}
+		List<Integer> oldCols = new ArrayList<Integer>();
+		List<Integer> newCols = new ArrayList<Integer>();
 		for (String comparedCol : comparedCols) {
-			oldReportCols.add(oldRecord.getColIdx(comparedCol));
-			newReportCols.add(newRecord.getColIdx(comparedCol));
+			oldCols.add(oldRecord.getColIdx(comparedCol));
+			newCols.add(newRecord.getColIdx(comparedCol));
 		}
+		newReportCols = newCols;
+		oldReportCols = oldCols;
 	}
 
 	@Override
@@ -10,6 +10,8 @@ public class SimulatorComparisonRule implements IComparisonRule {
 	private int foundCauseCol = -1;
 	private int generalCauseCol = -1;
 	private int exceptionCol = -1;
+	/* columns are initialized on the first comparison, rules are shared between comparison threads */
+	private volatile boolean colsInitialized;
 
 	@Override
 	public RecordDiff getRecordDiff(Record oldRecord, Record newRecord) {
@@ -62,10 +64,11 @@ public class SimulatorComparisonRule implements IComparisonRule {
 	}
 
 	private void setCol(Record oldRecord) {
-		if (foundCauseCol < 0) {
+		if (!colsInitialized) {
 			foundCauseCol = oldRecord.getColIdx("found cause");
 			generalCauseCol = oldRecord.getColIdx("general cause");
 			exceptionCol = oldRecord.getColIdx("exception");
+			colsInitialized = true;
 		}
 	}
 
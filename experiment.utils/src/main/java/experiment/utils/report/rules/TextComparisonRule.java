@@ -14,7 +14,8 @@ import experiment.utils.report.excel.RecordDiff;
  */
 public class TextComparisonRule implements IComparisonRule {
 	private List<String> toCompareColumns;
-	private int[] cols;
+	/* initialized on the first comparison, rules are shared between comparison threads */
+	private volatile int[] cols;
 	
 	public TextComparisonRule(List<String> toCompareColumns) {
 		this.toCompareColumns = toCompareColumns;
@@ -22,12 +23,14 @@ public class TextComparisonRule implements IComparisonRule {
 	
 	public RecordDiff getRecordDiff(Record oldRecord, Record newRecord) {
 		RecordDiff diff = null;
+		int[] cols = this.cols;
 		if (cols == null) {
 			List<String> headers = toCompareColumns;
 			if (headers == null) {
 				headers = oldRecord.getHeaders();
 			}
 			cols = oldRecord.getRecords().toColumnIdx(headers);
+			this.cols = cols;
 		}
 		for (int col : cols) {
 			String oldValue = oldRecord.getStringValue(col).trim();
@@ -704,6 +704,16 @@ public class SimulatedMicroBat {
 	}
 
 
+	public TraceNode getRootCause() {
+		return rootCause;
+	}
+
+
+	public TraceNode getObservedFaultNode() {
+		return observedFaultNode;
+	}
+
+
 	public void setPairList(PairList pairList) {
 		this.pairList = pairList;
 	}
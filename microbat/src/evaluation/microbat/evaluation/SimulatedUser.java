@@ -22,7 +22,7 @@ public class SimulatedUser {
 	private List<ChosenVariableOption> otherOptions = new ArrayList<>();
 	private int unclearFeedbackNum = 0;
 	
-	private List<ChosenVariableOption> checkWrongVariableOptions(TraceNodePair pair, Trace mutatedTrace){
+	public static List<ChosenVariableOption> checkWrongVariableOptions(TraceNodePair pair, Trace mutatedTrace){
 		
 		List<ChosenVariableOption> options = new ArrayList<>();
 		
@@ -60,6 +60,7 @@ public class TraceModelConstructor {
 		
 		/** 4. extract runtime variables*/
 		tcExecutor.setConfig(appClassPath);
+		tcExecutor.setBreakpointMode(Settings.isBreakpointTracing);
 		try {
 			tcExecutor.run(runningStatements, executionOrderList,
 					new SubProgressMonitor(new NullProgressMonitor(), 0), stepNum, true);
@@ -0,0 +1,186 @@
+package microbat.evaluation.batch;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import microbat.evaluation.SimulatedMicroBat;
+import microbat.evaluation.model.TraceNodePair;
+import microbat.evaluation.model.Trial;
+import microbat.model.SessionState;
+import microbat.model.trace.Trace;
+import microbat.model.trace.TraceNode;
+import microbat.model.value.VarValue;
+import microbat.recommendation.StepRecommender;
+import microbat.recommendation.UserFeedback;
+import microbat.util.Settings;
+
+/**
+ * Run whole fault localization sessions of {@link StepRecommender} without the UI, the feedback
+ * being given by a {@link GroundTruthOracle}.
+ *
+ * Tasks are handled on a thread pool. Each recommendation session binds its own
+ * {@link SessionState} to its thread (see {@link Settings#setSessionState(SessionState)}), so
+ * that the sessions of different tasks run in parallel, and the sessions of a task (one per loop
+ * inference option) each work on their own copy of the debugging state and check times of the
+ * trace. They share the oracle of the trace.
+ *
+ * @author LLT
+ */
+public class BatchLocalizationEngine {
+	private int threadNum;
+	private int stepLimit;
+	private boolean[] loopInferenceOptions = new boolean[] { true };
+
+	public BatchLocalizationEngine(int threadNum, int stepLimit) {
+		this.threadNum = threadNum;
+		this.stepLimit = stepLimit;
+	}
+
+	public List<LocalizationResult> run(List<LocalizationTask> tasks) {
+		ExecutorService executor = Executors.newFixedThreadPool(threadNum);
+		List<LocalizationResult> results = new ArrayList<>();
+		try {
+			List<Future<List<LocalizationResult>>> futures = new ArrayList<>(tasks.size());
+			for (final LocalizationTask task : tasks) {
+				futures.add(executor.submit(new Callable<List<LocalizationResult>>() {
+
+					@Override
+					public List<LocalizationResult> call() throws Exception {
+						return localize(task);
+					}
+				}));
+			}
+			for (int i = 0; i < futures.size(); i++) {
+				try {
+					results.addAll(futures.get(i).get());
+				} catch (ExecutionException e) {
+					e.getCause().printStackTrace();
+					LocalizationTask task = tasks.get(i);
+					for (boolean enableLoopInference : loopInferenceOptions) {
+						LocalizationResult result = new LocalizationResult(task.getTestCaseName(),
+								task.getMutatedFile(), enableLoopInference);
+						result.setError(String.valueOf(e.getCause()));
+						results.add(result);
+					}
+				}
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} finally {
+			executor.shutdownNow();
+		}
+		return results;
+	}
+
+	public List<LocalizationResult> localize(LocalizationTask task) {
+		SimulatedMicroBat simulator = new SimulatedMicroBat();
+		simulator.prepare(task.getMutatedTrace(), task.getCorrectTrace(), task.getMutatedLocation(),
+				task.getTestCaseName(), task.getMutatedFile());
+		TraceNode rootCause = simulator.getRootCause();
+		TraceNode observedFaultNode = simulator.getObservedFaultNode();
+
+		List<LocalizationResult> results = new ArrayList<>();
+		GroundTruthOracle oracle = null;
+		if (rootCause != null && observedFaultNode != null) {
+			oracle = new GroundTruthOracle(task.getMutatedTrace(), simulator.getPairList(), rootCause);
+		}
+		for (boolean enableLoopInference : loopInferenceOptions) {
+			if (oracle == null) {
+				LocalizationResult result = new LocalizationResult(task.getTestCaseName(), task.getMutatedFile(),
+						enableLoopInference);
+				result.setError(rootCause == null ? "cannot find the root cause in trace"
+						: "cannot find the observed fault in trace");
+				results.add(result);
+			} else {
+				results.add(runSession(task, oracle, observedFaultNode, rootCause, enableLoopInference));
+			}
+		}
+		return results;
+	}
+
+	private LocalizationResult runSession(LocalizationTask task, GroundTruthOracle oracle,
+			TraceNode observedFaultNode, TraceNode rootCause, boolean enableLoopInference) {
+		LocalizationResult result = new LocalizationResult(task.getTestCaseName(), task.getMutatedFile(),
+				enableLoopInference);
+		Trace trace = task.getMutatedTrace();
+		Settings.setSessionState(new SessionState());
+		try {
+			long startTime = System.currentTimeMillis();
+			StepRecommender recommender = new StepRecommender(enableLoopInference);
+			List<String> jumpSteps = new ArrayList<>();
+			TraceNode node = observedFaultNode;
+			boolean isBugFound = oracle.isRootCause(node);
+			try {
+				while (!isBugFound && jumpSteps.size() < stepLimit) {
+					UserFeedback feedback = oracle.feedback(node, trace.getCheckTime());
+					jumpSteps.add(toJumpStep(oracle, node, feedback.toString()));
+					setCurrentNodeChecked(trace, node);
+					updateVariableCheckTime(trace, node);
+
+					result.addStateStep(recommender.getState());
+					TraceNode suspiciousNode = recommender.recommendNode(trace, node, feedback);
+					/* the recommendation cannot converge */
+					if (suspiciousNode == null || suspiciousNode.getOrder() == node.getOrder()) {
+						break;
+					}
+					node = suspiciousNode;
+					isBugFound = oracle.isRootCause(node);
+				}
+				if (isBugFound) {
+					jumpSteps.add(toJumpStep(oracle, node, "Bug Found!"));
+				}
+			} catch (Exception e) {
+				e.printStackTrace();
+				result.setError(e.toString());
+			}
+			result.setLatency(System.currentTimeMillis() - startTime);
+
+			Trial trial = new Trial();
+			trial.setTestCaseName(task.getTestCaseName());
+			trial.setBugFound(isBugFound);
+			trial.setMutatedLineNumber(rootCause.getLineNumber());
+			trial.setJumpSteps(jumpSteps);
+			trial.setTotalSteps(trace.size());
+			trial.setMutatedFile(task.getMutatedFile());
+			trial.setTime((int) result.getLatency());
+			trial.setResult(isBugFound ? Trial.SUCESS : Trial.FAIL);
+			result.setTrial(trial);
+		} finally {
+			Settings.setSessionState(null);
+		}
+		return result;
+	}
+
+	private String toJumpStep(GroundTruthOracle oracle, TraceNode node, String feedback) {
+		TraceNodePair pair = oracle.findPair(node);
+		String correspondingStr = (pair == null || pair.getOriginalNode() == null) ? ""
+				: pair.getOriginalNode().toString();
+		return node.toString() + ": " + feedback + " ... " + correspondingStr + "\n";
+	}
+
+	private void setCurrentNodeChecked(Trace trace, TraceNode currentNode) {
+		int checkTime = trace.getCheckTime() + 1;
+		currentNode.setCheckTime(checkTime);
+		trace.setCheckTime(checkTime);
+	}
+
+	private void updateVariableCheckTime(Trace trace, TraceNode currentNode) {
+		List<VarValue> vars = new ArrayList<>(currentNode.getReadVariables());
+		vars.addAll(currentNode.getWrittenVariables());
+		for (VarValue var : vars) {
+			String varID = var.getVarID();
+			if (Settings.getInterestedVariables().contains(varID)) {
+				Settings.getInterestedVariables().add(varID, trace.getCheckTime());
+			}
+		}
+	}
+
+	public void setLoopInferenceOptions(boolean... loopInferenceOptions) {
+		this.loopInferenceOptions = loopInferenceOptions;
+	}
+}
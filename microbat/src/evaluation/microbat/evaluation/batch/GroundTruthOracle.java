@@ -0,0 +1,94 @@
+package microbat.evaluation.batch;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import microbat.evaluation.SimulatedUser;
+import microbat.evaluation.model.OptionComparator;
+import microbat.evaluation.model.PairList;
+import microbat.evaluation.model.TraceNodePair;
+import microbat.model.trace.Trace;
+import microbat.model.trace.TraceNode;
+import microbat.model.value.VarValue;
+import microbat.recommendation.ChosenVariableOption;
+import microbat.recommendation.UserFeedback;
+import microbat.util.Settings;
+
+/**
+ * Give the feedback of an always-clear user on the mutated trace, according to the matched
+ * steps of the correct trace (same decision as {@link SimulatedUser}). The matched pairs and the
+ * wrong variable options of the visited steps are memoized, so that they are computed once per
+ * trace whatever the number of sessions run on it.
+ *
+ * The states of the recommender are not memoized: the node recommended in a state depends on
+ * the whole feedback history of the session (interested variables, correct patterns, loop
+ * range), so a cache keyed by trace, step and state would give wrong recommendations.
+ *
+ * @author LLT
+ */
+public class GroundTruthOracle {
+	private Trace mutatedTrace;
+	private TraceNode rootCause;
+	private Map<Integer, TraceNodePair> pairs = new HashMap<>();
+	private Map<Integer, List<ChosenVariableOption>> wrongVarOptions = new HashMap<>();
+
+	public GroundTruthOracle(Trace mutatedTrace, PairList pairList, TraceNode rootCause) {
+		this.mutatedTrace = mutatedTrace;
+		this.rootCause = rootCause;
+		for (TraceNodePair pair : pairList.getPairList()) {
+			int order = pair.getMutatedNode().getOrder();
+			if (!pairs.containsKey(order)) {
+				pairs.put(order, pair);
+			}
+		}
+	}
+
+	public boolean isRootCause(TraceNode node) {
+		return rootCause.getLineNumber() == node.getLineNumber();
+	}
+
+	public TraceNodePair findPair(TraceNode node) {
+		return pairs.get(node.getOrder());
+	}
+
+	/**
+	 * Note that, same as the simulated user, the wrong variables of the feedback are marked in
+	 * {@link Settings#getInterestedVariables()}.
+	 */
+	public UserFeedback feedback(TraceNode node, int checkTime) {
+		TraceNodePair pair = findPair(node);
+		if (pair == null) {
+			return new UserFeedback(UserFeedback.WRONG_PATH);
+		}
+
+		List<ChosenVariableOption> options = getWrongVariableOptions(node, pair);
+		if (options.isEmpty()) {
+			for (VarValue writtenVar : node.getWrittenVariables()) {
+				Settings.getInterestedVariables().remove(writtenVar.getVarID());
+			}
+			for (VarValue readVar : node.getReadVariables()) {
+				Settings.getInterestedVariables().remove(readVar.getVarID());
+			}
+			return new UserFeedback(UserFeedback.CORRECT);
+		}
+
+		ChosenVariableOption option = options.get(0);
+		for (String wrongVarID : option.getIncludedWrongVarID()) {
+			Settings.getInterestedVariables().add(wrongVarID, checkTime);
+		}
+		return new UserFeedback(option, UserFeedback.WRONG_VARIABLE_VALUE);
+	}
+
+	private synchronized List<ChosenVariableOption> getWrongVariableOptions(TraceNode node, TraceNodePair pair) {
+		List<ChosenVariableOption> options = wrongVarOptions.get(node.getOrder());
+		if (options == null) {
+			options = new ArrayList<>(SimulatedUser.checkWrongVariableOptions(pair, mutatedTrace));
+			Collections.sort(options, new OptionComparator());
+			wrongVarOptions.put(node.getOrder(), options);
+		}
+		return options;
+	}
+}
@@ -0,0 +1,99 @@
+package microbat.evaluation.batch;
+
+import microbat.evaluation.model.Trial;
+import microbat.recommendation.DebugState;
+
+/**
+ * The outcome of a batch localization session.
+ *
+ * @author LLT
+ */
+public class LocalizationResult {
+	private String testCaseName;
+	private String mutatedFile;
+	private boolean enableLoopInference;
+	private Trial trial;
+	/* in milliseconds, without waiting for other sessions */
+	private long latency;
+	/* number of recommendations made in each debug state, indexed by DebugState */
+	private int[] stateSteps = new int[DebugState.PARTIAL_CLEAR + 1];
+	private String error;
+
+	public LocalizationResult(String testCaseName, String mutatedFile, boolean enableLoopInference) {
+		this.testCaseName = testCaseName;
+		this.mutatedFile = mutatedFile;
+		this.enableLoopInference = enableLoopInference;
+	}
+
+	public void addStateStep(int state) {
+		if (state >= 0 && state < stateSteps.length) {
+			stateSteps[state]++;
+		}
+	}
+
+	public int getStepNum() {
+		return trial == null ? 0 : trial.getJumpSteps().size();
+	}
+
+	public boolean isBugFound() {
+		return trial != null && trial.isBugFound();
+	}
+
+	public String getTestCaseName() {
+		return testCaseName;
+	}
+
+	public String getMutatedFile() {
+		return mutatedFile;
+	}
+
+	public boolean isEnableLoopInference() {
+		return enableLoopInference;
+	}
+
+	public Trial getTrial() {
+		return trial;
+	}
+
+	public void setTrial(Trial trial) {
+		this.trial = trial;
+	}
+
+	public long getLatency() {
+		return latency;
+	}
+
+	public void setLatency(long latency) {
+		this.latency = latency;
+	}
+
+	public int[] getStateSteps() {
+		return stateSteps;
+	}
+
+	public String getError() {
+		return error;
+	}
+
+	public void setError(String error) {
+		this.error = error;
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder sb = new StringBuilder();
+		sb.append(testCaseName).append(", ").append(mutatedFile).append(", loop inference: ")
+				.append(enableLoopInference);
+		if (error != null) {
+			return sb.append(", error: ").append(error).toString();
+		}
+		sb.append(", bug found: ").append(isBugFound()).append(", steps: ").append(getStepNum())
+				.append(", latency: ").append(latency).append("ms");
+		for (int state = 0; state < stateSteps.length; state++) {
+			if (stateSteps[state] > 0) {
+				sb.append(", ").append(DebugState.printState(state)).append(": ").append(stateSteps[state]);
+			}
+		}
+		return sb.toString();
+	}
+}
@@ -0,0 +1,47 @@
+package microbat.evaluation.batch;
+
+import microbat.model.trace.Trace;
+import sav.strategies.dto.ClassLocation;
+
+/**
+ * A regression to be localized in batch mode: the buggy (mutated) trace, the trace of the
+ * correct version and the location of the bug.
+ *
+ * @author LLT
+ */
+public class LocalizationTask {
+	private Trace mutatedTrace;
+	private Trace correctTrace;
+	private ClassLocation mutatedLocation;
+	private String testCaseName;
+	private String mutatedFile;
+
+	public LocalizationTask(Trace mutatedTrace, Trace correctTrace, ClassLocation mutatedLocation,
+			String testCaseName, String mutatedFile) {
+		this.mutatedTrace = mutatedTrace;
+		this.correctTrace = correctTrace;
+		this.mutatedLocation = mutatedLocation;
+		this.testCaseName = testCaseName;
+		this.mutatedFile = mutatedFile;
+	}
+
+	public Trace getMutatedTrace() {
+		return mutatedTrace;
+	}
+
+	public Trace getCorrectTrace() {
+		return correctTrace;
+	}
+
+	public ClassLocation getMutatedLocation() {
+		return mutatedLocation;
+	}
+
+	public String getTestCaseName() {
+		return testCaseName;
+	}
+
+	public String getMutatedFile() {
+		return mutatedFile;
+	}
+}
@@ -45,8 +45,9 @@ public class EvaluationAllHandler extends AbstractHandler {
 				
 				TestCaseAnalyzer analyzer = new TestCaseAnalyzer();
 				
+				ExcelReporter reporter = null;
 				try {
-					ExcelReporter reporter = new ExcelReporter(Settings.projectName, unclearRates);
+					reporter = new ExcelReporter(Settings.projectName, unclearRates);
 					IPackageFragmentRoot testRoot = JavaUtil.findTestPackageRootInProject();
 					
 					for(IJavaElement element: testRoot.getChildren()){
@@ -58,6 +59,10 @@ public class EvaluationAllHandler extends AbstractHandler {
 					}
 				} catch (JavaModelException | IOException e) {
 					e.printStackTrace();
+				} finally {
+					if (reporter != null) {
+						reporter.close();
+					}
 				}
 				
 				
@@ -39,8 +39,9 @@ public class EvaluationTestCaseHandler extends AbstractHandler {
 			@Override
 			protected IStatus run(IProgressMonitor monitor) {
 				TestCaseAnalyzer analyzer = new TestCaseAnalyzer();
+				ExcelReporter reporter = null;
 				try {
-					ExcelReporter reporter = new ExcelReporter(Settings.projectName, unclearRates);
+					reporter = new ExcelReporter(Settings.projectName, unclearRates);
 //					String testCase = "org.apache.commons.math.analysis.ComposableFunctionTest#testCollector";
 					String testCase = "org.apache.commons.math.linear.SparseFieldMatrixTest#testScalarAdd";
 					
@@ -50,6 +51,10 @@ public class EvaluationTestCaseHandler extends AbstractHandler {
 							ignoredTestCaseFiles, parsedTrials, trialNumPerTestCase, unclearRates, optionSearchLimit, monitor);
 				} catch (JavaModelException | IOException e) {
 					e.printStackTrace();
+				} finally {
+					if (reporter != null) {
+						reporter.close();
+					}
 				}
 				return Status.OK_STATUS;
 			}
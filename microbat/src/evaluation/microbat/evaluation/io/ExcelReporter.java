@@ -11,20 +11,29 @@ import java.util.List;
 
 import org.apache.poi.ss.usermodel.Row;
 import org.apache.poi.ss.usermodel.Sheet;
-import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
 import org.apache.poi.xssf.usermodel.XSSFWorkbook;
 
 import microbat.evaluation.model.Trial;
 
+/**
+ * Rows are streamed into a {@link SXSSFWorkbook} which keeps only the last {@link #ROW_WINDOW}
+ * rows in memory. The workbook is written every {@link #FLUSH_INTERVAL} trials, when the file is
+ * full (and the report continues in a new file) and when the reporter is closed, so that a killed
+ * run loses at most the trials of the last interval.
+ */
 public class ExcelReporter {
+	private static final int ROW_WINDOW = 100;
+	private static final int FLUSH_INTERVAL = 20;
 	
 	private File file;
 	private Sheet sheet;
-	private Workbook book;
+	private SXSSFWorkbook book;
 	private int lastRowNum = 1;
 	
 	private int filePage = 0;
 	private int trialNumberLimitPerFile = 3000;
+	private int unsavedRows = 0;
 	
 	private double[] unclearRates;
 	private String projectName;
@@ -37,17 +46,16 @@ public class ExcelReporter {
 		file = new File(fileName);
 		
 		while(file.exists()){
-			InputStream excelFileToRead = new FileInputStream(file);
-			book = new XSSFWorkbook(excelFileToRead);
-			sheet = book.getSheetAt(0);
+			XSSFWorkbook existingBook = readExcel(file);
 			
-			lastRowNum = sheet.getPhysicalNumberOfRows();
+			lastRowNum = existingBook.getSheetAt(0).getPhysicalNumberOfRows();
 			if(lastRowNum > trialNumberLimitPerFile){
 				filePage++;
 				fileName = projectName + filePage + ".xlsx";
 				file = new File(fileName);
 			}
 			else{
+				openExistingExcel(existingBook);
 				break;
 			}
 		}
@@ -57,10 +65,27 @@ public class ExcelReporter {
 		}
 	}
 
+	private XSSFWorkbook readExcel(File file) throws IOException {
+		InputStream excelFileToRead = new FileInputStream(file);
+		try {
+			return new XSSFWorkbook(excelFileToRead);
+		} finally {
+			excelFileToRead.close();
+		}
+	}
+
+	/**
+	 * new rows are streamed after the existing ones.
+	 */
+	private void openExistingExcel(XSSFWorkbook existingBook) {
+		book = new SXSSFWorkbook(existingBook, ROW_WINDOW);
+		sheet = book.getSheetAt(0);
+	}
+
 	private void initializeNewExcel() {
 		lastRowNum = 1;
 		
-		book = new XSSFWorkbook();
+		book = new SXSSFWorkbook(ROW_WINDOW);
 		sheet = book.createSheet("data");
 		
 		List<String> titles = new ArrayList<>();
@@ -101,17 +126,50 @@ public class ExcelReporter {
 		
 		fillRowInformation(row, trialList);
 		
-		writeToExcel(book, file.getName());
-        
         lastRowNum++;
+        unsavedRows++;
         
         if(lastRowNum > trialNumberLimitPerFile){
+        	writeToExcel(book, file.getName());
+        	
         	filePage++;
         	String fileName = projectName + filePage + ".xlsx";
 			file = new File(fileName);
 			
 			initializeNewExcel();
         }
+        else if(unsavedRows >= FLUSH_INTERVAL){
+        	flush();
+        }
+	}
+	
+	/**
+	 * a streamed workbook can only be written once, so it is written and then reopened from
+	 * the file to take the next rows.
+	 */
+	private void flush() {
+		writeToExcel(book, file.getName());
+		try {
+			openExistingExcel(readExcel(file));
+		} catch (IOException e) {
+			e.printStackTrace();
+			/* the written file cannot be reopened, continue in a new one */
+			filePage++;
+			file = new File(projectName + filePage + ".xlsx");
+			initializeNewExcel();
+		}
+	}
+	
+	/**
+	 * write the rows which are not saved yet.
+	 */
+	public void close() {
+		if(unsavedRows > 0){
+			writeToExcel(book, file.getName());
+		}
+		else{
+			book.dispose();
+		}
 	}
 
 	private void fillRowInformation(Row row, List<Trial> trialList) {
@@ -140,16 +198,35 @@ public class ExcelReporter {
 		}
 	}
 	
-	private void writeToExcel(Workbook book, String fileName){
+	/**
+	 * the workbook is written to a temporary file first, so that a run killed while writing
+	 * keeps the previous version of the file.
+	 */
+	private void writeToExcel(SXSSFWorkbook book, String fileName){
 		try {
-			FileOutputStream fileOut = new FileOutputStream(fileName);
-			book.write(fileOut); 
-			fileOut.close(); 
+			File tmpFile = new File(fileName + ".tmp");
+			FileOutputStream fileOut = new FileOutputStream(tmpFile);
+			try {
+				book.write(fileOut);
+			} finally {
+				fileOut.close();
+			}
+			File target = new File(fileName);
+			if(!tmpFile.renameTo(target)){
+				/* rename does not replace an existing file on every platform */
+				target.delete();
+				if(!tmpFile.renameTo(target)){
+					throw new IOException("Cannot replace " + fileName + " with " + tmpFile.getName());
+				}
+			}
+			unsavedRows = 0;
 		} catch (FileNotFoundException e) {
 			e.printStackTrace();
 		} catch (IOException e) {
 			e.printStackTrace();
-		} 
+		} finally {
+			book.dispose();
+		}
 	}
 
 //	public void export(Trial clearLoopTrial, Trial unclearLoopTrial, 
@@ -120,6 +120,55 @@ public class TraceAgentRunner extends AgentVmRunner {
 		return true;
 	}
 
+	/**
+	 * single run: trace the program and get precheck info as a by-product.
+	 * If the precheck verdict is over long, the agent stops early and no trace is collected
+	 * (getRunningInfo() returns null), unless adaptive recording keeps the partial trace.
+	 */
+	public boolean runWithPrecheck(String filePath) throws SavException {
+		isPrecheckMode = false;
+		precheckInfo = null;
+		runningInfo = null;
+		StopTimer timer = new StopTimer("Precheck & Building trace");
+		timer.newPoint("Execution");
+		try {
+			File precheckFile = File.createTempFile("tracePrecheck", ".info");
+			File dumpFile;
+			if (filePath == null) {
+				dumpFile = File.createTempFile("trace", ".exec");
+				dumpFile.deleteOnExit();
+			} else {
+				dumpFile = FileUtils.getFileCreateIfNotExist(filePath);
+			}
+			addAgentParam(AgentParams.OPT_PRECHECK_DUMP_FILE, precheckFile.getPath());
+			addAgentParam(AgentParams.OPT_DUMP_FILE, dumpFile.getPath());
+			super.startAndWaitUntilStop(getConfig());
+			if (this.isProcessTimeout()) {
+				precheckFile.delete();
+				return false;
+			}
+			System.out.println("|");
+			timer.newPoint("Read output result");
+			precheckInfo = PrecheckInfo.readFromFile(precheckFile.getPath());
+			precheckFile.delete();
+			if (precheckInfo == null) {
+				return false;
+			}
+			updateTestResult(precheckInfo.getProgramMsg());
+			if (!precheckInfo.isOverLong()
+					|| Boolean.valueOf(getAgentParam(AgentParams.OPT_ADAPTIVE_RECORDING))) {
+				runningInfo = RunningInfo.readFromFile(dumpFile);
+			}
+		} catch (IOException e) {
+			e.printStackTrace();
+			throw new SavRtException(e);
+		} finally {
+			removeAgentParam(AgentParams.OPT_PRECHECK_DUMP_FILE);
+		}
+		System.out.println(timer.getResultString());
+		return true;
+	}
+
 	public boolean runWithSocket() throws SavException {
 		isPrecheckMode = false;
 		try {
@@ -194,7 +243,7 @@ public class TraceAgentRunner extends AgentVmRunner {
 		}
 	}
 
-	private void updateTestResult(String msg) {
+	protected void updateTestResult(String msg) {
 		if (msg == null || msg.isEmpty()) {
 			unknownTestResult = true;
 			return;
@@ -223,8 +272,12 @@ public class TraceAgentRunner extends AgentVmRunner {
 		return runningInfo;
 	}
 	
+	protected void setRunningInfo(RunningInfo runningInfo) {
+		this.runningInfo = runningInfo;
+	}
+	
 	public PrecheckInfo getPrecheckInfo() {
-		if (!isPrecheckMode) {
+		if (!isPrecheckMode && precheckInfo == null) {
 			throw new UnsupportedOperationException("TraceAgent has not been run in precheck mode!");
 		}
 		return precheckInfo;
@@ -0,0 +1,178 @@
+package microbat.agent;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.util.List;
+
+import microbat.instrumentation.AgentParams;
+import microbat.instrumentation.output.RunningInfo;
+import sav.common.core.SavException;
+import sav.common.core.SavRtException;
+import sav.strategies.vm.VMConfiguration;
+import sav.strategies.vm.VMRunner;
+
+/**
+ * @author LLT
+ * 
+ * A trace agent vm which is kept alive to trace a sequence of testcases.
+ * The vm is started with MicroBatWorkerTestRunner as launch class and the agent in worker mode,
+ * each testcase request is sent through a socket, and the trace is read from the dump file
+ * which is overwritten by the agent at the end of each testcase.
+ * If the vm dies (ex: the trace is over long and the agent forces the program to exit),
+ * or a testcase times out, the worker is not alive anymore and must be replaced.
+ * The classes loaded by the vm are stale once the class files on its classpath are changed
+ * (ex: by mutation), then the worker must be replaced as well.
+ */
+public class TraceWorker extends TraceAgentRunner {
+	public static final String WORKER_RUNNER_CLASS = "microbat.evaluation.junit.MicroBatWorkerTestRunner";
+	private static final String EXIT_REQUEST = "exit";
+	private static final String DONE_RESPONSE = "done";
+	private static final int CONNECT_TIMEOUT = 60000;
+	
+	private Socket socket;
+	private BufferedReader reader;
+	private PrintWriter writer;
+	private File dumpFile;
+	private long testTimeout = VMRunner.NO_TIME_OUT;
+	private boolean testTimedOut = false;
+	private long classPathStamp;
+	
+	public TraceWorker(String agentJar, VMConfiguration vmConfig) {
+		super(agentJar, vmConfig);
+	}
+	
+	public void start() throws SavException {
+		ServerSocket serverSocket = null;
+		try {
+			dumpFile = File.createTempFile("traceWorker", ".exec");
+			dumpFile.deleteOnExit();
+			serverSocket = new ServerSocket(VMConfiguration.findFreePort());
+			serverSocket.setSoTimeout(CONNECT_TIMEOUT);
+			VMConfiguration config = getConfig();
+			config.setLaunchClass(WORKER_RUNNER_CLASS);
+			config.getProgramArgs().clear();
+			config.addProgramArgs(String.valueOf(serverSocket.getLocalPort()));
+			addAgentParam(AgentParams.OPT_WORKER_MODE, true);
+			addAgentParam(AgentParams.OPT_DUMP_FILE, dumpFile.getPath());
+			removeAgentParam(AgentParams.OPT_EXPECTED_STEP);
+			classPathStamp = getClassPathStamp(config.getClasspaths());
+			super.startVm(config);
+			socket = serverSocket.accept();
+			reader = new BufferedReader(new InputStreamReader(socket.getInputStream()));
+			writer = new PrintWriter(socket.getOutputStream(), true);
+		} catch (IOException e) {
+			e.printStackTrace();
+			stopWorker();
+			throw new SavRtException(e);
+		} finally {
+			if (serverSocket != null) {
+				try {
+					serverSocket.close();
+				} catch (IOException e) {
+					// ignore
+				}
+			}
+		}
+	}
+	
+	/**
+	 * @return the trace result of the testcase, 
+	 * or null if the worker vm died or timed out while running the testcase.
+	 */
+	public RunningInfo runTest(String className, String methodName) {
+		testTimedOut = false;
+		if (!isAlive()) {
+			return null;
+		}
+		try {
+			socket.setSoTimeout(testTimeout == VMRunner.NO_TIME_OUT ? 0 : (int) testTimeout);
+			writer.println(className + " " + methodName);
+			String response = reader.readLine();
+			if (!DONE_RESPONSE.equals(response)) {
+				stopWorker();
+				return null;
+			}
+			RunningInfo runningInfo = RunningInfo.readFromFile(dumpFile);
+			setRunningInfo(runningInfo);
+			updateTestResult(runningInfo.getProgramMsg());
+			return runningInfo;
+		} catch (SocketTimeoutException e) {
+			System.out.println("testcase timeout, stop worker!");
+			testTimedOut = true;
+			stopWorker();
+			return null;
+		} catch (IOException e) {
+			e.printStackTrace();
+			stopWorker();
+			return null;
+		}
+	}
+	
+	/**
+	 * the vm is kept alive between testcases, so the timeout is applied to each testcase
+	 * instead of the whole vm.
+	 */
+	@Override
+	public void setTimeout(long timeout) {
+		this.testTimeout = timeout;
+	}
+	
+	public boolean isTestTimedOut() {
+		return testTimedOut;
+	}
+	
+	public boolean isClassPathChanged() {
+		return classPathStamp != getClassPathStamp(getConfig().getClasspaths());
+	}
+	
+	private static long getClassPathStamp(List<String> classpaths) {
+		long stamp = 0;
+		for (String classpath : classpaths) {
+			stamp += getStamp(new File(classpath));
+		}
+		return stamp;
+	}
+	
+	private static long getStamp(File file) {
+		if (!file.isDirectory()) {
+			return file.lastModified() * 31 + file.length();
+		}
+		long stamp = 0;
+		File[] children = file.listFiles();
+		if (children != null) {
+			for (File child : children) {
+				stamp += getStamp(child);
+			}
+		}
+		return stamp;
+	}
+	
+	public boolean isAlive() {
+		return socket != null && !socket.isClosed() && getProcess() != null && isProcessRunning();
+	}
+	
+	public void stopWorker() {
+		if (writer != null) {
+			writer.println(EXIT_REQUEST);
+		}
+		if (socket != null) {
+			try {
+				socket.close();
+			} catch (IOException e) {
+				// ignore
+			}
+		}
+		if (getProcess() != null) {
+			stop();
+		}
+		if (dumpFile != null) {
+			dumpFile.delete();
+		}
+	}
+}
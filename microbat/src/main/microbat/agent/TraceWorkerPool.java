@@ -0,0 +1,70 @@
+package microbat.agent;
+
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * @author LLT
+ * 
+ * Keeps warm trace workers between tracing requests, workers are grouped by 
+ * their launch configuration key (classpath, java home, agent filters...) 
+ * so that a worker is only reused for the same program.
+ * A worker is dropped once the class files of the program are changed.
+ */
+public class TraceWorkerPool {
+	public static final int DEFAULT_MAX_IDLE_WORKERS = 2;
+	private Map<String, LinkedList<TraceWorker>> idleWorkers = new HashMap<>();
+	private int maxIdleWorkersPerKey;
+	
+	public TraceWorkerPool() {
+		this(DEFAULT_MAX_IDLE_WORKERS);
+	}
+	
+	public TraceWorkerPool(int maxIdleWorkersPerKey) {
+		this.maxIdleWorkersPerKey = maxIdleWorkersPerKey;
+	}
+
+	/**
+	 * @return an alive idle worker for the given key, which has loaded the current class files,
+	 * or null if there is none. 
+	 */
+	public synchronized TraceWorker take(String key) {
+		LinkedList<TraceWorker> workers = idleWorkers.get(key);
+		while (workers != null && !workers.isEmpty()) {
+			TraceWorker worker = workers.removeFirst();
+			if (worker.isAlive() && !worker.isClassPathChanged()) {
+				return worker;
+			}
+			worker.stopWorker();
+		}
+		return null;
+	}
+	
+	public synchronized void giveBack(String key, TraceWorker worker) {
+		if (!worker.isAlive()) {
+			worker.stopWorker();
+			return;
+		}
+		LinkedList<TraceWorker> workers = idleWorkers.get(key);
+		if (workers == null) {
+			workers = new LinkedList<>();
+			idleWorkers.put(key, workers);
+		}
+		if (workers.size() >= maxIdleWorkersPerKey) {
+			worker.stopWorker();
+		} else {
+			workers.add(worker);
+		}
+	}
+	
+	public synchronized void shutdown() {
+		for (List<TraceWorker> workers : idleWorkers.values()) {
+			for (TraceWorker worker : workers) {
+				worker.stopWorker();
+			}
+		}
+		idleWorkers.clear();
+	}
+}
@@ -10,6 +10,8 @@ import org.eclipse.jdt.core.dom.TypeDeclaration;
 public class LocalVariableScope {
 	private String variableName;
 	private ASTNode scope;
+	private int startLine = -1;
+	private int endLine = -1;
 
 	public LocalVariableScope(String variableName, ASTNode scope) {
 		super();
@@ -52,16 +54,20 @@ public class LocalVariableScope {
 	}
 	
 	public int getStartLine(){
-		CompilationUnit cu = getCompilationUnit();
-		int startPosition = this.scope.getStartPosition();
-		int startLine = cu.getLineNumber(startPosition);
+		if(startLine < 0){
+			CompilationUnit cu = getCompilationUnit();
+			int startPosition = this.scope.getStartPosition();
+			startLine = cu.getLineNumber(startPosition);
+		}
 		return startLine;
 	}
 	
 	public int getEndLine(){
-		CompilationUnit cu = getCompilationUnit();
-		int startPosition = this.scope.getStartPosition();
-		int endLine = cu.getLineNumber(startPosition + this.scope.getLength());
+		if(endLine < 0){
+			CompilationUnit cu = getCompilationUnit();
+			int startPosition = this.scope.getStartPosition();
+			endLine = cu.getLineNumber(startPosition + this.scope.getLength());
+		}
 		return endLine;
 	}
 
@@ -103,6 +109,8 @@ public class LocalVariableScope {
 
 	public void setScope(Block scope) {
 		this.scope = scope;
+		this.startLine = -1;
+		this.endLine = -1;
 	}
 
 }
@@ -1,49 +1,186 @@
 package microbat.codeanalysis.ast;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Stack;
 
 public class LocalVariableScopes {
 	private List<LocalVariableScope> variableScopes = new ArrayList<>();
+	/* class name -> variable name -> scopes of the variable, built on the first lookup */
+	private volatile Map<String, Map<String, ScopeIntervals>> scopeIndex;
 
+	/**
+	 * the returned list can be modified, the lookup index is rebuilt on the next lookup.
+	 */
 	public List<LocalVariableScope> getVariableScopes() {
+		scopeIndex = null;
 		return variableScopes;
 	}
 
 	public void setVariableScopes(List<LocalVariableScope> variableScopes) {
 		this.variableScopes = variableScopes;
+		scopeIndex = null;
 	}
-	
+
+	/**
+	 * @return the innermost scope of the variable which contains the line. If the same range is
+	 *         declared more than once, the last one in the scope list. If the line is in two
+	 *         scopes which are not nested in each other (sibling blocks sharing their boundary
+	 *         line, e.g. <code>} else {</code>), the first one in the scope list, i.e. the
+	 *         enclosing block declared first in the source. This is the result of the linear scan
+	 *         used before the index.
+	 */
 	public LocalVariableScope findScope(String variableName, int appearedLineNum, String fullQualifiedTypeName){
-		LocalVariableScope candScope = null;
-		
-		
-		for(LocalVariableScope scope: variableScopes){
-//			AbstractTypeDeclaration td = (AbstractTypeDeclaration) scope.getCompilationUnit().types().get(0);
-//			String packageName = scope.getCompilationUnit().getPackage().getName().getFullyQualifiedName();
-//			String simpleName = td.getName().getIdentifier();
-//			String typeName = packageName + "." + simpleName;
+		Map<String, Map<String, ScopeIntervals>> index = scopeIndex;
+		if (index == null) {
+			index = buildIndex();
+		}
+		Map<String, ScopeIntervals> classScopes = index.get(fullQualifiedTypeName);
+		if (classScopes == null) {
+			return null;
+		}
+		ScopeIntervals intervals = classScopes.get(variableName);
+		if (intervals == null) {
+			return null;
+		}
+		return intervals.find(appearedLineNum);
+	}
+
+	private synchronized Map<String, Map<String, ScopeIntervals>> buildIndex() {
+		if (scopeIndex != null) {
+			return scopeIndex;
+		}
+		Map<String, Map<String, List<LocalVariableScope>>> groups = new HashMap<>();
+		for (LocalVariableScope scope : variableScopes) {
 			String typeName = scope.getFullNameOfContainingClass();
-			
-			if(typeName.equals(fullQualifiedTypeName) && scope.getVariableName().equals(variableName) &&
-					appearedLineNum >= scope.getStartLine() && appearedLineNum <= scope.getEndLine()){
-				
-				if(candScope == null){
-					candScope = scope;					
-				}
-				else{
-					if(candScope.getStartLine()<=scope.getStartLine() && candScope.getEndLine()>=scope.getEndLine()){
-						candScope = scope;
-					}
-				}
+			Map<String, List<LocalVariableScope>> classGroups = groups.get(typeName);
+			if (classGroups == null) {
+				classGroups = new HashMap<>();
+				groups.put(typeName, classGroups);
+			}
+			List<LocalVariableScope> scopes = classGroups.get(scope.getVariableName());
+			if (scopes == null) {
+				scopes = new ArrayList<>();
+				classGroups.put(scope.getVariableName(), scopes);
 			}
+			scopes.add(scope);
 		}
-		
-		return candScope;
+		Map<String, Map<String, ScopeIntervals>> index = new HashMap<>();
+		for (String typeName : groups.keySet()) {
+			Map<String, ScopeIntervals> classScopes = new HashMap<>();
+			Map<String, List<LocalVariableScope>> classGroups = groups.get(typeName);
+			for (String variableName : classGroups.keySet()) {
+				classScopes.put(variableName, new ScopeIntervals(classGroups.get(variableName)));
+			}
+			index.put(typeName, classScopes);
+		}
+		scopeIndex = index;
+		return index;
 	}
 
 	public void clear() {
 		this.variableScopes.clear();
-		
+		scopeIndex = null;
+	}
+
+	/**
+	 * Scopes of a variable sorted by start line (then by end line, descending). Local variable
+	 * scopes are blocks, so they are mostly either nested or disjoint, and each scope keeps the
+	 * index of its innermost enclosing scope. The innermost scope containing a line is then found
+	 * from the last scope starting before the line by following the enclosing scopes.
+	 * <p>
+	 * Sibling blocks can still share a line (e.g. <code>} else {</code>), then the scopes overlap
+	 * without being nested, and the lookup falls back to the linear scan of the scopes in list
+	 * order, which keeps the tie rule of {@link LocalVariableScopes#findScope}.
+	 */
+	private static class ScopeIntervals {
+		private List<LocalVariableScope> scopeList;
+		private boolean nested = true;
+		private LocalVariableScope[] scopes;
+		private int[] startLines;
+		private int[] endLines;
+		private int[] parents;
+
+		public ScopeIntervals(List<LocalVariableScope> scopeList) {
+			this.scopeList = scopeList;
+			int size = scopeList.size();
+			final int[] startLineList = new int[size];
+			final int[] endLineList = new int[size];
+			List<Integer> order = new ArrayList<>(size);
+			for (int i = 0; i < size; i++) {
+				startLineList[i] = scopeList.get(i).getStartLine();
+				endLineList[i] = scopeList.get(i).getEndLine();
+				order.add(i);
+			}
+			/* stable, scopes with the same range keep their order in the list */
+			Collections.sort(order, new Comparator<Integer>() {
+
+				@Override
+				public int compare(Integer o1, Integer o2) {
+					if (startLineList[o1] != startLineList[o2]) {
+						return Integer.compare(startLineList[o1], startLineList[o2]);
+					}
+					return Integer.compare(endLineList[o2], endLineList[o1]);
+				}
+			});
+			scopes = new LocalVariableScope[size];
+			startLines = new int[size];
+			endLines = new int[size];
+			parents = new int[size];
+			Stack<Integer> enclosing = new Stack<>();
+			for (int i = 0; i < size; i++) {
+				int idx = order.get(i);
+				scopes[i] = scopeList.get(idx);
+				startLines[i] = startLineList[idx];
+				endLines[i] = endLineList[idx];
+				while (!enclosing.isEmpty() && endLines[enclosing.peek()] < startLines[i]) {
+					enclosing.pop();
+				}
+				if (!enclosing.isEmpty() && endLines[enclosing.peek()] < endLines[i]) {
+					nested = false;
+				}
+				parents[i] = enclosing.isEmpty() ? -1 : enclosing.peek();
+				enclosing.push(i);
+			}
+		}
+
+		public LocalVariableScope find(int line) {
+			if (!nested) {
+				return scan(line);
+			}
+			int low = 0;
+			int high = startLines.length - 1;
+			int idx = -1;
+			while (low <= high) {
+				int mid = (low + high) >>> 1;
+				if (startLines[mid] <= line) {
+					idx = mid;
+					low = mid + 1;
+				} else {
+					high = mid - 1;
+				}
+			}
+			while (idx >= 0 && endLines[idx] < line) {
+				idx = parents[idx];
+			}
+			return idx < 0 ? null : scopes[idx];
+		}
+
+		private LocalVariableScope scan(int line) {
+			LocalVariableScope candScope = null;
+			for (LocalVariableScope scope : scopeList) {
+				if (line >= scope.getStartLine() && line <= scope.getEndLine()) {
+					if (candScope == null || (candScope.getStartLine() <= scope.getStartLine()
+							&& candScope.getEndLine() >= scope.getEndLine())) {
+						candScope = scope;
+					}
+				}
+			}
+			return candScope;
+		}
 	}
 }
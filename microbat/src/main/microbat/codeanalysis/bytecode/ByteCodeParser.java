@@ -1,41 +1,73 @@
 package microbat.codeanalysis.bytecode;
 
 import java.io.File;
+import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.List;
 
 import org.apache.bcel.Repository;
+import org.apache.bcel.classfile.ClassParser;
 import org.apache.bcel.classfile.DescendingVisitor;
 import org.apache.bcel.classfile.JavaClass;
+import org.apache.bcel.util.ClassPath;
 import org.apache.bcel.util.SyntheticRepository;
 
 import sav.strategies.dto.AppJavaClassPath;
 
 public class ByteCodeParser{
-	public static JavaClass parse(String className, AppJavaClassPath appClassPath) {
+	/**
+	 * the same class path as the one used by {@link #parse(String, AppJavaClassPath)}, to be
+	 * reused with {@link #parse(String, ClassPath)}.
+	 */
+	public static ClassPath0 createClassPath(AppJavaClassPath appClassPath) {
 		String originalSystemClassPath = System.getProperty("java.class.path");
-		String[] paths = originalSystemClassPath.split(File.pathSeparator);
-		
-		try{
-			List<String> pathList = new ArrayList<>();
-			for(String path: paths){
-				pathList.add(path);
+		List<String> pathList = new ArrayList<>();
+		for (String path : originalSystemClassPath.split(File.pathSeparator)) {
+			pathList.add(path);
+		}
+		StringBuffer buffer = new StringBuffer(originalSystemClassPath);
+		for (String classPath : appClassPath.getClasspaths()) {
+			if (!pathList.contains(classPath)) {
+				buffer.append(File.pathSeparator + classPath);
 			}
-			
-			StringBuffer buffer = new StringBuffer(originalSystemClassPath);
-			for(String classPath: appClassPath.getClasspaths()){
-				if(!pathList.contains(classPath)){
-					buffer.append(File.pathSeparator + classPath);				
+		}
+		buffer.append(File.pathSeparator);
+		buffer.append(appClassPath.getJavaHome() + File.separator + "jre" + File.separator + "lib" + File.separator
+				+ "rt.jar");
+		return new ClassPath0(buffer.toString());
+	}
+	
+	/**
+	 * read the class file directly from the given class path, without the global class path
+	 * property and BCEL repository, so classes can be parsed in parallel.
+	 * 
+	 * @return null if the class cannot be read.
+	 */
+	public static JavaClass parse(String className, ClassPath classPath) {
+		InputStream in = null;
+		try {
+			in = classPath.getInputStream(className.replace('.', '/'), ".class");
+			return new ClassParser(in, className).parse();
+		} catch (Exception e) {
+			return null;
+		} finally {
+			if (in != null) {
+				try {
+					in.close();
+				} catch (Exception e) {
+					// ignore
 				}
 			}
-			buffer.append(File.pathSeparator);
-			String jdkPath = appClassPath.getJavaHome() + File.separator + "jre" + 
-					File.separator + "lib" + File.separator + "rt.jar";
-			buffer.append(jdkPath);
-			System.setProperty("java.class.path", buffer.toString());
-			String s = System.getProperty("java.class.path");
-			
-			ClassPath0 classPath = new ClassPath0(s);
+		}
+	}
+	
+	/* the class path property and the BCEL repository are global, parsing is done one class at a time. */
+	public static synchronized JavaClass parse(String className, AppJavaClassPath appClassPath) {
+		String originalSystemClassPath = System.getProperty("java.class.path");
+		
+		try{
+			ClassPath0 classPath = createClassPath(appClassPath);
+			System.setProperty("java.class.path", classPath.toString());
 			Repository.setRepository(SyntheticRepository.getInstance(classPath));
 			
 			JavaClass clazz = Repository.lookupClass(className);
@@ -51,30 +83,12 @@ public class ByteCodeParser{
 		return null;
 	}
 	
-	public static void parse(String className, ByteCodeVisitor visitor, AppJavaClassPath appClassPath){
+	public static synchronized void parse(String className, ByteCodeVisitor visitor, AppJavaClassPath appClassPath){
 		String originalSystemClassPath = System.getProperty("java.class.path");
-		String[] paths = originalSystemClassPath.split(File.pathSeparator);
 		
 		try{
-			List<String> pathList = new ArrayList<>();
-			for(String path: paths){
-				pathList.add(path);
-			}
-			
-			StringBuffer buffer = new StringBuffer(originalSystemClassPath);
-			for(String classPath: appClassPath.getClasspaths()){
-				if(!pathList.contains(classPath)){
-					buffer.append(File.pathSeparator + classPath);				
-				}
-			}
-			buffer.append(File.pathSeparator);
-			String jdkPath = appClassPath.getJavaHome() + File.separator + "jre" + 
-					File.separator + "lib" + File.separator + "rt.jar";
-			buffer.append(jdkPath);
-			System.setProperty("java.class.path", buffer.toString());
-			String s = System.getProperty("java.class.path");
-			
-			ClassPath0 classPath = new ClassPath0(s);
+			ClassPath0 classPath = createClassPath(appClassPath);
+			System.setProperty("java.class.path", classPath.toString());
 			Repository.setRepository(SyntheticRepository.getInstance(classPath));
 //			Repository.clearCache();
 			JavaClass clazz = Repository.lookupClass(className);
@@ -1,6 +1,7 @@
 package microbat.codeanalysis.bytecode;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 import org.apache.bcel.classfile.Code;
@@ -9,6 +10,8 @@ import org.apache.bcel.generic.InstructionHandle;
 
 public class CFG {
 	private List<CFGNode> nodeList = new ArrayList<>();
+	/* nodes indexed by their bytecode offset */
+	private CFGNode[] offsetIndex;
 	private CFGNode startNode;
 	private List<CFGNode> exitList = new ArrayList<>();
 	
@@ -17,6 +20,7 @@ public class CFG {
 	public CFG(Code code) {
 		super();
 		this.code = code;
+		this.offsetIndex = new CFGNode[code == null ? 16 : code.getCode().length];
 	}
 
 	public int getLineNumber(CFGNode node){
@@ -45,13 +49,22 @@ public class CFG {
 	}
 	
 	public void addNode(CFGNode node){
-		if(!this.nodeList.contains(node)){
-			this.nodeList.add(node);			
+		if(!contains(node)){
+			this.nodeList.add(node);
+			putOffsetIndex(node);
 		}
 	}
 	
 	public boolean contains(CFGNode node){
-		return this.nodeList.contains(node);
+		return findNode(node.getInstructionHandle().getPosition()) != null;
+	}
+	
+	private void putOffsetIndex(CFGNode node) {
+		int offset = node.getInstructionHandle().getPosition();
+		if (offset >= offsetIndex.length) {
+			offsetIndex = Arrays.copyOf(offsetIndex, Math.max(offset + 1, offsetIndex.length * 2));
+		}
+		offsetIndex[offset] = node;
 	}
 	
 	/**
@@ -66,27 +79,21 @@ public class CFG {
 		if(node == null){
 			node = new CFGNode(handle);
 			this.nodeList.add(node);
+			putOffsetIndex(node);
 		}
 		
 		return node;
 	}
 	
 	public CFGNode findNode(InstructionHandle handle){
-		for(CFGNode node: this.nodeList){
-			if(node.getInstructionHandle().getPosition() == handle.getPosition()){
-				return node;
-			}
-		}
-		return null;
+		return findNode(handle.getPosition());
 	}
 	
 	public CFGNode findNode(int offset){
-		for(CFGNode node: this.nodeList){
-			if(node.getInstructionHandle().getPosition() == offset){
-				return node;
-			}
+		if(offset < 0 || offset >= offsetIndex.length){
+			return null;
 		}
-		return null;
+		return offsetIndex[offset];
 	}
 
 	public int size() {
@@ -1,7 +1,6 @@
 package microbat.codeanalysis.bytecode;
 
 import java.util.ArrayList;
-import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 
@@ -14,10 +13,6 @@ import org.apache.bcel.generic.InstructionList;
 import org.apache.bcel.generic.ReturnInstruction;
 import org.apache.bcel.generic.Select;
 
-import microbat.model.variable.ArrayElementVar;
-import microbat.model.variable.FieldVar;
-import microbat.model.variable.LocalVar;
-import microbat.model.variable.Variable;
 import microbat.util.JavaUtil;
 
 /**
@@ -32,6 +27,10 @@ public class CFGConstructor {
 	 */
 	private Code code;
 	
+	private CFG indexedCFG;
+	private IndexedGraph<CFGNode> indexedGraph;
+	private PostDominators<CFGNode> postDominators;
+	
 	public CFG buildCFGWithControlDomiance(Code code){
 		this.code = code;
 		
@@ -51,123 +50,43 @@ public class CFGConstructor {
 			node.intializeGenSet();
 		}
 		
-		System.currentTimeMillis();
+		IndexedGraph<CFGNode> graph = getIndexedGraph(cfg);
+		ReachingDefinitions reachingDefinitions = new ReachingDefinitions(graph);
+		reachingDefinitions.solve();
 		
-		boolean change = true;
-		while(change){
-			change = false;
+		for(int i=0; i<graph.size(); i++){
+			CFGNode useNode = graph.getNode(i);
+			useNode.setOutSet(toNodeList(graph, reachingDefinitions.getOut(i)));
 			
-			for(CFGNode node: cfg.getNodeList()){
-				List<CFGNode> oldOutSet = clone(node.getOutSet());
-				
-				List<CFGNode> inSet = new ArrayList<>();
-				for(CFGNode parent: node.getParents()){
-					union(inSet, parent.getOutSet());
-				}
-				union(inSet, node.getOutSet());
-				union(inSet, node.getGenSet());
-				
-				List<CFGNode> newOutSet = kill(inSet, node);
-				node.setOutSet(newOutSet);
-				
-				if(!equal(oldOutSet, newOutSet)){
-					change = true;
-				}
-			}
-		}
-		
-		for(CFGNode useNode: cfg.getNodeList()){
-			for(CFGNode defNode: useNode.getOutSet()){
-				boolean isRDChain = isRDChain(defNode, useNode);
-				if(isRDChain){
-					useNode.addDefineNode(defNode);
-					defNode.addUseNode(useNode);
-				}
+			long[] defs = reachingDefinitions.getReachingDefinitions(i);
+			for(int j=BitSets.nextSetBit(defs, 0); j>=0; j=BitSets.nextSetBit(defs, j+1)){
+				CFGNode defNode = graph.getNode(j);
+				useNode.addDefineNode(defNode);
+				defNode.addUseNode(useNode);
 			}
 		}
 	}
 	
-	private boolean isRDChain(CFGNode defNode, CFGNode useNode) {
-		for(Variable var1: defNode.getWrittenVars()){
-			for(Variable var2: useNode.getReadVars()){
-				if(isSame(var1, var2)){
-					return true;
-				}
-			}
-		}
-		return false;
-	}
-
-	private void union(List<CFGNode> inSet, List<CFGNode> genSet) {
-		for(CFGNode genNode: genSet){
-			if(!inSet.contains(genNode)){
-				inSet.add(genNode);
-			}
-		}
-	}
-
-	private boolean equal(List<CFGNode> oldOutSet, List<CFGNode> newOutSet) {
-		if(oldOutSet.size()!=newOutSet.size()){
-			return false;
-		}
-		
-		int count = 0;
-		for(CFGNode n: oldOutSet){
-			for(CFGNode m: newOutSet){
-				if(n.equals(m)){
-					count++;
-					break;
-				}
-			}
-		}
-		
-		return count==oldOutSet.size();
-	}
-
-	private List<CFGNode> kill(List<CFGNode> inSet, CFGNode node) {
-		Iterator<CFGNode> iter = inSet.iterator();
-		while(iter.hasNext()){
-			CFGNode inNode = iter.next();
-			for(Variable var1: inNode.getWrittenVars()){
-				for(Variable var2: node.getWrittenVars()){
-					if(isSame(var1, var2) && !node.getGenSet().contains(inNode)){
-						iter.remove();
-					}
-				}
-			}
-		}
-		
-		return inSet;
-	}
-
-	private boolean isSame(Variable var1, Variable var2) {
-		if(var1 instanceof FieldVar && var2 instanceof FieldVar){
-			FieldVar fVar1 = (FieldVar)var1;
-			FieldVar fVar2 = (FieldVar)var2;
-			return fVar1.getDeclaringType().equals(fVar2.getDeclaringType()) &&
-					fVar1.getName().equals(fVar2.getName());
-		}
-		else if(var1 instanceof LocalVar && var2 instanceof LocalVar){
-			LocalVar lVar1 = (LocalVar)var1;
-			LocalVar lVar2 = (LocalVar)var2;
-			return lVar1.getByteCodeIndex()==lVar2.getByteCodeIndex();
-		}
-		else if(var1 instanceof ArrayElementVar && var2 instanceof ArrayElementVar){
-			ArrayElementVar aVar1 = (ArrayElementVar)var1;
-			ArrayElementVar aVar2 = (ArrayElementVar)var2;
-			return aVar1.getType().equals(aVar2.getType());
-		}
-		
-		return false;
-	}
-
-	private List<CFGNode> clone(List<CFGNode> outSet) {
+	private List<CFGNode> toNodeList(IndexedGraph<CFGNode> graph, long[] bits) {
 		List<CFGNode> list = new ArrayList<>();
-		for(CFGNode node: outSet){
-			list.add(node);
+		for(int i=BitSets.nextSetBit(bits, 0); i>=0; i=BitSets.nextSetBit(bits, i+1)){
+			list.add(graph.getNode(i));
 		}
 		return list;
 	}
+	
+	/**
+	 * the indexed graph and post dominators are kept for the last cfg, so that they are shared
+	 * between post domination, control dependency and data dependency construction.
+	 */
+	private IndexedGraph<CFGNode> getIndexedGraph(CFG cfg) {
+		if(indexedCFG != cfg || indexedGraph == null || indexedGraph.size() != cfg.size()){
+			indexedCFG = cfg;
+			indexedGraph = IndexedGraph.of(cfg);
+			postDominators = null;
+		}
+		return indexedGraph;
+	}
 
 	@SuppressWarnings("rawtypes")
 	public CFG constructCFG(Code code){
@@ -266,122 +185,17 @@ public class CFGConstructor {
 	}
 
 	public void constructPostDomination(CFG cfg){
-		/** connect basic post domination relation */
-		for(CFGNode node: cfg.getNodeList()){
-			node.addPostDominatee(node);
-			for(CFGNode parent: node.getParents()){
-				if(!parent.isBranch()){
-					node.addPostDominatee(parent);
-					for(CFGNode postDominatee: parent.getPostDominatee()){
-						node.addPostDominatee(postDominatee);
-					}
-				}
-			}
-		}
-		
-		/** extend */
-		extendPostDominatee(cfg);
-	}
-
-	@SuppressWarnings("unchecked")
-	private void extendPostDominatee0(CFG cfg) {
-		boolean isClose = false;
-		while(!isClose){
-			isClose = true;
-			
-			for(CFGNode node: cfg.getNodeList()){
-				HashSet<CFGNode> originalSet = (HashSet<CFGNode>) node.getPostDominatee().clone();
-				int originalSize = originalSet.size();
-				
-				long t5 = System.currentTimeMillis();
-				for(CFGNode postDominatee: node.getPostDominatee()){
-					originalSet.addAll(postDominatee.getPostDominatee());
-					int newSize = node.getPostDominatee().size();
-					
-					boolean isAppendNew =  originalSize != newSize;
-					isClose = isClose && !isAppendNew;
-				}
-				long t6 = System.currentTimeMillis();
-				System.out.println("time for travese post dominatee: " + (t6-t5));
-				
-				node.setPostDominatee(originalSet);
-			}
-			
-			
-			for(CFGNode nodei: cfg.getNodeList()){
-				if(nodei.isBranch()){
-					for(CFGNode nodej: cfg.getNodeList()){
-						if(!nodei.equals(nodej)){
-							boolean isExpend = checkBranchDomination0(nodei, nodej);
-							isClose = isClose && !isExpend;
-						}
-					}
-					
-				}
-				
-			}
-		}
-	}
-	
-
-	private boolean checkBranchDomination0(CFGNode branchNode, CFGNode postDominator) {
-		boolean isExpend = false;
-		if(allBranchTargetsIncludedInDominatees(branchNode, postDominator)){
-			if(!postDominator.getPostDominatee().contains(branchNode)){
-				isExpend = true;
-				postDominator.getPostDominatee().add(branchNode);
-			}
-		}
-		return isExpend;
-	}
-
-	private boolean allBranchTargetsIncludedInDominatees(CFGNode branchNode, CFGNode postDominator) {
-		for(CFGNode target: branchNode.getChildren()){
-			if(!postDominator.getPostDominatee().contains(target)){
-				return false;
-			}
-		}
-		
-		return true;
-	}
-	
-	private void extendPostDominatee(CFG cfg) {
-		boolean isClose = false;
+		IndexedGraph<CFGNode> graph = getIndexedGraph(cfg);
+		postDominators = new PostDominators<>(graph);
+		postDominators.solve();
 		
-		while(!isClose){
-			isClose = true;
-			for(CFGNode nodei: cfg.getNodeList()){
-				if(nodei.isBranch()){
-					for(CFGNode nodej: cfg.getNodeList()){
-						if(!nodei.equals(nodej)){
-							boolean isAppend = checkBranchDomination(nodei, nodej);
-							isClose = isClose && !isAppend;
-						}
-					}
-				}
-			}
-		}
-	}
-	
-	private boolean checkBranchDomination(CFGNode branchNode, CFGNode postDominator) {
-		boolean isExpend = false;
-		if(allBranchTargetsReachedByDominatees(branchNode, postDominator)){
-			if(!postDominator.getPostDominatee().contains(branchNode)){
-				isExpend = true;
-				postDominator.getPostDominatee().add(branchNode);
+		for(int i=0; i<graph.size(); i++){
+			long[] dominators = postDominators.getOut(i);
+			CFGNode node = graph.getNode(i);
+			for(int j=BitSets.nextSetBit(dominators, 0); j>=0; j=BitSets.nextSetBit(dominators, j+1)){
+				graph.getNode(j).addPostDominatee(node);
 			}
 		}
-		return isExpend;
-	}
-	
-	private boolean allBranchTargetsReachedByDominatees(CFGNode branchNode, CFGNode postDominator) {
-		for(CFGNode target: branchNode.getChildren()){
-			if(!postDominator.canReachDominatee(target)){
-				return false;
-			}
-		}
-		
-		return true;
 	}
 	
 	/**
@@ -392,20 +206,18 @@ public class CFGConstructor {
 	 * @param cfg
 	 */
 	public void constructControlDependency(CFG cfg){
-		for(CFGNode branchNode: cfg.getNodeList()){
-			if(branchNode.isBranch()){
-				computeControlDependentees(branchNode, branchNode.getChildren());
-			}
+		IndexedGraph<CFGNode> graph = getIndexedGraph(cfg);
+		if(postDominators == null){
+			constructPostDomination(cfg);
 		}
-	}
-
-	private void computeControlDependentees(CFGNode branchNode, List<CFGNode> list) {
-		for(CFGNode child: list){
-			if(!child.canReachDominatee(branchNode) && !branchNode.getControlDependentees().contains(child)){
-				branchNode.addControlDominatee(child);
-				computeControlDependentees(branchNode, child.getChildren());
+		ControlDependence<CFGNode> controlDependence = new ControlDependence<>(postDominators);
+		for(int i=0; i<graph.size(); i++){
+			CFGNode branchNode = graph.getNode(i);
+			if(branchNode.isBranch()){
+				for(int dependentee: controlDependence.getControlDependentees(i)){
+					branchNode.addControlDominatee(graph.getNode(dependentee));
+				}
 			}
 		}
-		
 	}
 }
@@ -1,15 +1,11 @@
 package microbat.codeanalysis.bytecode;
 
-import java.io.File;
-import java.io.IOException;
 import java.util.ArrayList;
-import java.util.Enumeration;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
-import java.util.jar.JarEntry;
-import java.util.jar.JarFile;
-import java.util.zip.ZipEntry;
+import java.util.Set;
 
 import org.apache.bcel.classfile.JavaClass;
 import org.apache.bcel.classfile.Method;
@@ -18,11 +14,9 @@ import org.apache.bcel.generic.Instruction;
 import org.apache.bcel.generic.InstructionHandle;
 import org.apache.bcel.generic.InstructionList;
 import org.apache.bcel.generic.InvokeInstruction;
-import org.apache.bcel.util.Repository;
 
 import microbat.codeanalysis.runtime.Executor;
 import microbat.model.BreakPoint;
-import microbat.util.MicroBatUtil;
 import sav.strategies.dto.AppJavaClassPath;
 
 public class CallGraph {
@@ -30,6 +24,8 @@ public class CallGraph {
 	private List<String> includeLibraries = new ArrayList<>();
 
 	private Map<String, MethodNode> methodMaps = new HashMap<>();
+	private Map<String, JavaClass> classCache = new HashMap<>();
+	private ClassHierarchyIndex hierarchy;
 
 	public CallGraph(AppJavaClassPath appPath, List<String> includeLibraries) {
 		this.appPath = appPath;
@@ -101,10 +97,7 @@ public class CallGraph {
 				String className = invokeIns.getClassName(cpGen);
 
 				if (!className.contains("[") && isValidClass(className)) {
-					ByteCodeMethodFinder finder = new MethodFinderBySignature(methodSignature);
-					ByteCodeParser.parse(className, finder, appPath);
-
-					JavaClass clazz = finder.javaClass;
+					JavaClass clazz = lookupClass(className);
 					
 					if(clazz==null){
 						continue;
@@ -112,26 +105,18 @@ public class CallGraph {
 					
 					List<MethodAndClass> mcList = new ArrayList<>();
 					if(clazz.isInterface()){
-						List<String> implementation = findImplementations(clazz);
-						for(String className0: implementation){
-							finder = new MethodFinderBySignature(methodSignature);
-							ByteCodeParser.parse(className0, finder, appPath);
-							
-							if(finder.method!=null){
-								mcList.add(new MethodAndClass(finder.method, className0));
+						Set<String> declaringClasses = new HashSet<>();
+						for(String className0: findImplementations(clazz)){
+							MethodAndClass mc = findMethod(className0, methodSignature);
+							if(mc!=null && declaringClasses.add(mc.clazz)){
+								mcList.add(mc);
 							}
 						}
 					}
 					else{
-						Method calleeMethod = finder.getMethod();
-						if(calleeMethod!=null){
-							mcList.add(new MethodAndClass(calleeMethod, className));
-						}
-						else{
-							MethodAndClass mc = checkSuperClass((MethodFinderBySignature) finder);
-							if(mc!=null){
-								mcList.add(mc);								
-							}
+						MethodAndClass mc = findMethod(className, methodSignature);
+						if(mc!=null){
+							mcList.add(mc);
 						}
 					}
 
@@ -157,120 +142,41 @@ public class CallGraph {
 
 	private Map<String, List<String>> implementationMap = new HashMap<>();
 	
-	private List<JavaClass> allClasses = new ArrayList<>();
 	private List<String> findImplementations(JavaClass clazz) {
-		
 		List<String> implementations = implementationMap.get(clazz.getClassName());
 		if(implementations!=null){
 			return implementations;
 		}
 		
-		
 		implementations = new ArrayList<>();
-		
-		if(allClasses.isEmpty()){
-			Repository repo = clazz.getRepository();
-			
-			String javaHomePath = MicroBatUtil.getDefinedJavaHomeFolder();
-			String workingDir = javaHomePath + File.separator + "jre" + File.separator + "lib";
-			String jarFile = workingDir + File.separator + "rt.jar";
-			
-			List<String> classPaths = new ArrayList<>(appPath.getClasspaths());
-			classPaths.add(jarFile);
-			
-			for(String classPath: appPath.getClasspaths()){
-				if(classPath.endsWith(".jar")){
-					searchInJar(clazz, repo, jarFile);
-				}
-				else{
-					searchInDirectory(classPath, classPath, clazz, repo);
-				}
+		for(String className: getHierarchy().getImplementations(clazz.getClassName())){
+			if(isValidClass(className)){
+				implementations.add(className);
 			}
 		}
-		else{
-			for(JavaClass jCl: allClasses){
-				try {
-					if(jCl.implementationOf(clazz)){
-						implementations.add(jCl.getClassName());
-					}
-				} catch (ClassNotFoundException e) {
-					//e.printStackTrace();
-				}
-			}
-		}
-		
 		implementationMap.put(clazz.getClassName(), implementations);
 		
 		return implementations;
 	}
-
-	private void searchInJar(JavaClass clazz, Repository repo, String jarFile) {
-		File rtJarFile = new File(jarFile);
-		if (rtJarFile.exists()) {
-			JarFile jar;
-			try {
-				jar = new JarFile(rtJarFile);
-				Enumeration<? extends JarEntry> enumeration = jar.entries();
-				while (enumeration.hasMoreElements()) {
-					ZipEntry zipEntry = enumeration.nextElement();
-					String zipName = zipEntry.getName();
-					if (zipName.endsWith(".class")) {
-						try {
-							String classFile = zipName.replace("/", ".");
-							classFile = classFile.replace(".class", "");
-							
-							if(isValidClass(classFile)){
-								JavaClass jCl = repo.loadClass(classFile);
-								if(jCl != null){
-									allClasses.add(jCl);								
-								}
-							}
-							
-						} catch (ClassNotFoundException e) {
-							e.printStackTrace();
-						}
-					}
-				}
-			} catch (IOException e1) {
-				e1.printStackTrace();
-			}
-			
+	
+	private ClassHierarchyIndex getHierarchy() {
+		if(hierarchy == null){
+			hierarchy = ClassHierarchyIndex.getInstance(appPath);
 		}
+		return hierarchy;
 	}
-
-	private void searchInDirectory(String basePath, String classPath, JavaClass clazz, Repository repo) {
-		File file = new File(classPath);
-		if(file.isDirectory()){
-			for(String subFile: file.list()){
-				String f = file.getAbsolutePath() + File.separator + subFile;
-				searchInDirectory(basePath, f, clazz, repo);
-			}
-		}
-		else if(file.isFile()){
-			String path = file.getPath();
-			if(path.endsWith(".class")){
-				try {
-					if(!path.startsWith(File.separator)){
-						path = File.separator + path;
-					}
-					
-					String classFile = path.replace(basePath, "");
-					classFile = classFile.replace(".class", "");
-					classFile = classFile.replace(File.separator, ".");
-					
-					if(isValidClass(classFile)){
-						JavaClass jCl = repo.loadClass(classFile);
-						if(jCl.implementationOf(clazz) && jCl.getClassName().equals(classFile)){
-							allClasses.add(jCl);
-						}
-					}
-					
-				} catch (ClassNotFoundException e) {
-					e.printStackTrace();
-				}
-			}
+	
+	/**
+	 * parsed classes are kept for the whole call graph construction instead of parsing
+	 * the callee class again at every call site.
+	 */
+	private JavaClass lookupClass(String className) {
+		if(classCache.containsKey(className)){
+			return classCache.get(className);
 		}
-		
+		JavaClass clazz = ByteCodeParser.parse(className, appPath);
+		classCache.put(className, clazz);
+		return clazz;
 	}
 
 	class MethodAndClass {
@@ -285,27 +191,29 @@ public class CallGraph {
 
 	}
 
-	private MethodAndClass checkSuperClass(MethodFinderBySignature finder) {
-		JavaClass clazz = finder.javaClass;
-		while (clazz != null) {
-			try {
-				clazz = clazz.getSuperClass();
-
-				//TODO possibly, it is an abstract method of an abstract class
-				if(clazz==null){
-					return null;
-				}
-				
-				ByteCodeParser.parse(clazz.getClassName(), finder, appPath);
-				Method method = finder.getMethod();
-				if (method != null) {
-					return new MethodAndClass(method, clazz.getClassName());
+	/**
+	 * resolve the method on the given class or its nearest superclass declaring it,
+	 * the class hierarchy index is used to jump to the declaring class if it is indexed.
+	 */
+	private MethodAndClass findMethod(String className, String methodSignature) {
+		String declaringClass = getHierarchy().findDeclaringClass(className, methodSignature);
+		String current = (declaringClass == null) ? className : declaringClass;
+		while (current != null) {
+			JavaClass clazz = lookupClass(current);
+			if(clazz == null){
+				return null;
+			}
+			for(Method method: clazz.getMethods()){
+				if(methodSignature.equals(method.getName() + method.getSignature())){
+					return new MethodAndClass(method, current);
 				}
-
-			} catch (ClassNotFoundException e) {
-				e.printStackTrace();
-				break;
 			}
+			
+			//TODO possibly, it is an abstract method of an abstract class
+			if(current.equals(clazz.getSuperclassName())){
+				return null;
+			}
+			current = clazz.getSuperclassName();
 		}
 
 		return null;
@@ -0,0 +1,160 @@
+package microbat.codeanalysis.bytecode;
+
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A dense view of a graph for the bitset dataflow analyses: nodes are numbered 0..size-1 in
+ * the order of the given node list, and edges are kept as int arrays.
+ *
+ * @author LLT
+ */
+public abstract class IndexedGraph<T> {
+	private List<T> nodes;
+	private Map<T, Integer> indexes;
+	private int[][] successors;
+	private int[][] predecessors;
+	private int[] exits;
+
+	public IndexedGraph(List<T> nodes, List<T> exitNodes) {
+		this.nodes = nodes;
+		int size = nodes.size();
+		indexes = new IdentityHashMap<>(size * 2);
+		for (int i = 0; i < size; i++) {
+			indexes.put(nodes.get(i), i);
+		}
+		successors = new int[size][];
+		int[] predCount = new int[size];
+		for (int i = 0; i < size; i++) {
+			List<T> children = getChildren(nodes.get(i));
+			int[] succs = new int[children.size()];
+			int count = 0;
+			for (T child : children) {
+				Integer idx = indexes.get(child);
+				if (idx != null) {
+					succs[count++] = idx;
+					predCount[idx]++;
+				}
+			}
+			successors[i] = count == succs.length ? succs : Arrays.copyOf(succs, count);
+		}
+		predecessors = new int[size][];
+		for (int i = 0; i < size; i++) {
+			predecessors[i] = new int[predCount[i]];
+			predCount[i] = 0;
+		}
+		for (int i = 0; i < size; i++) {
+			for (int succ : successors[i]) {
+				predecessors[succ][predCount[succ]++] = i;
+			}
+		}
+		/* exits: the given ones and any node without successor */
+		long[] exitBits = BitSets.create(size);
+		int exitCount = 0;
+		for (T exitNode : exitNodes) {
+			Integer idx = indexes.get(exitNode);
+			if (idx != null && !BitSets.get(exitBits, idx)) {
+				BitSets.set(exitBits, idx);
+				exitCount++;
+			}
+		}
+		for (int i = 0; i < size; i++) {
+			if (successors[i].length == 0 && !BitSets.get(exitBits, i)) {
+				BitSets.set(exitBits, i);
+				exitCount++;
+			}
+		}
+		exits = new int[exitCount];
+		for (int i = BitSets.nextSetBit(exitBits, 0), j = 0; i >= 0; i = BitSets.nextSetBit(exitBits, i + 1)) {
+			exits[j++] = i;
+		}
+	}
+
+	protected abstract List<T> getChildren(T node);
+
+	public static IndexedGraph<CFGNode> of(CFG cfg) {
+		return new IndexedGraph<CFGNode>(cfg.getNodeList(), cfg.getExitList()) {
+
+			@Override
+			protected List<CFGNode> getChildren(CFGNode node) {
+				return node.getChildren();
+			}
+		};
+	}
+
+	/**
+	 * Reverse post-order of a depth-first traversal starting from the first node (forward)
+	 * or from the exit nodes on the reversed graph (backward). Nodes which cannot be reached
+	 * from these roots are traversed afterwards in the same way.
+	 */
+	public int[] getReversePostOrder(boolean forward) {
+		int size = size();
+		int[] postOrder = new int[size];
+		int postCount = 0;
+		long[] visited = BitSets.create(size);
+		int[] stack = new int[size];
+		int[] nextEdge = new int[size];
+		int[][] edges = forward ? successors : predecessors;
+		int rootCount = forward ? 0 : exits.length;
+		for (int r = 0; r < rootCount + size; r++) {
+			int root = r < rootCount ? exits[r] : (r - rootCount);
+			if (BitSets.get(visited, root)) {
+				continue;
+			}
+			BitSets.set(visited, root);
+			int top = 0;
+			stack[0] = root;
+			nextEdge[0] = 0;
+			while (top >= 0) {
+				int node = stack[top];
+				int[] outEdges = edges[node];
+				if (nextEdge[top] < outEdges.length) {
+					int next = outEdges[nextEdge[top]++];
+					if (!BitSets.get(visited, next)) {
+						BitSets.set(visited, next);
+						stack[++top] = next;
+						nextEdge[top] = 0;
+					}
+				} else {
+					postOrder[postCount++] = node;
+					top--;
+				}
+			}
+		}
+		int[] order = new int[size];
+		for (int i = 0; i < size; i++) {
+			order[i] = postOrder[size - 1 - i];
+		}
+		return order;
+	}
+
+	public int size() {
+		return nodes.size();
+	}
+
+	public T getNode(int idx) {
+		return nodes.get(idx);
+	}
+
+	/**
+	 * @return -1 if the node is not in the graph.
+	 */
+	public int indexOf(T node) {
+		Integer idx = indexes.get(node);
+		return idx == null ? -1 : idx;
+	}
+
+	public int[] getSuccessors(int idx) {
+		return successors[idx];
+	}
+
+	public int[] getPredecessors(int idx) {
+		return predecessors[idx];
+	}
+
+	public int[] getExits() {
+		return exits;
+	}
+}
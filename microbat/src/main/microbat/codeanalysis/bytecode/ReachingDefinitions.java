@@ -0,0 +1,127 @@
+package microbat.codeanalysis.bytecode;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import microbat.model.variable.ArrayElementVar;
+import microbat.model.variable.FieldVar;
+import microbat.model.variable.LocalVar;
+import microbat.model.variable.Variable;
+
+/**
+ * Reaching definitions on the CFG, out(n) = gen(n) + (in(n) - kill(n)).
+ * Variables read/written by the nodes (see {@link CFGNode#parseReadWrittenVariable}) are
+ * interned into ids beforehand, so that the kill set of a node is the union of the definition
+ * masks of the variables it writes.
+ *
+ * @author LLT
+ */
+public class ReachingDefinitions extends BitSetDataflow<CFGNode> {
+	private Map<String, Integer> varIds = new HashMap<>();
+	/* nodes writing the variable, indexed by variable id */
+	private List<long[]> definitions = new ArrayList<>();
+	private int[][] readVarIds;
+	private int[][] writtenVarIds;
+	private long[][] kills;
+
+	public ReachingDefinitions(IndexedGraph<CFGNode> graph) {
+		super(graph, true);
+		int size = graph.size();
+		readVarIds = new int[size][];
+		writtenVarIds = new int[size][];
+		for (int i = 0; i < size; i++) {
+			CFGNode node = graph.getNode(i);
+			readVarIds[i] = internVars(node.getReadVars());
+			writtenVarIds[i] = internVars(node.getWrittenVars());
+			for (int varId : writtenVarIds[i]) {
+				BitSets.set(definitions.get(varId), i);
+			}
+		}
+		kills = new long[size][];
+		for (int i = 0; i < size; i++) {
+			if (writtenVarIds[i].length > 0) {
+				long[] kill = BitSets.create(size);
+				for (int varId : writtenVarIds[i]) {
+					BitSets.or(kill, definitions.get(varId));
+				}
+				BitSets.clear(kill, i);
+				kills[i] = kill;
+			}
+		}
+	}
+
+	private int[] internVars(List<Variable> vars) {
+		int[] ids = new int[vars.size()];
+		int count = 0;
+		for (Variable var : vars) {
+			String key = getVarKey(var);
+			if (key == null) {
+				continue;
+			}
+			Integer id = varIds.get(key);
+			if (id == null) {
+				id = definitions.size();
+				varIds.put(key, id);
+				definitions.add(BitSets.create(graph.size()));
+			}
+			ids[count++] = id;
+		}
+		if (count < ids.length) {
+			int[] result = new int[count];
+			System.arraycopy(ids, 0, result, 0, count);
+			return result;
+		}
+		return ids;
+	}
+
+	/**
+	 * two variables are considered the same if they have the same key.
+	 */
+	private static String getVarKey(Variable var) {
+		if (var instanceof FieldVar) {
+			FieldVar fVar = (FieldVar) var;
+			return "F" + fVar.getDeclaringType() + "#" + fVar.getName();
+		} else if (var instanceof LocalVar) {
+			return "L" + ((LocalVar) var).getByteCodeIndex();
+		} else if (var instanceof ArrayElementVar) {
+			return "A" + var.getType();
+		}
+		return null;
+	}
+
+	@Override
+	protected long[] initialValue(int node) {
+		long[] bits = BitSets.create(graph.size());
+		if (writtenVarIds[node].length > 0) {
+			BitSets.set(bits, node);
+		}
+		return bits;
+	}
+
+	@Override
+	protected void flow(int node, int[] sources, long[] result) {
+		BitSets.clearAll(result);
+		for (int pred : sources) {
+			BitSets.or(result, out[pred]);
+		}
+		if (kills[node] != null) {
+			BitSets.andNot(result, kills[node]);
+			BitSets.set(result, node);
+		}
+	}
+
+	/**
+	 * @return the definition nodes in the out set of {@code useNode} which write a variable
+	 *         read by {@code useNode}.
+	 */
+	public long[] getReachingDefinitions(int useNode) {
+		long[] result = BitSets.create(graph.size());
+		for (int varId : readVarIds[useNode]) {
+			BitSets.or(result, definitions.get(varId));
+		}
+		BitSets.and(result, out[useNode]);
+		return result;
+	}
+}
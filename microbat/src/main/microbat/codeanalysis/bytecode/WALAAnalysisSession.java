@@ -0,0 +1,150 @@
+package microbat.codeanalysis.bytecode;
+
+import java.io.File;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.ibm.wala.ipa.callgraph.AnalysisCache;
+import com.ibm.wala.ipa.callgraph.AnalysisOptions;
+import com.ibm.wala.ipa.callgraph.AnalysisScope;
+import com.ibm.wala.ipa.callgraph.CallGraph;
+import com.ibm.wala.ipa.callgraph.CallGraphBuilder;
+import com.ibm.wala.ipa.callgraph.Entrypoint;
+import com.ibm.wala.ipa.callgraph.impl.Util;
+import com.ibm.wala.ipa.callgraph.propagation.InstanceKey;
+import com.ibm.wala.ipa.callgraph.propagation.PointerAnalysis;
+import com.ibm.wala.ipa.cha.ClassHierarchy;
+import com.ibm.wala.ipa.cha.ClassHierarchyException;
+import com.ibm.wala.ipa.cha.IClassHierarchy;
+import com.ibm.wala.ipa.slicer.SDG;
+import com.ibm.wala.ipa.slicer.Slicer;
+import com.ibm.wala.ipa.slicer.Slicer.ControlDependenceOptions;
+import com.ibm.wala.ipa.slicer.Slicer.DataDependenceOptions;
+import com.ibm.wala.ipa.slicer.Statement;
+import com.ibm.wala.util.CancelException;
+
+import microbat.model.BreakPoint;
+import microbat.util.MicroBatUtil;
+import sav.strategies.dto.AppJavaClassPath;
+
+/**
+ * @author LLT
+ *
+ * Keep the WALA analysis scope, class hierarchy, call graphs and SDG of a project classpath
+ * between analysis requests, and memoize the backward slice of each seed statement.
+ *
+ * A session is bound to a stamp of the classpath (last modified time and length of the jars
+ * and class files), {@link #getSession(AppJavaClassPath)} replaces the session once the stamp
+ * is changed, e.g. after the project is rebuilt.
+ */
+public class WALAAnalysisSession {
+	private static final int MAX_SESSIONS = 2;
+	private static final Map<String, WALAAnalysisSession> sessions = new LinkedHashMap<String, WALAAnalysisSession>(
+			4, 0.75f, true) {
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<String, WALAAnalysisSession> eldest) {
+			return size() > MAX_SESSIONS;
+		}
+	};
+
+	private AppJavaClassPath appClassPath;
+	private String stamp;
+	private AnalysisScope scope;
+	private IClassHierarchy cha;
+	/* call graphs for breakpoint parsing, keyed by entry points */
+	private Map<String, CallGraph> callGraphs = new HashMap<>();
+	/* call graph from main entry points, for slicing */
+	private CallGraph slicingCallGraph;
+	private PointerAnalysis<InstanceKey> pointerAnalysis;
+	private SDG sdg;
+	private Map<Statement, Collection<Statement>> backwardSlices = new HashMap<>();
+
+	private WALAAnalysisSession(AppJavaClassPath appClassPath, String stamp) {
+		this.appClassPath = appClassPath;
+		this.stamp = stamp;
+	}
+
+	public static synchronized WALAAnalysisSession getSession(AppJavaClassPath appClassPath) {
+		String key = appClassPath.getJavaHome() + File.pathSeparator + appClassPath.getClasspaths();
+		String stamp = MicroBatUtil.getClasspathStamp(appClassPath);
+		WALAAnalysisSession session = sessions.get(key);
+		if (session == null || !session.stamp.equals(stamp)) {
+			session = new WALAAnalysisSession(appClassPath, stamp);
+			sessions.put(key, session);
+		}
+		return session;
+	}
+
+	public synchronized AnalysisScope getScope() {
+		if (scope == null) {
+			scope = WALAByteCodeAnalyzer.makeJ2SEAnalysisScope(appClassPath);
+		}
+		return scope;
+	}
+
+	public synchronized IClassHierarchy getClassHierarchy() throws ClassHierarchyException {
+		if (cha == null) {
+			cha = ClassHierarchy.make(getScope());
+		}
+		return cha;
+	}
+
+	/**
+	 * 0-CFA call graph from the given entry points.
+	 */
+	public synchronized CallGraph getCallGraph(List<BreakPoint> entryPoints)
+			throws ClassHierarchyException, CancelException {
+		StringBuilder key = new StringBuilder();
+		for (BreakPoint entryPoint : entryPoints) {
+			key.append(entryPoint.getClassCanonicalName()).append("#").append(entryPoint.getMethodSign()).append(";");
+		}
+		CallGraph callGraph = callGraphs.get(key.toString());
+		if (callGraph == null) {
+			AnalysisScope scope = getScope();
+			IClassHierarchy cha = getClassHierarchy();
+			Iterable<Entrypoint> entrypoints = WALAByteCodeAnalyzer.makeEntrypoints(scope.getApplicationLoader(), cha,
+					entryPoints);
+			AnalysisOptions options = new AnalysisOptions(scope, entrypoints);
+			CallGraphBuilder builder = Util.makeZeroCFABuilder(options, new AnalysisCache(), cha, scope);
+			callGraph = builder.makeCallGraph(options, null);
+			callGraphs.put(key.toString(), callGraph);
+		}
+		return callGraph;
+	}
+
+	/**
+	 * 1-CFA call graph from the main entry points, with its pointer analysis.
+	 */
+	public synchronized CallGraph getSlicingCallGraph() throws ClassHierarchyException, CancelException {
+		if (slicingCallGraph == null) {
+			AnalysisScope scope = getScope();
+			IClassHierarchy cha = getClassHierarchy();
+			Iterable<Entrypoint> entrypoints = Util.makeMainEntrypoints(scope, cha);
+			AnalysisOptions options = new AnalysisOptions(scope, entrypoints);
+			CallGraphBuilder builder = Util.makeVanillaNCFABuilder(1, options, new AnalysisCache(), cha, scope);
+			slicingCallGraph = builder.makeCallGraph(options, null);
+			pointerAnalysis = builder.getPointerAnalysis();
+		}
+		return slicingCallGraph;
+	}
+
+	public synchronized Collection<Statement> computeBackwardSlice(Statement seed)
+			throws ClassHierarchyException, CancelException {
+		Collection<Statement> slice = backwardSlices.get(seed);
+		if (slice == null) {
+			if (sdg == null) {
+				CallGraph callGraph = getSlicingCallGraph();
+				sdg = new SDG(callGraph, pointerAnalysis, DataDependenceOptions.NO_BASE_PTRS,
+						ControlDependenceOptions.NO_EXCEPTIONAL_EDGES);
+			}
+			slice = Slicer.computeBackwardSlice(sdg, seed);
+			backwardSlices.put(seed, slice);
+		}
+		return slice;
+	}
+}
@@ -10,6 +10,7 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.jar.JarFile;
@@ -25,23 +26,13 @@ import com.ibm.wala.classLoader.IMethod.SourcePosition;
 import com.ibm.wala.classLoader.ShrikeBTMethod;
 import com.ibm.wala.classLoader.ShrikeCTMethod;
 import com.ibm.wala.classLoader.ShrikeClass;
-import com.ibm.wala.ipa.callgraph.AnalysisCache;
-import com.ibm.wala.ipa.callgraph.AnalysisOptions;
 import com.ibm.wala.ipa.callgraph.AnalysisScope;
 import com.ibm.wala.ipa.callgraph.CGNode;
 import com.ibm.wala.ipa.callgraph.CallGraph;
-import com.ibm.wala.ipa.callgraph.CallGraphBuilder;
 import com.ibm.wala.ipa.callgraph.Entrypoint;
 import com.ibm.wala.ipa.callgraph.impl.DefaultEntrypoint;
-import com.ibm.wala.ipa.callgraph.impl.Util;
-import com.ibm.wala.ipa.callgraph.propagation.InstanceKey;
-import com.ibm.wala.ipa.callgraph.propagation.PointerAnalysis;
-import com.ibm.wala.ipa.cha.ClassHierarchy;
 import com.ibm.wala.ipa.cha.IClassHierarchy;
 import com.ibm.wala.ipa.slicer.NormalStatement;
-import com.ibm.wala.ipa.slicer.Slicer;
-import com.ibm.wala.ipa.slicer.Slicer.ControlDependenceOptions;
-import com.ibm.wala.ipa.slicer.Slicer.DataDependenceOptions;
 import com.ibm.wala.ipa.slicer.Statement;
 import com.ibm.wala.ipa.slicer.Statement.Kind;
 import com.ibm.wala.ipa.slicer.StatementWithInstructionIndex;
@@ -108,22 +99,9 @@ public class WALAByteCodeAnalyzer{
 	}
 	
 	public List<BreakPoint> parsingBreakPoints(AppJavaClassPath appClassPath) throws Exception {
-		AnalysisScope scope = makeJ2SEAnalysisScope(appClassPath);
-		IClassHierarchy cha = ClassHierarchy.make(scope);
-		
-//		Iterable<Entrypoint> entrypoints = Util.makeMainEntrypoints(scope, cha);
+		WALAAnalysisSession session = WALAAnalysisSession.getSession(appClassPath);
 		List<BreakPoint> entryPoints = parseLanuchPoints(appClassPath);
-		Iterable<Entrypoint> entrypoints = makeEntrypoints(scope.getApplicationLoader(), cha, entryPoints);
-		AnalysisOptions options = new AnalysisOptions(scope, entrypoints);
-		
-//		CallGraphBuilder builder = Util.makeZeroOneCFABuilder(options, new AnalysisCache(), cha, scope);
-		CallGraphBuilder builder = Util.makeZeroCFABuilder(options, new AnalysisCache(), cha, scope);
-//		CallGraphBuilder builder = Util.makeNCFABuilder(3, options, new AnalysisCache(), cha, scope);
-//		CallGraphBuilder builder = Util.makeVanillaNCFABuilder(1, options, new AnalysisCache(), cha, scope);
-		
-		System.out.println("builder is set.");
-		
-		CallGraph callGraph = builder.makeCallGraph(options, null);
+		CallGraph callGraph = session.getCallGraph(entryPoints);
 		System.out.println("call graph is built!");
 		
 		System.out.println("start analyzing read/written variables...");
@@ -183,37 +161,17 @@ public class WALAByteCodeAnalyzer{
 	
 
 	public List<BreakPoint> slice(AppJavaClassPath appClassPath, List<BreakPoint> breakpoints) throws Exception {
-		
-		AnalysisScope scope = makeJ2SEAnalysisScope(appClassPath);
-		IClassHierarchy cha = ClassHierarchy.make(scope);
-		
-//		Iterable<Entrypoint> entrypoints = makeEntrypoints(scope.getApplicationLoader(), cha, breakpoints.get(0));
-		Iterable<Entrypoint> entrypoints = Util.makeMainEntrypoints(scope, cha);
-		AnalysisOptions options = new AnalysisOptions(scope, entrypoints);
-		
-//		CallGraphBuilder builder = Util.makeZeroOneCFABuilder(options, new AnalysisCache(), cha, scope);
-//		CallGraphBuilder builder = Util.makeNCFABuilder(3, options, new AnalysisCache(), cha, scope);
-		CallGraphBuilder builder = Util.makeVanillaNCFABuilder(1, options, new AnalysisCache(), cha, scope);
-		
-		System.out.println("builder is set.");
-		
-		CallGraph callGraph = builder.makeCallGraph(options, null);
+		/* scope, call graph and SDG are shared by all slicing requests on the same classpath */
+		WALAAnalysisSession session = WALAAnalysisSession.getSession(appClassPath);
+		CallGraph callGraph = session.getSlicingCallGraph();
 		System.out.println("Call graph is built!");
 		
 		List<Statement> stmtList = findSeedStmts(callGraph, breakpoints);
 		
-		PointerAnalysis<InstanceKey> pointerAnalysis = builder.getPointerAnalysis();
-
-//		SDG sdg = new SDG(cg, builder.getPointerAnalysis(), DataDependenceOptions.NO_BASE_PTRS, ControlDependenceOptions.NONE);
-		
-//		Collection<Statement> computeBackwardSlice = new CISlicer(cg, builder.getPointerAnalysis(), DataDependenceOptions.NO_HEAP,
-//				ControlDependenceOptions.NONE).computeBackwardThinSlice(stmt);
 		try {
-			Collection<Statement> allSlice = new ArrayList<>();
+			Collection<Statement> allSlice = new LinkedHashSet<>();
 			for(Statement s: stmtList){
-				Collection<Statement> computeBackwardSlice = Slicer.computeBackwardSlice(s, callGraph, pointerAnalysis, 
-						DataDependenceOptions.NO_BASE_PTRS, ControlDependenceOptions.NO_EXCEPTIONAL_EDGES);		
-				allSlice.addAll(computeBackwardSlice);
+				allSlice.addAll(session.computeBackwardSlice(s));
 			}
 			System.out.println("program is sliced!");
 			
@@ -564,6 +522,7 @@ public class WALAByteCodeAnalyzer{
 	
 	private List<BreakPoint> anlyzeBreakPointsWithDataDependencies(CallGraph graph, AppJavaClassPath appPath){
 		Map<String, BreakPoint> bkpSet = new HashMap<String, BreakPoint>();
+		ClassHierarchyIndex hierarchy = ClassHierarchyIndex.getInstance(appPath);
 		
 		Iterator<CGNode> iterator = graph.iterator();
 		while(iterator.hasNext()){
@@ -582,7 +541,7 @@ public class WALAByteCodeAnalyzer{
 					String className = SignatureUtils.signatureToName(classSignature);
 					
 					if(isClassContainedInExecution(className) && 
-							isMethodContainedInExection(method, appPath)){
+							isMethodContainedInExection(method, appPath, hierarchy)){
 						parseBreakPoints(bkpSet, node);				
 					}
 				}
@@ -595,12 +554,17 @@ public class WALAByteCodeAnalyzer{
 		return result;
 	}
 	
-	private boolean isMethodContainedInExection(IMethod method, AppJavaClassPath appPath) {
+	private boolean isMethodContainedInExection(IMethod method, AppJavaClassPath appPath, ClassHierarchyIndex hierarchy) {
 		String className = getClassCanonicalName(method);
 		if(className.contains("$")){
 			className = className.substring(0, className.indexOf("$"));			
 		}
 		
+		/* classes in jars have no compilation unit in the project */
+		if(!hierarchy.isAppClass(className)){
+			return false;
+		}
+		
 		CompilationUnit cu = JavaUtil.findCompilationUnitInProject(className, appPath);
 		if(cu == null){
 			return false;
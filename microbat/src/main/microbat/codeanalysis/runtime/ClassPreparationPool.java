@@ -0,0 +1,227 @@
+package microbat.codeanalysis.runtime;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.apache.bcel.classfile.JavaClass;
+import org.apache.bcel.classfile.LineNumber;
+import org.apache.bcel.classfile.Method;
+import org.apache.bcel.util.ClassPath;
+import org.eclipse.jdt.core.dom.CompilationUnit;
+import org.eclipse.jdt.core.dom.MethodDeclaration;
+
+import microbat.codeanalysis.bytecode.ByteCodeParser;
+import microbat.codeanalysis.bytecode.SingleLineByteCodeVisitor;
+import microbat.model.BreakPoint;
+import microbat.util.JavaUtil;
+import sav.strategies.dto.AppJavaClassPath;
+
+/**
+ * Prepares, in worker threads, what {@link ProgramExecutor} needs to know about the breakpoints
+ * of each class when the debuggee reaches them: the byte code visitor of each line and the
+ * method declaration containing it. The classes are submitted as soon as the breakpoints are
+ * known, so the event loop does not parse byte code or AST while the debuggee is suspended, it
+ * only waits for a class which is being prepared, and prepares itself a class which is not
+ * started yet. Each class file is read once from a class path owned by the pool, without the
+ * global lock of {@link ByteCodeParser#parse(String, sav.strategies.dto.AppJavaClassPath)}.
+ *
+ * @author LLT
+ *
+ */
+public class ClassPreparationPool {
+	private static ThreadPoolExecutor executor;
+	private AppJavaClassPath appPath;
+	private ClassPath classPath;
+	private Map<String, PreparationTask> preparedClasses = new ConcurrentHashMap<>();
+
+	public ClassPreparationPool(AppJavaClassPath appPath) {
+		this.appPath = appPath;
+	}
+
+	public void prepare(Map<String, List<BreakPoint>> brkpsMap) {
+		ThreadPoolExecutor executor = getExecutor();
+		for (final String className : brkpsMap.keySet()) {
+			final List<BreakPoint> points = brkpsMap.get(className);
+			PreparationTask task = new PreparationTask(new Callable<PreparedClass>() {
+
+				@Override
+				public PreparedClass call() throws Exception {
+					return prepareClass(className, points);
+				}
+			});
+			preparedClasses.put(className, task);
+			executor.execute(task);
+		}
+	}
+
+	private synchronized ClassPath getClassPath() {
+		if (classPath == null) {
+			classPath = ByteCodeParser.createClassPath(appPath);
+		}
+		return classPath;
+	}
+
+	private PreparedClass prepareClass(String className, List<BreakPoint> points) {
+		PreparedClass preparedClass = new PreparedClass();
+		JavaClass clazz = ByteCodeParser.parse(className, getClassPath());
+		if (clazz == null) {
+			/* not prepared, the lines will be parsed on demand */
+			return preparedClass;
+		}
+		Map<Integer, SingleLineByteCodeVisitor> lineVisitors = preparedClass.lineVisitors;
+		for (BreakPoint point : points) {
+			int lineNumber = point.getLineNumber();
+			if (!lineVisitors.containsKey(lineNumber)) {
+				SingleLineByteCodeVisitor visitor = new SingleLineByteCodeVisitor(lineNumber, className, appPath);
+				visitor.setJavaClass(clazz);
+				lineVisitors.put(lineNumber, visitor);
+			}
+		}
+		/* one pass on the methods, each method is given to the visitors of its lines */
+		for (Method method : clazz.getMethods()) {
+			if (method.getCode() == null || method.getLineNumberTable() == null) {
+				continue;
+			}
+			List<SingleLineByteCodeVisitor> methodVisitors = new ArrayList<>();
+			for (LineNumber line : method.getLineNumberTable().getLineNumberTable()) {
+				SingleLineByteCodeVisitor visitor = lineVisitors.get(line.getLineNumber());
+				if (visitor != null && !methodVisitors.contains(visitor)) {
+					methodVisitors.add(visitor);
+				}
+			}
+			for (SingleLineByteCodeVisitor visitor : methodVisitors) {
+				visitor.visitMethod(method);
+			}
+		}
+
+		Map<String, CompilationUnit> cuMap = new HashMap<>();
+		for (BreakPoint point : points) {
+			String cuName = point.getDeclaringCompilationUnitName();
+			CompilationUnit cu = cuMap.get(cuName);
+			if (cu == null && !cuMap.containsKey(cuName)) {
+				cu = JavaUtil.findCompilationUnitInProject(cuName, appPath);
+				cuMap.put(cuName, cu);
+			}
+			if (cu != null) {
+				ProgramExecutor.MethodFinder finder = new ProgramExecutor.MethodFinder(cu, point.getLineNumber());
+				cu.accept(finder);
+				preparedClass.lineMethods.put(point.getLineNumber(), finder.candidate);
+			}
+		}
+		return preparedClass;
+	}
+
+	/**
+	 * @return null if the class of the breakpoint is not prepared.
+	 */
+	public SingleLineByteCodeVisitor getLineVisitor(BreakPoint point) {
+		PreparedClass preparedClass = getPreparedClass(point.getClassCanonicalName());
+		return preparedClass == null ? null : preparedClass.lineVisitors.get(point.getLineNumber());
+	}
+
+	public MethodDeclaration getMethod(BreakPoint point) {
+		PreparedClass preparedClass = getPreparedClass(point.getClassCanonicalName());
+		return preparedClass == null ? null : preparedClass.lineMethods.get(point.getLineNumber());
+	}
+
+	/**
+	 * wait for the class if a worker is preparing it, or prepare it in the caller thread if no
+	 * worker has started it yet.
+	 * 
+	 * @return null if the class is not submitted or its preparation is cancelled or failed, then
+	 *         the caller parses the line itself.
+	 */
+	private PreparedClass getPreparedClass(String className) {
+		PreparationTask task = preparedClasses.get(className);
+		if (task == null) {
+			return null;
+		}
+		if (task.runInline()) {
+			getExecutor().remove(task);
+		}
+		try {
+			return task.get();
+		} catch (CancellationException e) {
+			return null;
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return null;
+		} catch (ExecutionException e) {
+			e.printStackTrace();
+			return null;
+		}
+	}
+
+	/**
+	 * cancel the classes which are not prepared yet.
+	 */
+	public void cancel() {
+		ThreadPoolExecutor executor = getExecutor();
+		for (PreparationTask task : preparedClasses.values()) {
+			executor.remove(task);
+			task.cancel(false);
+		}
+	}
+
+	private static synchronized ThreadPoolExecutor getExecutor() {
+		if (executor == null) {
+			int nThreads = Runtime.getRuntime().availableProcessors();
+			executor = new ThreadPoolExecutor(nThreads, nThreads, 0L, TimeUnit.MILLISECONDS,
+					new LinkedBlockingQueue<Runnable>(), new ThreadFactory() {
+
+						@Override
+						public Thread newThread(Runnable r) {
+							Thread thread = new Thread(r, "class-preparation");
+							thread.setDaemon(true);
+							return thread;
+						}
+					});
+		}
+		return executor;
+	}
+
+	/**
+	 * a task which is run only once, either by a worker or by the thread which needs its result
+	 * first.
+	 */
+	private static class PreparationTask extends FutureTask<PreparedClass> {
+		private AtomicBoolean started = new AtomicBoolean(false);
+
+		PreparationTask(Callable<PreparedClass> callable) {
+			super(callable);
+		}
+
+		@Override
+		public void run() {
+			runInline();
+		}
+
+		/**
+		 * @return true if the task is run by this call, false if it is already started.
+		 */
+		boolean runInline() {
+			if (started.compareAndSet(false, true)) {
+				super.run();
+				return true;
+			}
+			return false;
+		}
+	}
+
+	private static class PreparedClass {
+		private Map<Integer, SingleLineByteCodeVisitor> lineVisitors = new HashMap<>();
+		private Map<Integer, MethodDeclaration> lineMethods = new HashMap<>();
+	}
+}
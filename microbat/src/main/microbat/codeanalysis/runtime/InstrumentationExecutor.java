@@ -8,6 +8,7 @@ import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.TreeMap;
 
 import org.apache.commons.io.FileUtils;
 import org.eclipse.jdt.core.dom.ASTNode;
@@ -16,6 +17,8 @@ import org.eclipse.jdt.core.dom.CompilationUnit;
 import org.eclipse.jdt.core.dom.TypeDeclaration;
 
 import microbat.agent.TraceAgentRunner;
+import microbat.agent.TraceWorker;
+import microbat.agent.TraceWorkerPool;
 import microbat.instrumentation.AgentParams;
 import microbat.instrumentation.AgentParams.LogType;
 import microbat.instrumentation.filter.CodeRangeEntry;
@@ -29,20 +32,31 @@ import microbat.model.value.VarValue;
 import microbat.preference.ExecutionRangePreference;
 import microbat.preference.MicrobatPreference;
 import microbat.util.JavaUtil;
+import microbat.util.MicroBatUtil;
 import microbat.util.MinimumASTNodeFinder;
 import sav.common.core.SavException;
+import sav.common.core.utils.StringUtils;
 import sav.strategies.dto.AppJavaClassPath;
 import sav.strategies.vm.VMConfiguration;
 import sav.strategies.vm.VMRunner;
 
 public class InstrumentationExecutor {
 	public final static String TRACE_DUMP_FILE_SUFFIX = ".exec";
+	/* agent params of a single run, which are set by the worker itself */
+	private static final List<String> RUN_SPECIFIC_PARAMS = Arrays.asList(AgentParams.OPT_DUMP_FILE,
+			AgentParams.OPT_PRECHECK, AgentParams.OPT_PRECHECK_DUMP_FILE, AgentParams.OPT_EXPECTED_STEP,
+			AgentParams.OPT_LAUNCH_CLASS);
 	
 	private AppJavaClassPath appPath;
 	private PreCheckInformation precheckInfo;
 	private String traceExecFilePath;
 	private TraceAgentRunner agentRunner;
 	private long timeout = VMRunner.NO_TIME_OUT;
+	/* if set, testcases are traced in warm worker vms instead of a new vm for each run */
+	private TraceWorkerPool workerPool;
+	/* trace in a single run and get precheck info as a by-product, instead of running precheck first */
+	private boolean singleRun = false;
+	private String instrumentationCacheDir;
 	
 	private List<String> includeLibs = Collections.emptyList();
 	private List<String> excludeLibs = Collections.emptyList();
@@ -59,14 +73,33 @@ public class InstrumentationExecutor {
 		this.traceExecFilePath = traceExecFilePath;
 		this.includeLibs = includeLibs;
 		this.excludeLibs = excludeLibs;
+		if (Boolean.valueOf(MicrobatPreference.getValue(MicrobatPreference.INSTRUMENTATION_CACHE))) {
+			instrumentationCacheDir = MicroBatUtil.getInstrumentationCacheFolder();
+		}
 		
 		agentRunner = createTraceAgentRunner();
 	}
 	
 	private TraceAgentRunner createTraceAgentRunner() {
-		String jarPath = appPath.getAgentLib();
 		VMConfiguration config = new VMConfiguration();
-		TraceAgentRunner agentRunner = new TraceAgentRunner(jarPath, config);
+		TraceAgentRunner agentRunner = new TraceAgentRunner(appPath.getAgentLib(), config);
+		configure(agentRunner, config);
+		return agentRunner;
+	}
+	
+	private TraceWorker createTraceWorker() throws SavException {
+		VMConfiguration config = new VMConfiguration();
+		TraceWorker worker = new TraceWorker(appPath.getAgentLib(), config);
+		configure(worker, config);
+		/* same params as a run in a new vm, ex: the step limit or the overlong methods */
+		for (Map.Entry<String, String> param : getWorkerAgentParams().entrySet()) {
+			worker.addAgentParam(param.getKey(), param.getValue());
+		}
+		worker.start();
+		return worker;
+	}
+	
+	private void configure(TraceAgentRunner agentRunner, VMConfiguration config) {
 //		agentRunner.setVmDebugPort(9595);
 		config.setNoVerify(true);
 		config.setJavaHome(appPath.getJavaHome());
@@ -99,14 +132,45 @@ public class InstrumentationExecutor {
 		agentRunner.addAgentParam(AgentParams.OPT_REQUIRE_METHOD_SPLITTING,
 				MicrobatPreference.getValue(MicrobatPreference.REQUIRE_METHOD_SPLITTING));
 		agentRunner.addAgentParam(AgentParams.OPT_AVOID_TO_STRING_OF_PROXY_OBJ, true);
+		agentRunner.addAgentParam(AgentParams.OPT_PRE_TRANSFORM,
+				MicrobatPreference.getValue(MicrobatPreference.PRE_TRANSFORM));
 		agentRunner.setTimeout(timeout);
 		// FIXME Xuezhi [2]
 		List<CodeRangeEntry> entries = ExecutionRangePreference.getCodeRangeEntrys();
 		agentRunner.addAgentParams(AgentParams.OPT_CODE_RANGE, entries); 
-		return agentRunner;
+		if (isAdaptiveRecording()) {
+			/* over long runs end with a partial trace focused on the execution range entries */
+			agentRunner.addAgentParam(AgentParams.OPT_ADAPTIVE_RECORDING, true);
+			agentRunner.addAgentParams(AgentParams.OPT_FOCUS_RANGE, ExecutionRangePreference.getFocusRangeEntrys());
+		}
+		if (instrumentationCacheDir != null) {
+			agentRunner.addAgentParam(AgentParams.OPT_INSTR_CACHE_DIR, instrumentationCacheDir);
+		}
+	}
+	
+	private boolean isAdaptiveRecording() {
+		return Boolean.valueOf(MicrobatPreference.getValue(MicrobatPreference.ADAPTIVE_RECORDING));
+	}
+	
+	private Map<String, String> getWorkerAgentParams() {
+		Map<String, String> params = new TreeMap<>(agentRunner.getAgentParamMap());
+		params.keySet().removeAll(RUN_SPECIFIC_PARAMS);
+		return params;
+	}
+	
+	private String getWorkerKey() {
+		return StringUtils.join(Arrays.asList(appPath.getJavaHome(), appPath.getWorkingDirectory(),
+				appPath.getClasspathStr(), includeLibs, excludeLibs, appPath.getAgentLib(), getWorkerAgentParams()), "|");
 	}
 	
 	public RunningInformation run(){
+		if (singleRun) {
+			RunningInformation rInfo = runInSingleMode(null, -1);
+			if (rInfo != null) {
+				return rInfo;
+			}
+			System.out.println("single run failed, rerun with precheck..");
+		}
 		try {
 //			System.out.println("first precheck..");
 //			agentRunner.precheck(null);
@@ -126,7 +190,7 @@ public class InstrumentationExecutor {
 			if (precheckInfomation.isUndeterministic()) {
 				System.out.println("undeterministic!!");
 			} 
-			if (!info.isOverLong() /*&& !precheckInfomation.isUndeterministic() */) {
+			if (!info.isOverLong() || isAdaptiveRecording() /*&& !precheckInfomation.isUndeterministic() */) {
 				if (!info.getExceedingLimitMethods().isEmpty()) {
 					agentRunner.addAgentParams(AgentParams.OPT_OVER_LONG_METHODS, info.getExceedingLimitMethods());
 				}
@@ -140,6 +204,59 @@ public class InstrumentationExecutor {
 		return new RunningInformation("", -1, -1, null);
 	}
 	
+	/**
+	 * trace in a single run, the precheck info is a by-product of the trace.
+	 * 
+	 * @param precheckDumpFile
+	 *            if not null, the precheck info is also saved into this file.
+	 * @param stepLimit
+	 *            negative to use the step limit of the preference.
+	 * @return null if the single run does not give a result (e.g., timeout), 
+	 * then caller should fall back to separate precheck and trace runs.
+	 */
+	public RunningInformation runInSingleMode(String precheckDumpFile, int stepLimit) {
+		try {
+			long start = System.currentTimeMillis();
+			System.out.println("precheck & trace..");
+			if (stepLimit >= 0) {
+				agentRunner.addAgentParam(AgentParams.OPT_STEP_LIMIT, stepLimit);
+			}
+			if (!agentRunner.runWithPrecheck(traceExecFilePath)) {
+				if (agentRunner.isProcessTimeout()) {
+					precheckInfo = new PreCheckInformation();
+					precheckInfo.setTimeout(true);
+				}
+				return null;
+			}
+			PrecheckInfo info = agentRunner.getPrecheckInfo();
+			System.out.println(info);
+			if (precheckDumpFile != null) {
+				info.saveToFile(precheckDumpFile, false);
+			}
+			PreCheckInformation precheckInfomation = new PreCheckInformation(info.getThreadNum(), info.getStepTotal(),
+					info.isOverLong(), new ArrayList<>(info.getVisitedLocs()), info.getExceedingLimitMethods(), info.getLoadedClasses());
+			precheckInfomation.setPassTest(agentRunner.isTestSuccessful());
+			this.setPrecheckInfo(precheckInfomation);
+			System.out.println("the trace length is: " + precheckInfomation.getStepNum());
+			if (info.isOverLong() && agentRunner.getRunningInfo() == null) {
+				return new RunningInformation("", -1, -1, null);
+			}
+			if (!info.getExceedingLimitMethods().isEmpty()
+					&& Boolean.valueOf(MicrobatPreference.getValue(MicrobatPreference.REQUIRE_METHOD_SPLITTING))) {
+				/* overlong methods are not instrumented in the single run, need another run to split them */
+				agentRunner.addAgentParams(AgentParams.OPT_OVER_LONG_METHODS, info.getExceedingLimitMethods());
+				return execute(precheckInfomation);
+			}
+			/* the precheck info comes from the same run, so the expected steps are the recorded ones */
+			RunningInfo result = agentRunner.getRunningInfo();
+			result.setExpectedSteps(precheckInfomation.getStepNum());
+			return toRunningInformation(result, precheckInfomation, start);
+		} catch (SavException e) {
+			e.printStackTrace();
+		}
+		return null;
+	}
+	
 	public PreCheckInformation runPrecheck(String dumpFile, int stepLimit) {
 		try {
 			/* test stepLimit */
@@ -165,6 +282,13 @@ public class InstrumentationExecutor {
 	}
 	
 	public RunningInformation execute(PreCheckInformation info) {
+		if (workerPool != null && appPath.getOptionalTestClass() != null) {
+			RunningInformation information = executeWithWorker(info);
+			if (information != null) {
+				return information;
+			}
+			System.out.println("worker died, rerun in a new vm..");
+		}
 		try {
 			long start = System.currentTimeMillis();
 //			agentRunner.getConfig().setDebug(true);
@@ -180,24 +304,58 @@ public class InstrumentationExecutor {
 			System.out.println("testFailureMessage: " + agentRunner.getTestFailureMessage());
 			System.out.println("finish!");
 			agentRunner.removeAgentParam(AgentParams.OPT_EXPECTED_STEP);
-			
-			Trace trace = result.getTrace();
-			trace.setAppJavaClassPath(appPath);
-			trace.setMultiThread(info.getThreadNum()!=1);
-			
-			appendMissingInfo(trace, appPath);
-			trace.setConstructTime((int) (System.currentTimeMillis() - start));
-			
-			RunningInformation information = new RunningInformation(result.getProgramMsg(), result.getExpectedSteps(), 
-					result.getCollectedSteps(), result.getTrace());
-			
-			return information;
+			return toRunningInformation(result, info, start);
 		} catch (SavException e1) {
 			e1.printStackTrace();
 		}
 
 		return null;
 	}
+	
+	/**
+	 * @return null if the worker vm died during the execution, 
+	 * or an empty result if the testcase timed out in the worker.
+	 */
+	private RunningInformation executeWithWorker(PreCheckInformation info) {
+		long start = System.currentTimeMillis();
+		String key = getWorkerKey();
+		TraceWorker worker = workerPool.take(key);
+		try {
+			if (worker == null) {
+				worker = createTraceWorker();
+			}
+			RunningInfo result = worker.runTest(appPath.getOptionalTestClass(), appPath.getOptionalTestMethod());
+			if (result == null && worker.isTestTimedOut()) {
+				/* the worker is killed, a rerun in a new vm would time out as well */
+				return new RunningInformation("", -1, -1, null);
+			}
+			if (result == null) {
+				return null;
+			}
+			System.out.println("trace length: " + result.getTrace().size());
+			System.out.println("isTestSuccessful? " + worker.isTestSuccessful());
+			return toRunningInformation(result, info, start);
+		} catch (SavException e) {
+			e.printStackTrace();
+			return null;
+		} finally {
+			if (worker != null) {
+				workerPool.giveBack(key, worker);
+			}
+		}
+	}
+
+	private RunningInformation toRunningInformation(RunningInfo result, PreCheckInformation info, long start) {
+		Trace trace = result.getTrace();
+		trace.setAppJavaClassPath(appPath);
+		trace.setMultiThread(info.getThreadNum()!=1);
+		
+		appendMissingInfo(trace, appPath);
+		trace.setConstructTime((int) (System.currentTimeMillis() - start));
+		
+		return new RunningInformation(result.getProgramMsg(), result.getExpectedSteps(), 
+				result.getCollectedSteps(), result.getTrace());
+	}
 
 	public static void appendMissingInfo(Trace trace, AppJavaClassPath appPath) {
 		Map<String, String> classNameMap = new HashMap<>();
@@ -364,6 +522,22 @@ public class InstrumentationExecutor {
 		this.timeout = timeout;
 	}
 	
+	/**
+	 * reuse instrumented classes between runs, entries are stored in the given folder.
+	 */
+	public void setInstrumentationCacheDir(String cacheDir) {
+		this.instrumentationCacheDir = cacheDir;
+		agentRunner.addAgentParam(AgentParams.OPT_INSTR_CACHE_DIR, cacheDir);
+	}
+	
+	public void setSingleRun(boolean singleRun) {
+		this.singleRun = singleRun;
+	}
+	
+	public void setWorkerPool(TraceWorkerPool workerPool) {
+		this.workerPool = workerPool;
+	}
+	
 	public String getTraceExecFilePath() {
 		return traceExecFilePath;
 	}
@@ -0,0 +1,175 @@
+package microbat.codeanalysis.runtime;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import com.sun.jdi.AbsentInformationException;
+import com.sun.jdi.IncompatibleThreadStateException;
+import com.sun.jdi.Location;
+import com.sun.jdi.ReferenceType;
+import com.sun.jdi.ThreadReference;
+import com.sun.jdi.event.Event;
+import com.sun.jdi.event.LocatableEvent;
+import com.sun.jdi.event.MethodExitEvent;
+import com.sun.jdi.event.StepEvent;
+import com.sun.jdi.request.BreakpointRequest;
+import com.sun.jdi.request.EventRequest;
+import com.sun.jdi.request.EventRequestManager;
+import com.sun.jdi.request.MethodExitRequest;
+import com.sun.jdi.request.StepRequest;
+
+/**
+ * Breakpoint tracing: instead of single stepping, the traced thread only suspends at the
+ * locations of the watched lines. To report the same steps as a STEP_LINE request:
+ * <ul>
+ * <li>every location of a line is watched (e.g. the condition and the update of a for loop),
+ * but a line is reported once until the thread leaves it.</li>
+ * <li>when a method of a watched class returns to a watched class, the thread steps out to
+ * report the returning line of the caller.</li>
+ * </ul>
+ *
+ * @author LLT
+ *
+ */
+public class LineBreakpointWatcher {
+	private static final String LINE_WATCH = "lineWatch";
+
+	private EventRequestManager erm;
+	private String[] excludes;
+	private List<BreakpointRequest> lineBreakpointRequests = new ArrayList<>();
+	private Set<String> watchedClasses = new HashSet<>();
+	private ThreadReference tracedThread;
+	private MethodExitRequest returnRequest;
+	private StepRequest returnStepRequest;
+	/* the line and stack depth of the last line event */
+	private String lastLine;
+	private int lastDepth = -1;
+
+	/**
+	 * @param excludes
+	 *            class patterns of which method returns are not watched.
+	 */
+	public LineBreakpointWatcher(EventRequestManager erm, String[] excludes) {
+		this.erm = erm;
+		this.excludes = excludes;
+	}
+
+	/**
+	 * @return the locations of the line, empty if there is no code on the line.
+	 */
+	public List<Location> addLineWatch(ReferenceType refType, int lineNumber) {
+		List<Location> locations;
+		try {
+			locations = refType.locationsOfLine(lineNumber);
+		} catch (AbsentInformationException e) {
+			e.printStackTrace();
+			return Collections.emptyList();
+		}
+		watchedClasses.add(refType.name());
+		for (Location location : locations) {
+			BreakpointRequest request = erm.createBreakpointRequest(location);
+			request.setSuspendPolicy(EventRequest.SUSPEND_EVENT_THREAD);
+			request.putProperty(LINE_WATCH, Boolean.TRUE);
+			lineBreakpointRequests.add(request);
+			if (tracedThread != null) {
+				request.addThreadFilter(tracedThread);
+				request.enable();
+			}
+		}
+		return locations;
+	}
+
+	/**
+	 * the lines are traced on the given thread from now on.
+	 */
+	public void start(ThreadReference thread) {
+		if (tracedThread != null) {
+			return;
+		}
+		tracedThread = thread;
+		for (BreakpointRequest request : lineBreakpointRequests) {
+			request.addThreadFilter(thread);
+			request.enable();
+		}
+		returnRequest = erm.createMethodExitRequest();
+		returnRequest.addThreadFilter(thread);
+		for (String ex : excludes) {
+			returnRequest.addClassExclusionFilter(ex);
+		}
+		returnRequest.setSuspendPolicy(EventRequest.SUSPEND_EVENT_THREAD);
+		returnRequest.enable();
+	}
+
+	/**
+	 * disable the watch while the debuggee invokes methods for the evaluation of an expression.
+	 */
+	public void setEnabled(boolean enabled) {
+		if (tracedThread == null) {
+			return;
+		}
+		for (BreakpointRequest request : lineBreakpointRequests) {
+			request.setEnabled(enabled);
+		}
+		returnRequest.setEnabled(enabled);
+		if (returnStepRequest != null) {
+			returnStepRequest.setEnabled(enabled);
+		}
+	}
+
+	public boolean isLineEvent(Event event) {
+		EventRequest request = event.request();
+		if (request == null) {
+			return false;
+		}
+		return request.getProperty(LINE_WATCH) != null || request == returnStepRequest;
+	}
+
+	/**
+	 * @return false if the event is on the line reported by the last line event and
+	 *         in the same frame, then it is not a new step.
+	 */
+	public boolean onLineEvent(LocatableEvent event) {
+		if (event instanceof StepEvent) {
+			erm.deleteEventRequest(returnStepRequest);
+			returnStepRequest = null;
+		}
+		String line = event.location().toString();
+		int depth = getFrameCount(event.thread());
+		boolean isNewStep = (event instanceof StepEvent) || !line.equals(lastLine) || depth != lastDepth;
+		lastLine = line;
+		lastDepth = depth;
+		return isNewStep;
+	}
+
+	public void onMethodExit(MethodExitEvent event) {
+		if (!watchedClasses.contains(event.location().declaringType().name()) || returnStepRequest != null) {
+			return;
+		}
+		ThreadReference thread = event.thread();
+		try {
+			if (thread.frameCount() < 2
+					|| !watchedClasses.contains(thread.frame(1).location().declaringType().name())) {
+				return;
+			}
+		} catch (IncompatibleThreadStateException e) {
+			e.printStackTrace();
+			return;
+		}
+		returnStepRequest = erm.createStepRequest(thread, StepRequest.STEP_LINE, StepRequest.STEP_OUT);
+		returnStepRequest.setSuspendPolicy(EventRequest.SUSPEND_EVENT_THREAD);
+		returnStepRequest.addCountFilter(1);
+		returnStepRequest.enable();
+	}
+
+	private int getFrameCount(ThreadReference thread) {
+		try {
+			return thread.frameCount();
+		} catch (IncompatibleThreadStateException e) {
+			e.printStackTrace();
+			return -1;
+		}
+	}
+}
@@ -45,6 +45,7 @@ import com.sun.jdi.Location;
 import com.sun.jdi.ObjectReference;
 import com.sun.jdi.ReferenceType;
 import com.sun.jdi.StackFrame;
+import com.sun.jdi.StringReference;
 import com.sun.jdi.ThreadReference;
 import com.sun.jdi.Value;
 import com.sun.jdi.VirtualMachine;
@@ -54,6 +55,7 @@ import com.sun.jdi.event.Event;
 import com.sun.jdi.event.EventQueue;
 import com.sun.jdi.event.EventSet;
 import com.sun.jdi.event.ExceptionEvent;
+import com.sun.jdi.event.LocatableEvent;
 import com.sun.jdi.event.MethodEntryEvent;
 import com.sun.jdi.event.MethodExitEvent;
 import com.sun.jdi.event.StepEvent;
@@ -139,6 +141,15 @@ public class ProgramExecutor extends Executor {
 	 */
 	private Trace trace;
 
+	/**
+	 * if true, the debuggee is not stepped line by line, breakpoints are only set on the lines
+	 * recorded by {@link ExecutionStatementCollector}. Library code is then not traced.
+	 */
+	private boolean breakpointMode = false;
+	private LineBreakpointWatcher lineWatcher;
+	private SuspendEpochCache epochCache = new SuspendEpochCache();
+	private ClassPreparationPool preparationPool;
+
 	public ProgramExecutor() {
 	}
 	
@@ -171,6 +182,9 @@ public class ProgramExecutor extends Executor {
 	public void run(List<BreakPoint> runningStatements, List<BreakPoint> executionOrderList, IProgressMonitor monitor,
 			int stepNum, boolean isTestcaseEvaluation) throws SavException, TimeoutException {
 		this.trace = new Trace(appPath);
+		this.brkpsMap = BreakpointUtils.initBrkpsMap(runningStatements);
+		this.preparationPool = new ClassPreparationPool(appPath);
+		this.preparationPool.prepare(brkpsMap);
 
 		List<String> classScope = parseScope(runningStatements);
 		List<LocalVariableScope> lvsList = parseLocalVariables(classScope, this.appPath);
@@ -178,7 +192,6 @@ public class ProgramExecutor extends Executor {
 
 		List<String> exlcudes = MicroBatUtil.extractExcludeFiles("", appPath.getExternalLibPaths());
 		this.addLibExcludeList(exlcudes);
-		this.brkpsMap = BreakpointUtils.initBrkpsMap(runningStatements);
 
 		long t1 = System.currentTimeMillis();
 		
@@ -189,6 +202,7 @@ public class ProgramExecutor extends Executor {
 			if (vm != null) {
 				vm.exit(0);
 			}
+			preparationPool.cancel();
 			System.out.println();
 			System.out.println("JVM is ended.");
 		}
@@ -263,6 +277,7 @@ public class ProgramExecutor extends Executor {
 		VirtualMachine vm = new VMStarter(this.appPath, isTestcaseEvaluation).start();
 
 		EventRequestManager erm = vm.eventRequestManager();
+		lineWatcher = breakpointMode ? new LineBreakpointWatcher(erm, getLibExcludes()) : null;
 
 		/** add class watch, otherwise, I cannot catch the registered event */
 		addClassWatch(erm);
@@ -318,6 +333,7 @@ public class ProgramExecutor extends Executor {
 				eventTimeout = true;
 				break;
 			}
+			epochCache.nextEpoch();
 
 			for (Event event : eventSet) {
 				previousEvent = createEventLog(event);
@@ -338,10 +354,13 @@ public class ProgramExecutor extends Executor {
 					ClassPrepareEvent cEvent = (ClassPrepareEvent)event;
 					addStartBreakPointWatch(erm, cEvent.referenceType(), range);
 					parseBreakpoints(vm, (ClassPrepareEvent) event, locBrpMap);						
-				} else if (event instanceof StepEvent) {
-					ThreadReference thread = ((StepEvent) event).thread();
-					Location currentLocation = ((StepEvent) event).location();
+				} else if (event instanceof StepEvent || isLineBreakpointEvent(event)) {
+					ThreadReference thread = ((LocatableEvent) event).thread();
+					Location currentLocation = ((LocatableEvent) event).location();
 
+					if (lineWatcher != null && !lineWatcher.onLineEvent((LocatableEvent) event)) {
+						continue;
+					}
 					if (currentLocation.lineNumber() == -1) {
 						continue;
 					}
@@ -373,6 +392,8 @@ public class ProgramExecutor extends Executor {
 						}
 					}
 					
+					BreakPoint thisPoint = locBrpMap.get(currentLocation.toString());
+					
 					/**
 					 * collect the variable values after executing previous step
 					 */
@@ -388,14 +409,14 @@ public class ProgramExecutor extends Executor {
 						 * runtime.
 						 */
 						isContextChange = checkContext(trace.getLatestNode().getBreakPoint(), currentLocation);
+						prefetchLocalValues(thread, currentLocation, isContextChange ? null : trace.getLatestNode(),
+								thisPoint);
 						if (!isContextChange) {
 							processWrittenVariable(this.trace.getLatestNode(), this.trace.getStepVariableTable(), 
 									thread, currentLocation);
 						}
 					}
 					
-					
-					BreakPoint thisPoint = locBrpMap.get(currentLocation.toString());
 					if(thisPoint==null) {
 						continue;
 					}
@@ -491,8 +512,15 @@ public class ProgramExecutor extends Executor {
 						break cancel;
 					}
 				} 
+				else if (event instanceof MethodExitEvent && lineWatcher != null) {
+					lineWatcher.onMethodExit((MethodExitEvent) event);
+				}
 				else if(event instanceof BreakpointEvent){
-					addStepWatch(erm, ((BreakpointEvent) event).thread());
+					if (breakpointMode) {
+						lineWatcher.start(((BreakpointEvent) event).thread());
+					} else {
+						addStepWatch(erm, ((BreakpointEvent) event).thread());
+					}
 					addExceptionWatch(erm);
 					excludeJUnitLibs();
 				}
@@ -754,6 +782,12 @@ public class ProgramExecutor extends Executor {
 		String locationID = className + "$" + lineNumber;
 		SingleLineByteCodeVisitor visitor = libraryLine2LineVisitorMap.get(locationID);
 //		visitor = null;
+		if (visitor == null && preparationPool != null) {
+			visitor = preparationPool.getLineVisitor(point);
+			if (visitor != null) {
+				libraryLine2LineVisitorMap.put(locationID, visitor);
+			}
+		}
 		if (visitor == null) {
 			visitor = new SingleLineByteCodeVisitor(lineNumber, className, appPath);
 			ByteCodeParser.parse(className, visitor, appPath);
@@ -882,6 +916,12 @@ public class ProgramExecutor extends Executor {
 	private Map<BreakPoint, MethodDeclaration> lineMethodMap = new HashMap<>();
 	private MethodDeclaration getMethodByAST(BreakPoint point) {
 		MethodDeclaration method = lineMethodMap.get(point);
+		if(method==null && preparationPool!=null) {
+			method = preparationPool.getMethod(point);
+			if(method!=null) {
+				lineMethodMap.put(point, method);
+			}
+		}
 		if(method==null) {
 			CompilationUnit thisCU = 
 					JavaUtil.findCompilationUnitInProject(point.getDeclaringCompilationUnitName(), this.appPath);
@@ -1247,8 +1287,7 @@ public class ProgramExecutor extends Executor {
 						var.setVarID(varID);
 
 						if (value.type().toString().equals("java.lang.String")) {
-							String strValue = value.toString();
-							strValue = strValue.substring(1, strValue.length() - 1);
+							String strValue = epochCache.getStringValue((StringReference) value);
 							varValue = new StringValue(strValue, false, var);
 						} else {
 							varValue = new ReferenceValue(false, objRef.uniqueID(), false, var);
@@ -1495,7 +1534,7 @@ public class ProgramExecutor extends Executor {
 		}
 	}
 
-	class MethodFinder extends ASTVisitor {
+	static class MethodFinder extends ASTVisitor {
 		CompilationUnit cu;
 		int lineNumber;
 
@@ -1715,6 +1754,10 @@ public class ProgramExecutor extends Executor {
 			Location location = checkBreakpoint(vm, refType, brkp.getLineNumber());
 			if (location != null) {
 				locBrpMap.put(location.toString(), brkp);
+				if (breakpointMode) {
+					/* all locations of the line are watched, not only the first one */
+					lineWatcher.addLineWatch(refType, brkp.getLineNumber());
+				}
 			} else {
 				System.err.println("Cannot add break point " + brkp);
 			}
@@ -1736,6 +1779,33 @@ public class ProgramExecutor extends Executor {
 		return null;
 	}
 
+	private void setLineBreakpointsEnabled(boolean enabled) {
+		if (lineWatcher != null) {
+			lineWatcher.setEnabled(enabled);
+		}
+	}
+
+	private boolean isLineBreakpointEvent(Event event) {
+		return lineWatcher != null && lineWatcher.isLineEvent(event);
+	}
+
+	/**
+	 * fetch the local variables written by the previous step and read by this step in one request.
+	 */
+	private void prefetchLocalValues(ThreadReference thread, Location location, TraceNode prevNode,
+			BreakPoint thisPoint) {
+		List<Variable> vars = new ArrayList<>();
+		if (prevNode != null) {
+			vars.addAll(prevNode.getBreakPoint().getWrittenVariables());
+		}
+		if (thisPoint != null) {
+			vars.addAll(thisPoint.getReadVariables());
+		}
+		if (!vars.isEmpty()) {
+			epochCache.prefetchLocalValues(findFrame(thread, location), vars);
+		}
+	}
+
 	private VarValue constructReferenceVarValue(ObjectReference objRef, Variable var0, ThreadReference thread,
 			BreakPoint point, String accessType, int retrieveLayer) {
 		Variable var = var0.clone();
@@ -1845,8 +1915,7 @@ public class ProgramExecutor extends Executor {
 				var.setVarID(varID);
 
 				if (value.type().toString().equals("java.lang.String")) {
-					String strValue = value.toString();
-					strValue = strValue.substring(1, strValue.length() - 1);
+					String strValue = epochCache.getStringValue((StringReference) value);
 					varValue = new StringValue(strValue, false, var);
 				} else {
 					if (objRef instanceof ArrayReference) {
@@ -1959,12 +2028,7 @@ public class ProgramExecutor extends Executor {
 	private StackFrame findFrame(ThreadReference thread, Location location) {
 		StackFrame frame = null;
 		try {
-			for (StackFrame f : thread.frames()) {
-				if (f.location().equals(location)) {
-					frame = f;
-					break;
-				}
-			}
+			frame = epochCache.findFrame(thread, location);
 		} catch (Exception e) {
 			System.out.print(location);
 			e.printStackTrace();
@@ -1984,6 +2048,7 @@ public class ProgramExecutor extends Executor {
 
 		synchronized (frame) {
 			List<Variable> readVariables = node.getBreakPoint().getReadVariables();
+			epochCache.prefetchLocalValues(frame, readVariables);
 			for (Variable readVar : readVariables) {
 				VarValue varValue = generateVarValue(frame, readVar, node, Variable.READ, point);
 				if (varValue != null) {
@@ -2093,6 +2158,7 @@ public class ProgramExecutor extends Executor {
 		}
 		synchronized (frame) {
 			List<Variable> writtenVariables = node.getBreakPoint().getWrittenVariables();
+			epochCache.prefetchLocalValues(frame, writtenVariables);
 			for (Variable writtenVar : writtenVariables) {
 				VarValue varValue = generateVarValue(frame, writtenVar, node, Variable.WRITTEN, point);
 
@@ -2118,6 +2184,9 @@ public class ProgramExecutor extends Executor {
 	private ExpressionValue retriveExpression(final StackFrame frame0, String expression, BreakPoint point) {
 		ThreadReference thread = frame0.thread();
 		final StackFrame frame = findFrame(thread, frame0.location());
+		if (epochCache.hasLocalValue(frame, expression)) {
+			return new ExpressionValue(epochCache.getLocalValue(frame, expression), null, null);
+		}
 
 		ExpressionParser.GetFrame frameGetter = new ExpressionParser.GetFrame() {
 			@Override
@@ -2151,7 +2220,11 @@ public class ProgramExecutor extends Executor {
 				if (expression.contains("[")) {
 					val = null;
 				} else {
+					setLineBreakpointsEnabled(false);
 					val = retrieveComplicatedExpressionValue(expression, frame.virtualMachine(), frameGetter);
+					setLineBreakpointsEnabled(true);
+					/* the thread is resumed to invoke the method */
+					epochCache.nextEpoch();
 				}
 			} else {
 				val = ExpressionParser.evaluate(expression, frame.virtualMachine(), frameGetter);
@@ -2237,6 +2310,14 @@ public class ProgramExecutor extends Executor {
 		return trace;
 	}
 
+	public SuspendEpochCache getEpochCache() {
+		return epochCache;
+	}
+
+	public void setBreakpointMode(boolean breakpointMode) {
+		this.breakpointMode = breakpointMode;
+	}
+
 	public AppJavaClassPath getConfig() {
 		return appPath;
 	}
@@ -0,0 +1,153 @@
+package microbat.codeanalysis.runtime;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+import com.sun.jdi.AbsentInformationException;
+import com.sun.jdi.ClassType;
+import com.sun.jdi.IncompatibleThreadStateException;
+import com.sun.jdi.LocalVariable;
+import com.sun.jdi.Location;
+import com.sun.jdi.ObjectReference;
+import com.sun.jdi.StackFrame;
+import com.sun.jdi.StringReference;
+import com.sun.jdi.ThreadReference;
+import com.sun.jdi.Value;
+
+import microbat.model.variable.LocalVar;
+import microbat.model.variable.Variable;
+import microbat.util.JavaUtil;
+
+/**
+ * JDI values which stay valid while the debuggee is suspended by one event set (a suspend epoch):
+ * the stack frames of a thread, the values of local variables fetched in one batch per frame
+ * and the content of immutable objects (String, Integer, ...) by object id. Everything is dropped
+ * when the next event set comes, as frames are invalid and object ids can be reused once the
+ * debuggee is resumed.
+ *
+ * @author LLT
+ *
+ */
+public class SuspendEpochCache {
+	private static final Pattern SIMPLE_NAME_PATTERN = Pattern.compile("^[A-Za-z_$][A-Za-z0-9_$]*$");
+
+	private Map<Long, List<StackFrame>> framesMap = new HashMap<>();
+	private Map<StackFrame, Map<String, Value>> localValuesMap = new HashMap<>();
+	private Map<StackFrame, Set<String>> fetchedLocalNamesMap = new HashMap<>();
+	private Map<Long, String> immutableValueMap = new HashMap<>();
+
+	/**
+	 * the debuggee is resumed (a new event set, or a method invoked in the debuggee while
+	 * evaluating an expression).
+	 */
+	public void nextEpoch() {
+		framesMap.clear();
+		localValuesMap.clear();
+		fetchedLocalNamesMap.clear();
+		immutableValueMap.clear();
+	}
+
+	public List<StackFrame> getFrames(ThreadReference thread) throws IncompatibleThreadStateException {
+		List<StackFrame> frames = framesMap.get(thread.uniqueID());
+		if (frames == null) {
+			frames = thread.frames();
+			framesMap.put(thread.uniqueID(), frames);
+		}
+		return frames;
+	}
+
+	public StackFrame findFrame(ThreadReference thread, Location location) throws IncompatibleThreadStateException {
+		for (StackFrame frame : getFrames(thread)) {
+			if (frame.location().equals(location)) {
+				return frame;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * fetch the values of the local variables in one request to the debuggee, variables which
+	 * are not plain local variable names (fields, array elements, expressions) are left to the
+	 * expression parser.
+	 */
+	public void prefetchLocalValues(StackFrame frame, List<Variable> variables) {
+		if (frame == null || variables.isEmpty()) {
+			return;
+		}
+		Set<String> fetchedNames = fetchedLocalNamesMap.get(frame);
+		if (fetchedNames == null) {
+			fetchedNames = new HashSet<>();
+			fetchedLocalNamesMap.put(frame, fetchedNames);
+		}
+		Set<String> names = new HashSet<>();
+		for (Variable var : variables) {
+			if ((var instanceof LocalVar) && !fetchedNames.contains(var.getName())
+					&& SIMPLE_NAME_PATTERN.matcher(var.getName()).matches()) {
+				names.add(var.getName());
+			}
+		}
+		if (names.isEmpty()) {
+			return;
+		}
+		fetchedNames.addAll(names);
+		try {
+			List<LocalVariable> localVars = new ArrayList<>();
+			for (LocalVariable localVar : frame.visibleVariables()) {
+				if (names.contains(localVar.name())) {
+					localVars.add(localVar);
+				}
+			}
+			if (localVars.isEmpty()) {
+				return;
+			}
+			Map<LocalVariable, Value> values = frame.getValues(localVars);
+			Map<String, Value> localValues = localValuesMap.get(frame);
+			if (localValues == null) {
+				localValues = new HashMap<>();
+				localValuesMap.put(frame, localValues);
+			}
+			for (LocalVariable localVar : values.keySet()) {
+				localValues.put(localVar.name(), values.get(localVar));
+			}
+		} catch (AbsentInformationException e) {
+			// no local variable table, let the expression parser report it.
+		}
+	}
+
+	public boolean hasLocalValue(StackFrame frame, String name) {
+		Map<String, Value> localValues = localValuesMap.get(frame);
+		return localValues != null && localValues.containsKey(name);
+	}
+
+	public Value getLocalValue(StackFrame frame, String name) {
+		Map<String, Value> localValues = localValuesMap.get(frame);
+		return localValues == null ? null : localValues.get(name);
+	}
+
+	/**
+	 * @return the content of a String or a boxed primitive, see
+	 *         {@link JavaUtil#toPrimitiveValue(ClassType, ObjectReference, ThreadReference)}.
+	 */
+	public String getImmutableValue(ClassType type, ObjectReference objRef, ThreadReference thread) {
+		String value = immutableValueMap.get(objRef.uniqueID());
+		if (value == null && !immutableValueMap.containsKey(objRef.uniqueID())) {
+			value = JavaUtil.toPrimitiveValue(type, objRef, thread);
+			immutableValueMap.put(objRef.uniqueID(), value);
+		}
+		return value;
+	}
+
+	public String getStringValue(StringReference strRef) {
+		String value = immutableValueMap.get(strRef.uniqueID());
+		if (value == null) {
+			value = strRef.value();
+			immutableValueMap.put(strRef.uniqueID(), value);
+		}
+		return value;
+	}
+}
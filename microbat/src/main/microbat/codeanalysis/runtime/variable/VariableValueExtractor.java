@@ -355,7 +355,8 @@ public class VariableValueExtractor {
 			 * if the class name is "String"
 			 */
 			if (PrimitiveUtils.isString(type.name())) {
-				String pValue = JavaUtil.toPrimitiveValue((ClassType) type, (ObjectReference)childVarValue, thread);
+				String pValue = executor.getEpochCache().getImmutableValue((ClassType) type,
+						(ObjectReference) childVarValue, thread);
 				StringValue ele = new StringValue(pValue, isRoot, childVar);
 				ele.setVarID(String.valueOf(((ObjectReference)childVarValue).uniqueID()));
 				appendVarID(ele);
@@ -366,7 +367,8 @@ public class VariableValueExtractor {
 			 * if the class name is "Integer", "Float", ...
 			 */
 			else if (PrimitiveUtils.isPrimitiveType(type.name())) {
-				String pValue = JavaUtil.toPrimitiveValue((ClassType) type, (ObjectReference)childVarValue, thread);
+				String pValue = executor.getEpochCache().getImmutableValue((ClassType) type,
+						(ObjectReference) childVarValue, thread);
 				PrimitiveValue ele = new PrimitiveValue(pValue, isRoot, childVar);
 				ele.setVarID(String.valueOf(((ObjectReference)childVarValue).uniqueID()));
 				appendVarID(ele);
@@ -97,6 +97,7 @@ public class StartDebugHandler extends AbstractHandler {
 						List<String> excludedClassNames = AnalysisScopePreference.getExcludedLibList();
 						InstrumentationExecutor exectuor = new InstrumentationExecutor(appClassPath,
 								generateTraceDir(appClassPath), "trace", includedClassNames, excludedClassNames);
+						exectuor.setSingleRun(Settings.isSingleRunTrace);
 						final Trace trace = exectuor.run().getTrace();
 						trace.setAppJavaClassPath(appClassPath);
 						
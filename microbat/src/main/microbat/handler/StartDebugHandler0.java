@@ -151,6 +151,7 @@ public class StartDebugHandler0 extends AbstractHandler {
 							monitor.setTaskName("extract runtime value for variables");
 							
 							tcExecutor.setConfig(appClassPath);
+							tcExecutor.setBreakpointMode(Settings.isBreakpointTracing);
 							try {
 								tcExecutor.run(runningStatements, executionOrderList, monitor, stepNum, Settings.isRunTest);
 							} catch (SavException | TimeoutException e) {
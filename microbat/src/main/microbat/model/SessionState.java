@@ -0,0 +1,63 @@
+package microbat.model;
+
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+import microbat.model.trace.PotentialCorrectPatternList;
+import microbat.model.trace.TraceNode;
+import microbat.util.Settings;
+
+/**
+ * The debugging state of one recommendation session on a trace: the user feedback recorded in
+ * {@link Settings} and the check times of the trace and its steps. Once bound to a thread with
+ * {@link Settings#setSessionState(SessionState)}, it is used instead of the static fields of
+ * {@link Settings} and of the check times kept in the trace, so that several sessions can run
+ * on the same trace in parallel.
+ */
+public class SessionState {
+	private UserInterestedVariables interestedVariables = new UserInterestedVariables();
+	private PotentialCorrectPatternList potentialCorrectPatterns = new PotentialCorrectPatternList();
+	private HashSet<Integer> wrongPathNodeOrder = new HashSet<>();
+
+	private int traceCheckTime = -1;
+	private Map<TraceNode, Integer> checkTimes = new IdentityHashMap<>();
+
+	public UserInterestedVariables getInterestedVariables() {
+		return interestedVariables;
+	}
+
+	public PotentialCorrectPatternList getPotentialCorrectPatterns() {
+		return potentialCorrectPatterns;
+	}
+
+	public HashSet<Integer> getWrongPathNodeOrder() {
+		return wrongPathNodeOrder;
+	}
+
+	public int getTraceCheckTime() {
+		return traceCheckTime;
+	}
+
+	public void setTraceCheckTime(int traceCheckTime) {
+		this.traceCheckTime = traceCheckTime;
+	}
+
+	public int getCheckTime(TraceNode node) {
+		Integer checkTime = checkTimes.get(node);
+		return checkTime == null ? -1 : checkTime;
+	}
+
+	public void setCheckTime(TraceNode node, int checkTime) {
+		if (checkTime == -1) {
+			checkTimes.remove(node);
+		} else {
+			checkTimes.put(node, checkTime);
+		}
+	}
+
+	public void resetCheckTimes() {
+		traceCheckTime = -1;
+		checkTimes.clear();
+	}
+}
@@ -31,12 +31,12 @@ public class PathInstance {
 	}
 	
 	public boolean isPotentialCorrect() {
-		if(startNode.getReadVarCorrectness(Settings.interestedVariables, false)==TraceNode.READ_VARS_CORRECT && 
-				endNode.getReadVarCorrectness(Settings.interestedVariables, false)==TraceNode.READ_VARS_CORRECT){
+		if(startNode.getReadVarCorrectness(Settings.getInterestedVariables(), false)==TraceNode.READ_VARS_CORRECT && 
+				endNode.getReadVarCorrectness(Settings.getInterestedVariables(), false)==TraceNode.READ_VARS_CORRECT){
 			return true;
 		}
-		else if(startNode.getReadVarCorrectness(Settings.interestedVariables, false)!=TraceNode.READ_VARS_CORRECT && 
-				endNode.getReadVarCorrectness(Settings.interestedVariables, false)!=TraceNode.READ_VARS_CORRECT){
+		else if(startNode.getReadVarCorrectness(Settings.getInterestedVariables(), false)!=TraceNode.READ_VARS_CORRECT && 
+				endNode.getReadVarCorrectness(Settings.getInterestedVariables(), false)!=TraceNode.READ_VARS_CORRECT){
 			return true;
 		}
 		
@@ -132,7 +132,7 @@ public class PotentialCorrectPatternList {
 					pathInstance.getStartNode().getLineNumber()==dataDominator.getLineNumber()){
 				
 				PathInstance newIns = new PathInstance(dataDominator, existingSusiciousNode);
-				if(Settings.potentialCorrectPatterns.containsPattern(newIns)){
+				if(Settings.getPotentialCorrectPatterns().containsPattern(newIns)){
 					return dataDominator;					
 				}
 			}
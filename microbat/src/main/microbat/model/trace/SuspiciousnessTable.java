@@ -0,0 +1,152 @@
+package microbat.model.trace;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import microbat.model.AttributionVar;
+
+/**
+ * Suspicious scores of the steps of a trace, kept in a dense array (indexed by step order - 1)
+ * per attribution variable. A score is valid only if it is written in the current epoch, so
+ * clearing all the scores is done by increasing the epoch. All the accesses are synchronized on
+ * the table.
+ *
+ * @author LLT
+ */
+public class SuspiciousnessTable {
+	private Trace trace;
+	private Map<AttributionVar, Scores> scoreMap = new HashMap<>();
+	private int epoch = 1;
+
+	private static class Scores {
+		double[] values = new double[0];
+		int[] epochs = new int[0];
+
+		void ensureCapacity(int size) {
+			if (values.length < size) {
+				int newSize = Math.max(size, values.length * 2);
+				values = Arrays.copyOf(values, newSize);
+				epochs = Arrays.copyOf(epochs, newSize);
+			}
+		}
+	}
+
+	public SuspiciousnessTable(Trace trace) {
+		this.trace = trace;
+	}
+
+	private Scores getScores(AttributionVar var, boolean create) {
+		Scores scores = scoreMap.get(var);
+		if (scores == null && create) {
+			scores = new Scores();
+			scoreMap.put(var, scores);
+		}
+		return scores;
+	}
+
+	public synchronized Double get(AttributionVar var, int order) {
+		Scores scores = getScores(var, false);
+		int idx = order - 1;
+		if (scores == null || idx < 0 || idx >= scores.values.length || scores.epochs[idx] != epoch) {
+			return null;
+		}
+		return scores.values[idx];
+	}
+
+	public synchronized void set(AttributionVar var, int order, double score) {
+		Scores scores = getScores(var, true);
+		int idx = order - 1;
+		scores.ensureCapacity(order);
+		scores.values[idx] = score;
+		scores.epochs[idx] = epoch;
+	}
+
+	public synchronized void add(AttributionVar var, int order, double score) {
+		Scores scores = getScores(var, true);
+		scores.ensureCapacity(order);
+		add(scores, order - 1, score);
+	}
+
+	private void add(Scores scores, int idx, double score) {
+		if (scores.epochs[idx] != epoch) {
+			scores.values[idx] = score;
+			scores.epochs[idx] = epoch;
+		} else {
+			scores.values[idx] += score;
+		}
+	}
+
+	private double getValue(Scores scores, int idx) {
+		if (idx >= scores.values.length || scores.epochs[idx] != epoch) {
+			return 0;
+		}
+		return scores.values[idx];
+	}
+
+	/**
+	 * @return the valid scores of the step, keyed by attribution variable.
+	 */
+	public synchronized Map<AttributionVar, Double> getScoreMap(int order) {
+		Map<AttributionVar, Double> map = new HashMap<>();
+		int idx = order - 1;
+		for (Map.Entry<AttributionVar, Scores> entry : scoreMap.entrySet()) {
+			Scores scores = entry.getValue();
+			if (idx >= 0 && idx < scores.values.length && scores.epochs[idx] == epoch) {
+				map.put(entry.getKey(), scores.values[idx]);
+			}
+		}
+		return map;
+	}
+
+	public synchronized void setScoreMap(int order, Map<AttributionVar, Double> map) {
+		int idx = order - 1;
+		for (Scores scores : scoreMap.values()) {
+			if (idx < scores.epochs.length) {
+				scores.epochs[idx] = 0;
+			}
+		}
+		for (Map.Entry<AttributionVar, Double> entry : map.entrySet()) {
+			set(entry.getKey(), order, entry.getValue());
+		}
+	}
+
+	/**
+	 * invalidate all the scores.
+	 */
+	public synchronized void clear() {
+		epoch++;
+		if (epoch == Integer.MAX_VALUE) {
+			/* should hardly happen, but the old epochs cannot be reused before being reset */
+			for (Scores scores : scoreMap.values()) {
+				Arrays.fill(scores.epochs, 0);
+			}
+			epoch = 1;
+		}
+	}
+
+	/**
+	 * @return the first step with the highest score of {@code var}.
+	 */
+	public synchronized TraceNode findMostSuspiciousNode(AttributionVar var) {
+		List<TraceNode> steps = trace.getExecutionList();
+		if (steps.isEmpty()) {
+			return null;
+		}
+		Scores scores = getScores(var, false);
+		if (scores == null) {
+			return steps.get(0);
+		}
+		int best = 0;
+		double bestScore = getValue(scores, 0);
+		for (int i = 1; i < steps.size(); i++) {
+			double score = getValue(scores, i);
+			if (score > bestScore) {
+				best = i;
+				bestScore = score;
+			}
+		}
+		return steps.get(best);
+	}
+}
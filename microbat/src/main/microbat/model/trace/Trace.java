@@ -15,6 +15,7 @@ import microbat.codeanalysis.ast.LocalVariableScopes;
 import microbat.model.AttributionVar;
 import microbat.model.BreakPoint;
 import microbat.model.Scope;
+import microbat.model.SessionState;
 import microbat.model.value.VarValue;
 import microbat.model.value.VirtualValue;
 import microbat.model.variable.Variable;
@@ -40,6 +41,8 @@ public class Trace {
 	 */
 	private LocalVariableScopes localVariableScopes = new LocalVariableScopes();
 	
+	private SuspiciousnessTable suspiciousnessTable;
+	
 	public Trace(AppJavaClassPath appJavaClassPath) {
 		this.setAppJavaClassPath(appJavaClassPath);
 	}
@@ -67,6 +70,11 @@ public class Trace {
 	private boolean isMultiThread = false;
 
 	public void resetCheckTime(){
+		SessionState session = Settings.getSessionState();
+		if(session != null){
+			session.resetCheckTimes();
+			return;
+		}
 		this.checkTime = -1;
 		for(TraceNode node: getExecutionList()){
 			node.resetCheckTime();
@@ -774,17 +782,31 @@ public class Trace {
 	}
 
 	public int getCheckTime() {
+		SessionState session = Settings.getSessionState();
+		if(session != null){
+			return session.getTraceCheckTime();
+		}
 		return checkTime;
 	}
 
 	public void setCheckTime(int checkTime) {
+		SessionState session = Settings.getSessionState();
+		if(session != null){
+			session.setTraceCheckTime(checkTime);
+			return;
+		}
 		this.checkTime = checkTime;
 	}
 	
-	public void clearAllSuspiciousness(){
-		for(TraceNode node: this.exectionList){
-			node.getSuspicousScoreMap().clear();
+	public synchronized SuspiciousnessTable getSuspiciousnessTable(){
+		if(suspiciousnessTable == null){
+			suspiciousnessTable = new SuspiciousnessTable(this);
 		}
+		return suspiciousnessTable;
+	}
+	
+	public void clearAllSuspiciousness(){
+		getSuspiciousnessTable().clear();
 	}
 
 //	public TraceNode findSuspiciousControlDominator(TraceNode buggyNode, String feedback) {
@@ -812,27 +834,7 @@ public class Trace {
 	
 	
 	public TraceNode findMostSupiciousNode(AttributionVar var) {
-		TraceNode suspiciousNode = null;
-		for(TraceNode node: this.exectionList){
-			if(suspiciousNode == null){
-				suspiciousNode = node;
-			}
-			else{
-				Double score1 = node.getSuspicousScore(var);
-				score1 = (score1 == null) ? 0 : score1;
-				Double score2 = suspiciousNode.getSuspicousScore(var);
-				score2 = (score2 == null) ? 0 : score2;
-				if(score1 > score2){
-					suspiciousNode = node;
-				}
-				
-//				if(node.getOrder()==203 || node.getOrder()==194){
-//					System.out.println(node.getOrder() + "(" + var.getVarID() + "):" + node.getSuspicousScore(var));
-//				}
-			}
-		}
-		
-		return suspiciousNode;
+		return getSuspiciousnessTable().findMostSuspiciousNode(var);
 	}
 
 	public LoopSequence findLoopRangeOf(TraceNode currentNode) {
@@ -910,8 +912,8 @@ public class Trace {
 
 	public TraceNode getEarliestNodeWithWrongVar() {
 		for(TraceNode node: this.exectionList){
-			if(node.getWittenVarCorrectness(Settings.interestedVariables, false)==TraceNode.WRITTEN_VARS_INCORRECT
-					|| node.getReadVarCorrectness(Settings.interestedVariables, false)==TraceNode.READ_VARS_INCORRECT){
+			if(node.getWittenVarCorrectness(Settings.getInterestedVariables(), false)==TraceNode.WRITTEN_VARS_INCORRECT
+					|| node.getReadVarCorrectness(Settings.getInterestedVariables(), false)==TraceNode.READ_VARS_INCORRECT){
 				return node;
 			}
 		}
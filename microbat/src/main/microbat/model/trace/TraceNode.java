@@ -19,6 +19,7 @@ import microbat.model.AttributionVar;
 import microbat.model.BreakPoint;
 import microbat.model.BreakPointValue;
 import microbat.model.Scope;
+import microbat.model.SessionState;
 import microbat.model.UserInterestedVariables;
 import microbat.model.value.ReferenceValue;
 import microbat.model.value.VarValue;
@@ -40,7 +41,6 @@ public class TraceNode{
 	public final static int WRITTEN_VARS_INCORRECT = 7;
 	public final static int WRITTEN_VARS_UNKNOWN = 8;
 	
-	private Map<AttributionVar, Double> suspicousScoreMap = new HashMap<>();
 	
 	private int checkTime = -1;
 	
@@ -87,6 +87,8 @@ public class TraceNode{
 	
 	private boolean isException;
 	
+	private boolean controlFlowOnly;
+	
 	private TraceNode invokingMatchNode;
 	
 	private long runtimePC;
@@ -106,7 +108,7 @@ public class TraceNode{
 		List<VarValue> markedReadVars = new ArrayList<>();
 		for(VarValue readVarValue: this.readVariables){
 			String readVarID = readVarValue.getVarID();
-			if(Settings.interestedVariables.contains(readVarID)){
+			if(Settings.getInterestedVariables().contains(readVarID)){
 				markedReadVars.add(readVarValue);
 			}
 		}		
@@ -121,8 +123,8 @@ public class TraceNode{
 	 * @return
 	 */
 	public boolean isAllReadWrittenVarCorrect(boolean isUICheck){
-		boolean writtenCorrect = getWittenVarCorrectness(Settings.interestedVariables, isUICheck) == TraceNode.WRITTEN_VARS_CORRECT;
-		boolean readCorrect = getReadVarCorrectness(Settings.interestedVariables, isUICheck) == TraceNode.READ_VARS_CORRECT;
+		boolean writtenCorrect = getWittenVarCorrectness(Settings.getInterestedVariables(), isUICheck) == TraceNode.WRITTEN_VARS_CORRECT;
+		boolean readCorrect = getReadVarCorrectness(Settings.getInterestedVariables(), isUICheck) == TraceNode.READ_VARS_CORRECT;
 		
 		return writtenCorrect && readCorrect;
 	}
@@ -529,6 +531,18 @@ public class TraceNode{
 		this.isException = isException;
 	}
 
+	/**
+	 * the variables of a control-flow-only step are not recorded (adaptive recording), so an
+	 * empty list of read or written variables does not mean the step has no data dependency.
+	 */
+	public boolean isControlFlowOnly() {
+		return controlFlowOnly;
+	}
+
+	public void setControlFlowOnly(boolean controlFlowOnly) {
+		this.controlFlowOnly = controlFlowOnly;
+	}
+
 	public List<VarValue> getReadVariables() {
 		return readVariables;
 	}
@@ -562,32 +576,35 @@ public class TraceNode{
 	}
 
 	public Double getSuspicousScore(AttributionVar var) {
-		return this.suspicousScoreMap.get(var);
+		return this.trace.getSuspiciousnessTable().get(var, order);
 	}
 
 	public void setSuspicousScore(AttributionVar var, double suspicousScore) {
-		this.suspicousScoreMap.put(var, suspicousScore);
+		this.trace.getSuspiciousnessTable().set(var, order, suspicousScore);
 	}
 	
 	public void addSuspicousScore(AttributionVar var, double score) {
-		Double ss = getSuspicousScore(var);
-		if(ss == null){
-			setSuspicousScore(var, score);
-		}
-		else{
-			setSuspicousScore(var, ss+score);
-		}
+		this.trace.getSuspiciousnessTable().add(var, order, score);
 	}
 
 	public boolean hasChecked(){
-		return checkTime != -1;
+		return getCheckTime() != -1;
 	}
 	
 	public int getCheckTime() {
+		SessionState session = Settings.getSessionState();
+		if(session != null){
+			return session.getCheckTime(this);
+		}
 		return checkTime;
 	}
 
 	public void setCheckTime(int markTime) {
+		SessionState session = Settings.getSessionState();
+		if(session != null){
+			session.setCheckTime(this, markTime);
+			return;
+		}
 		this.checkTime = markTime;
 	}
 
@@ -609,12 +626,15 @@ public class TraceNode{
 		return false;
 	}
 	
+	/**
+	 * @return a copy of the scores of this step, the scores are kept in the suspiciousness table of the trace.
+	 */
 	public Map<AttributionVar, Double> getSuspicousScoreMap() {
-		return suspicousScoreMap;
+		return this.trace.getSuspiciousnessTable().getScoreMap(order);
 	}
 
 	public void setSuspicousScoreMap(Map<AttributionVar, Double> suspicousScoreMap) {
-		this.suspicousScoreMap = suspicousScoreMap;
+		this.trace.getSuspiciousnessTable().setScoreMap(order, suspicousScoreMap);
 	}
 
 	public Map<Integer, TraceNode> findAllDominators() {
@@ -1023,12 +1043,12 @@ public class TraceNode{
 	}
 
 	public void resetCheckTime() {
-		this.checkTime = -1;
+		setCheckTime(-1);
 		
 	}
 
 	public boolean isWrongPathNode() {
-		return Settings.wrongPathNodeOrder.contains(new Integer(this.getOrder()));
+		return Settings.getWrongPathNodeOrder().contains(new Integer(this.getOrder()));
 	}
 	
 	public List<VarValue> getWrongReadVars(UserInterestedVariables interestedVariables) {
@@ -107,6 +107,17 @@ public class ExecutionRangePreference extends PreferencePage implements IWorkben
 		return codeRangeEntries;
 	}
 
+	/**
+	 * the focus of adaptive recording, all entries are used whether partial recording is enabled or not.
+	 */
+	public static List<CodeRangeEntry> getFocusRangeEntrys() {
+		List<CodeRangeEntry> codeRangeEntries = new ArrayList<>();
+		for (Entry entry : getEntrys()) {
+			codeRangeEntries.add(new CodeRangeEntry(entry.getClassName(), entry.getStartLine(), entry.getEndLine()));
+		}
+		return codeRangeEntries;
+	}
+
 	@Override
 	public boolean performOk() {
 		String entrys = StringUtils.join(executionRangeTable.getEntrys(), LIBS_SEPARATOR);
@@ -54,6 +54,12 @@ public class MicrobatPreference extends PreferencePage implements
 		this.defaultJava7HomePath = Activator.getDefault().getPreferenceStore().getString(JAVA7HOME_PATH);
 		this.defaultApplyRecodingOptimization = Activator.getDefault().getPreferenceStore().getString(RECORDING_OPTIMIZATION);
 		this.defaultEnableMethodSplitting = Activator.getDefault().getPreferenceStore().getBoolean(REQUIRE_METHOD_SPLITTING);
+		this.defaultAdaptiveRecording = Activator.getDefault().getPreferenceStore().getBoolean(ADAPTIVE_RECORDING);
+		this.defaultUseTraceWorkers = Activator.getDefault().getPreferenceStore().getBoolean(TRACE_WORKERS);
+		this.defaultSingleRunTrace = Activator.getDefault().getPreferenceStore().getBoolean(SINGLE_RUN_TRACE);
+		this.defaultBreakpointTracing = Activator.getDefault().getPreferenceStore().getBoolean(BREAKPOINT_TRACING);
+		this.defaultInstrumentationCache = Activator.getDefault().getPreferenceStore().getBoolean(INSTRUMENTATION_CACHE);
+		this.defaultPreTransform = Activator.getDefault().getPreferenceStore().getBoolean(PRE_TRANSFORM);
 	}
 
 	public static String getStepLimit() {
@@ -81,6 +87,12 @@ public class MicrobatPreference extends PreferencePage implements
 	public static final String JAVA7HOME_PATH = "java7_path";
 	public static final String RECORDING_OPTIMIZATION = "recording_optimization";
 	public static final String REQUIRE_METHOD_SPLITTING = "enableMethodSplitting";
+	public static final String TRACE_WORKERS = "useTraceWorkers";
+	public static final String SINGLE_RUN_TRACE = "singleRunTrace";
+	public static final String BREAKPOINT_TRACING = "breakpointTracing";
+	public static final String ADAPTIVE_RECORDING = "adaptiveRecording";
+	public static final String INSTRUMENTATION_CACHE = "instrumentationCache";
+	public static final String PRE_TRANSFORM = "preTransform";
 	
 	private Combo projectCombo;
 	private Text lanuchClassText;
@@ -94,6 +106,12 @@ public class MicrobatPreference extends PreferencePage implements
 	private Button advancedDetailInspectorButton;
 	private Button runTestButton;
 	private Button enableMethodSplittingButton;
+	private Button adaptiveRecordingButton;
+	private Button useTraceWorkersButton;
+	private Button singleRunTraceButton;
+	private Button breakpointTracingButton;
+	private Button instrumentationCacheButton;
+	private Button preTransformButton;
 	private Text java7HomePathText;
 	
 	private String defaultTargetProject = "";
@@ -109,6 +127,12 @@ public class MicrobatPreference extends PreferencePage implements
 	private String defaultJava7HomePath;
 	private String defaultApplyRecodingOptimization;
 	private boolean defaultEnableMethodSplitting;
+	private boolean defaultAdaptiveRecording;
+	private boolean defaultUseTraceWorkers;
+	private boolean defaultSingleRunTrace;
+	private boolean defaultBreakpointTracing;
+	private boolean defaultInstrumentationCache;
+	private boolean defaultPreTransform;
 	
 	@Override
 	protected Control createContents(Composite parent) {
@@ -198,6 +222,26 @@ public class MicrobatPreference extends PreferencePage implements
 		
 		enableMethodSplittingButton = SWTFactory.createCheckbox(settingGroup, "Enable method splitting function", 2);
 		enableMethodSplittingButton.setSelection(this.defaultEnableMethodSplitting);
+		
+		adaptiveRecordingButton = SWTFactory.createCheckbox(settingGroup, "Keep a partial trace when the trace is over long (adaptive recording)", 3);
+		adaptiveRecordingButton.setSelection(this.defaultAdaptiveRecording);
+		adaptiveRecordingButton.setToolTipText("the execution range entries are used as the focus of the recording.");
+		
+		useTraceWorkersButton = SWTFactory.createCheckbox(settingGroup, "Trace testcases of batch evaluations in reused worker vms", 3);
+		useTraceWorkersButton.setSelection(this.defaultUseTraceWorkers);
+		
+		singleRunTraceButton = SWTFactory.createCheckbox(settingGroup, "Trace without a separate precheck run", 3);
+		singleRunTraceButton.setSelection(this.defaultSingleRunTrace);
+		singleRunTraceButton.setToolTipText("the precheck information is collected in the same run as the trace.");
+		
+		breakpointTracingButton = SWTFactory.createCheckbox(settingGroup, "Trace with breakpoints instead of single stepping (debugger tracing)", 3);
+		breakpointTracingButton.setSelection(this.defaultBreakpointTracing);
+		
+		instrumentationCacheButton = SWTFactory.createCheckbox(settingGroup, "Cache instrumented classes between runs", 3);
+		instrumentationCacheButton.setSelection(this.defaultInstrumentationCache);
+		
+		preTransformButton = SWTFactory.createCheckbox(settingGroup, "Instrument the application classes in background at startup", 3);
+		preTransformButton.setSelection(this.defaultPreTransform);
 	}
 	
 	private void createSeedStatementGroup(Composite parent){
@@ -269,6 +313,12 @@ public class MicrobatPreference extends PreferencePage implements
 		preferences.put(JAVA7HOME_PATH, this.java7HomePathText.getText());
 		preferences.put(RECORDING_OPTIMIZATION, String.valueOf(this.recordingOptimizationButton.getSelection()));
 		preferences.putBoolean(REQUIRE_METHOD_SPLITTING, this.enableMethodSplittingButton.getSelection());
+		preferences.putBoolean(ADAPTIVE_RECORDING, this.adaptiveRecordingButton.getSelection());
+		preferences.putBoolean(TRACE_WORKERS, this.useTraceWorkersButton.getSelection());
+		preferences.putBoolean(SINGLE_RUN_TRACE, this.singleRunTraceButton.getSelection());
+		preferences.putBoolean(BREAKPOINT_TRACING, this.breakpointTracingButton.getSelection());
+		preferences.putBoolean(INSTRUMENTATION_CACHE, this.instrumentationCacheButton.getSelection());
+		preferences.putBoolean(PRE_TRANSFORM, this.preTransformButton.getSelection());
 		
 		Activator.getDefault().getPreferenceStore().putValue(TARGET_PORJECT, this.projectCombo.getText());
 		Activator.getDefault().getPreferenceStore().putValue(LANUCH_CLASS, this.lanuchClassText.getText());
@@ -283,6 +333,12 @@ public class MicrobatPreference extends PreferencePage implements
 		Activator.getDefault().getPreferenceStore().putValue(JAVA7HOME_PATH, this.java7HomePathText.getText());
 		Activator.getDefault().getPreferenceStore().putValue(RECORDING_OPTIMIZATION, String.valueOf(this.recordingOptimizationButton.getSelection()));
 		Activator.getDefault().getPreferenceStore().putValue(REQUIRE_METHOD_SPLITTING, String.valueOf(this.enableMethodSplittingButton.getSelection()));
+		Activator.getDefault().getPreferenceStore().putValue(ADAPTIVE_RECORDING, String.valueOf(this.adaptiveRecordingButton.getSelection()));
+		Activator.getDefault().getPreferenceStore().putValue(TRACE_WORKERS, String.valueOf(this.useTraceWorkersButton.getSelection()));
+		Activator.getDefault().getPreferenceStore().putValue(SINGLE_RUN_TRACE, String.valueOf(this.singleRunTraceButton.getSelection()));
+		Activator.getDefault().getPreferenceStore().putValue(BREAKPOINT_TRACING, String.valueOf(this.breakpointTracingButton.getSelection()));
+		Activator.getDefault().getPreferenceStore().putValue(INSTRUMENTATION_CACHE, String.valueOf(this.instrumentationCacheButton.getSelection()));
+		Activator.getDefault().getPreferenceStore().putValue(PRE_TRANSFORM, String.valueOf(this.preTransformButton.getSelection()));
 		confirmChanges();
 		
 		return true;
@@ -301,6 +357,9 @@ public class MicrobatPreference extends PreferencePage implements
 		Settings.setVariableLayer(Integer.valueOf(this.variableLayerText.getText()));
 		Settings.isRunTest = this.runTestButton.getSelection();
 		Settings.applyLibraryOptimization = this.recordingOptimizationButton.getSelection();
+		Settings.useTraceWorkers = this.useTraceWorkersButton.getSelection();
+		Settings.isSingleRunTrace = this.singleRunTraceButton.getSelection();
+		Settings.isBreakpointTracing = this.breakpointTracingButton.getSelection();
 	}
 	
 	private String[] getProjectsInWorkspace(){
@@ -24,10 +24,10 @@ public class BugInferer {
 		TraceNode startNode = recommender.getLoopRange().findCorrespondingStartNode(currentNode);
 		//Branch bug
 		if(startNode == null){
-			startNode = findIterationHead(currentNode, Settings.potentialCorrectPatterns, recommender);
+			startNode = findIterationHead(currentNode, Settings.getPotentialCorrectPatterns(), recommender);
 			if(startNode != null){
 				PathInstance path = new PathInstance(startNode, currentNode);
-				List<PathInstance> labelPaths = Settings.potentialCorrectPatterns.findSimilarIterationPath(path);
+				List<PathInstance> labelPaths = Settings.getPotentialCorrectPatterns().findSimilarIterationPath(path);
 				List<TraceNode> diffNodes = computePathDiff(path, labelPaths);
 				bug = new BranchMistakeBug(diffNodes);
 			}
@@ -38,7 +38,7 @@ public class BugInferer {
 		//Missing corner case bug
 		else{
 			PathInstance path = new PathInstance(startNode, currentNode);
-			PotentialCorrectPattern pattern = Settings.potentialCorrectPatterns.getPattern(path);
+			PotentialCorrectPattern pattern = Settings.getPotentialCorrectPatterns().getPattern(path);
 			
 			bug = new MissingCornerCaseBug(currentNode.getReadVariables(), pattern);
 		}
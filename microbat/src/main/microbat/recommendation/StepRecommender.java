@@ -1,6 +1,7 @@
 package microbat.recommendation;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
@@ -21,21 +22,31 @@ public class StepRecommender {
 	
 	public class LoopRange{
 		/**
-		 * all the skipped trace node by loop inference.
+		 * all the skipped trace node by loop inference, the first {@code size} elements of 
+		 * {@code skipPoints} are the skip points, and once sorted, {@code orders} keeps their 
+		 * step orders so that a skip point can be looked up by binary search.
+		 * 
+		 * Both arrays can be shared with the clones of this range, they are copied before 
+		 * being modified.
 		 */
-		ArrayList<TraceNode> skipPoints = new ArrayList<>();
+		private TraceNode[] skipPoints = new TraceNode[16];
+		private int[] orders = new int[0];
+		private int size = 0;
+		private boolean sorted = true;
+		private boolean shared = false;
+		
 		TraceNode startNode;
 		TraceNode endNode;
 		
 		TraceNode binaryLandmark;
 
 		public TraceNode binarySearch() {
-			Collections.sort(skipPoints, new TraceNodeOrderComparator());
+			ensureSorted();
 			
-			int startIndex = skipPoints.indexOf(startNode);
-			int endIndex = skipPoints.indexOf(endNode);
+			int startIndex = indexOf(startNode);
+			int endIndex = indexOf(endNode);
 			if(endIndex == -1){
-				endIndex = skipPoints.size()-1;
+				endIndex = size-1;
 			}
 			
 			int index = (startIndex+endIndex)/2;
@@ -43,36 +54,101 @@ public class StepRecommender {
 				index = endIndex;
 			}
 			
-			return skipPoints.get(index);
+			return getSkipPoint(index);
 		}
 		
-		@SuppressWarnings("unchecked")
 		public LoopRange clone(){
+			ensureSorted();
 			LoopRange loopRange = new LoopRange();
 			loopRange.startNode = this.startNode;
 			loopRange.endNode = this.endNode;
 			loopRange.binaryLandmark = this.binaryLandmark;
-			loopRange.skipPoints = (ArrayList<TraceNode>) this.skipPoints.clone();
+			loopRange.skipPoints = this.skipPoints;
+			loopRange.orders = this.orders;
+			loopRange.size = this.size;
+			this.shared = true;
+			loopRange.shared = true;
 			
 			return loopRange;
 		}
 		
+		/**
+		 * @return the skip points sorted by their step orders.
+		 */
 		public List<TraceNode> getSkipPoints(){
-			return this.skipPoints;
+			ensureSorted();
+			return Collections.unmodifiableList(Arrays.asList(skipPoints).subList(0, size));
+		}
+		
+		void addSkipPoint(TraceNode node){
+			if(shared){
+				skipPoints = Arrays.copyOf(skipPoints, Math.max(16, size*2));
+				orders = new int[0];
+				shared = false;
+			}
+			else if(size == skipPoints.length){
+				skipPoints = Arrays.copyOf(skipPoints, size*2);
+			}
+			skipPoints[size++] = node;
+			sorted = false;
+		}
+		
+		boolean hasSkipPoints(){
+			return size > 0;
+		}
+		
+		void removeSkipPoints(){
+			if(shared){
+				skipPoints = new TraceNode[16];
+				orders = new int[0];
+				shared = false;
+			}
+			else{
+				Arrays.fill(skipPoints, 0, size, null);
+			}
+			size = 0;
+			sorted = true;
+		}
+		
+		private void ensureSorted(){
+			if(sorted){
+				return;
+			}
+			/* a shared range is always sorted, see clone() */
+			Arrays.sort(skipPoints, 0, size, new TraceNodeOrderComparator());
+			orders = new int[size];
+			for(int i=0; i<size; i++){
+				orders[i] = skipPoints[i].getOrder();
+			}
+			sorted = true;
+		}
+		
+		private TraceNode getSkipPoint(int index){
+			if(index < 0 || index >= size){
+				throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+			}
+			return skipPoints[index];
+		}
+		
+		/**
+		 * @return the index of the skip point having the same order as {@code node}, or -1.
+		 */
+		private int indexOf(TraceNode node){
+			if(node == null){
+				return -1;
+			}
+			ensureSorted();
+			int index = Arrays.binarySearch(orders, 0, size, node.getOrder());
+			return index < 0 ? -1 : index;
 		}
 
 		public TraceNode findCorrespondingStartNode(TraceNode endNode2) {
-			for(int i=0; i<skipPoints.size(); i++){
-				TraceNode node = skipPoints.get(i);
-				if(node.getOrder() == endNode2.getOrder()){
-					if(i>0){
-						TraceNode startNode = skipPoints.get(i-1);
-						return startNode;						
-					}
-					else{
-						return this.startNode;
-					}
-				}
+			int index = indexOf(endNode2);
+			if(index > 0){
+				return skipPoints[index-1];
+			}
+			else if(index == 0){
+				return this.startNode;
 			}
 			
 			return null;
@@ -84,7 +160,7 @@ public class StepRecommender {
 
 		public void clearSkipPoints() {
 			binaryLandmark = null;
-			skipPoints.clear();
+			removeSkipPoints();
 		}
 
 		TraceNode backupStartNode;
@@ -96,12 +172,8 @@ public class StepRecommender {
 		}
 
 		public boolean checkedSkipPointsContains(TraceNode suspiciousNode) {
-			for(TraceNode skipPoint: skipPoints){
-				if(skipPoint.hasChecked() && skipPoint.equals(suspiciousNode)){
-					return true;
-				}
-			}
-			return false;
+			int index = indexOf(suspiciousNode);
+			return index >= 0 && skipPoints[index].hasChecked();
 		}
 	}
 	
@@ -134,7 +206,7 @@ public class StepRecommender {
 		
 		String feedbackType = userFeedback.getFeedbackType();
 		if(feedbackType.equals(UserFeedback.WRONG_PATH)){
-			Settings.wrongPathNodeOrder.add(currentNode.getOrder());
+			Settings.getWrongPathNodeOrder().add(currentNode.getOrder());
 		}
 		
 		if(feedbackType.equals(UserFeedback.UNCLEAR)){
@@ -240,7 +312,7 @@ public class StepRecommender {
 		if(lastNode != null){
 			PathInstance path = new PathInstance(currentNode, lastNode);
 			if(path.isPotentialCorrect()){
-				Settings.potentialCorrectPatterns.addPathForPattern(path);			
+				Settings.getPotentialCorrectPatterns().addPathForPattern(path);			
 			}
 		}
 		
@@ -290,7 +362,7 @@ public class StepRecommender {
 			if(startNode != null){
 				PathInstance fakePath = new PathInstance(startNode, endNode);
 				
-				PotentialCorrectPattern pattern = Settings.potentialCorrectPatterns.getPattern(fakePath);
+				PotentialCorrectPattern pattern = Settings.getPotentialCorrectPatterns().getPattern(fakePath);
 				if(pattern != null){
 					PathInstance labelPath = pattern.getLabelInstance();
 					Variable causingVariable = labelPath.findCausingVar();
@@ -432,31 +504,31 @@ public class StepRecommender {
 		PathInstance path = null;
 		if(this.latestCause.getBuggyNode() != null){
 			path = new PathInstance(suspiciousNode, this.latestCause.getBuggyNode());
-			isPathInPattern = Settings.potentialCorrectPatterns.containsPattern(path);				
+			isPathInPattern = Settings.getPotentialCorrectPatterns().containsPattern(path);				
 		}
 		
 		if(this.isEnableLoopInference() && isPathInPattern && !shouldStopOnCheckedNode(currentNode, path)){
 			state = DebugState.SKIP;
 			
 			this.loopRange.endNode = path.getEndNode();
-			this.loopRange.skipPoints.clear();
+			this.loopRange.removeSkipPoints();
 			
 			TraceNode oldSusiciousNode = suspiciousNode;
-			while(Settings.potentialCorrectPatterns.containsPattern(path) 
+			while(Settings.getPotentialCorrectPatterns().containsPattern(path) 
 					&& !shouldStopOnCheckedNode(suspiciousNode, path)){
 				
-				Settings.potentialCorrectPatterns.addPathForPattern(path);
+				Settings.getPotentialCorrectPatterns().addPathForPattern(path);
 				
 				oldSusiciousNode = suspiciousNode;
 				
-				suspiciousNode = Settings.potentialCorrectPatterns.inferNextSuspiciousNode(oldSusiciousNode);
+				suspiciousNode = Settings.getPotentialCorrectPatterns().inferNextSuspiciousNode(oldSusiciousNode);
 				System.currentTimeMillis();
 				
 				if(suspiciousNode == null){
 					break;
 				}
 				else{
-					this.loopRange.skipPoints.add(oldSusiciousNode);
+					this.loopRange.addSkipPoint(oldSusiciousNode);
 					path = new PathInstance(suspiciousNode, oldSusiciousNode);					
 				}
 			}
@@ -464,7 +536,7 @@ public class StepRecommender {
 			/**
 			 * In this case, it means that there is actually nothing skipped.
 			 */
-			if(this.loopRange.skipPoints.isEmpty()){
+			if(!this.loopRange.hasSkipPoints()){
 				state = DebugState.SIMPLE_INFERENCE;
 			}
 			
@@ -521,7 +593,7 @@ public class StepRecommender {
 				return true;
 			}
 			else{
-				PotentialCorrectPattern pattern = Settings.potentialCorrectPatterns.getPattern(path);
+				PotentialCorrectPattern pattern = Settings.getPotentialCorrectPatterns().getPattern(path);
 				if(pattern != null){
 					PathInstance labelPath = pattern.getLabelInstance();
 					Variable causingVariable = labelPath.findCausingVar();
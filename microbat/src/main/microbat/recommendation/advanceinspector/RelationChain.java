@@ -5,6 +5,7 @@ import java.util.List;
 
 import microbat.model.value.VarValue;
 import soot.Local;
+import soot.PointsToSet;
 
 public class RelationChain {
 	public static final int FIELD = 1;
@@ -13,6 +14,8 @@ public class RelationChain {
 	public int searchingIndex = 0;
 	
 	public Local topLocal;
+	/* points-to set of topLocal, computed once per query */
+	public PointsToSet topPointsTo;
 	
 	/**
 	 * vars.get(0) represents the leaf var
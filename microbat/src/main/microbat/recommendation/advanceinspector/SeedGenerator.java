@@ -2,7 +2,6 @@ package microbat.recommendation.advanceinspector;
 
 import java.util.ArrayList;
 import java.util.HashMap;
-import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 
@@ -11,12 +10,11 @@ import microbat.model.value.VarValue;
 import microbat.model.variable.ArrayElementVar;
 import microbat.model.variable.FieldVar;
 import microbat.model.variable.Variable;
+import microbat.recommendation.advanceinspector.SootAnalysisService.Definition;
 import soot.Local;
+import soot.PointsToAnalysis;
 import soot.PointsToSet;
-import soot.Scene;
-import soot.SootClass;
 import soot.SootField;
-import soot.SootMethod;
 import soot.Type;
 import soot.Unit;
 import soot.Value;
@@ -28,34 +26,14 @@ import soot.jimple.InstanceFieldRef;
 import soot.jimple.IntConstant;
 import soot.jimple.StaticFieldRef;
 import soot.jimple.internal.JimpleLocal;
-import soot.jimple.spark.SparkTransformer;
-import soot.jimple.spark.geom.geomPA.GeomPointsTo;
-import soot.toolkits.graph.ExceptionalUnitGraph;
 import soot.toolkits.graph.UnitGraph;
 
 public class SeedGenerator {
 	
-	private void setPointToAnalysis() {
-		
-		HashMap<String, String> opt = new HashMap<>();
-		opt.put("verbose", "true");
-		opt.put("set-impl", "double");
-		opt.put("double-set-old", "hybrid");
-		opt.put("double-set-new", "hybrid");
-		opt.put("on-fly-cg", "true");
-		opt.put("propagator", "worklist");
-		opt.put("simple-edges-bidirectional", "false");
-		
-		opt.put("simplify-offline", "false");
-		opt.put("enabled", "true");
-
-		opt.put("geom-pta", "true");
-		opt.put("geom-encoding", "geom");
-		opt.put("geom-worklist", "pq");
-		opt.put("geom-runs", "5");
-		opt.put("geom-app-only", "true");
-
-		SparkTransformer.v().transform("", opt);
+	private SootAnalysisService service;
+	
+	public SeedGenerator(SootAnalysisService service) {
+		this.service = service;
 	}
 	
 	private Local findLocal(UnitGraph graph, VarValue var){
@@ -68,15 +46,14 @@ public class SeedGenerator {
 		return null;
 	}
 	
-	public Map<String, List<Unit>> findSeeds(VarValue var, UnitGraph contextGraph, boolean reanalysisPointsTo){
+	public Map<String, List<Unit>> findSeeds(VarValue var, UnitGraph contextGraph){
 		RelationChain chain = parseRelationChain(var);
 		
 		VarValue topVar = chain.getTopVar();
 		Local topLocal = findLocal(contextGraph, topVar);
 		chain.topLocal = topLocal;
-		
-		if(reanalysisPointsTo){
-			setPointToAnalysis();			
+		if(topLocal != null){
+			chain.topPointsTo = service.getPointsToAnalysis().reachingObjects(topLocal);
 		}
 		
 		Map<String, List<Unit>> seeds = findCorrespondingDefsInAllMethods(var, chain);
@@ -84,32 +61,36 @@ public class SeedGenerator {
 		return seeds;
 	}
 	
+	/**
+	 * only the definitions indexed under the leaf variable (or all local/field definitions
+	 * for alias matching) are checked, instead of traversing every method of the application.
+	 */
 	private Map<String, List<Unit>> findCorrespondingDefsInAllMethods(VarValue var, RelationChain chain) {
 		
 		Map<String, List<Unit>> map = new HashMap<>();
 		
-		for(SootClass clazz: Scene.v().getApplicationClasses()){
-			if(clazz.getName().contains("sort.quick.QuickSort")){
-				List<Unit> allSeeds = new ArrayList<>();
-				for(SootMethod method: clazz.getMethods()){
-//					if(!method.getName().contains("swap")){
-//						continue;
-//					}
-					
-					List<Unit> seeds = checkLinearizedDefs(method, var, chain);
-					if(seeds != null && !seeds.isEmpty()){
-						allSeeds.addAll(seeds);						
-					}
+		List<Definition> candidates;
+		if(chain.isSingleElement()){
+			candidates = service.getAliasDefinitions();
+		}
+		else{
+			candidates = service.getDefinitions(chain.getLeafVar());
+		}
+		
+		for(Definition def: candidates){
+			UnitGraph graph = service.getUnitGraph(def.getMethod());
+			if(resursiveMatch(def.getValue(), def.getUnit(), graph, chain)){
+				List<Unit> allSeeds = map.get(def.getClassName());
+				if(allSeeds == null){
+					allSeeds = new ArrayList<>();
+					map.put(def.getClassName(), allSeeds);
 				}
-				
-				if(!allSeeds.isEmpty()){
-					map.put(clazz.getName(), allSeeds);					
+				if(!allSeeds.contains(def.getUnit())){
+					allSeeds.add(def.getUnit());
 				}
 			}
-			
 		}
 		
-		
 		return map;
 	}
 
@@ -169,29 +150,6 @@ public class SeedGenerator {
 		return -1;
 	}
 
-	private List<Unit> checkLinearizedDefs(SootMethod method, VarValue varValue, RelationChain chain) {
-		HashSet<Unit> parsedUnits = new HashSet<>();
-		List<Unit> allSeeds = new ArrayList<>();
-		
-		UnitGraph graph = new ExceptionalUnitGraph(method.getActiveBody());
-		List<Unit> tails = graph.getTails();
-		for(Unit tail: tails){
-			
-			List<Unit> seeds = new ArrayList<>();
-			seeds = findVarDefsInGraph(varValue, tail, seeds, chain, graph, parsedUnits);
-			
-			for (Unit seed : seeds) {
-				if (!allSeeds.contains(seed)) {
-					allSeeds.add(seed);
-				}
-			}
-			
-		}
-		
-		
-		return allSeeds;
-	}
-	
 //	public List<Unit> findSeeds(VarValue var, UnitGraph graph, List<Unit> unitsOfSpecificLineNumber) {
 //		HashSet<Unit> parsedUnits = new HashSet<>();
 //		List<Unit> allSeeds = new ArrayList<>();
@@ -211,74 +169,6 @@ public class SeedGenerator {
 //		return allSeeds;
 //	}
 
-	/**
-	 * reverse traverse the CFG, if a CFG node defines the {@code varValue},
-	 * then the algorithm stops propagating. Otherwise, the algorithm traverse
-	 * back to the entry CFG node to find the possible CFG node (i.e., unit)
-	 * defining the {@code varValue}.
-	 * 
-	 * @param varValue
-	 * @param currentUnit
-	 * @param seeds
-	 * @param chain 
-	 * @param graph
-	 * @param parsedUnits
-	 */
-	private List<Unit> findVarDefsInGraph(VarValue varValue, Unit currentUnit, List<Unit> seeds, 
-			RelationChain chain, UnitGraph graph, HashSet<Unit> parsedUnits) {
-		parsedUnits.add(currentUnit);
-
-		// List<VarValue> parentChain = retrieveParentChain(varValue);
-
-//		VarValue varValue = chain.getWorkingVariable();
-		checkUnitDefiningInterestingVariable(currentUnit, graph, seeds, varValue, chain);
-
-		System.currentTimeMillis();
-		
-		List<Unit> predessors = graph.getPredsOf(currentUnit);
-		for (Unit precessor : predessors) {
-			if (!parsedUnits.contains(precessor)) {
-				findVarDefsInGraph(varValue, precessor, seeds, chain, graph, parsedUnits);
-			}
-		}
-
-		return seeds;
-	}
-
-	/**
-	 * Check whether the unit defines the {@code varValue}. Note that, if a
-	 * variable is an array element or a field of an object instance, e.g.,
-	 * a.k[b].c, we need to recursively decide whether the variable
-	 * corresponding to this static soot variable in CFG node (unit).
-	 * 
-	 * @param unit
-	 * @param graph
-	 * @param seeds
-	 * @param varValue
-	 * @return
-	 */
-	private boolean checkUnitDefiningInterestingVariable(Unit unit, UnitGraph graph, List<Unit> seeds,
-			VarValue varValue, RelationChain chain) {
-		
-		if(unit.toString().contains("$i1 = $r3[end]")){
-			System.currentTimeMillis();
-		}
-
-		for (ValueBox valueBox : unit.getDefBoxes()) {
-			Value val = valueBox.getValue();
-			
-			boolean isRecursiveMatch = resursiveMatch(val, unit, graph, chain);
-			if (isRecursiveMatch) {
-				if (!seeds.contains(unit)) {
-					seeds.add(unit);
-				}
-				return true;
-			}
-		}
-
-		return false;
-	}
-
 	private boolean isTypeMatch(Value val, VarValue varValue) {
 		Type type = val.getType();
 
@@ -346,8 +236,11 @@ public class SeedGenerator {
 	}
 	
 	private boolean aliasMatch(Value val, RelationChain chain) {
-		GeomPointsTo gpt = (GeomPointsTo) Scene.v().getPointsToAnalysis();
-		PointsToSet targetSet = gpt.reachingObjects(chain.topLocal);
+		if(chain.topPointsTo == null){
+			return false;
+		}
+		PointsToAnalysis gpt = service.getPointsToAnalysis();
+		PointsToSet targetSet = chain.topPointsTo;
 		if(val instanceof Local){
 			Local local = (Local)val;
 			PointsToSet set = gpt.reachingObjects(local);
@@ -0,0 +1,392 @@
+package microbat.recommendation.advanceinspector;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+
+import microbat.model.value.VarValue;
+import microbat.model.variable.FieldVar;
+import microbat.util.MicroBatUtil;
+import sav.common.core.SavRtException;
+import sav.strategies.dto.AppJavaClassPath;
+import soot.Body;
+import soot.G;
+import soot.PointsToAnalysis;
+import soot.Scene;
+import soot.SootClass;
+import soot.SootMethod;
+import soot.Unit;
+import soot.Value;
+import soot.ValueBox;
+import soot.jimple.ArrayRef;
+import soot.jimple.FieldRef;
+import soot.jimple.InstanceFieldRef;
+import soot.jimple.StaticFieldRef;
+import soot.jimple.internal.JimpleLocal;
+import soot.jimple.spark.SparkTransformer;
+import soot.options.Options;
+import soot.toolkits.graph.ExceptionalUnitGraph;
+import soot.toolkits.graph.UnitGraph;
+
+/**
+ * @author LLT
+ *
+ * Keep the Soot scene of the project between the queries of the advanced inspector.
+ * All the classes in the binary folders of the project are loaded, the SPARK points-to analysis
+ * is run and the definitions of all application methods are indexed in a background thread,
+ * once per classpath version (see {@link MicroBatUtil#getClasspathStamp(AppJavaClassPath)}).
+ * Queries wait for the preparation to finish.
+ *
+ * Soot keeps its scene in a global state, so when the classpath changes, the service of the
+ * previous version is invalidated (its queries fail) before the scene is reset.
+ */
+public class SootAnalysisService {
+	private static SootAnalysisService instance;
+
+	private String classPath;
+	private String stamp;
+	private List<String> classFolders;
+	private FutureTask<Void> preparation;
+	private FutureTask<Void> previousPreparation;
+	private boolean invalidated = false;
+
+	/* definitions indexed by type and local name, field name or array element, see getDefinitionKey */
+	private Map<String, List<Definition>> definitions;
+	/* definitions of locals and fields, the candidates for alias matching */
+	private List<Definition> aliasDefinitions;
+	private Map<SootMethod, UnitGraph> unitGraphs;
+
+	private SootAnalysisService(String classPath, String stamp, List<String> classFolders) {
+		this.classPath = classPath;
+		this.stamp = stamp;
+		this.classFolders = classFolders;
+	}
+
+	public static synchronized SootAnalysisService getInstance(AppJavaClassPath appClassPath) {
+		String classPathString = appClassPath.getClasspathStr();
+		String rtJar = appClassPath.getJavaHome() + File.separator + "jre" + File.separator + "lib" + File.separator
+				+ "rt.jar";
+		classPathString += File.pathSeparator + rtJar;
+		String stamp = MicroBatUtil.getClasspathStamp(appClassPath);
+		if (instance == null || !instance.classPath.equals(classPathString) || !instance.stamp.equals(stamp)) {
+			SootAnalysisService previous = instance;
+			instance = new SootAnalysisService(classPathString, stamp, getClassFolders(appClassPath));
+			if (previous != null) {
+				instance.previousPreparation = previous.invalidate();
+			}
+		}
+		return instance;
+	}
+
+	/**
+	 * the binary folders of the project, i.e., the folders in the classpath except the ones
+	 * containing another folder of the classpath (e.g. the project folder).
+	 */
+	private static List<String> getClassFolders(AppJavaClassPath appClassPath) {
+		List<String> folders = new ArrayList<>();
+		for (String path : appClassPath.getClasspaths()) {
+			File file = new File(path);
+			if (!file.isDirectory()) {
+				continue;
+			}
+			boolean isParent = false;
+			for (String other : appClassPath.getClasspaths()) {
+				File otherFile = new File(other);
+				if (!otherFile.equals(file) && otherFile.getAbsolutePath().startsWith(file.getAbsolutePath() + File.separator)) {
+					isParent = true;
+					break;
+				}
+			}
+			if (!isParent && !folders.contains(path)) {
+				folders.add(path);
+			}
+		}
+		return folders;
+	}
+
+	private synchronized FutureTask<Void> invalidate() {
+		invalidated = true;
+		return preparation;
+	}
+
+	/**
+	 * start preparing the scene in background if it is not started yet. The scene contains all
+	 * the classes of the binary folders of the project, the given class is only needed when it
+	 * is not in these folders.
+	 */
+	public synchronized void prepare(String className) {
+		if (preparation != null) {
+			return;
+		}
+		final Set<String> classNames = new LinkedHashSet<>();
+		for (String folder : classFolders) {
+			collectClassNames(new File(folder), "", classNames);
+		}
+		classNames.add(className);
+		final FutureTask<Void> previous = previousPreparation;
+		previousPreparation = null;
+		preparation = new FutureTask<Void>(new Callable<Void>() {
+
+			@Override
+			public Void call() throws Exception {
+				if (previous != null) {
+					/* let the preparation of the previous classpath finish before resetting soot */
+					try {
+						previous.get();
+					} catch (ExecutionException e) {
+						// ignore, the scene is reset anyway.
+					}
+				}
+				loadScene(classNames);
+				return null;
+			}
+		});
+		Thread thread = new Thread(preparation, "soot-analysis");
+		thread.setDaemon(true);
+		thread.start();
+	}
+
+	private static void collectClassNames(File folder, String packagePrefix, Set<String> classNames) {
+		File[] files = folder.listFiles();
+		if (files == null) {
+			return;
+		}
+		for (File file : files) {
+			String name = file.getName();
+			if (file.isDirectory()) {
+				collectClassNames(file, packagePrefix + name + ".", classNames);
+			} else if (name.endsWith(".class")) {
+				classNames.add(packagePrefix + name.substring(0, name.length() - ".class".length()));
+			}
+		}
+	}
+
+	private void waitForPreparation() {
+		FutureTask<Void> task;
+		synchronized (this) {
+			checkValid();
+			task = preparation;
+		}
+		if (task == null) {
+			throw new SavRtException("Soot scene is not prepared!");
+		}
+		try {
+			task.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new SavRtException(e);
+		} catch (ExecutionException e) {
+			throw new SavRtException(e.getCause());
+		}
+	}
+
+	private void checkValid() {
+		if (invalidated) {
+			throw new SavRtException("Soot scene has been reset for a new version of the classpath!");
+		}
+	}
+
+	private void loadScene(Set<String> classNames) {
+		G.reset();
+		Scene.v().setSootClassPath(classPath);
+		Options.v().set_keep_line_number(true);
+		Options.v().set_debug(true);
+		Options.v().set_via_shimple(true);
+		Options.v().set_app(true);
+		Options.v().set_whole_program(true);
+		Options.v().set_verbose(true);
+		Options.v().set_allow_phantom_refs(true);
+
+		Options.v().setPhaseOption("jb", "use-original-names");
+
+		for (String className : classNames) {
+			SootClass c = Scene.v().loadClassAndSupport(className);
+			c.setApplicationClass();
+		}
+		Scene.v().loadNecessaryClasses();
+
+		runPointsToAnalysis();
+		buildDefinitionIndex();
+	}
+
+	private void runPointsToAnalysis() {
+		HashMap<String, String> opt = new HashMap<>();
+		opt.put("verbose", "true");
+		opt.put("set-impl", "double");
+		opt.put("double-set-old", "hybrid");
+		opt.put("double-set-new", "hybrid");
+		opt.put("on-fly-cg", "true");
+		opt.put("propagator", "worklist");
+		opt.put("simple-edges-bidirectional", "false");
+
+		opt.put("simplify-offline", "false");
+		opt.put("enabled", "true");
+
+		opt.put("geom-pta", "true");
+		opt.put("geom-encoding", "geom");
+		opt.put("geom-worklist", "pq");
+		opt.put("geom-runs", "5");
+		opt.put("geom-app-only", "true");
+
+		SparkTransformer.v().transform("", opt);
+	}
+
+	private void buildDefinitionIndex() {
+		Map<String, List<Definition>> definitions = new HashMap<>();
+		List<Definition> aliasDefinitions = new ArrayList<>();
+		for (SootClass clazz : new ArrayList<>(Scene.v().getApplicationClasses())) {
+			for (SootMethod method : new ArrayList<>(clazz.getMethods())) {
+				if (!method.isConcrete()) {
+					continue;
+				}
+				Body body;
+				try {
+					body = method.retrieveActiveBody();
+				} catch (RuntimeException e) {
+					System.err.println("cannot retrieve body of " + method.getSignature());
+					continue;
+				}
+				for (Unit unit : body.getUnits()) {
+					for (ValueBox valueBox : unit.getDefBoxes()) {
+						Value val = valueBox.getValue();
+						Definition def = new Definition(clazz.getName(), method, unit, val);
+						String key = getDefinitionKey(val);
+						if (key != null) {
+							List<Definition> list = definitions.get(key);
+							if (list == null) {
+								list = new ArrayList<>();
+								definitions.put(key, list);
+							}
+							list.add(def);
+						}
+						if (val instanceof JimpleLocal || val instanceof InstanceFieldRef
+								|| val instanceof StaticFieldRef) {
+							aliasDefinitions.add(def);
+						}
+					}
+				}
+			}
+		}
+		synchronized (this) {
+			this.definitions = definitions;
+			this.aliasDefinitions = aliasDefinitions;
+			this.unitGraphs = new HashMap<>();
+		}
+	}
+
+	private static String getDefinitionKey(Value val) {
+		String type = val.getType().toString();
+		if (val instanceof JimpleLocal) {
+			return type + "#L" + ((JimpleLocal) val).getName();
+		} else if (val instanceof FieldRef) {
+			return type + "#F" + ((FieldRef) val).getField().getName();
+		} else if (val instanceof ArrayRef) {
+			return type + "#A";
+		}
+		return null;
+	}
+
+	public SootClass getSootClass(String className) {
+		waitForPreparation();
+		synchronized (this) {
+			checkValid();
+			return Scene.v().getSootClass(className);
+		}
+	}
+
+	public PointsToAnalysis getPointsToAnalysis() {
+		waitForPreparation();
+		synchronized (this) {
+			checkValid();
+			return Scene.v().getPointsToAnalysis();
+		}
+	}
+
+	/**
+	 * @return the definitions whose defined value may be the given variable, i.e., having the
+	 *         same type, and either the same local/field name or being an array element.
+	 */
+	public List<Definition> getDefinitions(VarValue varValue) {
+		waitForPreparation();
+		String type = varValue.getVariable().getType();
+		String name = varValue.getVariable().getName();
+		List<Definition> result = new ArrayList<>();
+		synchronized (this) {
+			checkValid();
+			appendDefinitions(result, type + "#L" + name);
+			if (varValue.getVariable() instanceof FieldVar) {
+				appendDefinitions(result, type + "#F" + name);
+			}
+			if (varValue.isElementOfArray()) {
+				appendDefinitions(result, type + "#A");
+			}
+		}
+		return result;
+	}
+
+	private void appendDefinitions(List<Definition> result, String key) {
+		List<Definition> list = definitions.get(key);
+		if (list != null) {
+			result.addAll(list);
+		}
+	}
+
+	public List<Definition> getAliasDefinitions() {
+		waitForPreparation();
+		synchronized (this) {
+			checkValid();
+			return Collections.unmodifiableList(aliasDefinitions);
+		}
+	}
+
+	public UnitGraph getUnitGraph(SootMethod method) {
+		waitForPreparation();
+		synchronized (this) {
+			checkValid();
+			UnitGraph graph = unitGraphs.get(method);
+			if (graph == null) {
+				graph = new ExceptionalUnitGraph(method.getActiveBody());
+				unitGraphs.put(method, graph);
+			}
+			return graph;
+		}
+	}
+
+	public static class Definition {
+		private String className;
+		private SootMethod method;
+		private Unit unit;
+		private Value value;
+
+		public Definition(String className, SootMethod method, Unit unit, Value value) {
+			this.className = className;
+			this.method = method;
+			this.unit = unit;
+			this.value = value;
+		}
+
+		public String getClassName() {
+			return className;
+		}
+
+		public SootMethod getMethod() {
+			return method;
+		}
+
+		public Unit getUnit() {
+			return unit;
+		}
+
+		public Value getValue() {
+			return value;
+		}
+	}
+}
@@ -1,6 +1,5 @@
 package microbat.recommendation.advanceinspector;
 
-import java.io.File;
 import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
@@ -17,20 +16,15 @@ import microbat.util.JavaUtil;
 import microbat.util.MicroBatUtil;
 import sav.strategies.dto.AppJavaClassPath;
 import soot.Body;
-import soot.G;
-import soot.Scene;
 import soot.SootClass;
 import soot.SootMethod;
 import soot.Unit;
-import soot.options.Options;
 import soot.tagkit.LineNumberTag;
 import soot.tagkit.Tag;
 import soot.toolkits.graph.ExceptionalUnitGraph;
 import soot.toolkits.graph.UnitGraph;
 
 public class SootAnalyzer {
-	
-	public static boolean firstTimeForPointsToAnalysis = true;
 
 	class MethodFinder extends ASTVisitor {
 		private CompilationUnit cu;
@@ -58,30 +52,11 @@ public class SootAnalyzer {
 
 	public Map<String, List<Unit>> analyzeSeeds(ChosenVariableOption variableOption, CompilationUnit cu, int line) {
 		AppJavaClassPath appClassPath = MicroBatUtil.constructClassPaths();
+		String className = JavaUtil.getFullNameOfCompilationUnit(cu);
 
-		String classPathString = appClassPath.getClasspathStr();
-		String rtJar = appClassPath.getJavaHome() + File.separator + "jre" + File.separator + "lib" + File.separator
-				+ "rt.jar";
-		classPathString += File.pathSeparator + rtJar;
-
-		if(firstTimeForPointsToAnalysis){
-			G.reset();			
-		}
-		
-		Scene.v().setSootClassPath(classPathString);
-		Options.v().set_keep_line_number(true);
-		Options.v().set_debug(true);
-		Options.v().set_via_shimple(true);
-		Options.v().set_app(true);
-		Options.v().set_whole_program(true);
-		Options.v().set_verbose(true);
-		Options.v().set_allow_phantom_refs(true);
-
-		Options.v().setPhaseOption("jb", "use-original-names");
-
-		SootClass c = Scene.v().loadClassAndSupport(JavaUtil.getFullNameOfCompilationUnit(cu));
-		c.setApplicationClass();
-		Scene.v().loadNecessaryClasses();
+		/* the scene and points-to analysis are prepared in background and reused by later queries */
+		SootAnalysisService service = SootAnalysisService.getInstance(appClassPath);
+		service.prepare(className);
 
 		MethodFinder finder = new MethodFinder(cu, line);
 		cu.accept(finder);
@@ -89,6 +64,7 @@ public class SootAnalyzer {
 
 		String methodSignature = constructSootMethodSignature(methodDec);
 
+		SootClass c = service.getSootClass(className);
 		SootMethod method = c.getMethod(methodSignature);
 
 		Body body = method.retrieveActiveBody();
@@ -98,11 +74,9 @@ public class SootAnalyzer {
 //		List<Unit> unitsOfSpecificLineNumber = retrieveUnitsAccordingToLineNumber(graph, line);
 
 //		List<Unit> seedStatements = new SeedGenerator().findSeeds(var, graph, unitsOfSpecificLineNumber);
-		Map<String, List<Unit>> seedMap = new SeedGenerator().findSeeds(var, graph, firstTimeForPointsToAnalysis);
+		Map<String, List<Unit>> seedMap = new SeedGenerator(service).findSeeds(var, graph);
 		
 		Map<String, List<Unit>> seeds = new SeedsFilter().filter(seedMap, var);
-		
-		firstTimeForPointsToAnalysis = false;
 
 		return seeds;
 		// MHGDominatorsFinder<Unit> dominatorFinder = new
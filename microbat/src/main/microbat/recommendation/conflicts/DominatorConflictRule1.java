@@ -27,7 +27,7 @@ public class DominatorConflictRule1 extends ConflictRule {
 	@Override
 	public TraceNode checkConflicts(Trace trace, int order) {
 		TraceNode node = trace.getExecutionList().get(order-1);
-		if(node.getReadVarCorrectness(Settings.interestedVariables, false)==TraceNode.READ_VARS_INCORRECT){
+		if(node.getReadVarCorrectness(Settings.getInterestedVariables(), false)==TraceNode.READ_VARS_INCORRECT){
 			if(node.getDataDominators().keySet().isEmpty()){
 				return null;
 			}
@@ -43,12 +43,12 @@ public class DominatorConflictRule1 extends ConflictRule {
 					TraceNode producer = entry.getProducers().get(0);
 					producerList.add(producer);
 					
-					if(producer.getReadVarCorrectness(Settings.interestedVariables, false)==TraceNode.READ_VARS_UNKNOWN){
+					if(producer.getReadVarCorrectness(Settings.getInterestedVariables(), false)==TraceNode.READ_VARS_UNKNOWN){
 						return null;
 					}
 					else{
 						isConflict = isConflict && 
-								producer.getReadVarCorrectness(Settings.interestedVariables, false)==TraceNode.READ_VARS_CORRECT;
+								producer.getReadVarCorrectness(Settings.getInterestedVariables(), false)==TraceNode.READ_VARS_CORRECT;
 					}
 					
 					if(!isConflict){
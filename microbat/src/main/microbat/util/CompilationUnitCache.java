@@ -0,0 +1,167 @@
+package microbat.util;
+
+import java.io.File;
+import java.lang.ref.SoftReference;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Thread-safe cache of parsed compilation units (or their handles).
+ * <p>
+ * Entries loaded by the lookups themselves ({@link #putLoaded(String, Object, String)}) are
+ * evicted in LRU order once there are more than <code>capacity</code> of them, and softly
+ * referenced so that the parsed ASTs can also be reclaimed under memory pressure. If their source
+ * file is known, they are dropped when the file is modified afterwards, which is checked at most
+ * once every {@link #STALE_CHECK_INTERVAL} ms for each entry.
+ * <p>
+ * Entries put explicitly with {@link #put(String, Object)} (e.g. the AST of a mutated class,
+ * which differs from the source on disk) are pinned: they are never evicted nor checked against
+ * the source file, until they are removed or the cache is cleared.
+ *
+ * @author LLT
+ *
+ */
+public class CompilationUnitCache<T> {
+	public static final int DEFAULT_CAPACITY = 200;
+	public static final long STALE_CHECK_INTERVAL = 2000;
+	private final int capacity;
+	private final Map<String, Entry<T>> entries;
+	private final Map<String, T> pinnedEntries = new HashMap<>();
+	private long hits;
+	private long misses;
+	private long evictions;
+
+	public CompilationUnitCache() {
+		this(DEFAULT_CAPACITY);
+	}
+
+	public CompilationUnitCache(int capacity) {
+		this.capacity = capacity;
+		this.entries = new LinkedHashMap<String, Entry<T>>(16, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, Entry<T>> eldest) {
+				if (size() > CompilationUnitCache.this.capacity) {
+					evictions++;
+					return true;
+				}
+				return false;
+			}
+		};
+	}
+
+	/**
+	 * @return null if the value is not cached, has been reclaimed or its source file has been
+	 *         modified since it was loaded.
+	 */
+	public synchronized T get(String key) {
+		T value = pinnedEntries.get(key);
+		if (value == null) {
+			Entry<T> entry = entries.get(key);
+			if (entry != null) {
+				value = entry.value.get();
+				if (value == null || entry.isStale()) {
+					entries.remove(key);
+					value = null;
+				}
+			}
+		}
+		if (value == null) {
+			misses++;
+		} else {
+			hits++;
+		}
+		return value;
+	}
+
+	/**
+	 * pin the value, it is kept until it is removed or the cache is cleared.
+	 */
+	public synchronized void put(String key, T value) {
+		entries.remove(key);
+		if (value == null) {
+			pinnedEntries.remove(key);
+		} else {
+			pinnedEntries.put(key, value);
+		}
+	}
+
+	/**
+	 * cache a value loaded by a lookup, it can be evicted or reclaimed. A pinned value of the same
+	 * key is kept.
+	 * 
+	 * @param sourceFile
+	 *            the file the value is parsed from, null if unknown.
+	 */
+	public synchronized void putLoaded(String key, T value, String sourceFile) {
+		if (pinnedEntries.containsKey(key)) {
+			return;
+		}
+		if (value == null) {
+			entries.remove(key);
+			return;
+		}
+		entries.put(key, new Entry<T>(value, sourceFile));
+	}
+
+	public synchronized void remove(String key) {
+		pinnedEntries.remove(key);
+		entries.remove(key);
+	}
+
+	public synchronized void clear() {
+		pinnedEntries.clear();
+		entries.clear();
+	}
+
+	public synchronized int size() {
+		return pinnedEntries.size() + entries.size();
+	}
+
+	public synchronized long getHits() {
+		return hits;
+	}
+
+	public synchronized long getMisses() {
+		return misses;
+	}
+
+	public synchronized long getEvictions() {
+		return evictions;
+	}
+
+	@Override
+	public synchronized String toString() {
+		return "pinned=" + pinnedEntries.size() + ", loaded=" + entries.size() + ", hits=" + hits + ", misses=" + misses + ", evictions=" + evictions;
+	}
+
+	private static class Entry<T> {
+		private SoftReference<T> value;
+		private String sourceFile;
+		private long modificationStamp;
+		private long lastCheckTime;
+
+		public Entry(T value, String sourceFile) {
+			this.value = new SoftReference<T>(value);
+			this.sourceFile = sourceFile;
+			if (sourceFile != null) {
+				modificationStamp = new File(sourceFile).lastModified();
+				lastCheckTime = System.currentTimeMillis();
+			}
+		}
+
+		boolean isStale() {
+			if (sourceFile == null) {
+				return false;
+			}
+			long now = System.currentTimeMillis();
+			if (now - lastCheckTime < STALE_CHECK_INTERVAL) {
+				return false;
+			}
+			lastCheckTime = now;
+			return new File(sourceFile).lastModified() != modificationStamp;
+		}
+	}
+}
@@ -8,7 +8,6 @@ import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -19,6 +18,7 @@ import org.apache.bcel.generic.JsrInstruction;
 import org.apache.bcel.generic.ReturnInstruction;
 import org.apache.bcel.generic.Select;
 import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.IResource;
 import org.eclipse.core.resources.IWorkspace;
 import org.eclipse.core.resources.IWorkspaceRoot;
 import org.eclipse.core.resources.ResourcesPlugin;
@@ -358,9 +358,11 @@ public class JavaUtil {
 		CompilationUnit cu = Settings.compilationUnitMap.get(qualifiedName);
 		if(null == cu){
 			try{
+				String sourceFile = null;
 				ICompilationUnit icu = findICompilationUnitInProject(qualifiedName);
 				if(icu != null){
 					cu = convertICompilationUnitToASTNode(icu);						
+					sourceFile = getSourceFile(icu);
 				}
 				else{
 					boolean isFound = false;
@@ -368,6 +370,7 @@ public class JavaUtil {
 						String fileName = sourceFolder + File.separator + qualifiedName.replace(".", File.separator) + ".java";
 						if(new File(fileName).exists()){
 							cu = findCompiltionUnitBySourcePath(fileName, qualifiedName);
+							sourceFile = fileName;
 							isFound = true;
 							break;
 						}
@@ -392,7 +395,7 @@ public class JavaUtil {
 					
 				}
 				
-				Settings.compilationUnitMap.put(qualifiedName, cu);
+				Settings.compilationUnitMap.putLoaded(qualifiedName, cu, sourceFile);
 				return cu;
 			}
 			catch(IllegalStateException e){
@@ -403,25 +406,46 @@ public class JavaUtil {
 		return cu;
 	} 
 	
+	private static String getSourceFile(ICompilationUnit icu) {
+		IResource resource = icu.getResource();
+		if (resource != null && resource.getLocation() != null) {
+			return resource.getLocation().toOSString();
+		}
+		return null;
+	}
+	
+	/**
+	 * parse the compilation unit again from its current source, and refresh the cached one with it
+	 * (unless it is pinned in {@link Settings#compilationUnitMap}).
+	 */
 	public static CompilationUnit findNonCacheCompilationUnitInProject(String qualifiedName, AppJavaClassPath appPath){
 		ICompilationUnit icu = findNonCacheICompilationUnitInProject(qualifiedName);
 		CompilationUnit cu = null;
+		String javaFile = null;
 		if(icu != null){
 			cu = convertICompilationUnitToASTNode(icu);						
+			javaFile = getSourceFile(icu);
 		}
 		else{
 			String sourceFile = appPath.getSoureCodePath() + File.separator + qualifiedName.replace(".", File.separator) + ".java";
 			String testFile = appPath.getTestCodePath() + File.separator + qualifiedName.replace(".", File.separator) + ".java";
 			
 			if(new File(sourceFile).exists()) {
-				cu = findCompiltionUnitBySourcePath(sourceFile, qualifiedName);
+				javaFile = sourceFile;
 			}
 			else if(new File(testFile).exists()) {
-				cu = findCompiltionUnitBySourcePath(testFile, qualifiedName);
+				javaFile = testFile;
 			}
 			else {
 				System.err.println("cannot find the source file of " + qualifiedName);
 			}
+			if (javaFile != null) {
+				cu = parseCompilationUnit(javaFile);
+				sourceFile2CUMap.putLoaded(javaFile, cu, javaFile);
+			}
+		}
+		if (cu != null) {
+			Settings.compilationUnitMap.putLoaded(qualifiedName, cu, javaFile);
 		}
 		
 		return cu;
@@ -445,7 +469,7 @@ public class JavaUtil {
 					
 					if(type != null){
 						icu = type.getCompilationUnit();
-						Settings.iCompilationUnitMap.put(qualifiedName, icu);
+						Settings.iCompilationUnitMap.putLoaded(qualifiedName, icu, null);
 					}
 					
 				} catch (JavaModelException e1) {
@@ -690,7 +714,7 @@ public class JavaUtil {
 		return sig;
 	}
 
-	public static HashMap<String, CompilationUnit> sourceFile2CUMap = new HashMap<>();
+	public static CompilationUnitCache<CompilationUnit> sourceFile2CUMap = new CompilationUnitCache<>();
 	
 	public static CompilationUnit findCompiltionUnitBySourcePath(String javaFilePath, 
 			String declaringCompilationUnitName) {
@@ -703,24 +727,9 @@ public class JavaUtil {
 		File javaFile = new File(javaFilePath);
 		
 		if(javaFile.exists()){
-			
-			String contents;
-			try {
-				contents = new String(Files.readAllBytes(Paths.get(javaFilePath)));
-				
-				final ASTParser parser = ASTParser.newParser(AST.JLS8);
-				parser.setKind(ASTParser.K_COMPILATION_UNIT);
-				parser.setSource(contents.toCharArray());
-				parser.setResolveBindings(true);
-				
-				CompilationUnit cu = (CompilationUnit)parser.createAST(null);
-				sourceFile2CUMap.put(javaFilePath, cu);
-				
-				return cu;
-				
-			} catch (IOException e) {
-				e.printStackTrace();
-			}
+			CompilationUnit cu = parseCompilationUnit(javaFilePath);
+			sourceFile2CUMap.putLoaded(javaFilePath, cu, javaFilePath);
+			return cu;
 		}
 		else{
 			System.err.print("cannot find " + declaringCompilationUnitName + " under " + javaFilePath);			
@@ -728,4 +737,20 @@ public class JavaUtil {
 		
 		return null;
 	}
+	
+	private static CompilationUnit parseCompilationUnit(String javaFilePath) {
+		try {
+			String contents = new String(Files.readAllBytes(Paths.get(javaFilePath)));
+			
+			final ASTParser parser = ASTParser.newParser(AST.JLS8);
+			parser.setKind(ASTParser.K_COMPILATION_UNIT);
+			parser.setSource(contents.toCharArray());
+			parser.setResolveBindings(true);
+			
+			return (CompilationUnit)parser.createAST(null);
+		} catch (IOException e) {
+			e.printStackTrace();
+		}
+		return null;
+	}
 }
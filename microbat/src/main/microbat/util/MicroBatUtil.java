@@ -452,10 +452,42 @@ public class MicroBatUtil {
 				.toString();
 	}
 	
+	public static String getInstrumentationCacheFolder() {
+		return new StringBuilder(IResourceUtils.getEclipseRootDir()).append(File.separator)
+				.append("instrumentation_cache").toString();
+	}
+	
 	public static String generateTraceDir(String projectName, String bugID) {
 		String traceFolder = sav.common.core.utils.FileUtils.getFilePath(MicroBatUtil.getTraceFolder(), projectName,
 				bugID);
 		sav.common.core.utils.FileUtils.createFolder(traceFolder);
 		return traceFolder;
 	}
+	
+	/**
+	 * a cheap fingerprint of the classpath (number, last modified time and length of the jars
+	 * and class files), it changes once the project is rebuilt.
+	 */
+	public static String getClasspathStamp(AppJavaClassPath appClassPath) {
+		long[] stamp = new long[3];
+		for (String classPath : appClassPath.getClasspaths()) {
+			appendStamp(new File(classPath), stamp);
+		}
+		return stamp[0] + "_" + stamp[1] + "_" + stamp[2];
+	}
+
+	private static void appendStamp(File file, long[] stamp) {
+		if (file.isDirectory()) {
+			File[] files = file.listFiles();
+			if (files != null) {
+				for (File subFile : files) {
+					appendStamp(subFile, stamp);
+				}
+			}
+		} else if (file.isFile()) {
+			stamp[0]++;
+			stamp[1] = stamp[1] * 31 + file.lastModified();
+			stamp[2] += file.length();
+		}
+	}
 }
@@ -1,6 +1,5 @@
 package microbat.util;
 
-import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Stack;
 
@@ -9,6 +8,7 @@ import org.eclipse.jdt.core.dom.CompilationUnit;
 
 import microbat.Activator;
 import microbat.handler.CheckingState;
+import microbat.model.SessionState;
 import microbat.model.UserInterestedVariables;
 import microbat.model.trace.PotentialCorrectPatternList;
 import microbat.preference.MicrobatPreference;
@@ -39,6 +39,22 @@ public class Settings {
 	 */
 	public static boolean applyLibraryOptimization = true;
 	
+	/**
+	 * batch evaluations (e.g., mutation generation) trace their testcases in warm worker vms
+	 * which are reused across testcases instead of starting a new vm for each trace.
+	 */
+	public static boolean useTraceWorkers = false;
+	/**
+	 * batch evaluations trace a testcase in a single run and get the precheck info as a by-product,
+	 * instead of running precheck first.
+	 */
+	public static boolean isSingleRunTrace = false;
+	/**
+	 * the jdi tracer suspends only at the breakpoints of the executing statements instead of
+	 * single stepping through every line.
+	 */
+	public static boolean isBreakpointTracing = false;
+	
 //	public static int referenceFieldLayerInString = 1;
 	
 	public static int distribtionLayer = 3;
@@ -71,6 +87,10 @@ public class Settings {
 				
 				String applyRecordingOptimization = Activator.getDefault().getPreferenceStore().getString(MicrobatPreference.RECORDING_OPTIMIZATION);
 				applyLibraryOptimization = applyRecordingOptimization.equals("true");
+				
+				useTraceWorkers = "true".equals(Activator.getDefault().getPreferenceStore().getString(MicrobatPreference.TRACE_WORKERS));
+				isSingleRunTrace = "true".equals(Activator.getDefault().getPreferenceStore().getString(MicrobatPreference.SINGLE_RUN_TRACE));
+				isBreakpointTracing = "true".equals(Activator.getDefault().getPreferenceStore().getString(MicrobatPreference.BREAKPOINT_TRACING));
 			}
 			catch(Exception e){
 				e.printStackTrace();
@@ -100,16 +120,55 @@ public class Settings {
 	 */
 	public static HashSet<Integer> wrongPathNodeOrder = new HashSet<>();
 	
+	/**
+	 * the state of the recommendation session run by the current thread, e.g. in a batch
+	 * evaluation, it replaces the fields above for that thread.
+	 */
+	private static ThreadLocal<SessionState> sessionState = new ThreadLocal<>();
+	
+	public static SessionState getSessionState(){
+		return sessionState.get();
+	}
+	
+	/**
+	 * @param state the state of the session run by the current thread, or null to go back to
+	 * the static fields.
+	 */
+	public static void setSessionState(SessionState state){
+		if(state == null){
+			sessionState.remove();
+		}
+		else{
+			sessionState.set(state);
+		}
+	}
+	
+	public static UserInterestedVariables getInterestedVariables(){
+		SessionState state = sessionState.get();
+		return state == null ? interestedVariables : state.getInterestedVariables();
+	}
+	
+	public static PotentialCorrectPatternList getPotentialCorrectPatterns(){
+		SessionState state = sessionState.get();
+		return state == null ? potentialCorrectPatterns : state.getPotentialCorrectPatterns();
+	}
+	
+	public static HashSet<Integer> getWrongPathNodeOrder(){
+		SessionState state = sessionState.get();
+		return state == null ? wrongPathNodeOrder : state.getWrongPathNodeOrder();
+	}
+	
 	/**
 	 * This stack allow user to undo his checking operations.
 	 */
 	public static Stack<CheckingState> checkingStateStack = new Stack<>();
 	
 	/**
-	 * The following two map is used to trade space for time.
+	 * The following two map is used to trade space for time, they are bounded and the parsed
+	 * compilation units are dropped once their source file is modified.
 	 */
-	public static HashMap<String, CompilationUnit> compilationUnitMap = new HashMap<>();
-	public static HashMap<String, ICompilationUnit> iCompilationUnitMap = new HashMap<>();
+	public static CompilationUnitCache<CompilationUnit> compilationUnitMap = new CompilationUnitCache<>();
+	public static CompilationUnitCache<ICompilationUnit> iCompilationUnitMap = new CompilationUnitCache<>();
 	public static boolean enableLoopInference = true;
 	
 }
@@ -0,0 +1,152 @@
+package microbat.codeanalysis.ast;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class LocalVariableScopesTest {
+	private static final String CLASS_NAME = "sample.Sample";
+
+	@Test
+	public void testInnermostScope() {
+		LocalVariableScope method = scope("x", 10, 40);
+		LocalVariableScope loop = scope("x", 15, 20);
+		LocalVariableScopes scopes = scopes(method, loop, scope("y", 15, 20));
+		assertSame(loop, scopes.findScope("x", 17, CLASS_NAME));
+		assertSame(method, scopes.findScope("x", 30, CLASS_NAME));
+		assertNull(scopes.findScope("x", 41, CLASS_NAME));
+		assertNull(scopes.findScope("z", 17, CLASS_NAME));
+		assertNull(scopes.findScope("x", 17, "sample.Other"));
+	}
+
+	@Test
+	public void testSiblingScopesSharingLine() {
+		/* if (...) { int x; ... } else { int x; ... } */
+		LocalVariableScope thenBlock = scope("x", 10, 15);
+		LocalVariableScope elseBlock = scope("x", 15, 20);
+		assertSame(thenBlock, scopes(thenBlock, elseBlock).findScope("x", 15, CLASS_NAME));
+		assertSame(elseBlock, scopes(thenBlock, elseBlock).findScope("x", 16, CLASS_NAME));
+		assertSame(elseBlock, scopes(elseBlock, thenBlock).findScope("x", 15, CLASS_NAME));
+	}
+
+	@Test
+	public void testSameRangeDeclaredTwice() {
+		LocalVariableScope first = scope("x", 10, 15);
+		LocalVariableScope second = scope("x", 10, 15);
+		assertSame(second, scopes(first, second).findScope("x", 12, CLASS_NAME));
+	}
+
+	@Test
+	public void testIndexRebuiltAfterModification() {
+		LocalVariableScopes scopes = scopes(scope("x", 10, 40));
+		assertNull(scopes.findScope("x", 50, CLASS_NAME));
+		LocalVariableScope added = scope("x", 45, 60);
+		scopes.getVariableScopes().add(added);
+		assertSame(added, scopes.findScope("x", 50, CLASS_NAME));
+		scopes.clear();
+		assertNull(scopes.findScope("x", 50, CLASS_NAME));
+	}
+
+	@Test
+	public void testRandomScopesAgainstLinearScan() {
+		Random random = new Random(48);
+		for (int round = 0; round < 500; round++) {
+			List<LocalVariableScope> list = new ArrayList<>();
+			String[] names = { "a", "b" };
+			for (String name : names) {
+				generateBlocks(random, name, 1, 100, 0, list);
+			}
+			shuffleSome(random, list);
+			LocalVariableScopes scopes = new LocalVariableScopes();
+			scopes.setVariableScopes(list);
+			for (String name : names) {
+				for (int line = 0; line <= 101; line++) {
+					assertSame("round " + round + ", " + name + " at line " + line, linearScan(list, name, line),
+							scopes.findScope(name, line, CLASS_NAME));
+				}
+			}
+		}
+	}
+
+	/**
+	 * blocks nested in [start, end], siblings may share their boundary line.
+	 */
+	private void generateBlocks(Random random, String name, int start, int end, int depth,
+			List<LocalVariableScope> list) {
+		int line = start;
+		while (line < end && depth < 4) {
+			int blockStart = line + random.nextInt(5);
+			int blockEnd = blockStart + random.nextInt(20);
+			if (blockEnd > end) {
+				break;
+			}
+			if (random.nextInt(3) > 0) {
+				list.add(scope(name, blockStart, blockEnd));
+				if (random.nextInt(10) == 0) {
+					list.add(scope(name, blockStart, blockEnd));
+				}
+			}
+			generateBlocks(random, name, blockStart, blockEnd, depth + 1, list);
+			/* the next sibling may start on the closing line of this one */
+			line = random.nextInt(8) == 0 ? blockEnd : blockEnd + 1;
+		}
+	}
+
+	private void shuffleSome(Random random, List<LocalVariableScope> list) {
+		for (int i = 0; i < list.size() / 4; i++) {
+			int from = random.nextInt(list.size());
+			int to = random.nextInt(list.size());
+			list.add(to, list.remove(from));
+		}
+	}
+
+	private LocalVariableScope linearScan(List<LocalVariableScope> list, String name, int line) {
+		LocalVariableScope candScope = null;
+		for (LocalVariableScope scope : list) {
+			if (scope.getFullNameOfContainingClass().equals(CLASS_NAME) && scope.getVariableName().equals(name)
+					&& line >= scope.getStartLine() && line <= scope.getEndLine()) {
+				if (candScope == null) {
+					candScope = scope;
+				} else if (candScope.getStartLine() <= scope.getStartLine()
+						&& candScope.getEndLine() >= scope.getEndLine()) {
+					candScope = scope;
+				}
+			}
+		}
+		return candScope;
+	}
+
+	private LocalVariableScopes scopes(LocalVariableScope... scopeList) {
+		LocalVariableScopes scopes = new LocalVariableScopes();
+		List<LocalVariableScope> list = new ArrayList<>();
+		for (LocalVariableScope scope : scopeList) {
+			list.add(scope);
+		}
+		scopes.setVariableScopes(list);
+		return scopes;
+	}
+
+	private LocalVariableScope scope(String name, final int startLine, final int endLine) {
+		return new LocalVariableScope(name, null) {
+
+			@Override
+			public int getStartLine() {
+				return startLine;
+			}
+
+			@Override
+			public int getEndLine() {
+				return endLine;
+			}
+
+			@Override
+			public String getFullNameOfContainingClass() {
+				return CLASS_NAME;
+			}
+		};
+	}
+}
@@ -0,0 +1,68 @@
+package microbat.codeanalysis.bytecode;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.apache.bcel.Const;
+import org.apache.bcel.classfile.JavaClass;
+import org.apache.bcel.generic.ClassGen;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import sav.strategies.dto.AppJavaClassPath;
+
+public class ByteCodeParserTest {
+	private static final String CLASS_NAME = "sample.bytecode.Generated";
+	private File binFolder;
+	private AppJavaClassPath appClassPath;
+
+	@Before
+	public void setup() throws IOException {
+		binFolder = File.createTempFile("bin", "");
+		binFolder.delete();
+		File packageFolder = new File(binFolder, "sample/bytecode");
+		packageFolder.mkdirs();
+		/* a class which is only in the application class path */
+		ClassGen classGen = new ClassGen(CLASS_NAME, "java.lang.Object", "Generated.java", Const.ACC_PUBLIC, null);
+		classGen.addEmptyConstructor(Const.ACC_PUBLIC);
+		classGen.getJavaClass().dump(new File(packageFolder, "Generated.class"));
+
+		appClassPath = new AppJavaClassPath();
+		appClassPath.setJavaHome(System.getProperty("java.home"));
+		appClassPath.addClasspath(binFolder.getAbsolutePath());
+	}
+
+	@After
+	public void cleanUp() {
+		new File(binFolder, "sample/bytecode/Generated.class").delete();
+		new File(binFolder, "sample/bytecode").delete();
+		new File(binFolder, "sample").delete();
+		binFolder.delete();
+	}
+
+	@Test
+	public void testParseWithSharedClassPath() {
+		ClassPath0 classPath = ByteCodeParser.createClassPath(appClassPath);
+		JavaClass clazz = ByteCodeParser.parse(CLASS_NAME, classPath);
+		assertNotNull(clazz);
+		assertEquals(CLASS_NAME, clazz.getClassName());
+		assertEquals(1, clazz.getMethods().length);
+		assertEquals("<init>", clazz.getMethods()[0].getName());
+
+		/* the class path can be reused for other classes */
+		assertNotNull(ByteCodeParser.parse(ByteCodeParserTest.class.getName(), classPath));
+		assertNull(ByteCodeParser.parse("sample.bytecode.Missing", classPath));
+	}
+
+	@Test
+	public void testParseWithRepository() {
+		String systemClassPath = System.getProperty("java.class.path");
+		JavaClass clazz = ByteCodeParser.parse(CLASS_NAME, appClassPath);
+		assertNotNull(clazz);
+		assertEquals(CLASS_NAME, clazz.getClassName());
+		assertEquals(systemClassPath, System.getProperty("java.class.path"));
+	}
+}
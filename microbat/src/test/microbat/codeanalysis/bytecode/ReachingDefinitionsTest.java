@@ -0,0 +1,127 @@
+package microbat.codeanalysis.bytecode;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+import microbat.model.variable.FieldVar;
+import microbat.model.variable.LocalVar;
+import microbat.model.variable.Variable;
+
+public class ReachingDefinitionsTest {
+
+	@Test
+	public void testBranch() {
+		/*
+		 * 0: x = 0; 1: if (y) 2: x = 1; 3: use x; 4: x = 2; 5: use x
+		 */
+		List<CFGNode> nodes = newNodes(6);
+		link(nodes, 0, 1);
+		link(nodes, 1, 2);
+		link(nodes, 1, 3);
+		link(nodes, 2, 3);
+		link(nodes, 3, 4);
+		link(nodes, 4, 5);
+		nodes.get(0).addWrittenVariable(localVar(1));
+		nodes.get(1).addReadVariable(localVar(2));
+		nodes.get(2).addWrittenVariable(localVar(1));
+		nodes.get(3).addReadVariable(localVar(1));
+		nodes.get(4).addWrittenVariable(localVar(1));
+		nodes.get(5).addReadVariable(localVar(1));
+
+		ReachingDefinitions reachingDefinitions = solve(nodes);
+		assertDefinitions(reachingDefinitions, 3, 0, 2);
+		assertDefinitions(reachingDefinitions, 5, 4);
+		assertDefinitions(reachingDefinitions, 1);
+	}
+
+	@Test
+	public void testLoop() {
+		/*
+		 * 0: i = 0; 1: while (i < n) 2: i++; 3: use i
+		 */
+		List<CFGNode> nodes = newNodes(4);
+		link(nodes, 0, 1);
+		link(nodes, 1, 2);
+		link(nodes, 2, 1);
+		link(nodes, 1, 3);
+		nodes.get(0).addWrittenVariable(localVar(1));
+		nodes.get(1).addReadVariable(localVar(1));
+		nodes.get(2).addReadVariable(localVar(1));
+		nodes.get(2).addWrittenVariable(localVar(1));
+		nodes.get(3).addReadVariable(localVar(1));
+
+		ReachingDefinitions reachingDefinitions = solve(nodes);
+		assertDefinitions(reachingDefinitions, 1, 0, 2);
+		assertDefinitions(reachingDefinitions, 3, 0, 2);
+	}
+
+	@Test
+	public void testVariableIdentity() {
+		/*
+		 * 0: this.f = a; 1: other.f = b (same field); 2: this.g = c; 3: use f and local 1
+		 */
+		List<CFGNode> nodes = newNodes(4);
+		link(nodes, 0, 1);
+		link(nodes, 1, 2);
+		link(nodes, 2, 3);
+		nodes.get(0).addWrittenVariable(new FieldVar(false, "f", "int", "Sample"));
+		nodes.get(1).addWrittenVariable(new FieldVar(false, "f", "int", "Sample"));
+		nodes.get(2).addWrittenVariable(new FieldVar(false, "g", "int", "Sample"));
+		nodes.get(3).addReadVariable(new FieldVar(false, "f", "int", "Sample"));
+		nodes.get(3).addReadVariable(localVar(1));
+
+		ReachingDefinitions reachingDefinitions = solve(nodes);
+		assertDefinitions(reachingDefinitions, 3, 1);
+	}
+
+	private ReachingDefinitions solve(final List<CFGNode> nodes) {
+		List<CFGNode> exits = new ArrayList<>();
+		exits.add(nodes.get(nodes.size() - 1));
+		IndexedGraph<CFGNode> graph = new IndexedGraph<CFGNode>(nodes, exits) {
+
+			@Override
+			protected List<CFGNode> getChildren(CFGNode node) {
+				return node.getChildren();
+			}
+		};
+		ReachingDefinitions reachingDefinitions = new ReachingDefinitions(graph);
+		reachingDefinitions.solve();
+		return reachingDefinitions;
+	}
+
+	private void assertDefinitions(ReachingDefinitions reachingDefinitions, int useNode, int... expected) {
+		List<Integer> actual = new ArrayList<>();
+		long[] defs = reachingDefinitions.getReachingDefinitions(useNode);
+		for (int i = BitSets.nextSetBit(defs, 0); i >= 0; i = BitSets.nextSetBit(defs, i + 1)) {
+			actual.add(i);
+		}
+		List<Integer> expectedList = new ArrayList<>();
+		for (int i : expected) {
+			expectedList.add(i);
+		}
+		assertEquals(expectedList, actual);
+	}
+
+	private List<CFGNode> newNodes(int size) {
+		List<CFGNode> nodes = new ArrayList<>();
+		for (int i = 0; i < size; i++) {
+			nodes.add(new CFGNode(null));
+		}
+		return nodes;
+	}
+
+	private void link(List<CFGNode> nodes, int parent, int child) {
+		nodes.get(parent).addChild(nodes.get(child));
+		nodes.get(child).addParent(nodes.get(parent));
+	}
+
+	private Variable localVar(int byteCodeIndex) {
+		LocalVar var = new LocalVar("v" + byteCodeIndex, "int", "Sample", 1);
+		var.setByteCodeIndex(byteCodeIndex);
+		return var;
+	}
+}
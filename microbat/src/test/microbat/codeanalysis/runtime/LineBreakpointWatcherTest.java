@@ -0,0 +1,135 @@
+package microbat.codeanalysis.runtime;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+
+import com.sun.jdi.AbsentInformationException;
+import com.sun.jdi.Bootstrap;
+import com.sun.jdi.IncompatibleThreadStateException;
+import com.sun.jdi.Location;
+import com.sun.jdi.ReferenceType;
+import com.sun.jdi.ThreadReference;
+import com.sun.jdi.VirtualMachine;
+import com.sun.jdi.connect.Connector;
+import com.sun.jdi.connect.LaunchingConnector;
+import com.sun.jdi.event.BreakpointEvent;
+import com.sun.jdi.event.ClassPrepareEvent;
+import com.sun.jdi.event.Event;
+import com.sun.jdi.event.EventSet;
+import com.sun.jdi.event.LocatableEvent;
+import com.sun.jdi.event.MethodExitEvent;
+import com.sun.jdi.event.StepEvent;
+import com.sun.jdi.event.VMDeathEvent;
+import com.sun.jdi.event.VMDisconnectEvent;
+import com.sun.jdi.request.BreakpointRequest;
+import com.sun.jdi.request.ClassPrepareRequest;
+import com.sun.jdi.request.EventRequest;
+import com.sun.jdi.request.EventRequestManager;
+import com.sun.jdi.request.StepRequest;
+
+import microbat.codeanalysis.runtime.sample.LineSample;
+
+/**
+ * traces {@link LineSample} by single stepping and by breakpoints, both must give the same steps.
+ */
+public class LineBreakpointWatcherTest {
+	private static final String SAMPLE_CLASSES = "microbat.codeanalysis.runtime.sample.*";
+	private static final String[] EXCLUDES = { "java.*", "javax.*", "sun.*", "jdk.*", "com.sun.*" };
+	private static final long TIME_OUT = 10000;
+
+	@Test
+	public void testSameStepsAsStepMode() throws Exception {
+		List<String> steps = trace(false);
+		List<String> breakpointSteps = trace(true);
+		assertTrue(steps.size() > 40);
+		assertEquals(steps, breakpointSteps);
+	}
+
+	private List<String> trace(boolean breakpointMode) throws Exception {
+		VirtualMachine vm = launch();
+		EventRequestManager erm = vm.eventRequestManager();
+		ClassPrepareRequest classPrepareRequest = erm.createClassPrepareRequest();
+		classPrepareRequest.addClassFilter(SAMPLE_CLASSES);
+		classPrepareRequest.enable();
+		LineBreakpointWatcher watcher = breakpointMode ? new LineBreakpointWatcher(erm, EXCLUDES) : null;
+		List<String> steps = new ArrayList<>();
+		boolean stop = false;
+		try {
+			while (!stop) {
+				EventSet eventSet = vm.eventQueue().remove(TIME_OUT);
+				assertNotNull("no event", eventSet);
+				for (Event event : eventSet) {
+					if (event instanceof VMDeathEvent || event instanceof VMDisconnectEvent) {
+						stop = true;
+					} else if (event instanceof ClassPrepareEvent) {
+						ReferenceType refType = ((ClassPrepareEvent) event).referenceType();
+						if (watcher != null) {
+							addLineWatches(watcher, refType);
+						}
+						if (refType.name().equals(LineSample.class.getName())) {
+							BreakpointRequest start = erm.createBreakpointRequest(
+									refType.methodsByName("main").get(0).location());
+							start.enable();
+						}
+					} else if (event instanceof StepEvent || (watcher != null && watcher.isLineEvent(event))) {
+						if (watcher == null || watcher.onLineEvent((LocatableEvent) event)) {
+							steps.add(toStep((LocatableEvent) event));
+						}
+					} else if (event instanceof MethodExitEvent) {
+						watcher.onMethodExit((MethodExitEvent) event);
+					} else if (event instanceof BreakpointEvent) {
+						ThreadReference thread = ((BreakpointEvent) event).thread();
+						if (watcher != null) {
+							watcher.start(thread);
+						} else {
+							StepRequest stepRequest = erm.createStepRequest(thread, StepRequest.STEP_LINE,
+									StepRequest.STEP_INTO);
+							stepRequest.setSuspendPolicy(EventRequest.SUSPEND_EVENT_THREAD);
+							for (String ex : EXCLUDES) {
+								stepRequest.addClassExclusionFilter(ex);
+							}
+							stepRequest.enable();
+						}
+					}
+				}
+				eventSet.resume();
+			}
+		} finally {
+			if (!stop) {
+				vm.exit(1);
+			}
+		}
+		return steps;
+	}
+
+	private void addLineWatches(LineBreakpointWatcher watcher, ReferenceType refType)
+			throws AbsentInformationException {
+		List<Integer> lines = new ArrayList<>();
+		for (Location location : refType.allLineLocations()) {
+			if (!lines.contains(location.lineNumber())) {
+				lines.add(location.lineNumber());
+				watcher.addLineWatch(refType, location.lineNumber());
+			}
+		}
+	}
+
+	private String toStep(LocatableEvent event) throws IncompatibleThreadStateException {
+		return event.location().lineNumber() + "@" + event.thread().frameCount();
+	}
+
+	private VirtualMachine launch() throws Exception {
+		LaunchingConnector connector = Bootstrap.virtualMachineManager().defaultConnector();
+		Map<String, Connector.Argument> arguments = connector.defaultArguments();
+		String classPath = new File(LineSample.class.getProtectionDomain().getCodeSource().getLocation().toURI())
+				.getAbsolutePath();
+		arguments.get("main").setValue(LineSample.class.getName());
+		arguments.get("options").setValue("-cp \"" + classPath + "\"");
+		return connector.launch(arguments);
+	}
+}
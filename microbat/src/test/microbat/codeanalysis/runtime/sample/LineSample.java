@@ -0,0 +1,43 @@
+package microbat.codeanalysis.runtime.sample;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class LineSample {
+
+	public static void main(String[] args) {
+		int sum = 0;
+		for (int i = 0; i < 3; i++) {
+			sum += square(i);
+		}
+		sum += factorial(3);
+		List<Integer> list = new ArrayList<>();
+		list.add(sum);
+		Counter counter = new Counter();
+		for (int i = 0; i < 2; i++) counter.inc();
+		int j = 0;
+		while (j < counter.count) {
+			j++;
+		}
+		sum = square(sum) + square(j);
+	}
+
+	private static int square(int x) {
+		return x * x;
+	}
+
+	private static int factorial(int n) {
+		if (n <= 1) {
+			return 1;
+		}
+		return n * factorial(n - 1);
+	}
+
+	static class Counter {
+		int count;
+
+		void inc() {
+			count++;
+		}
+	}
+}
@@ -0,0 +1,49 @@
+package microbat.model;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+
+import org.junit.Test;
+
+public class UserInterestedVariablesTest {
+
+	private static void link(AttributionVar parent, AttributionVar child) {
+		parent.addChild(child);
+		child.addParent(parent);
+	}
+
+	@Test
+	public void testUpdateAttributionTrees() {
+		UserInterestedVariables variables = new UserInterestedVariables();
+		for (String varID : Arrays.asList("a", "b", "c", "d", "e")) {
+			variables.add(varID, 1);
+		}
+		AttributionVar a = new AttributionVar("a", 1);
+		AttributionVar b = new AttributionVar("b", 1);
+		AttributionVar c = new AttributionVar("c", 1);
+		AttributionVar d = new AttributionVar("d", 1);
+		AttributionVar e = new AttributionVar("e", 1);
+		variables.setRoots(new ArrayList<>(Arrays.asList(a, b, e)));
+		/* c is shared by the trees of a and b */
+		link(a, c);
+		link(b, c);
+		link(c, d);
+
+		variables.updateAttributionTrees();
+		assertEquals(new HashSet<>(Arrays.asList(a, b, e)), new HashSet<>(variables.getRoots()));
+		assertSame(d, a.findChild("d"));
+		assertSame(d, b.findChild("d"));
+
+		/* removing c detaches d, which becomes a root */
+		variables.remove("c");
+		variables.updateAttributionTrees();
+		assertEquals(new HashSet<>(Arrays.asList(a, b, d, e)), new HashSet<>(variables.getRoots()));
+		assertNull(a.findChild("d"));
+		assertEquals(new ArrayList<AttributionVar>(), d.getParents());
+	}
+}
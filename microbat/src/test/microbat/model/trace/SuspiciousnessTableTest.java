@@ -0,0 +1,85 @@
+package microbat.model.trace;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import microbat.model.AttributionVar;
+
+public class SuspiciousnessTableTest {
+	private Trace trace;
+	private AttributionVar var;
+	private AttributionVar otherVar;
+
+	@Before
+	public void setup() {
+		trace = new Trace(null);
+		for (int order = 1; order <= 5; order++) {
+			trace.addTraceNode(new TraceNode(null, null, order, trace));
+		}
+		var = new AttributionVar("a", 1);
+		otherVar = new AttributionVar("b", 2);
+	}
+
+	private TraceNode step(int order) {
+		return trace.getExecutionList().get(order - 1);
+	}
+
+	@Test
+	public void testSetAndAddScores() {
+		step(2).setSuspicousScore(var, 0.5);
+		step(2).addSuspicousScore(var, 0.25);
+		step(3).addSuspicousScore(var, 1);
+		assertEquals(0.75, step(2).getSuspicousScore(var), 0);
+		assertEquals(1, step(3).getSuspicousScore(var), 0);
+		assertNull(step(1).getSuspicousScore(var));
+		assertNull(step(2).getSuspicousScore(otherVar));
+	}
+
+	@Test
+	public void testClearAllSuspiciousness() {
+		step(1).setSuspicousScore(var, 0.5);
+		step(4).addSuspicousScore(otherVar, 2);
+		trace.clearAllSuspiciousness();
+		assertNull(step(1).getSuspicousScore(var));
+		assertNull(step(4).getSuspicousScore(otherVar));
+		assertTrue(step(4).getSuspicousScoreMap().isEmpty());
+
+		/* a score added after clearing does not accumulate the old value */
+		step(4).addSuspicousScore(otherVar, 1);
+		assertEquals(1, step(4).getSuspicousScore(otherVar), 0);
+	}
+
+	@Test
+	public void testScoreMapSnapshot() {
+		step(3).setSuspicousScore(var, 0.5);
+		step(3).setSuspicousScore(otherVar, 0.1);
+		Map<AttributionVar, Double> snapshot = step(3).getSuspicousScoreMap();
+		assertEquals(2, snapshot.size());
+
+		step(3).addSuspicousScore(var, 1);
+		Map<AttributionVar, Double> restored = new HashMap<>();
+		restored.put(var, snapshot.get(var));
+		step(3).setSuspicousScoreMap(restored);
+		assertEquals(0.5, step(3).getSuspicousScore(var), 0);
+		assertNull(step(3).getSuspicousScore(otherVar));
+	}
+
+	@Test
+	public void testFindMostSuspiciousNode() {
+		assertSame(step(1), trace.findMostSupiciousNode(var));
+		step(2).setSuspicousScore(var, 0.5);
+		step(4).setSuspicousScore(var, 0.8);
+		step(5).setSuspicousScore(var, 0.8);
+		step(3).setSuspicousScore(otherVar, 1);
+		assertSame(step(4), trace.findMostSupiciousNode(var));
+		assertSame(step(3), trace.findMostSupiciousNode(otherVar));
+	}
+}
@@ -0,0 +1,105 @@
+package microbat.recommendation;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import microbat.model.trace.TraceNode;
+import microbat.recommendation.StepRecommender.LoopRange;
+
+public class LoopRangeTest {
+	private List<TraceNode> nodes;
+	private LoopRange range;
+
+	@Before
+	public void setup() {
+		nodes = new ArrayList<>();
+		for (int order = 0; order <= 10; order++) {
+			nodes.add(new TraceNode(null, null, order, null));
+		}
+		range = new StepRecommender(true).new LoopRange();
+		/* skip points are not added in step order */
+		for (int order : new int[] { 7, 2, 9, 4, 1, 10, 5, 3, 8, 6 }) {
+			range.addSkipPoint(nodes.get(order));
+		}
+		range.startNode = nodes.get(0);
+		range.endNode = nodes.get(10);
+	}
+
+	@Test
+	public void testSkipPointsSorted() {
+		List<TraceNode> skipPoints = range.getSkipPoints();
+		assertEquals(10, skipPoints.size());
+		for (int i = 0; i < skipPoints.size(); i++) {
+			assertSame(nodes.get(i + 1), skipPoints.get(i));
+		}
+		try {
+			skipPoints.add(nodes.get(0));
+			fail("skip points are read-only");
+		} catch (UnsupportedOperationException e) {
+			// expected
+		}
+	}
+
+	@Test
+	public void testBinarySearch() {
+		/* start node is not a skip point, the whole range is searched */
+		assertSame(nodes.get(5), range.binarySearch());
+
+		range.startNode = nodes.get(5);
+		assertSame(nodes.get(7), range.binarySearch());
+
+		range.startNode = nodes.get(9);
+		assertSame(nodes.get(10), range.binarySearch());
+
+		range.endNode = null;
+		range.startNode = nodes.get(1);
+		assertSame(nodes.get(5), range.binarySearch());
+	}
+
+	@Test
+	public void testFindCorrespondingStartNode() {
+		assertSame(nodes.get(4), range.findCorrespondingStartNode(nodes.get(5)));
+		assertSame(range.startNode, range.findCorrespondingStartNode(nodes.get(1)));
+		assertNull(range.findCorrespondingStartNode(nodes.get(0)));
+		assertNull(range.findCorrespondingStartNode(new TraceNode(null, null, 11, null)));
+		/* a node is looked up by its step order */
+		assertSame(nodes.get(2), range.findCorrespondingStartNode(new TraceNode(null, null, 3, null)));
+	}
+
+	@Test
+	public void testCheckedSkipPointsContains() {
+		nodes.get(3).setCheckTime(1);
+		assertTrue(range.checkedSkipPointsContains(nodes.get(3)));
+		assertFalse(range.checkedSkipPointsContains(nodes.get(4)));
+		assertFalse(range.checkedSkipPointsContains(nodes.get(0)));
+	}
+
+	@Test
+	public void testCloneCopyOnWrite() {
+		LoopRange clone = range.clone();
+		assertEquals(range.getSkipPoints(), clone.getSkipPoints());
+
+		TraceNode extra = new TraceNode(null, null, 0, null);
+		clone.addSkipPoint(extra);
+		assertEquals(11, clone.getSkipPoints().size());
+		assertSame(extra, clone.getSkipPoints().get(0));
+		assertEquals(10, range.getSkipPoints().size());
+		assertSame(nodes.get(1), range.getSkipPoints().get(0));
+
+		LoopRange clone2 = range.clone();
+		range.clearSkipPoints();
+		assertTrue(range.getSkipPoints().isEmpty());
+		assertEquals(10, clone2.getSkipPoints().size());
+		assertSame(nodes.get(5), clone2.findCorrespondingStartNode(nodes.get(6)));
+
+		range.addSkipPoint(nodes.get(4));
+		assertEquals(1, range.getSkipPoints().size());
+		assertEquals(10, clone2.getSkipPoints().size());
+		assertEquals(11, clone.getSkipPoints().size());
+	}
+}
@@ -0,0 +1,54 @@
+package microbat.util;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.junit.Test;
+
+public class CompilationUnitCacheTest {
+
+	@Test
+	public void testPinnedEntriesAreNotEvicted() {
+		CompilationUnitCache<String> cache = new CompilationUnitCache<>(2);
+		cache.put("Mutated", "mutated unit");
+		for (int i = 0; i < 5; i++) {
+			cache.putLoaded("Loaded" + i, "unit" + i, null);
+		}
+		assertEquals("mutated unit", cache.get("Mutated"));
+		assertNull(cache.get("Loaded0"));
+		assertEquals("unit4", cache.get("Loaded4"));
+		assertEquals(3, cache.size());
+		assertEquals(3, cache.getEvictions());
+	}
+
+	@Test
+	public void testLoadedValueDoesNotReplacePinnedValue() {
+		CompilationUnitCache<String> cache = new CompilationUnitCache<>();
+		cache.put("A", "mutated");
+		cache.putLoaded("A", "original", null);
+		assertEquals("mutated", cache.get("A"));
+		cache.remove("A");
+		assertNull(cache.get("A"));
+		cache.putLoaded("A", "original", null);
+		cache.put("A", "mutated");
+		assertEquals("mutated", cache.get("A"));
+		assertEquals(1, cache.size());
+	}
+
+	@Test
+	public void testStaleEntryIsDropped() throws IOException, InterruptedException {
+		File file = File.createTempFile("Cached", ".java");
+		file.deleteOnExit();
+		CompilationUnitCache<String> cache = new CompilationUnitCache<>();
+		cache.putLoaded(file.getPath(), "unit", file.getPath());
+		cache.put("Pinned", "pinned");
+		assertTrue(file.setLastModified(file.lastModified() - 10000));
+		/* the file is checked at most once per interval */
+		assertEquals("unit", cache.get(file.getPath()));
+		Thread.sleep(CompilationUnitCache.STALE_CHECK_INTERVAL + 100);
+		assertNull(cache.get(file.getPath()));
+		assertEquals("pinned", cache.get("Pinned"));
+	}
+}
@@ -0,0 +1,72 @@
+package microbat.codeanalysis.bytecode;
+
+import java.util.Arrays;
+
+/**
+ * A monotone dataflow framework over an {@link IndexedGraph} whose facts are sets of graph
+ * nodes, kept as long[] bitsets.
+ * The fixpoint is computed with a worklist ordered by reverse post-order (of the reversed
+ * graph for a backward analysis), so that a node is normally processed after its sources.
+ *
+ * @author LLT
+ */
+public abstract class BitSetDataflow<T> {
+	protected IndexedGraph<T> graph;
+	private boolean forward;
+	protected long[][] out;
+
+	public BitSetDataflow(IndexedGraph<T> graph, boolean forward) {
+		this.graph = graph;
+		this.forward = forward;
+	}
+
+	public void solve() {
+		int size = graph.size();
+		int[] order = graph.getReversePostOrder(forward);
+		int[] position = new int[size];
+		for (int i = 0; i < size; i++) {
+			position[order[i]] = i;
+		}
+		out = new long[size][];
+		for (int i = 0; i < size; i++) {
+			out[i] = initialValue(i);
+		}
+		long[] worklist = BitSets.create(size);
+		BitSets.fill(worklist, size);
+		long[] result = BitSets.create(size);
+		for (int pos = BitSets.nextSetBit(worklist, 0); pos >= 0; pos = BitSets.nextSetBit(worklist, 0)) {
+			BitSets.clear(worklist, pos);
+			int node = order[pos];
+			int[] sources = forward ? graph.getPredecessors(node) : graph.getSuccessors(node);
+			flow(node, sources, result);
+			if (!Arrays.equals(result, out[node])) {
+				long[] old = out[node];
+				out[node] = result;
+				result = old;
+				int[] dependents = forward ? graph.getSuccessors(node) : graph.getPredecessors(node);
+				for (int dependent : dependents) {
+					BitSets.set(worklist, position[dependent]);
+				}
+			}
+		}
+	}
+
+	/**
+	 * @return the fact of the node before the analysis, a new bitset of graph size.
+	 */
+	protected abstract long[] initialValue(int node);
+
+	/**
+	 * compute the new fact of {@code node} from the facts of its sources (predecessors for a
+	 * forward analysis, successors for a backward one) into {@code result}.
+	 */
+	protected abstract void flow(int node, int[] sources, long[] result);
+
+	public long[] getOut(int node) {
+		return out[node];
+	}
+
+	public IndexedGraph<T> getGraph() {
+		return graph;
+	}
+}
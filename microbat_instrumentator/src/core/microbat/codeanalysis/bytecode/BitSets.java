@@ -0,0 +1,93 @@
+package microbat.codeanalysis.bytecode;
+
+/**
+ * Helpers for fixed-size bitsets stored in long arrays, used by the dataflow analyses.
+ *
+ * @author LLT
+ */
+public class BitSets {
+	private BitSets() {
+	}
+
+	public static long[] create(int size) {
+		return new long[(size + 63) >>> 6];
+	}
+
+	public static boolean get(long[] bits, int i) {
+		return (bits[i >>> 6] & (1L << i)) != 0;
+	}
+
+	public static void set(long[] bits, int i) {
+		bits[i >>> 6] |= 1L << i;
+	}
+
+	public static void clear(long[] bits, int i) {
+		bits[i >>> 6] &= ~(1L << i);
+	}
+
+	/**
+	 * set bits [0, size)
+	 */
+	public static void fill(long[] bits, int size) {
+		int fullWords = size >>> 6;
+		for (int i = 0; i < fullWords; i++) {
+			bits[i] = -1L;
+		}
+		if ((size & 63) != 0) {
+			bits[fullWords] = (1L << size) - 1;
+		}
+	}
+
+	public static void clearAll(long[] bits) {
+		for (int i = 0; i < bits.length; i++) {
+			bits[i] = 0L;
+		}
+	}
+
+	public static void or(long[] bits, long[] other) {
+		for (int i = 0; i < bits.length; i++) {
+			bits[i] |= other[i];
+		}
+	}
+
+	public static void and(long[] bits, long[] other) {
+		for (int i = 0; i < bits.length; i++) {
+			bits[i] &= other[i];
+		}
+	}
+
+	public static void andNot(long[] bits, long[] other) {
+		for (int i = 0; i < bits.length; i++) {
+			bits[i] &= ~other[i];
+		}
+	}
+
+	public static boolean intersects(long[] bits, long[] other) {
+		for (int i = 0; i < bits.length; i++) {
+			if ((bits[i] & other[i]) != 0) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * @return index of the first set bit from {@code from}, or -1 if there is none.
+	 */
+	public static int nextSetBit(long[] bits, int from) {
+		int u = from >>> 6;
+		if (u >= bits.length) {
+			return -1;
+		}
+		long word = bits[u] & (-1L << from);
+		while (true) {
+			if (word != 0) {
+				return (u << 6) + Long.numberOfTrailingZeros(word);
+			}
+			if (++u == bits.length) {
+				return -1;
+			}
+			word = bits[u];
+		}
+	}
+}
@@ -1,9 +1,8 @@
 package microbat.codeanalysis.bytecode;
 
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Arrays;
 import java.util.List;
-import java.util.Map;
 
 import org.apache.bcel.classfile.Method;
 import org.apache.bcel.generic.InstructionHandle;
@@ -13,7 +12,9 @@ import microbat.instrumentation.cfgcoverage.graph.IGraph;
 public class CFG implements IGraph<CFGNode>{
 	private Method method;
 	
-	private Map<Integer, CFGNode> nodeList = new HashMap<>();
+	private List<CFGNode> nodeList = new ArrayList<>();
+	/* nodes indexed by their bytecode offset */
+	private CFGNode[] offsetIndex = new CFGNode[64];
 	private CFGNode startNode;
 	private List<CFGNode> exitList = new ArrayList<>();
 
@@ -35,17 +36,33 @@ public class CFG implements IGraph<CFGNode>{
 
 
 	public List<CFGNode> getNodeList() {
-		return new ArrayList<>(nodeList.values());
+		return nodeList;
 	}
 	
+	/**
+	 * nodes of another method (glued sub cfg) may have the same offset as a node of this cfg,
+	 * they are kept in the node list but only the first node at an offset is indexed.
+	 */
 	public void addNode(CFGNode node){
-		if(!this.nodeList.keySet().contains(node)){
-			this.nodeList.put(node.getInstructionHandle().getPosition(), node);			
+		CFGNode indexedNode = findNode(node.getInstructionHandle().getPosition());
+		if(indexedNode != node){
+			this.nodeList.add(node);
+			if(indexedNode == null){
+				putOffsetIndex(node);
+			}
 		}
 	}
 	
 	public boolean contains(CFGNode node){
-		return this.nodeList.keySet().contains(node.getInstructionHandle().getPosition());
+		return findNode(node.getInstructionHandle().getPosition()) != null;
+	}
+	
+	private void putOffsetIndex(CFGNode node) {
+		int offset = node.getInstructionHandle().getPosition();
+		if (offset >= offsetIndex.length) {
+			offsetIndex = Arrays.copyOf(offsetIndex, Math.max(offset + 1, offsetIndex.length * 2));
+		}
+		offsetIndex[offset] = node;
 	}
 	
 	/**
@@ -59,20 +76,22 @@ public class CFG implements IGraph<CFGNode>{
 		CFGNode node = findNode(handle);
 		if(node == null){
 			node = new CFGNode(handle);
-			this.nodeList.put(handle.getPosition(), node);
+			this.nodeList.add(node);
+			putOffsetIndex(node);
 		}
 		
 		return node;
 	}
 	
 	public CFGNode findNode(InstructionHandle handle){
-		CFGNode node = this.nodeList.get(handle.getPosition());
-		return node;
+		return findNode(handle.getPosition());
 	}
 	
 	public CFGNode findNode(int offset){
-		CFGNode node = this.nodeList.get(offset);
-		return node;
+		if(offset < 0 || offset >= offsetIndex.length){
+			return null;
+		}
+		return offsetIndex[offset];
 	}
 
 	public int size() {
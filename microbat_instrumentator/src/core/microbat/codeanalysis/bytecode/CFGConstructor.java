@@ -1,11 +1,6 @@
 package microbat.codeanalysis.bytecode;
 
-import java.util.HashMap;
-import java.util.HashSet;
 import java.util.Iterator;
-import java.util.List;
-import java.util.Map;
-import java.util.Set;
 
 import org.apache.bcel.classfile.Code;
 import org.apache.bcel.classfile.CodeException;
@@ -36,8 +31,8 @@ public class CFGConstructor {
 		
 		CFG cfg = constructCFG(code);
 		
-		BlockGraph bGraph = constructPostDomination(cfg);
-		constructControlDependency(cfg, bGraph);
+		PostDominators<CFGNode> postDominators = constructPostDomination(cfg);
+		constructControlDependency(cfg, postDominators);
 		
 		return cfg;
 	}
@@ -147,105 +142,10 @@ public class CFGConstructor {
 		}
 	}
 
-	public BlockGraph constructPostDomination(CFG cfg){
-		
-		BlockGraph bGraph = BlockGraph.createBlockGraph(cfg);
-		
-		Map<BlockNode, Set<BlockNode>> postDominanceMap = new HashMap<>();
-		
-		/** connect basic post domination relation */
-		for(BlockNode node: bGraph.getList()){
-			Set<BlockNode> set = new HashSet<>();
-			set.add(node);
-			postDominanceMap.put(node, set);
-		}
-		
-		/** extend */
-		Boolean isChange = true;
-		int iteration = 0;
-		while(isChange){
-			isChange = false;
-			iteration++;
-			Set<BlockNode> visitedBlocks = new HashSet<>();
-			for(BlockNode exitNode: bGraph.getExitNodeList()){
-				propagatePostDominator(postDominanceMap, exitNode, isChange, visitedBlocks);
-			}
-		}
-		
-		bGraph.setPostDominanceMap(postDominanceMap);
-		return bGraph;
-		
-//		/** map relation back to CFG node*/
-//		for(BlockNode block: bGraph.getList()){
-//			for(CFGNode cfgNode: block.getContents()){
-//				cfgNode.getPostDominatee().addAll(block.getContents());
-//			}
-//		}
-//		
-//		/** construct post dominatee relation*/
-//		for(BlockNode block: bGraph.getList()){
-//			Set<BlockNode> postDominators = postDominanceMap.get(block);
-//			for(BlockNode postDominator: postDominators){
-//				for(CFGNode cfgNode: postDominator.getContents()){
-//					cfgNode.getPostDominatee().addAll(block.getContents());
-//				}
-//			}
-//		}
-		
-//		System.currentTimeMillis();
-	}
-
-	private void propagatePostDominator(Map<BlockNode, Set<BlockNode>> postDominanceMap, BlockNode node, 
-			Boolean isChange, Set<BlockNode> visitedBlocks) {
-		visitedBlocks.add(node);
-		
-		Set<BlockNode> intersetion = findIntersetedPostDominator(node.getChildren(), postDominanceMap);
-		Set<BlockNode> postDominatorSet = postDominanceMap.get(node);
-		
-		for(BlockNode newNode: intersetion){
-			if(!postDominatorSet.contains(newNode)){
-				postDominatorSet.add(newNode);
-				isChange = true;
-			}
-		}
-		postDominanceMap.put(node, postDominatorSet);
-		
-		for(BlockNode parent: node.getParents()){
-			if(!visitedBlocks.contains(parent)){
-				propagatePostDominator(postDominanceMap, parent, isChange, visitedBlocks);				
-			}
-		}
-	}
-
-	private Set<BlockNode> findIntersetedPostDominator(List<BlockNode> children,
-			Map<BlockNode, Set<BlockNode>> postDominanceMap) {
-		if(children.isEmpty()){
-			return new HashSet<>();
-		}
-		else if(children.size()==1){
-			BlockNode child = children.get(0);
-			return postDominanceMap.get(child);
-		}
-		else{
-			BlockNode child = children.get(0);
-			Set<BlockNode> set = (Set<BlockNode>) ((HashSet<BlockNode>)postDominanceMap.get(child)).clone();
-			
-			for(int i=1; i<children.size(); i++){
-				BlockNode otherChild = children.get(i);
-				Set<BlockNode> candidateSet = postDominanceMap.get(otherChild);
-				
-				Iterator<BlockNode> setIter = set.iterator();
-				while(setIter.hasNext()){
-					BlockNode postDominator = setIter.next();
-					if(!candidateSet.contains(postDominator)){
-						setIter.remove();
-					}
-				}
-			}
-			
-			return set;
-		}
-		
+	public PostDominators<CFGNode> constructPostDomination(CFG cfg){
+		PostDominators<CFGNode> postDominators = new PostDominators<>(IndexedGraph.of(cfg));
+		postDominators.solve();
+		return postDominators;
 	}
 	
 	/**
@@ -254,36 +154,18 @@ public class CFGConstructor {
 	 * its control dependentees.
 	 * 
 	 * @param cfg
-	 * @param bGraph 
+	 * @param postDominators 
 	 */
-	public void constructControlDependency(CFG cfg, BlockGraph bGraph){
-		for(CFGNode branchNode: cfg.getNodeList()){
+	public void constructControlDependency(CFG cfg, PostDominators<CFGNode> postDominators){
+		IndexedGraph<CFGNode> graph = postDominators.getGraph();
+		ControlDependence<CFGNode> controlDependence = new ControlDependence<>(postDominators);
+		for(int i=0; i<graph.size(); i++){
+			CFGNode branchNode = graph.getNode(i);
 			if(branchNode.isBranch()){
-				computeControlDependentees(branchNode, branchNode.getChildren(), bGraph);
-			}
-		}
-	}
-
-	private void computeControlDependentees(CFGNode branchNode, List<CFGNode> list, BlockGraph bGraph) {
-		for(CFGNode child: list){
-			if(!branchNode.getControlDependentees().contains(child)){
-				
-				boolean isChildPostDominateBranchNode = isChildPostDominateBranchNode(child, branchNode, bGraph);
-				if(!isChildPostDominateBranchNode){
-					branchNode.addControlDominatee(child);
-					computeControlDependentees(branchNode, child.getChildren(), bGraph);					
+				for(int dependentee: controlDependence.getControlDependentees(i)){
+					branchNode.addControlDominatee(graph.getNode(dependentee));
 				}
 			}
 		}
-		
-	}
-
-	private boolean isChildPostDominateBranchNode(CFGNode child, CFGNode branchNode, BlockGraph bGraph) {
-		BlockNode childBlock = child.getBlockNode();
-		BlockNode branchBlock = branchNode.getBlockNode();
-		
-		Set<BlockNode> postDominators = bGraph.getPostDominanceMap().get(childBlock);
-		
-		return postDominators.contains(branchBlock);
 	}
 }
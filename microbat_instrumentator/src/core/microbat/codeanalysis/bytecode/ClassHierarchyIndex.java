@@ -0,0 +1,565 @@
+package microbat.codeanalysis.bytecode;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+
+import org.apache.bcel.classfile.ClassParser;
+import org.apache.bcel.classfile.JavaClass;
+import org.apache.bcel.classfile.Method;
+
+import sav.strategies.dto.AppJavaClassPath;
+
+/**
+ * @author LLT
+ *
+ * Class hierarchy of all classes in the classpath of an application (jars and binary folders),
+ * indexed by supertype (direct subtypes) and by method signature (declaring classes).
+ *
+ * The index is built in one parallel pass over the classpath, and persisted in a file
+ * so that the next session only needs to reparse the jars and class files which have been changed
+ * since (the check is based on file last modified time and length).
+ * Use {@link #getInstance(AppJavaClassPath)} to get the index, which is updated at most once every
+ * {@link #UPDATE_INTERVAL} ms (walking a large classpath is not free), call {@link #update()} to force it.
+ */
+public class ClassHierarchyIndex {
+	private static final int STORE_MAGIC = 0x43484958;
+	private static final int STORE_VERSION = 1;
+	private static final int FILES_PER_TASK = 64;
+	private static final long UPDATE_INTERVAL = 5000;
+	private static final Map<String, ClassHierarchyIndex> instances = new HashMap<>();
+
+	private List<String> classpaths;
+	private File storeFile;
+	/* path of jar or class file -> classes */
+	private Map<String, Source> sources = new HashMap<>();
+	private volatile long lastUpdateTime;
+
+	private volatile Map<String, ClassInfo> classes = Collections.emptyMap();
+	private volatile Map<String, List<String>> subtypes = Collections.emptyMap();
+	private volatile Map<String, List<String>> methodDeclarers = Collections.emptyMap();
+	private volatile Map<String, Set<String>> allSubtypesCache = new ConcurrentHashMap<>();
+
+	public ClassHierarchyIndex(List<String> classpaths, File storeFile) {
+		this.classpaths = new ArrayList<>(classpaths);
+		this.storeFile = storeFile;
+	}
+
+	public static synchronized ClassHierarchyIndex getInstance(AppJavaClassPath appPath) {
+		List<String> classpaths = appPath.getClasspaths();
+		String key = classpaths.toString();
+		ClassHierarchyIndex index = instances.get(key);
+		if (index == null) {
+			File storeDir = new File(System.getProperty("java.io.tmpdir"), "microbat_hierarchy");
+			String storeName = Integer.toHexString(key.hashCode()) + "_" + Integer.toHexString(key.length()) + ".idx";
+			index = new ClassHierarchyIndex(classpaths, new File(storeDir, storeName));
+			index.load();
+			instances.put(key, index);
+		}
+		if (System.currentTimeMillis() - index.lastUpdateTime > UPDATE_INTERVAL) {
+			index.update();
+		}
+		return index;
+	}
+
+	/**
+	 * reparse the jars and class files which are new or changed since the last update,
+	 * and drop the removed ones.
+	 */
+	public synchronized void update() {
+		Map<String, Source> current = new HashMap<>();
+		for (int i = 0; i < classpaths.size(); i++) {
+			File file = new File(classpaths.get(i));
+			if (file.isDirectory()) {
+				collectClassFiles(file, i, current);
+			} else if (file.isFile() && file.getName().endsWith(".jar")) {
+				Source source = new Source(file, true);
+				source.order = i;
+				current.put(source.path, source);
+			}
+		}
+		List<Source> changed = new ArrayList<>();
+		for (Source source : current.values()) {
+			Source old = sources.get(source.path);
+			if (old != null && old.lastModified == source.lastModified && old.length == source.length) {
+				source.classes = old.classes;
+			} else {
+				changed.add(source);
+			}
+		}
+		boolean modified = !changed.isEmpty() || !current.keySet().equals(sources.keySet());
+		if (!changed.isEmpty()) {
+			parse(changed);
+		}
+		sources = current;
+		if (modified || classes.isEmpty()) {
+			buildIndex();
+		}
+		if (modified) {
+			save();
+		}
+		lastUpdateTime = System.currentTimeMillis();
+	}
+
+	private void collectClassFiles(File folder, int order, Map<String, Source> result) {
+		File[] files = folder.listFiles();
+		if (files == null) {
+			return;
+		}
+		for (File file : files) {
+			if (file.isDirectory()) {
+				collectClassFiles(file, order, result);
+			} else if (file.getName().endsWith(".class")) {
+				Source source = new Source(file, false);
+				source.order = order;
+				result.put(source.path, source);
+			}
+		}
+	}
+
+	private void parse(List<Source> changed) {
+		List<Callable<Void>> tasks = new ArrayList<>();
+		List<Source> classFiles = new ArrayList<>();
+		for (Source source : changed) {
+			if (source.isJar) {
+				tasks.add(new ParseTask(Collections.singletonList(source)));
+			} else {
+				classFiles.add(source);
+			}
+		}
+		for (int i = 0; i < classFiles.size(); i += FILES_PER_TASK) {
+			tasks.add(new ParseTask(classFiles.subList(i, Math.min(i + FILES_PER_TASK, classFiles.size()))));
+		}
+		ExecutorService executor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+		try {
+			for (Future<Void> future : executor.invokeAll(tasks)) {
+				future.get();
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} catch (ExecutionException e) {
+			e.printStackTrace();
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+	private class ParseTask implements Callable<Void> {
+		private List<Source> sources;
+
+		public ParseTask(List<Source> sources) {
+			this.sources = sources;
+		}
+
+		@Override
+		public Void call() throws Exception {
+			for (Source source : sources) {
+				List<ClassInfo> classInfos = new ArrayList<>();
+				if (source.isJar) {
+					parseJar(source.path, classInfos);
+				} else {
+					try {
+						ClassInfo classInfo = parseClass(new FileInputStream(source.path), source.path, true);
+						if (classInfo != null) {
+							classInfos.add(classInfo);
+						}
+					} catch (IOException e) {
+						// removed in the meantime
+					}
+				}
+				source.classes = classInfos;
+			}
+			return null;
+		}
+	}
+
+	private static void parseJar(String path, List<ClassInfo> classInfos) {
+		JarFile jar = null;
+		try {
+			jar = new JarFile(path);
+			Enumeration<JarEntry> entries = jar.entries();
+			while (entries.hasMoreElements()) {
+				JarEntry entry = entries.nextElement();
+				if (entry.getName().endsWith(".class")) {
+					ClassInfo classInfo = parseClass(jar.getInputStream(entry), entry.getName(), false);
+					if (classInfo != null) {
+						classInfos.add(classInfo);
+					}
+				}
+			}
+		} catch (IOException e) {
+			e.printStackTrace();
+		} finally {
+			if (jar != null) {
+				try {
+					jar.close();
+				} catch (IOException e) {
+					// ignore
+				}
+			}
+		}
+	}
+
+	private static ClassInfo parseClass(InputStream in, String fileName, boolean appClass) {
+		try {
+			JavaClass clazz = new ClassParser(in, fileName).parse();
+			Method[] methods = clazz.getMethods();
+			String[] methodSigs = new String[methods.length];
+			for (int i = 0; i < methods.length; i++) {
+				methodSigs[i] = methods[i].getName() + methods[i].getSignature();
+			}
+			return new ClassInfo(clazz.getClassName(), clazz.getSuperclassName(), clazz.getInterfaceNames(),
+					clazz.isInterface(), clazz.isAbstract(), methodSigs, appClass);
+		} catch (Exception e) {
+			// not a valid class file
+			return null;
+		} finally {
+			try {
+				in.close();
+			} catch (IOException e) {
+				// ignore
+			}
+		}
+	}
+
+	private void buildIndex() {
+		Map<String, ClassInfo> classes = new HashMap<>();
+		Map<String, List<String>> subtypes = new HashMap<>();
+		Map<String, List<String>> methodDeclarers = new HashMap<>();
+		/* the first class in the classpath order wins, same as class loading */
+		List<Source> orderedSources = new ArrayList<>(sources.values());
+		Collections.sort(orderedSources, new Comparator<Source>() {
+
+			@Override
+			public int compare(Source o1, Source o2) {
+				return Integer.compare(o1.order, o2.order);
+			}
+		});
+		for (Source source : orderedSources) {
+			for (ClassInfo classInfo : source.classes) {
+				if (!classes.containsKey(classInfo.name)) {
+					classes.put(classInfo.name, classInfo);
+				}
+			}
+		}
+		for (ClassInfo classInfo : classes.values()) {
+			if (classInfo.superName != null && !classInfo.name.equals(classInfo.superName)) {
+				getList(subtypes, classInfo.superName).add(classInfo.name);
+			}
+			for (String interfaceName : classInfo.interfaces) {
+				getList(subtypes, interfaceName).add(classInfo.name);
+			}
+			for (String methodSig : classInfo.methods) {
+				getList(methodDeclarers, methodSig).add(classInfo.name);
+			}
+		}
+		this.classes = classes;
+		this.subtypes = subtypes;
+		this.methodDeclarers = methodDeclarers;
+		this.allSubtypesCache = new ConcurrentHashMap<>();
+	}
+
+	private static List<String> getList(Map<String, List<String>> map, String key) {
+		List<String> list = map.get(key);
+		if (list == null) {
+			list = new ArrayList<>(2);
+			map.put(key, list);
+		}
+		return list;
+	}
+
+	public boolean contains(String className) {
+		return classes.containsKey(className);
+	}
+
+	/**
+	 * @return whether the class is in a binary folder of the classpath (not in a jar).
+	 */
+	public boolean isAppClass(String className) {
+		ClassInfo classInfo = classes.get(className);
+		return classInfo != null && classInfo.appClass;
+	}
+
+	public ClassInfo getClassInfo(String className) {
+		return classes.get(className);
+	}
+
+	public List<String> getDirectSubtypes(String className) {
+		List<String> list = subtypes.get(className);
+		return list == null ? Collections.<String>emptyList() : list;
+	}
+
+	public Set<String> getAllSubtypes(String className) {
+		Set<String> result = allSubtypesCache.get(className);
+		if (result == null) {
+			result = new LinkedHashSet<>();
+			List<String> stack = new ArrayList<>(getDirectSubtypes(className));
+			while (!stack.isEmpty()) {
+				String subtype = stack.remove(stack.size() - 1);
+				if (result.add(subtype)) {
+					stack.addAll(getDirectSubtypes(subtype));
+				}
+			}
+			result = Collections.unmodifiableSet(result);
+			allSubtypesCache.put(className, result);
+		}
+		return result;
+	}
+
+	/**
+	 * @return all non-abstract classes which extend or implement the given type.
+	 */
+	public List<String> getImplementations(String className) {
+		List<String> implementations = new ArrayList<>();
+		for (String subtype : getAllSubtypes(className)) {
+			ClassInfo classInfo = classes.get(subtype);
+			if (!classInfo.isInterface && !classInfo.isAbstract) {
+				implementations.add(subtype);
+			}
+		}
+		return implementations;
+	}
+
+	/**
+	 * @param methodSignature method name + descriptor, e.g. toString()Ljava/lang/String;
+	 */
+	public List<String> getDeclaringClasses(String methodSignature) {
+		List<String> list = methodDeclarers.get(methodSignature);
+		return list == null ? Collections.<String>emptyList() : list;
+	}
+
+	/**
+	 * @return the class which declares the method resolved on the given class (the class itself
+	 *         or its nearest superclass declaring the method), or null if the method cannot be
+	 *         resolved in the indexed classes.
+	 */
+	public String findDeclaringClass(String className, String methodSignature) {
+		String current = className;
+		while (current != null) {
+			ClassInfo classInfo = classes.get(current);
+			if (classInfo == null) {
+				return null;
+			}
+			if (classInfo.declares(methodSignature)) {
+				return current;
+			}
+			if (current.equals(classInfo.superName)) {
+				return null;
+			}
+			current = classInfo.superName;
+		}
+		return null;
+	}
+
+	public int size() {
+		return classes.size();
+	}
+
+	private void load() {
+		if (storeFile == null || !storeFile.exists()) {
+			return;
+		}
+		DataInputStream in = null;
+		try {
+			in = new DataInputStream(new BufferedInputStream(new FileInputStream(storeFile)));
+			if (in.readInt() != STORE_MAGIC || in.readInt() != STORE_VERSION) {
+				return;
+			}
+			Map<String, Source> loaded = new HashMap<>();
+			int sourceSize = in.readInt();
+			for (int i = 0; i < sourceSize; i++) {
+				Source source = new Source(in.readUTF(), in.readLong(), in.readLong(), in.readBoolean());
+				int classSize = in.readInt();
+				source.classes = new ArrayList<>(classSize);
+				for (int j = 0; j < classSize; j++) {
+					source.classes.add(ClassInfo.read(in, !source.isJar));
+				}
+				loaded.put(source.path, source);
+			}
+			sources = loaded;
+		} catch (IOException e) {
+			/* broken store, rebuild from scratch */
+			sources = new HashMap<>();
+		} finally {
+			if (in != null) {
+				try {
+					in.close();
+				} catch (IOException e) {
+					// ignore
+				}
+			}
+		}
+	}
+
+	private void save() {
+		if (storeFile == null) {
+			return;
+		}
+		File tempFile = null;
+		try {
+			storeFile.getParentFile().mkdirs();
+			tempFile = File.createTempFile("hierarchy", ".tmp", storeFile.getParentFile());
+			DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tempFile)));
+			try {
+				out.writeInt(STORE_MAGIC);
+				out.writeInt(STORE_VERSION);
+				out.writeInt(sources.size());
+				for (Source source : sources.values()) {
+					out.writeUTF(source.path);
+					out.writeLong(source.lastModified);
+					out.writeLong(source.length);
+					out.writeBoolean(source.isJar);
+					out.writeInt(source.classes.size());
+					for (ClassInfo classInfo : source.classes) {
+						classInfo.write(out);
+					}
+				}
+			} finally {
+				out.close();
+			}
+			Files.move(tempFile.toPath(), storeFile.toPath(), StandardCopyOption.REPLACE_EXISTING,
+					StandardCopyOption.ATOMIC_MOVE);
+		} catch (IOException e) {
+			e.printStackTrace();
+			if (tempFile != null) {
+				tempFile.delete();
+			}
+		}
+	}
+
+	private static class Source {
+		String path;
+		long lastModified;
+		long length;
+		boolean isJar;
+		/* index of the classpath entry, not persisted */
+		int order;
+		List<ClassInfo> classes = Collections.emptyList();
+
+		public Source(File file, boolean isJar) {
+			this(file.getAbsolutePath(), file.lastModified(), file.length(), isJar);
+		}
+
+		public Source(String path, long lastModified, long length, boolean isJar) {
+			this.path = path;
+			this.lastModified = lastModified;
+			this.length = length;
+			this.isJar = isJar;
+		}
+	}
+
+	public static class ClassInfo {
+		private String name;
+		private String superName;
+		private String[] interfaces;
+		private boolean isInterface;
+		private boolean isAbstract;
+		private String[] methods;
+		private boolean appClass;
+
+		public ClassInfo(String name, String superName, String[] interfaces, boolean isInterface,
+				boolean isAbstract, String[] methods, boolean appClass) {
+			this.name = name;
+			this.superName = superName;
+			this.interfaces = interfaces;
+			this.isInterface = isInterface;
+			this.isAbstract = isAbstract;
+			this.methods = methods;
+			this.appClass = appClass;
+		}
+
+		public boolean declares(String methodSignature) {
+			for (String method : methods) {
+				if (method.equals(methodSignature)) {
+					return true;
+				}
+			}
+			return false;
+		}
+
+		private void write(DataOutputStream out) throws IOException {
+			out.writeUTF(name);
+			out.writeUTF(superName == null ? "" : superName);
+			out.writeBoolean(isInterface);
+			out.writeBoolean(isAbstract);
+			out.writeInt(interfaces.length);
+			for (String interfaceName : interfaces) {
+				out.writeUTF(interfaceName);
+			}
+			out.writeInt(methods.length);
+			for (String method : methods) {
+				out.writeUTF(method);
+			}
+		}
+
+		private static ClassInfo read(DataInputStream in, boolean appClass) throws IOException {
+			String name = in.readUTF();
+			String superName = in.readUTF();
+			boolean isInterface = in.readBoolean();
+			boolean isAbstract = in.readBoolean();
+			String[] interfaces = new String[in.readInt()];
+			for (int i = 0; i < interfaces.length; i++) {
+				interfaces[i] = in.readUTF();
+			}
+			String[] methods = new String[in.readInt()];
+			for (int i = 0; i < methods.length; i++) {
+				methods[i] = in.readUTF();
+			}
+			return new ClassInfo(name, superName.isEmpty() ? null : superName, interfaces, isInterface,
+					isAbstract, methods, appClass);
+		}
+
+		public String getName() {
+			return name;
+		}
+
+		public String getSuperName() {
+			return superName;
+		}
+
+		public String[] getInterfaces() {
+			return interfaces;
+		}
+
+		public boolean isInterface() {
+			return isInterface;
+		}
+
+		public boolean isAbstract() {
+			return isAbstract;
+		}
+
+		public String[] getMethods() {
+			return methods;
+		}
+
+		public boolean isAppClass() {
+			return appClass;
+		}
+	}
+}
@@ -0,0 +1,53 @@
+package microbat.codeanalysis.bytecode;
+
+/**
+ * Control dependentees of a branch node: the nodes reachable from the branch targets without
+ * passing through a post-dominator of the branch, listed in depth-first pre-order.
+ *
+ * @author LLT
+ */
+public class ControlDependence<T> {
+	private PostDominators<T> postDominators;
+	private IndexedGraph<T> graph;
+	private long[] visited;
+	private int[] stack;
+	private int[] nextEdge;
+
+	public ControlDependence(PostDominators<T> postDominators) {
+		this.postDominators = postDominators;
+		this.graph = postDominators.getGraph();
+		int size = graph.size();
+		visited = BitSets.create(size);
+		stack = new int[size + 1];
+		nextEdge = new int[size + 1];
+	}
+
+	/**
+	 * @return graph indexes of the control dependentees of {@code branch}.
+	 */
+	public int[] getControlDependentees(int branch) {
+		BitSets.clearAll(visited);
+		int[] result = new int[graph.size()];
+		int count = 0;
+		int top = 0;
+		stack[0] = branch;
+		nextEdge[0] = 0;
+		while (top >= 0) {
+			int[] succs = graph.getSuccessors(stack[top]);
+			if (nextEdge[top] < succs.length) {
+				int child = succs[nextEdge[top]++];
+				if (!BitSets.get(visited, child) && !postDominators.postDominates(child, branch)) {
+					BitSets.set(visited, child);
+					result[count++] = child;
+					stack[++top] = child;
+					nextEdge[top] = 0;
+				}
+			} else {
+				top--;
+			}
+		}
+		int[] dependentees = new int[count];
+		System.arraycopy(result, 0, dependentees, 0, count);
+		return dependentees;
+	}
+}
@@ -0,0 +1,76 @@
+package microbat.codeanalysis.bytecode;
+
+/**
+ * Post-dominator sets: pdom(n) = {n} + intersection of pdom(s) for all successors s of n.
+ * Exit nodes and nodes which cannot reach any exit (e.g. in an infinite loop) are only
+ * post-dominated by themselves.
+ *
+ * @author LLT
+ */
+public class PostDominators<T> extends BitSetDataflow<T> {
+	private long[] reachExit;
+	private long[] roots;
+
+	public PostDominators(IndexedGraph<T> graph) {
+		super(graph, false);
+		reachExit = BitSets.create(graph.size());
+		int[] stack = new int[graph.size()];
+		int top = -1;
+		for (int exit : graph.getExits()) {
+			BitSets.set(reachExit, exit);
+			stack[++top] = exit;
+		}
+		while (top >= 0) {
+			int node = stack[top--];
+			for (int pred : graph.getPredecessors(node)) {
+				if (!BitSets.get(reachExit, pred)) {
+					BitSets.set(reachExit, pred);
+					stack[++top] = pred;
+				}
+			}
+		}
+		roots = BitSets.create(graph.size());
+		BitSets.fill(roots, graph.size());
+		BitSets.andNot(roots, reachExit);
+		for (int exit : graph.getExits()) {
+			BitSets.set(roots, exit);
+		}
+	}
+
+	@Override
+	protected long[] initialValue(int node) {
+		long[] bits = BitSets.create(graph.size());
+		if (isRoot(node)) {
+			BitSets.set(bits, node);
+		} else {
+			BitSets.fill(bits, graph.size());
+		}
+		return bits;
+	}
+
+	@Override
+	protected void flow(int node, int[] sources, long[] result) {
+		if (isRoot(node)) {
+			BitSets.clearAll(result);
+		} else {
+			BitSets.fill(result, graph.size());
+			for (int succ : sources) {
+				if (BitSets.get(reachExit, succ)) {
+					BitSets.and(result, out[succ]);
+				}
+			}
+		}
+		BitSets.set(result, node);
+	}
+
+	private boolean isRoot(int node) {
+		return BitSets.get(roots, node);
+	}
+
+	/**
+	 * @return whether {@code postDominator} post-dominates {@code node}, both are graph indexes.
+	 */
+	public boolean postDominates(int postDominator, int node) {
+		return BitSets.get(out[node], postDominator);
+	}
+}
@@ -85,6 +85,8 @@ public class TraceNode{
 	
 	private boolean isException;
 	
+	private boolean controlFlowOnly;
+	
 	private TraceNode invokingMatchNode;
 	
 	private long runtimePC;
@@ -449,6 +451,18 @@ public class TraceNode{
 	public void setException(boolean isException) {
 		this.isException = isException;
 	}
+
+	/**
+	 * the variables of a control-flow-only step are not recorded (adaptive recording), so an
+	 * empty list of read or written variables does not mean the step has no data dependency.
+	 */
+	public boolean isControlFlowOnly() {
+		return controlFlowOnly;
+	}
+
+	public void setControlFlowOnly(boolean controlFlowOnly) {
+		this.controlFlowOnly = controlFlowOnly;
+	}
 	
 	public boolean containReadVariable(VarValue readVar){
 		if(!readVariableMap.isEmpty()){
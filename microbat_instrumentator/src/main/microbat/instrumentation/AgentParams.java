@@ -5,6 +5,7 @@ import java.util.Collection;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Set;
+import java.util.TreeSet;
 
 import microbat.instrumentation.filter.CodeRangeEntry;
 import microbat.instrumentation.instr.instruction.info.EntryPoint;
@@ -40,6 +41,16 @@ public class AgentParams extends CommonParams {
 	public static final String OPT_REQUIRE_METHOD_SPLITTING = "require_method_split";
 	public static final String OPT_AVOID_TO_STRING_OF_PROXY_OBJ = "avoid_proxy_tostring";
 	public static final String OPT_CODE_RANGE = "code_range";
+	public static final String OPT_WORKER_MODE = "worker_mode";
+	public static final String OPT_PRECHECK_DUMP_FILE = "precheck_dump_file_path";
+	public static final String OPT_INSTR_CACHE_DIR = "instr_cache_dir";
+	public static final String OPT_INSTR_CACHE_SIZE = "instr_cache_size_mb";
+	public static final String OPT_PRE_TRANSFORM = "pre_transform";
+	public static final String OPT_ADAPTIVE_RECORDING = "adaptive_recording";
+	public static final String OPT_FOCUS_RANGE = "focus_range";
+	public static final String OPT_FOCUS_CALL_DEPTH = "focus_call_depth";
+	public static final String OPT_LOOP_SUMMARY_ITERATIONS = "loop_summary_iterations";
+	public static final String OPT_TARGET_SLOWDOWN = "target_slowdown";
 	
 	private boolean precheck;
 	private EntryPoint entryPoint;
@@ -58,6 +69,24 @@ public class AgentParams extends CommonParams {
 	private boolean requireMethodSplit;
 	private boolean avoidProxyToString;
 	private List<CodeRangeEntry> codeRanges;
+	/* keep the vm alive after each testcase, dump trace on exitTest and reset the tracer */
+	private boolean workerMode;
+	/* single run: precheck info is produced as a by-product of the trace and dumped into this file */
+	private String precheckDumpFile;
+	/* on-disk cache of instrumented classes, shared between runs */
+	private String instrCacheDir;
+	private int instrCacheSizeMb;
+	/* instrument app classes in parallel in background at startup */
+	private boolean preTransform;
+	/* 
+	 * record variables only around the focus ranges (or code ranges) and keep a partial trace 
+	 * instead of failing when the step limit is reached, see AdaptiveRecordingPolicy
+	 */
+	private boolean adaptiveRecording;
+	private List<CodeRangeEntry> focusRanges;
+	private int focusCallDepth;
+	private int loopSummaryIterations;
+	private int targetSlowdown;
 	
 	public AgentParams(CommandLine cmd) {
 		super(cmd);
@@ -93,6 +122,19 @@ public class AgentParams extends CommonParams {
 		requireMethodSplit = cmd.getBoolean(OPT_REQUIRE_METHOD_SPLITTING, false);
 		avoidProxyToString = cmd.getBoolean(OPT_AVOID_TO_STRING_OF_PROXY_OBJ, false);
 		codeRanges = CodeRangeEntry.parse(cmd.getStringList(OPT_CODE_RANGE));
+		workerMode = cmd.getBoolean(OPT_WORKER_MODE, false);
+		precheckDumpFile = cmd.getString(OPT_PRECHECK_DUMP_FILE);
+		instrCacheDir = cmd.getString(OPT_INSTR_CACHE_DIR);
+		instrCacheSizeMb = cmd.getInt(OPT_INSTR_CACHE_SIZE, 512);
+		preTransform = cmd.getBoolean(OPT_PRE_TRANSFORM, false);
+		adaptiveRecording = cmd.getBoolean(OPT_ADAPTIVE_RECORDING, false);
+		focusRanges = CodeRangeEntry.parse(cmd.getStringList(OPT_FOCUS_RANGE));
+		if (focusRanges.isEmpty()) {
+			focusRanges = codeRanges;
+		}
+		focusCallDepth = cmd.getInt(OPT_FOCUS_CALL_DEPTH, 2);
+		loopSummaryIterations = cmd.getInt(OPT_LOOP_SUMMARY_ITERATIONS, 100);
+		targetSlowdown = cmd.getInt(OPT_TARGET_SLOWDOWN, 0);
 	}
 
 	public static AgentParams initFrom(CommandLine cmd) {
@@ -220,4 +262,62 @@ public class AgentParams extends CommonParams {
 	public List<CodeRangeEntry> getCodeRanges() {
 		return codeRanges;
 	}
+	
+	public boolean isWorkerMode() {
+		return workerMode;
+	}
+	
+	public String getPrecheckDumpFile() {
+		return precheckDumpFile;
+	}
+	
+	public boolean isSingleRun() {
+		return precheckDumpFile != null;
+	}
+	
+	public String getInstrCacheDir() {
+		return instrCacheDir;
+	}
+	
+	public long getInstrCacheSize() {
+		return instrCacheSizeMb * 1024l * 1024l;
+	}
+	
+	public boolean isPreTransform() {
+		return preTransform;
+	}
+	
+	public boolean isAdaptiveRecording() {
+		return adaptiveRecording;
+	}
+	
+	public List<CodeRangeEntry> getFocusRanges() {
+		return focusRanges;
+	}
+	
+	public int getFocusCallDepth() {
+		return focusCallDepth;
+	}
+	
+	public int getLoopSummaryIterations() {
+		return loopSummaryIterations;
+	}
+	
+	/**
+	 * max slowdown factor of the traced run, 0 if unlimited.
+	 */
+	public int getTargetSlowdown() {
+		return targetSlowdown;
+	}
+	
+	/**
+	 * all params which can change the instrumented bytecode of a class.
+	 */
+	public String getInstrumentationKey() {
+		String entry = entryPoint == null ? null
+				: StringUtils.dotJoin(entryPoint.getClassName(), entryPoint.getMethodName(),
+						entryPoint.getMethodSignature());
+		return StringUtils.join("|", entry, includesExpression, excludesExpression, variableLayer,
+				new TreeSet<>(overlongMethods), requireMethodSplit, codeRanges, getClassPaths());
+	}
 }
@@ -1,6 +1,7 @@
 package microbat.instrumentation;
 
 import java.lang.instrument.Instrumentation;
+import java.util.List;
 
 import microbat.instrumentation.filter.CodeRangeUserFilter;
 import microbat.instrumentation.filter.GlobalFilterChecker;
@@ -9,8 +10,13 @@ import microbat.instrumentation.instr.TraceTransformer;
 import microbat.instrumentation.output.RunningInfo;
 import microbat.instrumentation.output.TraceOutputWriter;
 import microbat.instrumentation.output.tcp.TcpConnector;
+import microbat.instrumentation.precheck.PrecheckInfo;
+import microbat.instrumentation.precheck.TraceInfo;
+import microbat.instrumentation.runtime.AdaptiveRecordingPolicy;
 import microbat.instrumentation.runtime.ExecutionTracer;
 import microbat.instrumentation.runtime.IExecutionTracer;
+import microbat.model.BreakPoint;
+import microbat.model.ClassLocation;
 import microbat.model.trace.StepVariableRelationEntry;
 import microbat.model.trace.Trace;
 import microbat.model.trace.TraceNode;
@@ -21,6 +27,7 @@ import sav.strategies.dto.AppJavaClassPath;
 public class TraceAgent implements IAgent {
 	private AgentParams agentParams;
 	private StopTimer timer;
+	private TraceTransformer transformer;
 	
 	public TraceAgent(CommandLine cmd) {
 		this.agentParams = AgentParams.initFrom(cmd);
@@ -44,11 +51,68 @@ public class TraceAgent implements IAgent {
 		}
 		
 		ExecutionTracer.setExpectedSteps(agentParams.getExpectedSteps());
+		if (agentParams.isAdaptiveRecording()) {
+			ExecutionTracer.setRecordingPolicy(new AdaptiveRecordingPolicy(agentParams.getFocusRanges(),
+					agentParams.getFocusCallDepth(), agentParams.getLoopSummaryIterations(),
+					agentParams.getTargetSlowdown()));
+		}
 		ExecutionTracer.avoidProxyToString = agentParams.isAvoidProxyToString();
+		if (agentParams.isSingleRun()) {
+			ExecutionTracer.enableThreadCounting();
+		}
+		if (agentParams.isPreTransform()) {
+			getTransformer().startPreTransform(GlobalFilterChecker.getInstance().getAppBinFolders());
+		}
 	}
 
 	public void shutdown() throws Exception {
+		if (agentParams.isWorkerMode()) {
+			// traces are already dumped on each exitTest.
+			return;
+		}
 		ExecutionTracer.shutdown();
+		getTransformer().stopPreTransform();
+		if (agentParams.isSingleRun()) {
+			PrecheckInfo precheckInfo = createPrecheckInfo();
+			AgentLogger.debug(precheckInfo.toString());
+			precheckInfo.saveToFile(agentParams.getPrecheckDumpFile(), false);
+			if (precheckInfo.isOverLong() && ExecutionTracer.getRecordingPolicy() == null) {
+				// the trace is incomplete, only the precheck verdict is returned.
+				// with adaptive recording, the partial trace is still written.
+				ExecutionTracer.dispose();
+				return;
+			}
+		}
+		Trace trace = buildTrace();
+		ExecutionTracer.dispose(); // clear cache
+		timer.newPoint("Saving trace");
+		writeOutput(trace, Agent.getProgramMsg());
+		AgentLogger.debug(timer.getResultString());
+	}
+	
+	/**
+	 * produce the same result as PrecheckAgent, based on the recorded trace.
+	 */
+	private PrecheckInfo createPrecheckInfo() {
+		Trace trace = ((ExecutionTracer) ExecutionTracer.getMainThreadStore()).getTrace();
+		int stepLimit = agentParams.getStepLimit();
+		if (stepLimit == AgentConstants.UNSPECIFIED_INT_VALUE) {
+			stepLimit = Integer.MAX_VALUE;
+		}
+		TraceInfo traceInfo = new TraceInfo(stepLimit);
+		for (TraceNode node : trace.getExecutionList()) {
+			BreakPoint bkp = node.getBreakPoint();
+			traceInfo.addStep(new ClassLocation(bkp.getClassCanonicalName(), bkp.getMethodSign(), bkp.getLineNumber()));
+		}
+		PrecheckInfo precheckInfo = new PrecheckInfo(ExecutionTracer.getRecordingThreadNumber(), traceInfo);
+		precheckInfo.setOverLong(traceInfo.isOverLong() || ExecutionTracer.isStepLimitExceeded());
+		precheckInfo.setExceedingLimitMethods(transformer.getSkippedOverLongMethods());
+		precheckInfo.setLoadedClasses(transformer.getLoadedClasses());
+		precheckInfo.setProgramMsg(Agent.getProgramMsg());
+		return precheckInfo;
+	}
+	
+	private Trace buildTrace() {
 		/* collect trace & store */
 		AgentLogger.debug("Building trace dependencies ...");
 		timer.newPoint("Building trace dependencies");
@@ -58,9 +122,11 @@ public class TraceAgent implements IAgent {
 	
 		Trace trace = ((ExecutionTracer) tracer).getTrace();
 		GlobalFilterChecker.addFilterInfo(trace);
+		if (ExecutionTracer.getRecordingPolicy() != null) {
+			AgentLogger.debug(ExecutionTracer.getRecordingPolicy().toString());
+		}
 		
 		StepMismatchChecker.logNormalSteps(trace);
-		ExecutionTracer.dispose(); // clear cache
 		long t1 = System.currentTimeMillis();
 		AgentLogger.debug("create VirtualDataRelation....");
 		createVirtualDataRelation(trace);
@@ -73,16 +139,14 @@ public class TraceAgent implements IAgent {
 		t2 = System.currentTimeMillis();
 		AgentLogger.debug("time for constructControlDomianceRelation: "  + (t2-t1)/1000);
 //		trace.constructLoopParentRelation();
-		timer.newPoint("Saving trace");
-		writeOutput(trace);
-		AgentLogger.debug(timer.getResultString());
+		return trace;
 	}
 
-	private void writeOutput(Trace trace) throws Exception {
+	private void writeOutput(Trace trace, String programMsg) throws Exception {
 		AgentLogger.debug("Saving trace...");
 		if (agentParams.getDumpFile() != null) {
 			RunningInfo result = new RunningInfo();
-			result.setProgramMsg(Agent.getProgramMsg());
+			result.setProgramMsg(programMsg);
 			result.setTrace(trace);
 			result.setCollectedSteps(trace.getExecutionList().size());
 			result.setExpectedSteps(agentParams.getExpectedSteps());
@@ -91,7 +155,7 @@ public class TraceAgent implements IAgent {
 		} else if (agentParams.getTcpPort() != AgentConstants.UNSPECIFIED_INT_VALUE) {
 			TcpConnector tcpConnector = new TcpConnector(agentParams.getTcpPort());
 			TraceOutputWriter traceWriter = tcpConnector.connect();
-			traceWriter.writeString(Agent.getProgramMsg());
+			traceWriter.writeString(programMsg);
 			traceWriter.writeTrace(trace);
 			traceWriter.flush();
 			Thread.sleep(10000l);
@@ -179,6 +243,10 @@ public class TraceAgent implements IAgent {
 
 	@Override
 	public void startTest(String junitClass, String junitMethod) {
+		if (agentParams.isWorkerMode()) {
+			timer = new StopTimer("Trace Construction");
+			timer.newPoint("Execution");
+		}
 		ExecutionTracer._start();
 		ExecutionTracer.appJavaClassPath.setOptionalTestClass(junitClass);
 		ExecutionTracer.appJavaClassPath.setOptionalTestMethod(junitMethod);
@@ -191,18 +259,41 @@ public class TraceAgent implements IAgent {
 
 	@Override
 	public TraceTransformer getTransformer() {
-		return new TraceTransformer(agentParams);
+		if (transformer == null) {
+			transformer = new TraceTransformer(agentParams);
+		}
+		return transformer;
 	}
 
 	@Override
 	public void retransformBootstrapClasses(Instrumentation instrumentation, Class<?>[] retransformableClasses)
 			throws Exception {
+		List<String> loadedClasses = getTransformer().getLoadedClasses();
+		if (loadedClasses != null) {
+			for (Class<?> clazz : retransformableClasses) {
+				loadedClasses.add(clazz.getName());
+			}
+		}
 		instrumentation.retransformClasses(retransformableClasses);
 	}
 
 	@Override
 	public void exitTest(String testResultMsg, String junitClass, String junitMethod, long threadId) {
-		// do nothing, not used.
+		if (!agentParams.isWorkerMode()) {
+			return; // do nothing, not used.
+		}
+		/* worker mode: dump trace of this testcase and get ready for the next one */
+		ExecutionTracer.shutdown();
+		try {
+			Trace trace = buildTrace();
+			timer.newPoint("Saving trace");
+			writeOutput(trace, testResultMsg);
+			AgentLogger.debug(timer.getResultString());
+		} catch (Exception e) {
+			AgentLogger.error(e);
+		} finally {
+			ExecutionTracer.reset();
+		}
 	}
 
 	@Override
@@ -8,6 +8,8 @@ public class BranchCoverageTracerHandler implements ICoverageTracerHandler {
 
 	@Override
 	public CoverageOutput getCoverageOutput() {
+		/* tests which are still running have their coverage in their shards only */
+		AgentRuntimeData.mergeShards();
 		CoverageSFlowGraph coverageGraph = AgentRuntimeData.coverageFlowGraph;
 		CoverageOutput coverageOutput = new CoverageOutput(coverageGraph);
 		return coverageOutput;
@@ -15,6 +17,7 @@ public class BranchCoverageTracerHandler implements ICoverageTracerHandler {
 
 	@Override
 	public void reset() {
+		AgentRuntimeData.clearShards();
 		AgentRuntimeData.coverageFlowGraph.clearData();
 		AgentRuntimeData.currentTestIdxMap.clear();
 	}
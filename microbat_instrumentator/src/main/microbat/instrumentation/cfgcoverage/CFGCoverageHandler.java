@@ -19,12 +19,15 @@ public class CFGCoverageHandler implements ICoverageTracerHandler {
 
 	@Override
 	public CoverageOutput getCoverageOutput() {
+		AgentRuntimeData.mergeShards();
 		CoverageSFlowGraph coverageGraph = AgentRuntimeData.coverageFlowGraph;
 		Map<List<Integer>, List<Integer>> pathMap = new HashMap<>(); // path to tcs
 		for (Entry<Integer, List<MethodExecutionData>> entry : CoverageTracer.methodExecsOnASingleTcMap.entrySet()) {
-			for (MethodExecutionData methodExecData : entry.getValue()) {
-				CollectionUtils.getListInitIfEmpty(pathMap, methodExecData.getExecPathId()).add(entry.getKey());
-				methodExecData.calculateBranchFitnessMap(coverageGraph);
+			synchronized (entry.getValue()) {
+				for (MethodExecutionData methodExecData : entry.getValue()) {
+					CollectionUtils.getListInitIfEmpty(pathMap, methodExecData.getExecPathId()).add(entry.getKey());
+					methodExecData.calculateBranchFitnessMap(coverageGraph);
+				}
 			}
 		}
 		List<CoveragePath> coveredPaths = new ArrayList<>(pathMap.size());
@@ -46,6 +49,7 @@ public class CFGCoverageHandler implements ICoverageTracerHandler {
 
 	@Override
 	public void reset() {
+		AgentRuntimeData.clearShards();
 		AgentRuntimeData.coverageFlowGraph.clearData();
 		CoverageTracer.methodExecsOnASingleTcMap.clear();
 		CoverageTracer.rtStore.clear();
@@ -15,8 +15,10 @@ import microbat.instrumentation.cfgcoverage.graph.CoverageSFlowGraph;
 import microbat.instrumentation.cfgcoverage.instr.CoverageInstrumenter;
 import microbat.instrumentation.cfgcoverage.instr.CoverageTransformer;
 import microbat.instrumentation.cfgcoverage.instr.MethodInstructionsInfo;
+import microbat.instrumentation.cfgcoverage.output.CoverageDeltaState;
 import microbat.instrumentation.cfgcoverage.output.CoverageOutputWriter;
 import microbat.instrumentation.cfgcoverage.runtime.AgentRuntimeData;
+import microbat.instrumentation.cfgcoverage.runtime.CoverageProbes;
 import microbat.instrumentation.cfgcoverage.runtime.value.ValueExtractor;
 import microbat.instrumentation.filter.GlobalFilterChecker;
 import sav.common.core.utils.StopTimer;
@@ -28,6 +30,7 @@ public class CoverageAgent implements IAgent {
 	private CoverageTransformer coverageTransformer;
 	private StopTimer timer;
 	private ICoverageTracerHandler tracerHandler;
+	private CoverageDeltaState deltaState = new CoverageDeltaState();
 	
 	public CoverageAgent(CommandLine cmd) {
 		this.agentParams = new CoverageAgentParams(cmd);
@@ -35,6 +38,7 @@ public class CoverageAgent implements IAgent {
 		instrumenter = coverageTransformer.getInstrumenter();
 		switch (agentParams.getCoverageType()) {
 		case BRANCH_COVERAGE:
+		case PROBE_BRANCH_COVERAGE:
 			tracerHandler = new BranchCoverageTracerHandler();
 			break;
 		case UNCIRCLE_CFG_COVERAGE:
@@ -56,6 +60,7 @@ public class CoverageAgent implements IAgent {
 				agentParams.getCoverageType() == CoverageCollectionType.UNCIRCLE_CFG_COVERAGE);
 		AgentRuntimeData.coverageFlowGraph = coverageFlowGraph;
 		MethodInstructionsInfo.initInstrInstructions(coverageFlowGraph);
+		AgentRuntimeData.coverageProbes = new CoverageProbes(coverageFlowGraph);
 		instrumenter.setEntryPoint(coverageFlowGraph.getStartNode().getStartNodeId().getMethodId());
 		timer.newPoint("Execution");
 	}
@@ -84,6 +89,7 @@ public class CoverageAgent implements IAgent {
 				coverageOutputWriter.flush();
 				if (reset) {
 					coverageAgent.tracerHandler.reset();
+					coverageAgent.deltaState.reset();
 				}
 			}
 		} catch (IOException e) {
@@ -92,12 +98,40 @@ public class CoverageAgent implements IAgent {
 		} 
 		AgentLogger.debug("Finish saving coverage...");
 	}
+	
+	/**
+	 * same as {@link #_storeCoverage(OutputStream, Boolean)} but only write what is added since the
+	 * previous call, see {@link CoverageOutputWriter#writeCoverageDelta}.
+	 */
+	public static void _storeCoverageDelta(OutputStream outStream, Boolean reset) {
+		try {
+			AgentLogger.debug("Saving coverage delta...");
+			CoverageAgent coverageAgent = (CoverageAgent) Agent.getAgent();
+			CoverageOutput coverageOutput = coverageAgent.tracerHandler.getCoverageOutput();
+			@SuppressWarnings("resource")
+			CoverageOutputWriter coverageOutputWriter = new CoverageOutputWriter(outStream);
+			synchronized (coverageOutput.getCoverageGraph()) {
+				coverageOutputWriter.writeCoverageDelta(coverageOutput.getCoverageGraph(),
+						coverageOutput.getInputData(), coverageAgent.deltaState);
+				coverageOutputWriter.flush();
+				if (reset) {
+					coverageAgent.tracerHandler.reset();
+					coverageAgent.deltaState.reset();
+				}
+			}
+		} catch (IOException e) {
+			AgentLogger.error(e);
+			e.printStackTrace();
+		} 
+		AgentLogger.debug("Finish saving coverage delta...");
+	}
 
 	@Override
 	public void startTest(String junitClass, String junitMethod) {
 		String testcase = InstrumentationUtils.getMethodId(junitClass, junitMethod);
 		int testIdx = AgentRuntimeData.coverageFlowGraph.addCoveredTestcase(testcase);
 		AgentRuntimeData.currentTestIdxMap.put(Thread.currentThread().getId(), testIdx);
+		AgentRuntimeData.testStartCount.incrementAndGet();
 		AgentLogger.debug(String.format("Start testcase %s, testIdx=%s", testcase, testIdx));
 	}
 	
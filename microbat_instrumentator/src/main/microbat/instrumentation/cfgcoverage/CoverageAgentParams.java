@@ -125,13 +125,16 @@ public class CoverageAgentParams extends CommonParams {
 	}
 
 	/**
-	 * There are two modes to run code coverage.
+	 * There are three modes to run code coverage.
 	 * BRANCH_COVERAGE: 
 	 * UNCIRCLE_CFG_COVERAGE: 
+	 * PROBE_BRANCH_COVERAGE: same result as BRANCH_COVERAGE, recorded into probe arrays which are
+	 * added to the coverage graph when a test exits or when the coverage is stored.
 	 * */
 	public static enum CoverageCollectionType {
 		BRANCH_COVERAGE,
-		UNCIRCLE_CFG_COVERAGE;
+		UNCIRCLE_CFG_COVERAGE,
+		PROBE_BRANCH_COVERAGE;
 
 		public static CoverageCollectionType valueOf(String strValue, CoverageCollectionType defaultValue) {
 			if (strValue == null || strValue.isEmpty()) {
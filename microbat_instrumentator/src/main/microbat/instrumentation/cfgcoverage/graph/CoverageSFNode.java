@@ -82,13 +82,21 @@ public class CoverageSFNode implements IGraphNode<CoverageSFNode> {
 	}
 	
 	public CoverageSFNode getCorrespondingBranch(String methodId, int nodeLocalIdx) {
-		for (CoverageSFNode branch : branchTargets) {
-			UniqueNodeId probeId = branch.getProbeNodeId();
+		int branchIdx = getCorrespondingBranchIdx(methodId, nodeLocalIdx);
+		return branchIdx < 0 ? null : branchTargets.get(branchIdx);
+	}
+	
+	/**
+	 * @return index of the branch in branchTargets, -1 if not found.
+	 */
+	public int getCorrespondingBranchIdx(String methodId, int nodeLocalIdx) {
+		for (int i = 0; i < branchTargets.size(); i++) {
+			UniqueNodeId probeId = branchTargets.get(i).getProbeNodeId();
 			if (probeId.match(methodId, nodeLocalIdx)) {
-				return branch;
+				return i;
 			}
 		}
-		return null; 
+		return -1;
 	}
 	
 	public boolean isCovered() {
@@ -63,7 +63,7 @@ public class CoverageSFlowGraph implements IGraph<CoverageSFNode> {
 		return nodeList;
 	}
 
-	public int addCoveredTestcase(String testcase) {
+	public synchronized int addCoveredTestcase(String testcase) {
 		coveredTestcases.add(testcase);
 		return coveredTestcases.size() - 1;
 	}
@@ -75,6 +75,10 @@ public class CoverageSFlowGraph implements IGraph<CoverageSFNode> {
 	public List<String> getCoveredTestcases() {
 		return coveredTestcases;
 	}
+	
+	public synchronized String getCoveredTestcase(int testIdx) {
+		return coveredTestcases.get(testIdx);
+	}
 
 	public void setNodeList(List<CoverageSFNode> nodeList) {
 		this.nodeList = nodeList;
@@ -15,7 +15,9 @@ import org.apache.bcel.generic.DUP2;
 import org.apache.bcel.generic.DUP_X1;
 import org.apache.bcel.generic.DUP_X2;
 import org.apache.bcel.generic.INVOKEINTERFACE;
+import org.apache.bcel.generic.ILOAD;
 import org.apache.bcel.generic.INVOKESTATIC;
+import org.apache.bcel.generic.ISTORE;
 import org.apache.bcel.generic.InstructionHandle;
 import org.apache.bcel.generic.InstructionList;
 import org.apache.bcel.generic.LLOAD;
@@ -30,6 +32,7 @@ import microbat.instrumentation.AgentLogger;
 import microbat.instrumentation.cfgcoverage.CoverageAgentParams;
 import microbat.instrumentation.cfgcoverage.CoverageAgentParams.CoverageCollectionType;
 import microbat.instrumentation.cfgcoverage.InstrumentationUtils;
+import microbat.instrumentation.cfgcoverage.runtime.AgentRuntimeData;
 import microbat.instrumentation.filter.GlobalFilterChecker;
 import microbat.instrumentation.instr.AbstractInstrumenter;
 import microbat.instrumentation.runtime.TraceUtils;
@@ -39,6 +42,7 @@ import sav.common.core.SavRtException;
 public class CoverageInstrumenter extends AbstractInstrumenter {
 	private static final String TRACER_VAR_NAME = "$tracer";
 	private static final String METHOD_ID_VAR_NAME = "$methodId";
+	private static final String NODE_VAR_NAME = "$node"; // current coverage node of the frame, probe mode only
 	private static final String TEMP_VAR_NAME = "$tempVar"; // local var
 	private int tempVarIdx = 0;
 	private CoverageAgentParams agentParams;
@@ -117,8 +121,17 @@ public class CoverageInstrumenter extends AbstractInstrumenter {
 		String methodId = InstrumentationUtils.getMethodId(classGen.getClassName(), method);
 		LocalVariableGen methodIdVar = createLocalVariable(METHOD_ID_VAR_NAME, methodGen, constPool);
 		LocalVariableGen tracerVar = createLocalVariable(TRACER_VAR_NAME, methodGen, constPool);
+		LocalVariableGen nodeVar = null;
+		if (agentParams.getCoverageType() == CoverageCollectionType.PROBE_BRANCH_COVERAGE) {
+			nodeVar = methodGen.addLocalVariable(NODE_VAR_NAME, Type.INT, insnList.getStart(), insnList.getEnd());
+		}
 		for (InstructionInfo instnInfo : instmInsns.getNodeInsns()) {
-			injectCodeTracerReachNode(methodIdVar, instnInfo, tracerVar, constPool, insnList);
+			if (nodeVar != null) {
+				int probeId = AgentRuntimeData.coverageProbes.getProbeId(methodId, instnInfo.getInsnIdx());
+				injectCodeTracerReachProbe(nodeVar, probeId, instnInfo, tracerVar, constPool, insnList);
+			} else {
+				injectCodeTracerReachNode(methodIdVar, instnInfo, tracerVar, constPool, insnList);
+			}
 		}
 		if (agentParams.collectConditionVariation()) {
 			for (InstructionInfo cmpInsnInfo : instmInsns.getNotIntCmpInIfInsns()) {
@@ -131,7 +144,7 @@ public class CoverageInstrumenter extends AbstractInstrumenter {
 		for (InstructionHandle exitInsn : instmInsns.getExitInsns()) {
 			injectCodeTracerExitMethod(methodIdVar, tracerVar, constPool, insnList, exitInsn, methodId);
 		}
-		injectCodeInitTracer(methodGen, constPool, tracerVar, methodIdVar, methodId);
+		injectCodeInitTracer(methodGen, constPool, tracerVar, methodIdVar, nodeVar, methodId);
 		return true;
 	}
 	
@@ -263,9 +276,24 @@ public class CoverageInstrumenter extends AbstractInstrumenter {
 		insertInsnHandler(insnList, newInsns, instnInfo.getInsnHandler());
 		newInsns.dispose();
 	}
+	
+	/**
+	 * $node = $tracer._reachProbe($node, probeId)
+	 */
+	private void injectCodeTracerReachProbe(LocalVariableGen nodeVar, int probeId, InstructionInfo instnInfo,
+			LocalVariableGen tracerVar, ConstantPoolGen constPool, InstructionList insnList) {
+		InstructionList newInsns = new InstructionList();
+		newInsns.append(new ALOAD(tracerVar.getIndex()));
+		newInsns.append(new ILOAD(nodeVar.getIndex()));
+		newInsns.append(new PUSH(constPool, probeId));
+		appendTracerMethodInvoke(newInsns, CoverageTracerMethods.REACH_PROBE, constPool);
+		newInsns.append(new ISTORE(nodeVar.getIndex()));
+		insertInsnHandler(insnList, newInsns, instnInfo.getInsnHandler());
+		newInsns.dispose();
+	}
 
 	private LocalVariableGen injectCodeInitTracer(MethodGen methodGen, ConstantPoolGen constPool,
-			LocalVariableGen tracerVar, LocalVariableGen methodIdVar, String methodId) {
+			LocalVariableGen tracerVar, LocalVariableGen methodIdVar, LocalVariableGen nodeVar, String methodId) {
 		InstructionList insnList = methodGen.getInstructionList();
 		InstructionHandle startInsn = insnList.getStart();
 		if (startInsn == null) {
@@ -280,6 +308,8 @@ public class CoverageInstrumenter extends AbstractInstrumenter {
 		if (agentParams.getCoverageType() == CoverageCollectionType.BRANCH_COVERAGE) {
 			newInsns.append(new ALOAD(methodIdVar.getIndex()));// methodId
 			appendTracerMethodInvoke(newInsns, CoverageTracerMethods.BRANCH_COVERAGE_GET_TRACER, constPool);
+		} else if (agentParams.getCoverageType() == CoverageCollectionType.PROBE_BRANCH_COVERAGE) {
+			appendTracerMethodInvoke(newInsns, CoverageTracerMethods.PROBE_COVERAGE_GET_TRACER, constPool);
 		} else {
 			/* invoke _getTracer */
 			newInsns.append(new ALOAD(methodIdVar.getIndex()));// methodId
@@ -294,6 +324,11 @@ public class CoverageInstrumenter extends AbstractInstrumenter {
 		}
 		InstructionHandle tracerStartPos = newInsns.append(new ASTORE(tracerVar.getIndex()));
 		tracerVar.setStart(tracerStartPos);
+		if (nodeVar != null) {
+			/* no node reached yet */
+			newInsns.append(new PUSH(constPool, -1));
+			nodeVar.setStart(newInsns.append(new ISTORE(nodeVar.getIndex())));
+		}
 		
 		insnList.insert(startInsn, newInsns);
 		newInsns.dispose();
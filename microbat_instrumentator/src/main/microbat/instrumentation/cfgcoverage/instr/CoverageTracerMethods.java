@@ -11,7 +11,9 @@ public enum CoverageTracerMethods {
 	ON_IF_I_CMP(true, "microbat/instrumentation/cfgcoverage/runtime/ICoverageTracer", "_onIfICmp", "(IILjava/lang/String;I)V", 5),
 	ON_IF_NULL(true, "microbat/instrumentation/cfgcoverage/runtime/ICoverageTracer", "_onIfNull", "(Ljava/lang/Object;Ljava/lang/String;I)V", 4),
 	ON_LCMP(true, "microbat/instrumentation/cfgcoverage/runtime/ICoverageTracer", "_onLcmp", "(JJ)V", 3),
-	REACH_NODE(true, "microbat/instrumentation/cfgcoverage/runtime/ICoverageTracer", "_reachNode", "(Ljava/lang/String;I)V", 3);
+	PROBE_COVERAGE_GET_TRACER(false, "microbat/instrumentation/cfgcoverage/runtime/ProbeCoverageTracer", "_getTracer", "()Lmicrobat/instrumentation/cfgcoverage/runtime/ICoverageTracer;", 1),
+	REACH_NODE(true, "microbat/instrumentation/cfgcoverage/runtime/ICoverageTracer", "_reachNode", "(Ljava/lang/String;I)V", 3),
+	REACH_PROBE(true, "microbat/instrumentation/cfgcoverage/runtime/ICoverageTracer", "_reachProbe", "(II)I", 3);
 	
 
 	private boolean interfaceMethod;
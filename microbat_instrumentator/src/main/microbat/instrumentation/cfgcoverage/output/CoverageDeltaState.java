@@ -0,0 +1,122 @@
+package microbat.instrumentation.cfgcoverage.output;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import microbat.instrumentation.cfgcoverage.graph.CoverageSFNode;
+import sav.common.core.SavRtException;
+
+/**
+ * What has been written by the previous coverage snapshots, so that the next snapshot only
+ * contains what is added since (see {@link CoverageOutputWriter#writeCoverageDelta}).
+ * The covered testcase lists of the graph and the input data lists are only appended until the
+ * coverage is reset, so for them a sent count is enough.
+ *
+ * @author lyly
+ */
+public class CoverageDeltaState {
+	private boolean structureWritten = false;
+	private boolean resetPending = false;
+	private int sentTestcases;
+	private Map<String, Integer> testcaseIdxMap = new HashMap<>();
+	private Map<Integer, Integer> sentNodeTcs = new HashMap<>();
+	private Map<Integer, Map<Integer, Integer>> sentBranchTcs = new HashMap<>();
+	private Map<List<Integer>, Set<Integer>> sentPathTcs = new HashMap<>();
+	private Map<Integer, Integer> sentInputs = new HashMap<>();
+
+	/**
+	 * the coverage graph is cleared, everything will be written again in the next snapshot
+	 * except the graph structure.
+	 */
+	public void reset() {
+		resetPending = true;
+		sentTestcases = 0;
+		testcaseIdxMap.clear();
+		sentNodeTcs.clear();
+		sentBranchTcs.clear();
+		sentPathTcs.clear();
+		sentInputs.clear();
+	}
+
+	boolean isStructureWritten() {
+		return structureWritten;
+	}
+
+	void setStructureWritten() {
+		structureWritten = true;
+	}
+
+	boolean isResetPending() {
+		return resetPending;
+	}
+
+	void clearResetPending() {
+		resetPending = false;
+	}
+
+	int getSentTestcases() {
+		return sentTestcases;
+	}
+
+	void addSentTestcase(String testcase) {
+		if (!testcaseIdxMap.containsKey(testcase)) {
+			testcaseIdxMap.put(testcase, sentTestcases);
+		}
+		sentTestcases++;
+	}
+
+	int getTestcaseIdx(String testcase) {
+		Integer idx = testcaseIdxMap.get(testcase);
+		if (idx == null) {
+			throw new SavRtException("Testcase is not in the coverage graph: " + testcase);
+		}
+		return idx;
+	}
+
+	int getSentNodeTcs(CoverageSFNode node) {
+		return getValue(sentNodeTcs, node.getCvgIdx());
+	}
+
+	void setSentNodeTcs(CoverageSFNode node, int size) {
+		sentNodeTcs.put(node.getCvgIdx(), size);
+	}
+
+	int getSentBranchTcs(CoverageSFNode node, CoverageSFNode branch) {
+		Map<Integer, Integer> branchMap = sentBranchTcs.get(node.getCvgIdx());
+		return branchMap == null ? 0 : getValue(branchMap, branch.getCvgIdx());
+	}
+
+	void setSentBranchTcs(CoverageSFNode node, CoverageSFNode branch, int size) {
+		Map<Integer, Integer> branchMap = sentBranchTcs.get(node.getCvgIdx());
+		if (branchMap == null) {
+			branchMap = new HashMap<>();
+			sentBranchTcs.put(node.getCvgIdx(), branchMap);
+		}
+		branchMap.put(branch.getCvgIdx(), size);
+	}
+
+	Set<Integer> getSentPathTcs(List<Integer> idPath) {
+		Set<Integer> tcs = sentPathTcs.get(idPath);
+		if (tcs == null) {
+			tcs = new HashSet<>();
+			sentPathTcs.put(idPath, tcs);
+		}
+		return tcs;
+	}
+
+	int getSentInputs(int testIdx) {
+		return getValue(sentInputs, testIdx);
+	}
+
+	void setSentInputs(int testIdx, int size) {
+		sentInputs.put(testIdx, size);
+	}
+
+	private static int getValue(Map<Integer, Integer> map, int key) {
+		Integer value = map.get(key);
+		return value == null ? 0 : value;
+	}
+}
@@ -6,7 +6,9 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Map.Entry;
 
+import microbat.instrumentation.cfgcoverage.CoverageOutput;
 import microbat.instrumentation.cfgcoverage.graph.Branch;
 import microbat.instrumentation.cfgcoverage.graph.CoveragePath;
 import microbat.instrumentation.cfgcoverage.graph.CoverageSFNode;
@@ -15,6 +17,19 @@ import microbat.instrumentation.cfgcoverage.graph.CoverageSFlowGraph;
 import microbat.instrumentation.cfgcoverage.runtime.MethodExecutionData;
 import microbat.instrumentation.output.ByteConverter;
 import microbat.instrumentation.output.OutputReader;
+import microbat.model.BreakPointValue;
+import microbat.model.value.ArrayValue;
+import microbat.model.value.PrimitiveValue;
+import microbat.model.value.ReferenceValue;
+import microbat.model.value.StringValue;
+import microbat.model.value.VarValue;
+import microbat.model.value.VirtualValue;
+import microbat.model.variable.ArrayElementVar;
+import microbat.model.variable.ConstantVar;
+import microbat.model.variable.FieldVar;
+import microbat.model.variable.LocalVar;
+import microbat.model.variable.Variable;
+import microbat.model.variable.VirtualVar;
 
 public class CoverageOutputReader extends OutputReader{
 
@@ -76,7 +91,126 @@ public class CoverageOutputReader extends OutputReader{
 		return list;
 	}
 	
+	/**
+	 * Read a snapshot written by {@link CoverageOutputWriter#writeCoverageDelta} and fold it into
+	 * output, which is the result of the previous snapshots (null for the first one).
+	 */
+	public CoverageOutput readCoverageDelta(CoverageOutput output) throws IOException {
+		/* graph structure */
+		if (readBoolean()) {
+			int cfgSize = readVarInt();
+			CoverageSFlowGraph coverageGraph = new CoverageSFlowGraph(cfgSize);
+			coverageGraph.setCdgLayer(readVarInt());
+			coverageGraph.setCoveredTestcases(new ArrayList<String>());
+			int nodeListSize = readVarInt();
+			List<CoverageSFNode> nodeList = new ArrayList<CoverageSFNode>(nodeListSize);
+			for (int i = 0; i < nodeListSize; i++) {
+				nodeList.add(new CoverageSFNode(i, coverageGraph));
+			}
+			for (int i = 0; i < nodeListSize; i++) {
+				readNodeStructure(nodeList, nodeList.get(i));
+			}
+			coverageGraph.setNodeList(nodeList);
+			coverageGraph.setStartNode(nodeList.get(0));
+			coverageGraph.setCoveragePaths(new ArrayList<CoveragePath>());
+			output = new CoverageOutput(coverageGraph);
+			output.setInputData(new HashMap<Integer, List<MethodExecutionData>>());
+		} else if (output == null) {
+			throw new IOException("Missing the first coverage snapshot!");
+		}
+		CoverageSFlowGraph coverageGraph = output.getCoverageGraph();
+		List<CoverageSFNode> nodeList = coverageGraph.getNodeList();
+		/* reset */
+		if (readBoolean()) {
+			coverageGraph.clearData();
+			coverageGraph.getCoveragePaths().clear();
+			output.getInputData().clear();
+		}
+		/* new testcases */
+		List<String> testcases = coverageGraph.getCoveredTestcases();
+		int size = readVarInt();
+		for (int i = 0; i < size; i++) {
+			testcases.add(readString());
+		}
+		/* new covered testcases on nodes */
+		size = readVarInt();
+		for (int i = 0; i < size; i++) {
+			CoverageSFNode node = nodeList.get(readVarInt());
+			for (String testcase : readNewTestcases(testcases)) {
+				node.addCoveredTestcase(testcase);
+			}
+		}
+		/* new covered testcases on branches */
+		size = readVarInt();
+		for (int i = 0; i < size; i++) {
+			CoverageSFNode node = nodeList.get(readVarInt());
+			CoverageSFNode branch = nodeList.get(readVarInt());
+			for (String testcase : readNewTestcases(testcases)) {
+				node.markCoveredBranch(branch, testcase);
+			}
+		}
+		/* new testcases of covered paths */
+		Map<List<Integer>, CoveragePath> pathMap = new HashMap<>();
+		for (CoveragePath path : coverageGraph.getCoveragePaths()) {
+			pathMap.put(path.getIdPath(), path);
+		}
+		size = readVarInt();
+		for (int i = 0; i < size; i++) {
+			List<Integer> newTcs = readListInt();
+			List<CoverageSFNode> nodes = readListCoverageNode(nodeList);
+			CoveragePath path = new CoveragePath();
+			path.setPath(nodes);
+			CoveragePath existingPath = pathMap.get(path.getIdPath());
+			if (existingPath == null) {
+				path.setCoveredTcs(newTcs);
+				coverageGraph.getCoveragePaths().add(path);
+				pathMap.put(path.getIdPath(), path);
+			} else {
+				existingPath.getCoveredTcs().addAll(newTcs);
+			}
+		}
+		/* new input data */
+		if (readBoolean()) {
+			Map<Integer, List<MethodExecutionData>> newInputs = readInputData();
+			for (Entry<Integer, List<MethodExecutionData>> entry : newInputs.entrySet()) {
+				List<MethodExecutionData> execs = output.getInputData().get(entry.getKey());
+				if (execs == null) {
+					output.getInputData().put(entry.getKey(), entry.getValue());
+				} else {
+					execs.addAll(entry.getValue());
+				}
+			}
+		}
+		return output;
+	}
+	
+	private List<String> readNewTestcases(List<String> testcases) throws IOException {
+		int size = readVarInt();
+		List<String> result = new ArrayList<>(size);
+		for (int i = 0; i < size; i++) {
+			result.add(testcases.get(readVarInt()));
+		}
+		return result;
+	}
+	
 	private CoverageSFNode readCoverageNode(List<CoverageSFNode> nodeList, CoverageSFNode node) throws IOException {
+		readNodeStructure(nodeList, node);
+		/* covered testcases on node */
+		node.setCoveredTestcases(readListString());
+		/* read covered testcases on branch */
+		/* covered testcases on branches */
+		Map<CoverageSFNode, List<String>> coveredTcsOnBranches = node.getCoveredTestcasesOnBranches();
+		int size = readVarInt();
+		for (int i = 0; i < size; i++) {
+			int toNodeIdx = readVarInt();
+			List<String> coveredTcs = readListString();
+			coveredTcsOnBranches.put(nodeList.get(toNodeIdx), coveredTcs);
+		}
+		node.setCoveredTestcasesOnBranches(coveredTcsOnBranches);
+		return node;
+	}
+	
+	private void readNodeStructure(List<CoverageSFNode> nodeList, CoverageSFNode node) throws IOException {
 		/* type */
 		Type type = Type.valueOf(readString());
 		node.setType(type);
@@ -108,19 +242,6 @@ public class CoverageOutputReader extends OutputReader{
 			int branchCvgNodeIdx = readVarInt();
 			node.addBranch(nodeList.get(branchCvgNodeIdx));
 		}
-		/* covered testcases on node */
-		node.setCoveredTestcases(readListString());
-		/* read covered testcases on branch */
-		/* covered testcases on branches */
-		Map<CoverageSFNode, List<String>> coveredTcsOnBranches = node.getCoveredTestcasesOnBranches();
-		size = readVarInt();
-		for (int i = 0; i < size; i++) {
-			int toNodeIdx = readVarInt();
-			List<String> coveredTcs = readListString();
-			coveredTcsOnBranches.put(nodeList.get(toNodeIdx), coveredTcs);
-		}
-		node.setCoveredTestcasesOnBranches(coveredTcsOnBranches);
-		return node;
 	}
 	
 	@SuppressWarnings("unchecked")
@@ -144,7 +265,133 @@ public class CoverageOutputReader extends OutputReader{
 	}
 
 	public Map<Integer, List<MethodExecutionData>> readInputData() throws IOException {
-		return readSerializableObj();
+		int size = readVarInt();
+		if (size == -1) {
+			return null;
+		}
+		Map<Integer, List<MethodExecutionData>> inputData = new HashMap<>();
+		for (int i = 0; i < size; i++) {
+			int testIdx = readVarInt();
+			inputData.put(testIdx, readListMethodExecutionData());
+		}
+		return inputData;
+	}
+	
+	private List<MethodExecutionData> readListMethodExecutionData() throws IOException {
+		int size = readVarInt();
+		List<MethodExecutionData> execs = new ArrayList<>(size);
+		for (int i = 0; i < size; i++) {
+			MethodExecutionData exec = new MethodExecutionData(readVarInt());
+			exec.getExecPathId().addAll(readListInt());
+			int fitnessSize = readVarInt();
+			if (fitnessSize >= 0) {
+				Map<String, Double> branchFitnessMap = new HashMap<>();
+				for (int j = 0; j < fitnessSize; j++) {
+					String branchId = readString();
+					branchFitnessMap.put(branchId, readDouble());
+				}
+				exec.setBranchFitnessMap(branchFitnessMap);
+			}
+			if (readBoolean()) {
+				BreakPointValue inputValue = new BreakPointValue(readString());
+				int childrenSize = readVarInt();
+				for (int j = 0; j < childrenSize; j++) {
+					inputValue.addChild(readVarValue());
+				}
+				exec.setMethodInputValue(inputValue);
+			}
+			execs.add(exec);
+		}
+		return execs;
+	}
+	
+	private VarValue readVarValue() throws IOException {
+		byte kind = readByte();
+		if (kind == CoverageOutputWriter.NULL_VALUE) {
+			return null;
+		}
+		Variable var = readVariable();
+		boolean isRoot = readBoolean();
+		String stringValue = readString();
+		VarValue value;
+		switch (kind) {
+		case CoverageOutputWriter.PRIMITIVE_VALUE:
+			value = new PrimitiveValue(stringValue, isRoot, var);
+			break;
+		case CoverageOutputWriter.STRING_VALUE:
+			value = new StringValue(stringValue, isRoot, var);
+			break;
+		case CoverageOutputWriter.REFERENCE_VALUE:
+		case CoverageOutputWriter.ARRAY_VALUE:
+			boolean isNull = readBoolean();
+			long uniqueID = readLong();
+			ReferenceValue refValue;
+			if (kind == CoverageOutputWriter.ARRAY_VALUE) {
+				ArrayValue arrValue = new ArrayValue(isNull, isRoot, var);
+				arrValue.setComponentType(readString());
+				refValue = arrValue;
+			} else {
+				refValue = new ReferenceValue(isNull, uniqueID, isRoot, var);
+			}
+			refValue.setNull(isNull);
+			refValue.setUniqueID(uniqueID);
+			value = refValue;
+			break;
+		case CoverageOutputWriter.VIRTUAL_VALUE:
+			value = new VirtualValue(isRoot, var);
+			break;
+		default:
+			throw new IOException("Unknown value kind: " + kind);
+		}
+		value.setStringValue(stringValue);
+		int childrenSize = readVarInt();
+		for (int i = 0; i < childrenSize; i++) {
+			VarValue child = readVarValue();
+			if (child == null) {
+				value.addChild(null);
+			} else {
+				value.linkAchild(child);
+			}
+		}
+		return value;
+	}
+	
+	private Variable readVariable() throws IOException {
+		byte kind = readByte();
+		Variable var;
+		switch (kind) {
+		case CoverageOutputWriter.LOCAL_VAR:
+			String locationClass = readString();
+			LocalVar localVar = new LocalVar(null, null, locationClass, readVarInt());
+			localVar.setParameter(readBoolean());
+			localVar.setByteCodeIndex(readVarInt());
+			var = localVar;
+			break;
+		case CoverageOutputWriter.FIELD_VAR:
+			boolean isStatic = readBoolean();
+			var = new FieldVar(isStatic, null, null, readString());
+			break;
+		case CoverageOutputWriter.ARRAY_ELEMENT_VAR:
+			var = new ArrayElementVar(null, null, null);
+			break;
+		case CoverageOutputWriter.CONSTANT_VAR:
+			String constantValue = readString();
+			ConstantVar constantVar = new ConstantVar(null, null);
+			constantVar.setValue(constantValue);
+			var = constantVar;
+			break;
+		case CoverageOutputWriter.VIRTUAL_VAR:
+			var = new VirtualVar(null, null);
+			break;
+		default:
+			throw new IOException("Unknown variable kind: " + kind);
+		}
+		var.setName(readString());
+		var.setType(readString());
+		var.setRtType(readString());
+		var.setVarID(readString());
+		var.setAliasVarID(readString());
+		return var;
 	}
 
 }
@@ -2,24 +2,167 @@ package microbat.instrumentation.cfgcoverage.output;
 
 import java.io.IOException;
 import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
 
 import microbat.instrumentation.cfgcoverage.graph.CoveragePath;
 import microbat.instrumentation.cfgcoverage.graph.CoverageSFNode;
 import microbat.instrumentation.cfgcoverage.graph.CoverageSFlowGraph;
 import microbat.instrumentation.cfgcoverage.runtime.MethodExecutionData;
 import microbat.instrumentation.output.OutputWriter;
+import microbat.model.BreakPointValue;
+import microbat.model.value.ArrayValue;
+import microbat.model.value.PrimitiveValue;
+import microbat.model.value.ReferenceValue;
+import microbat.model.value.StringValue;
+import microbat.model.value.VarValue;
+import microbat.model.value.VirtualValue;
+import microbat.model.variable.ArrayElementVar;
+import microbat.model.variable.ConstantVar;
+import microbat.model.variable.FieldVar;
+import microbat.model.variable.LocalVar;
+import microbat.model.variable.Variable;
+import microbat.model.variable.VirtualVar;
 import sav.common.core.utils.CollectionUtils;
 
 public class CoverageOutputWriter extends OutputWriter {
+	static final byte NULL_VALUE = 0;
+	static final byte PRIMITIVE_VALUE = 1;
+	static final byte STRING_VALUE = 2;
+	static final byte REFERENCE_VALUE = 3;
+	static final byte ARRAY_VALUE = 4;
+	static final byte VIRTUAL_VALUE = 5;
+	
+	static final byte LOCAL_VAR = 1;
+	static final byte FIELD_VAR = 2;
+	static final byte ARRAY_ELEMENT_VAR = 3;
+	static final byte CONSTANT_VAR = 4;
+	static final byte VIRTUAL_VAR = 5;
 
 	public CoverageOutputWriter(OutputStream out) {
 		super(out);
 	}
 	
 	public void writeInputData(Map<Integer, List<MethodExecutionData>> inputData) throws IOException {
-		writeSerializableObj(inputData);
+		writeSize(inputData == null ? null : inputData.keySet());
+		if (inputData == null) {
+			return;
+		}
+		for (Entry<Integer, List<MethodExecutionData>> entry : inputData.entrySet()) {
+			writeVarInt(entry.getKey());
+			List<MethodExecutionData> execs = entry.getValue();
+			synchronized (execs) {
+				writeListMethodExecutionData(execs);
+			}
+		}
+	}
+	
+	private void writeListMethodExecutionData(List<MethodExecutionData> execs) throws IOException {
+		writeVarInt(execs.size());
+		for (MethodExecutionData exec : execs) {
+			writeVarInt(exec.getTestIdx());
+			writeListInt(exec.getExecPathId());
+			Map<String, Double> branchFitnessMap = exec.getBranchFitnessMap();
+			writeSize(branchFitnessMap == null ? null : branchFitnessMap.keySet());
+			if (branchFitnessMap != null) {
+				for (Entry<String, Double> entry : branchFitnessMap.entrySet()) {
+					writeString(entry.getKey());
+					writeDouble(entry.getValue());
+				}
+			}
+			BreakPointValue inputValue = exec.getMethodInputValue();
+			writeBoolean(inputValue != null);
+			if (inputValue != null) {
+				writeNullableString(inputValue.getName());
+				writeChildren(inputValue);
+			}
+		}
+	}
+	
+	/**
+	 * value trees of method inputs are written depth first: the kind of value, its variable, its
+	 * own data, then its children.
+	 */
+	private void writeVarValue(VarValue value) throws IOException {
+		if (value == null) {
+			writeByte(NULL_VALUE);
+			return;
+		}
+		if (value instanceof StringValue) {
+			writeByte(STRING_VALUE);
+		} else if (value instanceof PrimitiveValue) {
+			writeByte(PRIMITIVE_VALUE);
+		} else if (value instanceof ArrayValue) {
+			writeByte(ARRAY_VALUE);
+		} else if (value instanceof ReferenceValue) {
+			writeByte(REFERENCE_VALUE);
+		} else if (value instanceof VirtualValue) {
+			writeByte(VIRTUAL_VALUE);
+		} else {
+			throw new IOException("Unsupported value type: " + value.getClass().getName());
+		}
+		writeVariable(value.getVariable());
+		writeBoolean(value.isRoot());
+		writeNullableString(value.getStringValue());
+		if (value instanceof ReferenceValue) {
+			ReferenceValue refValue = (ReferenceValue) value;
+			writeBoolean(refValue.isNull());
+			writeLong(refValue.getUniqueID());
+			if (value instanceof ArrayValue) {
+				writeNullableString(((ArrayValue) value).getComponentType());
+			}
+		}
+		writeChildren(value);
+	}
+
+	private void writeChildren(VarValue value) throws IOException {
+		List<VarValue> children = value.getChildren();
+		writeSize(children);
+		for (VarValue child : CollectionUtils.nullToEmpty(children)) {
+			writeVarValue(child);
+		}
+	}
+	
+	private void writeVariable(Variable var) throws IOException {
+		if (var instanceof LocalVar) {
+			LocalVar localVar = (LocalVar) var;
+			writeByte(LOCAL_VAR);
+			writeNullableString(localVar.getLocationClass());
+			writeVarInt(localVar.getLineNumber());
+			writeBoolean(localVar.isParameter());
+			writeVarInt(localVar.getByteCodeIndex());
+		} else if (var instanceof FieldVar) {
+			FieldVar fieldVar = (FieldVar) var;
+			writeByte(FIELD_VAR);
+			writeBoolean(fieldVar.isStatic());
+			writeNullableString(fieldVar.getDeclaringType());
+		} else if (var instanceof ArrayElementVar) {
+			writeByte(ARRAY_ELEMENT_VAR);
+		} else if (var instanceof ConstantVar) {
+			writeByte(CONSTANT_VAR);
+			writeNullableString(((ConstantVar) var).getValue());
+		} else if (var instanceof VirtualVar) {
+			writeByte(VIRTUAL_VAR);
+		} else {
+			throw new IOException("Unsupported variable type: " + (var == null ? null : var.getClass().getName()));
+		}
+		writeNullableString(var.getName());
+		writeNullableString(var.getType());
+		writeNullableString(var.getRuntimeType());
+		writeNullableString(var.getVarID());
+		writeNullableString(var.getAliasVarID());
+	}
+	
+	private void writeNullableString(String str) throws IOException {
+		if (str == null) {
+			writeVarInt(-1);
+		} else {
+			writeString(str);
+		}
 	}
 
 	public void writeCfgCoverage(CoverageSFlowGraph coverageGraph) throws IOException {
@@ -39,6 +182,121 @@ public class CoverageOutputWriter extends OutputWriter {
 		writeCoveragePaths(coverageGraph.getCoveragePaths());
 	}
 
+	/**
+	 * Write what is added to the coverage since the previous snapshot written with the same state:
+	 * the graph structure (first snapshot only), then new testcases, new covered testcases of nodes
+	 * and branches, new testcases of covered paths and new input data. Testcases are written as
+	 * their index in the covered testcase list instead of their name.
+	 * Snapshots are read back and folded together with
+	 * {@link CoverageOutputReader#readCoverageDelta(microbat.instrumentation.cfgcoverage.CoverageOutput)}.
+	 */
+	public void writeCoverageDelta(CoverageSFlowGraph coverageGraph, Map<Integer, List<MethodExecutionData>> inputData,
+			CoverageDeltaState state) throws IOException {
+		List<CoverageSFNode> nodeList = coverageGraph.getNodeList();
+		/* graph structure */
+		writeBoolean(!state.isStructureWritten());
+		if (!state.isStructureWritten()) {
+			writeVarInt(coverageGraph.getCfgSize());
+			writeVarInt(coverageGraph.getExtensionLayer());
+			writeVarInt(nodeList.size());
+			for (CoverageSFNode node : nodeList) {
+				writeNodeStructure(node);
+			}
+			state.setStructureWritten();
+		}
+		/* coverage is reset since the last snapshot */
+		writeBoolean(state.isResetPending());
+		state.clearResetPending();
+		
+		/* new testcases */
+		List<String> testcases = coverageGraph.getCoveredTestcases();
+		writeVarInt(testcases.size() - state.getSentTestcases());
+		for (int i = state.getSentTestcases(); i < testcases.size(); i++) {
+			writeString(testcases.get(i));
+			state.addSentTestcase(testcases.get(i));
+		}
+		
+		/* new covered testcases on nodes */
+		List<CoverageSFNode> changedNodes = new ArrayList<>();
+		for (CoverageSFNode node : nodeList) {
+			if (node.getCoveredTestcases().size() > state.getSentNodeTcs(node)) {
+				changedNodes.add(node);
+			}
+		}
+		writeVarInt(changedNodes.size());
+		for (CoverageSFNode node : changedNodes) {
+			writeVarInt(node.getCvgIdx());
+			writeNewTestcases(node.getCoveredTestcases(), state.getSentNodeTcs(node), state);
+			state.setSentNodeTcs(node, node.getCoveredTestcases().size());
+		}
+		
+		/* new covered testcases on branches */
+		List<CoverageSFNode[]> changedBranches = new ArrayList<>();
+		for (CoverageSFNode node : nodeList) {
+			for (Entry<CoverageSFNode, List<String>> entry : node.getCoveredTestcasesOnBranches().entrySet()) {
+				if (entry.getValue().size() > state.getSentBranchTcs(node, entry.getKey())) {
+					changedBranches.add(new CoverageSFNode[] { node, entry.getKey() });
+				}
+			}
+		}
+		writeVarInt(changedBranches.size());
+		for (CoverageSFNode[] branch : changedBranches) {
+			List<String> coveredTcs = branch[0].getCoveredTestcasesOnBranches().get(branch[1]);
+			writeVarInt(branch[0].getCvgIdx());
+			writeVarInt(branch[1].getCvgIdx());
+			writeNewTestcases(coveredTcs, state.getSentBranchTcs(branch[0], branch[1]), state);
+			state.setSentBranchTcs(branch[0], branch[1], coveredTcs.size());
+		}
+		
+		/* new testcases of covered paths */
+		List<CoveragePath> changedPaths = new ArrayList<>();
+		List<List<Integer>> newPathTcs = new ArrayList<>();
+		for (CoveragePath path : CollectionUtils.nullToEmpty(coverageGraph.getCoveragePaths())) {
+			Set<Integer> sentTcs = state.getSentPathTcs(path.getIdPath());
+			List<Integer> newTcs = new ArrayList<>();
+			for (Integer tc : path.getCoveredTcs()) {
+				if (sentTcs.add(tc)) {
+					newTcs.add(tc);
+				}
+			}
+			if (!newTcs.isEmpty()) {
+				changedPaths.add(path);
+				newPathTcs.add(newTcs);
+			}
+		}
+		writeVarInt(changedPaths.size());
+		for (int i = 0; i < changedPaths.size(); i++) {
+			writeListInt(newPathTcs.get(i));
+			writeListCoverageNode(changedPaths.get(i).getPath());
+		}
+		
+		/* new input data */
+		Map<Integer, List<MethodExecutionData>> newInputs = new HashMap<>();
+		if (inputData != null) {
+			for (Entry<Integer, List<MethodExecutionData>> entry : inputData.entrySet()) {
+				List<MethodExecutionData> execs = entry.getValue();
+				synchronized (execs) {
+					int sent = state.getSentInputs(entry.getKey());
+					if (execs.size() > sent) {
+						newInputs.put(entry.getKey(), new ArrayList<>(execs.subList(sent, execs.size())));
+						state.setSentInputs(entry.getKey(), execs.size());
+					}
+				}
+			}
+		}
+		writeBoolean(!newInputs.isEmpty());
+		if (!newInputs.isEmpty()) {
+			writeInputData(newInputs);
+		}
+	}
+	
+	private void writeNewTestcases(List<String> testcases, int from, CoverageDeltaState state) throws IOException {
+		writeVarInt(testcases.size() - from);
+		for (int i = from; i < testcases.size(); i++) {
+			writeVarInt(state.getTestcaseIdx(testcases.get(i)));
+		}
+	}
+
 	private void writeCoveragePaths(List<CoveragePath> coveragePaths) throws IOException {
 		writeSize(coveragePaths);
 		for (CoveragePath coveredPath : CollectionUtils.nullToEmpty(coveragePaths)) {
@@ -55,6 +313,31 @@ public class CoverageOutputWriter extends OutputWriter {
 	}
 	
 	private void writeCoverageNode(CoverageSFNode node) throws IOException {
+		writeNodeStructure(node);
+		synchronized (node.getCoveredTestcases()) {
+			/* covered testcases on node */
+			boolean hasNull = false;
+			for (String id : node.getCoveredTestcases()) {
+				if (id == null) {
+					hasNull = true;
+				}
+			}
+			if (hasNull) {
+				System.out.println(String.format("WARNING-hasNull: [%s] [%s] [%s]", node.getCoveredTestcases(),
+						node, node.getCoveredTestcasesOnBranches()));
+			}
+			writeListString(node.getCoveredTestcases());
+			/* covered testcases on branches */
+			writeVarInt(node.getCoveredTestcasesOnBranches().keySet().size());
+			for (CoverageSFNode branch : node.getCoveredTestcasesOnBranches().keySet()) {
+				writeVarInt(branch.getCvgIdx());
+				List<String> coveredTcs = node.getCoveredTestcasesOnBranches().get(branch);
+				writeListString(coveredTcs);
+			}
+		}
+	}
+	
+	private void writeNodeStructure(CoverageSFNode node) throws IOException {
 		// type
 		writeString(node.getType().name());
 		
@@ -79,26 +362,5 @@ public class CoverageOutputWriter extends OutputWriter {
 		for (CoverageSFNode branch : CollectionUtils.nullToEmpty(node.getBranchTargets())) {
 			writeVarInt(branch.getCvgIdx());
 		}
-		synchronized (node.getCoveredTestcases()) {
-			/* covered testcases on node */
-			boolean hasNull = false;
-			for (String id : node.getCoveredTestcases()) {
-				if (id == null) {
-					hasNull = true;
-				}
-			}
-			if (hasNull) {
-				System.out.println(String.format("WARNING-hasNull: [%s] [%s] [%s]", node.getCoveredTestcases(),
-						node, node.getCoveredTestcasesOnBranches()));
-			}
-			writeListString(node.getCoveredTestcases());
-			/* covered testcases on branches */
-			writeVarInt(node.getCoveredTestcasesOnBranches().keySet().size());
-			for (CoverageSFNode branch : node.getCoveredTestcasesOnBranches().keySet()) {
-				writeVarInt(branch.getCvgIdx());
-				List<String> coveredTcs = node.getCoveredTestcasesOnBranches().get(branch);
-				writeListString(coveredTcs);
-			}
-		}
 	}
 }
@@ -1,37 +1,89 @@
 package microbat.instrumentation.cfgcoverage.runtime;
 
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import microbat.instrumentation.cfgcoverage.graph.CoverageSFlowGraph;
 
 public class AgentRuntimeData {
 	public static volatile CoverageSFlowGraph coverageFlowGraph;
-	public static volatile Map<Integer, List<MethodExecutionData>> methodExecsOnASingleTcMap = new HashMap<>();
-	public static volatile Map<Long, Integer> currentTestIdxMap = new HashMap<>();
-	public static volatile Map<TracerKey, List<ICoverageTracer>> tracerMap = new HashMap<>();
+	public static volatile Map<Integer, List<MethodExecutionData>> methodExecsOnASingleTcMap = new ConcurrentHashMap<>();
+	public static volatile Map<Long, Integer> currentTestIdxMap = new ConcurrentHashMap<>();
+	public static volatile Map<TracerKey, List<ICoverageTracer>> tracerMap = new ConcurrentHashMap<>();
+	/* coverage of each running testcase on each thread, see CoverageShard */
+	public static volatile Map<TracerKey, CoverageShard> shardMap = new ConcurrentHashMap<>();
+	public static volatile CoverageProbes coverageProbes;
+	/* increased whenever a testcase starts, so that the cached tracers know when to look up the current test */
+	public static final AtomicInteger testStartCount = new AtomicInteger();
 	
 	
-	public static synchronized void register(ICoverageTracer tracer, long threadId, int testIdx) {
+	public static void register(ICoverageTracer tracer, long threadId, int testIdx) {
 		TracerKey tracerKey = TracerKey.of(threadId, testIdx);
 		List<ICoverageTracer> tracers = tracerMap.get(tracerKey);
 		if (tracers == null) {
-			tracers = new ArrayList<>();
+			/* only the thread itself registers its tracers, the list is read by the thread exiting the test */
+			tracers = Collections.synchronizedList(new ArrayList<ICoverageTracer>());
 			tracerMap.put(tracerKey, tracers);
 		}
 		tracers.add(tracer);
 	}
 	
-	public static synchronized void unregister(long threadId, Integer testIdx) {
+	/**
+	 * stop the tracers of the testcase on the thread and merge its coverage shard into the
+	 * coverage graph.
+	 */
+	public static void unregister(long threadId, Integer testIdx) {
 		TracerKey tracerKey = TracerKey.of(threadId, testIdx);
 		List<ICoverageTracer> tracers = tracerMap.remove(tracerKey);
 		if (tracers != null) {
-			for (ICoverageTracer tracer : tracers) {
-				tracer.shutDown();
+			synchronized (tracers) {
+				for (ICoverageTracer tracer : tracers) {
+					tracer.shutDown();
+				}
 			}
  		}
+		CoverageShard shard = shardMap.remove(tracerKey);
+		if (shard != null) {
+			shard.close();
+			shard.mergeInto(coverageFlowGraph);
+		}
+	}
+	
+	/**
+	 * the shard is created by the thread itself on its first access, other threads only read or
+	 * remove it.
+	 */
+	public static CoverageShard getShard(long threadId, int testIdx) {
+		TracerKey tracerKey = TracerKey.of(threadId, testIdx);
+		CoverageShard shard = shardMap.get(tracerKey);
+		if (shard == null) {
+			shard = new CoverageShard(coverageFlowGraph.getCoveredTestcase(testIdx), coverageProbes);
+			shardMap.put(tracerKey, shard);
+		}
+		return shard;
+	}
+	
+	/**
+	 * merge the shards of the running testcases into the coverage graph, they keep recording.
+	 */
+	public static void mergeShards() {
+		for (CoverageShard shard : shardMap.values()) {
+			shard.mergeInto(coverageFlowGraph);
+		}
+	}
+	
+	/**
+	 * drop the shards of the running testcases without merging them.
+	 */
+	public static void clearShards() {
+		for (CoverageShard shard : shardMap.values()) {
+			shard.close();
+		}
+		shardMap.clear();
 	}
 	
 	private static class TracerKey {
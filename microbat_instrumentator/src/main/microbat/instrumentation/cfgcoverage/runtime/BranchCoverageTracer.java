@@ -4,53 +4,49 @@ import microbat.instrumentation.AgentLogger;
 import microbat.instrumentation.cfgcoverage.graph.CoverageSFNode;
 
 public class BranchCoverageTracer extends EmptyCoverageTracer implements ICoverageTracer {
-	private String testcase;
+	private CoverageShard shard;
 	private CoverageSFNode currentNode;
-	private volatile boolean canceled = false;
 	
-	public BranchCoverageTracer(int currentTcIdx) {
-		this.testcase = AgentRuntimeData.coverageFlowGraph.getCoveredTestcases().get(currentTcIdx);
+	public BranchCoverageTracer(CoverageShard shard) {
+		this.shard = shard;
 	}
 	
 	@Override
 	public void _reachNode(String methodId, int nodeIdx) {
-		if (canceled) {
+		if (shard.isClosed()) {
 			return;
 		}
 		if (currentNode == null) {
 			currentNode = AgentRuntimeData.coverageFlowGraph.getStartNode();
 		} else {
-			CoverageSFNode branch = currentNode.getCorrespondingBranch(methodId, nodeIdx);
-			if (branch != null) {
-				currentNode.markCoveredBranch(branch, testcase);
-				currentNode = branch;
+			int branchIdx = currentNode.getCorrespondingBranchIdx(methodId, nodeIdx);
+			if (branchIdx >= 0) {
+				shard.markBranch(currentNode.getCvgIdx(), branchIdx);
+				currentNode = currentNode.getBranchTargets().get(branchIdx);
 			} else {
 				AgentLogger.debug(String.format("cannot find branch %s:%d of node %d [testcase=%s]", methodId, nodeIdx,
-						currentNode.getCvgIdx(), testcase));
+						currentNode.getCvgIdx(), shard.getTestcase()));
 				return;
 			}
 		}
-		currentNode.addCoveredTestcase(testcase);
+		shard.markNode(currentNode.getCvgIdx());
 	}
 
-	public synchronized static ICoverageTracer _getTracer(String methodId) {
+	/**
+	 * the tracer is not registered, it stops recording once the shard of its testcase is closed
+	 * (see {@link AgentRuntimeData#unregister(long, Integer)}).
+	 */
+	public static ICoverageTracer _getTracer(String methodId) {
 		try {
 			long threadId = Thread.currentThread().getId();
 			Integer currentTcIdx = AgentRuntimeData.currentTestIdxMap.get(threadId);
 			if (currentTcIdx == null) {
 				return EmptyCoverageTracer.getInstance();
 			}
-			BranchCoverageTracer tracer = new BranchCoverageTracer(currentTcIdx);
-			AgentRuntimeData.register(tracer, threadId, currentTcIdx);
-			return tracer;
+			return new BranchCoverageTracer(AgentRuntimeData.getShard(threadId, currentTcIdx));
 		} catch (Throwable t) {
 			AgentLogger.error(t);
 			return EmptyCoverageTracer.getInstance();
 		}
 	}
-	
-	@Override
-	public void shutDown() {
-		this.canceled = true;
-	}
 }
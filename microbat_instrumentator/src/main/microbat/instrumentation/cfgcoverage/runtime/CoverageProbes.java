@@ -0,0 +1,135 @@
+package microbat.instrumentation.cfgcoverage.runtime;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import microbat.instrumentation.cfgcoverage.graph.CFGInstance.UniqueNodeId;
+import microbat.instrumentation.cfgcoverage.graph.CoverageSFNode;
+import microbat.instrumentation.cfgcoverage.graph.CoverageSFlowGraph;
+
+/**
+ * Int ids of the coverage graph: each probe instruction (methodId, local node idx) gets a global
+ * probe id which is pushed directly by the instrumented code in probe mode, and each branch
+ * (node, branch target) gets a global branch id used to index the {@link CoverageShard}s. The
+ * branches of a node are kept in int arrays so that following a probe at runtime does not compare
+ * any method id string.
+ *
+ * @author lyly
+ */
+public class CoverageProbes {
+	private Map<String, Map<Integer, Integer>> probeIdMap = new HashMap<>();
+	private int probeNum;
+	private int startNodeIdx;
+	/* [cvgIdx][i] probe id, cvgIdx and branch id of the i-th branch target of node cvgIdx */
+	private int[][] branchProbeIds;
+	private int[][] branchTargets;
+	private int[][] branchIds;
+	private int[] branchFrom;
+	private int[] branchTo;
+
+	public CoverageProbes(CoverageSFlowGraph coverageGraph) {
+		List<CoverageSFNode> nodeList = coverageGraph.getNodeList();
+		int nodeNum = nodeList.size();
+		branchProbeIds = new int[nodeNum][];
+		branchTargets = new int[nodeNum][];
+		branchIds = new int[nodeNum][];
+		int branchNum = 0;
+		for (CoverageSFNode node : nodeList) {
+			getOrCreateProbeId(node.getProbeNodeId());
+			branchNum += node.getBranchTargets().size();
+		}
+		branchFrom = new int[branchNum];
+		branchTo = new int[branchNum];
+		int branchId = 0;
+		for (CoverageSFNode node : nodeList) {
+			List<CoverageSFNode> targets = node.getBranchTargets();
+			int idx = node.getCvgIdx();
+			branchProbeIds[idx] = new int[targets.size()];
+			branchTargets[idx] = new int[targets.size()];
+			branchIds[idx] = new int[targets.size()];
+			for (int i = 0; i < targets.size(); i++) {
+				CoverageSFNode target = targets.get(i);
+				branchProbeIds[idx][i] = getProbeId(target.getProbeNodeId().getMethodId(),
+						target.getProbeNodeId().getLocalNodeIdx());
+				branchTargets[idx][i] = target.getCvgIdx();
+				branchIds[idx][i] = branchId;
+				branchFrom[branchId] = idx;
+				branchTo[branchId] = target.getCvgIdx();
+				branchId++;
+			}
+		}
+		startNodeIdx = coverageGraph.getStartNode().getCvgIdx();
+	}
+
+	private int getOrCreateProbeId(UniqueNodeId nodeId) {
+		Map<Integer, Integer> methodProbes = probeIdMap.get(nodeId.getMethodId());
+		if (methodProbes == null) {
+			methodProbes = new HashMap<>();
+			probeIdMap.put(nodeId.getMethodId(), methodProbes);
+		}
+		Integer probeId = methodProbes.get(nodeId.getLocalNodeIdx());
+		if (probeId == null) {
+			probeId = probeNum++;
+			methodProbes.put(nodeId.getLocalNodeIdx(), probeId);
+		}
+		return probeId;
+	}
+
+	/**
+	 * @return -1 if the instruction is not a probe.
+	 */
+	public int getProbeId(String methodId, int localNodeIdx) {
+		Map<Integer, Integer> methodProbes = probeIdMap.get(methodId);
+		if (methodProbes == null) {
+			return -1;
+		}
+		Integer probeId = methodProbes.get(localNodeIdx);
+		return probeId == null ? -1 : probeId;
+	}
+
+	/**
+	 * @return the index of the branch of node nodeIdx whose target has the probe, -1 if not found.
+	 */
+	public int findBranch(int nodeIdx, int probeId) {
+		int[] probeIds = branchProbeIds[nodeIdx];
+		for (int i = 0; i < probeIds.length; i++) {
+			if (probeIds[i] == probeId) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	public int getBranchTarget(int nodeIdx, int branchIdx) {
+		return branchTargets[nodeIdx][branchIdx];
+	}
+
+	public int getBranchId(int nodeIdx, int branchIdx) {
+		return branchIds[nodeIdx][branchIdx];
+	}
+
+	public int getBranchFrom(int branchId) {
+		return branchFrom[branchId];
+	}
+
+	public int getBranchTo(int branchId) {
+		return branchTo[branchId];
+	}
+
+	public int getStartNodeIdx() {
+		return startNodeIdx;
+	}
+
+	public int getNodeNum() {
+		return branchTargets.length;
+	}
+
+	public int getBranchNum() {
+		return branchFrom.length;
+	}
+
+	public int getProbeNum() {
+		return probeNum;
+	}
+}
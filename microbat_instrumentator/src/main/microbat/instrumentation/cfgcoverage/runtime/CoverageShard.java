@@ -0,0 +1,76 @@
+package microbat.instrumentation.cfgcoverage.runtime;
+
+import java.util.List;
+
+import microbat.instrumentation.cfgcoverage.graph.CoverageSFNode;
+import microbat.instrumentation.cfgcoverage.graph.CoverageSFlowGraph;
+
+/**
+ * Coverage of a testcase on a single thread.
+ * A shard is only written by its own thread, without any lock, and is merged into the coverage
+ * graph (under the graph lock) when the testcase exits or when the coverage is stored, so tests
+ * running in parallel threads do not share any list of the graph while running.
+ *
+ * @author lyly
+ */
+public class CoverageShard {
+	private CoverageProbes probes;
+	private String testcase;
+	private boolean[] coveredNodes;
+	private boolean[] coveredBranches;
+	private volatile boolean closed = false;
+
+	public CoverageShard(String testcase, CoverageProbes probes) {
+		this.testcase = testcase;
+		this.probes = probes;
+		coveredNodes = new boolean[probes.getNodeNum()];
+		coveredBranches = new boolean[probes.getBranchNum()];
+	}
+
+	public void markNode(int cvgIdx) {
+		coveredNodes[cvgIdx] = true;
+	}
+
+	/**
+	 * @param branchIdx
+	 *            index of the branch in the branch targets of node fromIdx.
+	 */
+	public void markBranch(int fromIdx, int branchIdx) {
+		coveredBranches[probes.getBranchId(fromIdx, branchIdx)] = true;
+	}
+
+	/**
+	 * merging is idempotent, the same shard can be merged more than once.
+	 */
+	public void mergeInto(CoverageSFlowGraph coverageGraph) {
+		List<CoverageSFNode> nodeList = coverageGraph.getNodeList();
+		synchronized (coverageGraph) {
+			for (int i = 0; i < coveredNodes.length; i++) {
+				if (coveredNodes[i]) {
+					nodeList.get(i).addCoveredTestcase(testcase);
+				}
+			}
+			for (int i = 0; i < coveredBranches.length; i++) {
+				if (coveredBranches[i]) {
+					nodeList.get(probes.getBranchFrom(i)).markCoveredBranch(nodeList.get(probes.getBranchTo(i)),
+							testcase);
+				}
+			}
+		}
+	}
+
+	/**
+	 * the testcase has exited (or the coverage is reset), the shard is no longer merged.
+	 */
+	public void close() {
+		this.closed = true;
+	}
+
+	public boolean isClosed() {
+		return closed;
+	}
+
+	public String getTestcase() {
+		return testcase;
+	}
+}
@@ -1,28 +1,29 @@
 package microbat.instrumentation.cfgcoverage.runtime;
 
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import microbat.instrumentation.AgentLogger;
 import microbat.instrumentation.cfgcoverage.InstrumentationUtils;
 import microbat.instrumentation.cfgcoverage.graph.CFGInstance.UniqueNodeId;
 import microbat.instrumentation.cfgcoverage.graph.CoverageSFNode;
 import microbat.instrumentation.cfgcoverage.graph.CoverageSFNode.Type;
+import microbat.instrumentation.cfgcoverage.runtime.value.MethodInputCapture;
 import microbat.instrumentation.cfgcoverage.runtime.value.ValueExtractor;
 import microbat.instrumentation.runtime.ITracer;
 import microbat.instrumentation.runtime.TracingState;
-import microbat.model.BreakPointValue;
 import microbat.model.ClassLocation;
 import sav.common.core.SavRtException;
 
 public class CoverageTracer implements ICoverageTracer, ITracer {
 	public static CoverageTracerStore rtStore = new CoverageTracerStore();
-	public static volatile Map<Integer, List<MethodExecutionData>> methodExecsOnASingleTcMap = new HashMap<>();
+	public static volatile Map<Integer, List<MethodExecutionData>> methodExecsOnASingleTcMap = new ConcurrentHashMap<>();
 
 	protected long threadId;
-	private String testcase;
+	private CoverageShard shard;
 	private int testIdx;
 	private TracingState state = TracingState.INIT;
 	private ValueExtractor valueExtractor = new ValueExtractor();
@@ -33,7 +34,7 @@ public class CoverageTracer implements ICoverageTracer, ITracer {
 	public CoverageTracer(long threadId, int testIdx) {
 		this.threadId = threadId;
 		this.testIdx = testIdx;
-		this.testcase = AgentRuntimeData.coverageFlowGraph.getCoveredTestcases().get(testIdx);
+		this.shard = AgentRuntimeData.getShard(threadId, testIdx);
 	}
 	
 	@Override
@@ -44,20 +45,26 @@ public class CoverageTracer implements ICoverageTracer, ITracer {
 		if (currentNode == null) {
 			currentNode = AgentRuntimeData.coverageFlowGraph.getStartNode();
 		} else {
-			CoverageSFNode branch = currentNode.getCorrespondingBranch(methodId, nodeIdx);
-			if (branch != null) {
-				currentNode.markCoveredBranch(branch, testcase);
-				currentNode = branch;
+			int branchIdx = currentNode.getCorrespondingBranchIdx(methodId, nodeIdx);
+			if (branchIdx >= 0) {
+				shard.markBranch(currentNode.getCvgIdx(), branchIdx);
+				currentNode = currentNode.getBranchTargets().get(branchIdx);
 			} else {
 				if (!currentNode.isAliasNode()) {
 					AgentLogger.debug(String.format("cannot find branch %s:%d of node %d [testcase=%s]", methodId, nodeIdx,
-							currentNode.getCvgIdx(), testcase));
+							currentNode.getCvgIdx(), shard.getTestcase()));
 				}
 				return;
 			}
 		}
 		methodExecData.appendExecPath(currentNode);
-		currentNode.addCoveredTestcase(testcase);
+		shard.markNode(currentNode.getCvgIdx());
+	}
+	
+	@Override
+	public int _reachProbe(int node, int probeId) {
+		/* only used in probe coverage mode */
+		return node;
 	}
 	
 	
@@ -71,13 +78,13 @@ public class CoverageTracer implements ICoverageTracer, ITracer {
 			methodExecData = new MethodExecutionData(testIdx);
 			List<MethodExecutionData> list = methodExecsOnASingleTcMap.get(testIdx);
 			if (list == null) {
-				list = new ArrayList<>(1);
+				list = Collections.synchronizedList(new ArrayList<MethodExecutionData>(1));
 				methodExecsOnASingleTcMap.put(testIdx, list);
 			}
 			list.add(methodExecData);
-			BreakPointValue methodInput = valueExtractor.extractInputValue(String.valueOf(testIdx), 
+			MethodInputCapture methodInput = valueExtractor.captureInputValue(String.valueOf(testIdx),
 					loc.getClassCanonicalName(), loc.getMethodSign(), paramTypeSignsCode, paramNamesCode, params, receiver);
-			methodExecData.setMethodInputValue(methodInput);
+			methodExecData.setMethodInputCapture(methodInput);
 		}
 		methodHierachyLevel++;
 	}
@@ -179,7 +186,7 @@ public class CoverageTracer implements ICoverageTracer, ITracer {
 	
 	/* end of collect condition variation value part */
 	
-	public synchronized static ICoverageTracer _getTracer(String methodId, boolean isEntryPoint, String paramNamesCode,
+	public static ICoverageTracer _getTracer(String methodId, boolean isEntryPoint, String paramNamesCode,
 			String paramTypeSignsCode, Object[] params, Object receiver) {
 		try {
 			long threadId = Thread.currentThread().getId();
@@ -25,7 +25,7 @@ public class CoverageTracerStore {
 		return null;
 	}
 	
-	public CoverageTracer create(long threadId, int testCaseIdx) {
+	public synchronized CoverageTracer create(long threadId, int testCaseIdx) {
 		CoverageTracer tracer = new CoverageTracer(threadId, testCaseIdx);
 		ensureSize(++lastUsedIdx);
 		rtStore[lastUsedIdx] = tracer;
@@ -38,7 +38,7 @@ public class CoverageTracerStore {
 		}
 	}
 	
-	public void clear() {
+	public synchronized void clear() {
 		for (int i = 0; i <= lastUsedIdx; i++) {
 			rtStore[i] = null;
 		}
@@ -11,6 +11,11 @@ public class EmptyCoverageTracer implements ICoverageTracer {
 	public void _reachNode(String methodId, int nodeIdx) {
 		
 	}
+
+	@Override
+	public int _reachProbe(int node, int probeId) {
+		return node;
+	}
 	
 	@Override
 	public void enterMethod(String methodId, String paramTypeSignsCode, String paramNamesCode, Object[] params,
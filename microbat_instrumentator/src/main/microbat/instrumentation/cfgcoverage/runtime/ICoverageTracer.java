@@ -4,6 +4,8 @@ public interface ICoverageTracer {
 
 	void _reachNode(String methodId, int nodeIdx);
 
+	int _reachProbe(int node, int probeId);
+
 	void enterMethod(String methodId, String paramTypeSignsCode, String paramNamesCode, Object[] params, boolean isEntryPoint, Object receiver);
 
 	void _exitMethod(String methodId, boolean isEntryPoint);
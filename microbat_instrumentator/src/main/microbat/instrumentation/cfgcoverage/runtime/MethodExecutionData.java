@@ -1,5 +1,7 @@
 package microbat.instrumentation.cfgcoverage.runtime;
 
+import java.io.IOException;
+import java.io.ObjectOutputStream;
 import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.HashMap;
@@ -10,12 +12,15 @@ import java.util.Map.Entry;
 import microbat.instrumentation.cfgcoverage.graph.Branch;
 import microbat.instrumentation.cfgcoverage.graph.CoverageSFNode;
 import microbat.instrumentation.cfgcoverage.graph.CoverageSFlowGraph;
+import microbat.instrumentation.cfgcoverage.runtime.value.MethodInputCapture;
+import microbat.instrumentation.cfgcoverage.runtime.value.ValueExtractor;
 import microbat.model.BreakPointValue;
 
 public class MethodExecutionData implements Serializable {
 	private static final long serialVersionUID = 2224373310288325990L;
 	private int testIdx;
 	private BreakPointValue methodInputValue;
+	private transient MethodInputCapture methodInputCapture;
 	private List<Integer> execPath; // coverageSFNode.idx
 	private transient Map<Integer, Double> conditionVariationMap; // variation is always (b - a)
 	private Map<String, Double> branchFitnessMap;
@@ -42,9 +47,27 @@ public class MethodExecutionData implements Serializable {
 		this.testIdx = testIdx;
 	}
 
-	public BreakPointValue getMethodInputValue() {
+	public synchronized BreakPointValue getMethodInputValue() {
+		if (methodInputValue == null && methodInputCapture != null) {
+			methodInputValue = methodInputCapture.toBreakPointValue(new ValueExtractor());
+			methodInputCapture = null;
+		}
 		return methodInputValue;
 	}
+	
+	/**
+	 * the input value is materialized on the first {@link #getMethodInputValue()}, at the latest
+	 * when the data is serialized.
+	 */
+	public synchronized void setMethodInputCapture(MethodInputCapture methodInputCapture) {
+		this.methodInputCapture = methodInputCapture;
+		this.methodInputValue = null;
+	}
+	
+	private void writeObject(ObjectOutputStream out) throws IOException {
+		getMethodInputValue();
+		out.defaultWriteObject();
+	}
 
 	public void setMethodInputValue(BreakPointValue methodInputValue) {
 		this.methodInputValue = methodInputValue;
@@ -0,0 +1,82 @@
+package microbat.instrumentation.cfgcoverage.runtime;
+
+import microbat.instrumentation.AgentLogger;
+
+/**
+ * Branch coverage recorded with probe ids.
+ * Unlike {@link BranchCoverageTracer}, which is created on every method entry, there is one
+ * tracer per thread and testcase and the instrumented code passes int probe ids (see
+ * {@link CoverageProbes}) instead of method id strings. Hits are recorded into the
+ * {@link CoverageShard} of the testcase.
+ * The current node of a frame is kept in a local variable of the instrumented method and passed
+ * back on each probe, since the same probe instruction can belong to several nodes of the graph
+ * (callees are inlined) and the node to move to depends on the node the frame is in.
+ *
+ * @author lyly
+ */
+public class ProbeCoverageTracer extends EmptyCoverageTracer implements ICoverageTracer {
+	private static final ThreadLocal<ProbeCoverageTracer> currentTracer = new ThreadLocal<>();
+	private CoverageProbes probes;
+	private CoverageShard shard;
+	private int testIdx;
+	private int testStartCount;
+
+	public ProbeCoverageTracer(CoverageShard shard, int currentTcIdx, int testStartCount) {
+		this.probes = AgentRuntimeData.coverageProbes;
+		this.shard = shard;
+		this.testIdx = currentTcIdx;
+		this.testStartCount = testStartCount;
+	}
+
+	/**
+	 * @param node
+	 *            the current node of the frame, negative if the frame has not reached any node yet.
+	 * @return the new current node of the frame.
+	 */
+	@Override
+	public int _reachProbe(int node, int probeId) {
+		if (shard.isClosed()) {
+			return node;
+		}
+		int next;
+		if (node < 0) {
+			next = probes.getStartNodeIdx();
+		} else {
+			int branchIdx = probes.findBranch(node, probeId);
+			if (branchIdx < 0) {
+				return node;
+			}
+			shard.markBranch(node, branchIdx);
+			next = probes.getBranchTarget(node, branchIdx);
+		}
+		shard.markNode(next);
+		return next;
+	}
+
+	public static ICoverageTracer _getTracer() {
+		ProbeCoverageTracer tracer = currentTracer.get();
+		int testStartCount = AgentRuntimeData.testStartCount.get();
+		if (tracer != null && !tracer.shard.isClosed() && tracer.testStartCount == testStartCount) {
+			return tracer;
+		}
+		try {
+			long threadId = Thread.currentThread().getId();
+			Integer currentTcIdx = AgentRuntimeData.currentTestIdxMap.get(threadId);
+			if (currentTcIdx == null) {
+				return EmptyCoverageTracer.getInstance();
+			}
+			if (tracer != null && !tracer.shard.isClosed() && tracer.testIdx == currentTcIdx) {
+				/* another test has started, but not on this thread */
+				tracer.testStartCount = testStartCount;
+				return tracer;
+			}
+			tracer = new ProbeCoverageTracer(AgentRuntimeData.getShard(threadId, currentTcIdx), currentTcIdx,
+					testStartCount);
+			currentTracer.set(tracer);
+			return tracer;
+		} catch (Throwable t) {
+			AgentLogger.error(t);
+			return EmptyCoverageTracer.getInstance();
+		}
+	}
+}
@@ -0,0 +1,72 @@
+package microbat.instrumentation.cfgcoverage.runtime.value;
+
+import microbat.instrumentation.runtime.TraceUtils;
+import microbat.model.BreakPointValue;
+import microbat.model.value.VarValue;
+import microbat.model.variable.LocalVar;
+import microbat.model.variable.Variable;
+
+/**
+ * Input of a target method execution, captured at the method entry.
+ * Primitive and String parameters are immutable, so their values are only kept in a flat buffer
+ * and their {@link VarValue}s are built when the input is materialized (when the output is
+ * written). The receiver and the other parameters can still change during the execution, so
+ * their values are extracted at the method entry.
+ * 
+ * @author lyly
+ */
+public class MethodInputCapture {
+	private String valueId;
+	private String className;
+	private ParamDescriptor[] params;
+	private int variableLayer;
+	private VarValue receiverValue;
+	private Object[] flatValues;
+	private VarValue[] extractedValues;
+
+	MethodInputCapture(String valueId, String className, ParamDescriptor[] params, int variableLayer) {
+		this.valueId = valueId;
+		this.className = className;
+		this.params = params;
+		this.variableLayer = variableLayer;
+		this.flatValues = new Object[params.length];
+		this.extractedValues = new VarValue[params.length];
+	}
+
+	void setReceiverValue(VarValue receiverValue) {
+		this.receiverValue = receiverValue;
+	}
+
+	void setFlatValue(int paramIdx, Object value) {
+		flatValues[paramIdx] = value;
+	}
+
+	void setExtractedValue(int paramIdx, VarValue value) {
+		extractedValues[paramIdx] = value;
+	}
+
+	static Variable createParamVar(String className, ParamDescriptor param, Object value) {
+		Variable var = new LocalVar(param.getName(), param.getTypeName(), className, -1);
+		var.setVarID(param.getName());
+		if (param.hasAliasId()) {
+			var.setAliasVarID(TraceUtils.getObjectVarId(value, param.getTypeSign()));
+		}
+		return var;
+	}
+
+	public BreakPointValue toBreakPointValue(ValueExtractor valueExtractor) {
+		BreakPointValue bkpValue = new BreakPointValue(valueId);
+		if (receiverValue != null) {
+			bkpValue.addChild(receiverValue);
+		}
+		for (int i = 0; i < params.length; i++) {
+			VarValue value = extractedValues[i];
+			if (params[i].isFlatValue()) {
+				Variable var = createParamVar(className, params[i], flatValues[i]);
+				value = valueExtractor.doAppendVarValue(flatValues[i], var, null, variableLayer);
+			}
+			bkpValue.addChild(value);
+		}
+		return bkpValue;
+	}
+}
@@ -0,0 +1,47 @@
+package microbat.instrumentation.cfgcoverage.runtime.value;
+
+import microbat.instrumentation.utils.TypeSignatureConverter;
+import microbat.util.PrimitiveUtils;
+
+/**
+ * Parameter of a target method, computed once per method from the encoded parameter types and
+ * names passed by the instrumented code.
+ * 
+ * @author lyly
+ */
+public class ParamDescriptor {
+	private String name;
+	private String typeSign;
+	private String typeName;
+	/* a primitive or String parameter, which is captured as is and converted into VarValue later */
+	private boolean flatValue;
+	private boolean hasAliasId;
+
+	public ParamDescriptor(String name, String typeSign) {
+		this.name = name;
+		this.typeSign = typeSign;
+		this.typeName = TypeSignatureConverter.convertToClassName(typeSign);
+		this.flatValue = PrimitiveUtils.isString(typeName) || PrimitiveUtils.isPrimitive(typeName);
+		this.hasAliasId = !PrimitiveUtils.isPrimitive(typeSign);
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public String getTypeSign() {
+		return typeSign;
+	}
+
+	public String getTypeName() {
+		return typeName;
+	}
+
+	public boolean isFlatValue() {
+		return flatValue;
+	}
+
+	public boolean hasAliasId() {
+		return hasAliasId;
+	}
+}
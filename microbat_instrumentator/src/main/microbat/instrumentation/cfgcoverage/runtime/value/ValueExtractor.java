@@ -3,12 +3,14 @@ package microbat.instrumentation.cfgcoverage.runtime.value;
 import java.lang.reflect.Array;
 import java.lang.reflect.Field;
 import java.lang.reflect.Modifier;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import microbat.instrumentation.AgentLogger;
 import microbat.instrumentation.runtime.HeuristicIgnoringFieldRule;
 import microbat.instrumentation.runtime.TraceUtils;
-import microbat.instrumentation.utils.TypeSignatureConverter;
 import microbat.model.BreakPointValue;
 import microbat.model.value.ArrayValue;
 import microbat.model.value.PrimitiveValue;
@@ -18,7 +20,6 @@ import microbat.model.value.VarValue;
 import microbat.model.variable.ArrayElementVar;
 import microbat.model.variable.ConstantVar;
 import microbat.model.variable.FieldVar;
-import microbat.model.variable.LocalVar;
 import microbat.model.variable.Variable;
 import microbat.util.PrimitiveUtils;
 
@@ -29,30 +30,57 @@ import microbat.util.PrimitiveUtils;
  */
 public class ValueExtractor {
 	public static int variableLayer = 1; //just default
+	/* the caches below are shared by the tracers of all threads */
+	private static final Map<String, ParamDescriptor[]> paramDescriptorsMap = new ConcurrentHashMap<>();
+	private static final Map<Class<?>, FieldAccessPlan> fieldAccessPlans = new ConcurrentHashMap<>();
+	private static final Map<String, String> arrayComponentTypes = new ConcurrentHashMap<>();
 
 	public BreakPointValue extractInputValue(String valueId, String className,
 			Object methodSignature, String paramTypeSignsCode, String paramNamesCode, Object[] params, Object receiver) {
-		String[] parameterTypes = TraceUtils.parseArgTypesOrNames(paramTypeSignsCode);
-		String[] parameterNames = TraceUtils.parseArgTypesOrNames(paramNamesCode);
-		BreakPointValue bkpValue = new BreakPointValue(valueId);
-		Variable receiverVar = new ConstantVar("this", receiver.getClass().getName());
-		receiverVar.setVarID("this");
-		VarValue receiverValue = appendVarValue(receiver, receiverVar, null, variableLayer + 1);
-		bkpValue.addChild(receiverValue);
-		for(int i=0; i<parameterTypes.length; i++){
-			String pType = parameterTypes[i];
-			String parameterType = TypeSignatureConverter.convertToClassName(pType);
-			String varName = parameterNames[i];
-			Variable var = new LocalVar(varName, parameterType, className, -1);
-			var.setVarID(varName);
-			if(!PrimitiveUtils.isPrimitive(pType)){
-				String aliasID = TraceUtils.getObjectVarId(params[i], pType);
-				var.setAliasVarID(aliasID);				
+		return captureInputValue(valueId, className, methodSignature, paramTypeSignsCode, paramNamesCode, params,
+				receiver).toBreakPointValue(this);
+	}
+	
+	/**
+	 * same as {@link #extractInputValue}, but the values of primitive and String parameters are
+	 * not converted into VarValue until {@link MethodInputCapture#toBreakPointValue(ValueExtractor)}.
+	 */
+	public MethodInputCapture captureInputValue(String valueId, String className, Object methodSignature,
+			String paramTypeSignsCode, String paramNamesCode, Object[] params, Object receiver) {
+		ParamDescriptor[] paramDescriptors = getParamDescriptors(className, methodSignature, paramTypeSignsCode,
+				paramNamesCode);
+		MethodInputCapture capture = new MethodInputCapture(valueId, className, paramDescriptors, variableLayer);
+		if (receiver != null) {
+			Variable receiverVar = new ConstantVar("this", receiver.getClass().getName());
+			receiverVar.setVarID("this");
+			capture.setReceiverValue(appendVarValue(receiver, receiverVar, null, variableLayer + 1));
+		}
+		for (int i = 0; i < paramDescriptors.length; i++) {
+			ParamDescriptor param = paramDescriptors[i];
+			if (param.isFlatValue()) {
+				capture.setFlatValue(i, params[i]);
+			} else {
+				Variable var = MethodInputCapture.createParamVar(className, param, params[i]);
+				capture.setExtractedValue(i, appendVarValue(params[i], var, null, variableLayer));
 			}
-			VarValue value = appendVarValue(params[i], var, null, variableLayer);
-			bkpValue.addChild(value);
 		}
-		return bkpValue;
+		return capture;
+	}
+	
+	private static ParamDescriptor[] getParamDescriptors(String className, Object methodSignature,
+			String paramTypeSignsCode, String paramNamesCode) {
+		String key = className + "#" + methodSignature;
+		ParamDescriptor[] paramDescriptors = paramDescriptorsMap.get(key);
+		if (paramDescriptors == null) {
+			String[] parameterTypes = TraceUtils.parseArgTypesOrNames(paramTypeSignsCode);
+			String[] parameterNames = TraceUtils.parseArgTypesOrNames(paramNamesCode);
+			paramDescriptors = new ParamDescriptor[parameterTypes.length];
+			for (int i = 0; i < parameterTypes.length; i++) {
+				paramDescriptors[i] = new ParamDescriptor(parameterNames[i], parameterTypes[i]);
+			}
+			paramDescriptorsMap.put(key, paramDescriptors);
+		}
+		return paramDescriptors;
 	}
 	
 	private VarValue appendVarValue(Object value, Variable var, VarValue parent, int varLayerLimit) {
@@ -71,9 +99,8 @@ public class ValueExtractor {
 			varValue = new PrimitiveValue(String.valueOf(value), isRoot, var);
 		} else if(var.getType().startsWith("[")) { // array type
 			try {
-				Class<?> arrType = Class.forName(var.getType());/* array */
 				ArrayValue arrVal = new ArrayValue(value == null, isRoot, var);
-				arrVal.setComponentType(arrType.getComponentType().getName()); // 2 = "[]".length
+				arrVal.setComponentType(getArrayComponentType(var.getType()));
 				varValue = arrVal;
 				if (value == null) {
 					arrVal.setNull(true);
@@ -104,39 +131,25 @@ public class ValueExtractor {
 			if (value != null) {
 				Class<?> objClass = value.getClass();
 				var.setRtType(objClass.getName());
-				boolean needParseFields = HeuristicIgnoringFieldRule.isNeedParsingFields(objClass);
-				boolean isCollectionOrHashMap = HeuristicIgnoringFieldRule.isCollectionClass(objClass)
-						|| HeuristicIgnoringFieldRule.isHashMapClass(objClass);
-				if (needParseFields) {
-					List<Field> validFields = HeuristicIgnoringFieldRule.getValidFields(objClass, value);
-					for (Field field : validFields) {
-						field.setAccessible(true);
-						try {
-							Object fieldValue = field.get(value);
-							Class<?> fieldType = field.getType();
-							String fieldTypeStr = fieldType.getName();
-//							if (fieldType.isArray()) {
-//								fieldTypeStr = SignatureUtils.signatureToName(fieldTypeStr);
-//							}
-							if(fieldType.isEnum()){
-								if(fieldTypeStr.equals(var.getType())){
-									continue;
-								}
-							}
-							if(fieldValue != null){
-								FieldVar fieldVar = new FieldVar(Modifier.isStatic(field.getModifiers()),
-										field.getName(), fieldTypeStr, field.getDeclaringClass().getName());
-								fieldVar.setVarID(ExecVarHelper.getFieldId(var.getVarID(), field.getName()));
-								if (isCollectionOrHashMap && HeuristicIgnoringFieldRule
-										.isCollectionOrMapElement(var.getRuntimeType(), field.getName())) {
-									doAppendVarValue(fieldValue, fieldVar, refVal, retrieveLayer);
-								} else {
-									doAppendVarValue(fieldValue, fieldVar, refVal, retrieveLayer - 1);
-								}
+				FieldAccessPlan plan = getFieldAccessPlan(objClass);
+				for (FieldAccess fieldAccess : plan.fields) {
+					try {
+						Object fieldValue = fieldAccess.field.get(value);
+						if (fieldAccess.isEnum && fieldAccess.typeName.equals(var.getType())) {
+							continue;
+						}
+						if (fieldValue != null) {
+							FieldVar fieldVar = new FieldVar(fieldAccess.isStatic, fieldAccess.name,
+									fieldAccess.typeName, fieldAccess.declaringClassName);
+							fieldVar.setVarID(ExecVarHelper.getFieldId(var.getVarID(), fieldAccess.name));
+							if (fieldAccess.isElement) {
+								doAppendVarValue(fieldValue, fieldVar, refVal, retrieveLayer);
+							} else {
+								doAppendVarValue(fieldValue, fieldVar, refVal, retrieveLayer - 1);
 							}
-						} catch (Exception e) {
-							handleException(e);
 						}
+					} catch (Exception e) {
+						handleException(e);
 					}
 				}
 			}
@@ -147,6 +160,68 @@ public class ValueExtractor {
 		return varValue;
 	}
 
+	private static String getArrayComponentType(String arrayType) throws ClassNotFoundException {
+		String componentType = arrayComponentTypes.get(arrayType);
+		if (componentType == null) {
+			Class<?> arrType = Class.forName(arrayType);/* array */
+			componentType = arrType.getComponentType().getName();
+			arrayComponentTypes.put(arrayType, componentType);
+		}
+		return componentType;
+	}
+	
+	/**
+	 * the fields to read of an object class, with the information to create their FieldVar, are
+	 * resolved and made accessible once per class.
+	 */
+	private static FieldAccessPlan getFieldAccessPlan(Class<?> objClass) {
+		FieldAccessPlan plan = fieldAccessPlans.get(objClass);
+		if (plan != null) {
+			return plan;
+		}
+		plan = new FieldAccessPlan();
+		if (HeuristicIgnoringFieldRule.isNeedParsingFields(objClass)) {
+			boolean isCollectionOrHashMap = HeuristicIgnoringFieldRule.isCollectionClass(objClass)
+					|| HeuristicIgnoringFieldRule.isHashMapClass(objClass);
+			List<FieldAccess> fields = new ArrayList<>();
+			for (Field field : HeuristicIgnoringFieldRule.getValidFields(objClass, null)) {
+				try {
+					field.setAccessible(true);
+				} catch (RuntimeException e) {
+					/* not accessible on this jvm, cannot be read */
+					continue;
+				}
+				FieldAccess fieldAccess = new FieldAccess();
+				fieldAccess.field = field;
+				fieldAccess.name = field.getName();
+				fieldAccess.typeName = field.getType().getName();
+				fieldAccess.declaringClassName = field.getDeclaringClass().getName();
+				fieldAccess.isStatic = Modifier.isStatic(field.getModifiers());
+				fieldAccess.isEnum = field.getType().isEnum();
+				fieldAccess.isElement = isCollectionOrHashMap
+						&& HeuristicIgnoringFieldRule.isCollectionOrMapElement(objClass.getName(), field.getName());
+				fields.add(fieldAccess);
+			}
+			plan.fields = fields.toArray(new FieldAccess[fields.size()]);
+		}
+		fieldAccessPlans.put(objClass, plan);
+		return plan;
+	}
+	
+	private static class FieldAccessPlan {
+		FieldAccess[] fields = new FieldAccess[0];
+	}
+	
+	private static class FieldAccess {
+		Field field;
+		String name;
+		String typeName;
+		String declaringClassName;
+		boolean isStatic;
+		boolean isEnum;
+		boolean isElement;
+	}
+
 	private void handleException(Throwable t) {
 		if (t.getMessage() != null) {
 			AgentLogger.info("ExecutionTracer error: " + t.getMessage());
@@ -43,6 +43,18 @@ public class CodeRangeEntry {
 		return entries;
 	}
 	
+	public boolean contains(String className, int line) {
+		return this.className.equals(className) && line >= startLine && line <= endLine;
+	}
+	
+	/**
+	 * whether the range hits the lines [startLine, endLine] of the class.
+	 */
+	public boolean overlaps(String className, int startLine, int endLine) {
+		return this.className.equals(className)
+				&& Math.max(startLine, this.startLine) <= Math.min(endLine, this.endLine);
+	}
+	
 	@Override
 	public String toString() {
 		return StringUtils.dotJoin(className, startLine, endLine);
@@ -60,37 +60,20 @@ public class CodeRangeUserFilter extends AbstractUserFilter {
 	private boolean isLineInRange(LineInstructionInfo info, String className, Method method) {
 		// FIXME XUEZHI [6]
 		for (CodeRangeEntry entry : list) {
-			if (entry.getClassName().equals(className) && isBetweenStartAndEndLine(info, entry)) {
+			if (entry.contains(className, info.getLine())) {
 				return true;
 			}
 		}
 		return false;
 	}
 
-	private boolean isBetweenStartAndEndLine(LineInstructionInfo info, CodeRangeEntry entry) {
-		boolean result = false;
-		int lineNum = info.getLine();
-		if (lineNum >= entry.getStartLine() && lineNum <= entry.getEndLine()) {
-			result = true;
-		}
-		return result;
-
-	}
-
 	// whether codeRange hits the method
 	private boolean isHitMethod(Method method, CodeRangeEntry entry) {
-		boolean result = false;
 		LineNumber[] lineNumbers = method.getLineNumberTable().getLineNumberTable();
 
 		// CodeRange hits method body means the two sets overlap
 		int mbsl = lineNumbers[0].getLineNumber(); // methodBodyStartLine
 		int mbel = lineNumbers[lineNumbers.length - 1].getLineNumber(); // methodBodyEndLine
-		int crsl = entry.getStartLine(); // codeRangeStartLine
-		int crel = entry.getEndLine(); // codeRangeEndLine
-
-		if (Math.max(mbsl, crsl) <= Math.min(mbel, crel)) {
-			result = true;
-		}
-		return result;
+		return entry.overlaps(entry.getClassName(), mbsl, mbel);
 	}
 }
@@ -2,9 +2,12 @@ package microbat.instrumentation.filter;
 
 import java.io.File;
 import java.util.ArrayList;
-import java.util.HashSet;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 import microbat.model.trace.Trace;
 import sav.common.core.utils.StringUtils;
@@ -14,12 +17,25 @@ public class GlobalFilterChecker {
 	private static final GlobalFilterChecker checker = new GlobalFilterChecker();
 	
 	private List<String> appBinFolders;
+	private List<File> appBinFolderFiles;
 	private List<String> extLibs;
 	private List<String> bootstrapIncludes = new ArrayList<>();
-	private Set<String> includes = new HashSet<>();
+	/* can be updated by class loading threads and read by pre-transform threads at the same time */
+	private Set<String> includes = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
 	private WildcardMatcher extIncludesMatcher; // className
 	private WildcardMatcher extExcludesMatcher; // className
 	
+	/*
+	 * every class name checked by the tracer gets an int id, app classes are marked in appClassBits 
+	 * when they are registered at instrumentation time, so that the check at runtime is only a bit test.
+	 * classIdCache is looked up with the className given by the instrumented code (a constant string),
+	 * to avoid building a new string or hashing the name on every callback.
+	 */
+	private static final int CLASS_ID_CACHE_SIZE = 1024;
+	private Map<String, Integer> classIds = new ConcurrentHashMap<>();
+	private volatile long[] appClassBits = new long[64];
+	private final ClassIdEntry[] classIdCache = new ClassIdEntry[CLASS_ID_CACHE_SIZE];
+	
 	private List<String> includedLibraryClasses = new ArrayList<>();
 	private List<String> excludedLibraryClasses = new ArrayList<>();
 	
@@ -30,6 +46,7 @@ public class GlobalFilterChecker {
 	public void startup(AppJavaClassPath appClasspath, String includeExpression, String excludeExpression) {
 		extLibs = new ArrayList<>();
 		appBinFolders = new ArrayList<>();
+		appBinFolderFiles = new ArrayList<>();
 		String workingDir = getPath(appClasspath.getWorkingDirectory());
 		for (String cp : appClasspath.getClasspaths()) {
 			String path = getPath(cp);
@@ -41,6 +58,7 @@ public class GlobalFilterChecker {
 					if (binFolder.exists() && binFolder.isDirectory()) {
 						path = getDir(path);
 						appBinFolders.add(path);
+						appBinFolderFiles.add(binFolder);
 					}
 				}
 			}
@@ -97,7 +115,7 @@ public class GlobalFilterChecker {
 					if (binFolder.equals(getDir(path))) {
 						match = true;
 						isExtLib = false;
-						includes.add(classFName);
+						registerAppClass(classFName);
 						break;
 					}
 				}
@@ -146,14 +164,60 @@ public class GlobalFilterChecker {
 	}
 	
 	public boolean checkExclusive(String className, String methodName) {
-		String classFName = className.replace(".", "/");
-		return !includes.contains(classFName) /* && !bootstrapIncludes.contains(classFName) */;
+		return checkExclusive(getClassId(className)) /* && !bootstrapIncludes.contains(classFName) */;
+	}
+	
+	public boolean checkExclusive(int classId) {
+		long[] bits = appClassBits;
+		int idx = classId >>> 6;
+		return idx >= bits.length || (bits[idx] & (1l << classId)) == 0;
+	}
+	
+	private void registerAppClass(String classFName) {
+		includes.add(classFName);
+		int classId = getClassId(getClassName(classFName));
+		synchronized (classIds) {
+			long[] bits = appClassBits;
+			int idx = classId >>> 6;
+			if (idx >= bits.length) {
+				bits = Arrays.copyOf(bits, Math.max(bits.length * 2, idx + 1));
+			}
+			bits[idx] |= (1l << classId);
+			appClassBits = bits;
+		}
+	}
+	
+	/**
+	 * @param className canonical class name (with ".")
+	 */
+	public int getClassId(String className) {
+		int slot = className.hashCode() & (CLASS_ID_CACHE_SIZE - 1);
+		ClassIdEntry entry = classIdCache[slot];
+		if (entry != null && (entry.className == className || entry.className.equals(className))) {
+			return entry.classId;
+		}
+		Integer classId = classIds.get(className);
+		if (classId == null) {
+			synchronized (classIds) {
+				classId = classIds.get(className);
+				if (classId == null) {
+					classId = classIds.size();
+					classIds.put(className, classId);
+				}
+			}
+		}
+		classIdCache[slot] = new ClassIdEntry(className, classId);
+		return classId;
 	}
 	
 	public static boolean isExclusive(String className, String methodName) {
 		return checker.checkExclusive(className, methodName);
 	}
 	
+	public static boolean isExclusive(int classId) {
+		return checker.checkExclusive(classId);
+	}
+	
 	public static boolean isTransformable(String classFName, String path, boolean isBootstrap) {
 		return checker.checkTransformable(classFName, path, isBootstrap);
 	}
@@ -185,4 +249,18 @@ public class GlobalFilterChecker {
 	public List<String> getIncludedLibraryClasses() {
 		return includedLibraryClasses;
 	}
+	
+	public List<File> getAppBinFolders() {
+		return appBinFolderFiles;
+	}
+	
+	private static class ClassIdEntry {
+		final String className;
+		final int classId;
+		
+		public ClassIdEntry(String className, int classId) {
+			this.className = className;
+			this.classId = classId;
+		}
+	}
 }
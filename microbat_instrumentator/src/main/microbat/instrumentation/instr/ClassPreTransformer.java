@@ -0,0 +1,150 @@
+package microbat.instrumentation.instr;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import microbat.instrumentation.AgentLogger;
+import microbat.instrumentation.AgentParams;
+import microbat.instrumentation.filter.GlobalFilterChecker;
+
+/**
+ * @author LLT
+ *
+ * Instrument all classes in the application binary folders in background at agent startup,
+ * so that when a class is loaded, TraceTransformer only needs to pick up the precomputed bytes.
+ * The instrumentation is done in parallel on a fork-join pool, each task uses its own instrumenter
+ * (TraceInstrumenter is not thread-safe).
+ * A class which is loaded before its precomputed bytes are ready is instrumented on the loading
+ * thread as usual, and is then skipped by the background tasks.
+ */
+public class ClassPreTransformer {
+	private static final int BATCH_SIZE = 16;
+	private TraceTransformer transformer;
+	private AgentParams params;
+	private ForkJoinPool pool;
+	private ConcurrentHashMap<String, PreTransformedClass> results = new ConcurrentHashMap<>();
+	private Set<String> loadedClasses = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+
+	public ClassPreTransformer(TraceTransformer transformer, AgentParams params) {
+		this.transformer = transformer;
+		this.params = params;
+	}
+
+	public void start(List<File> appBinFolders) {
+		List<ClassFile> classFiles = new ArrayList<>();
+		for (File binFolder : appBinFolders) {
+			collectClassFiles(binFolder, binFolder.getPath(), "", classFiles);
+		}
+		AgentLogger.debug("Pre-transform " + classFiles.size() + " classes...");
+		pool = new ForkJoinPool();
+		pool.execute(new PreTransformTask(classFiles, 0, classFiles.size()));
+	}
+
+	/**
+	 * GlobalFilterChecker must be called here (on the startup thread) for all app classes,
+	 * so that they are registered as app classes before the instrumentation starts.
+	 */
+	private void collectClassFiles(File folder, String binFolder, String packagePath, List<ClassFile> classFiles) {
+		File[] files = folder.listFiles();
+		if (files == null) {
+			return;
+		}
+		for (File file : files) {
+			if (file.isDirectory()) {
+				collectClassFiles(file, binFolder, packagePath + file.getName() + "/", classFiles);
+			} else if (file.getName().endsWith(".class")) {
+				String classFName = packagePath + file.getName().substring(0, file.getName().length() - 6);
+				if (GlobalFilterChecker.isTransformable(classFName, binFolder, false)) {
+					classFiles.add(new ClassFile(classFName, file));
+				}
+			}
+		}
+	}
+
+	/**
+	 * @return the precomputed instrumentation of the class, or null if not available
+	 * or the loading bytes are not the same as the ones in the bin folder.
+	 */
+	public InstrumentedClassCache.Entry take(String classFName, byte[] classfileBuffer) {
+		loadedClasses.add(classFName);
+		PreTransformedClass result = results.remove(classFName);
+		if (result != null && Arrays.equals(result.originalBytes, classfileBuffer)) {
+			return result.entry;
+		}
+		return null;
+	}
+
+	public void shutdown() {
+		if (pool != null) {
+			pool.shutdownNow();
+		}
+		results.clear();
+	}
+
+	private class PreTransformTask extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+		private List<ClassFile> classFiles;
+		private int start;
+		private int end;
+
+		public PreTransformTask(List<ClassFile> classFiles, int start, int end) {
+			this.classFiles = classFiles;
+			this.start = start;
+			this.end = end;
+		}
+
+		@Override
+		protected void compute() {
+			if (end - start > BATCH_SIZE) {
+				int mid = (start + end) >>> 1;
+				invokeAll(new PreTransformTask(classFiles, start, mid), new PreTransformTask(classFiles, mid, end));
+				return;
+			}
+			TraceInstrumenter instrumenter = new TraceInstrumenter(params);
+			for (int i = start; i < end; i++) {
+				ClassFile classFile = classFiles.get(i);
+				if (loadedClasses.contains(classFile.classFName)) {
+					continue;
+				}
+				try {
+					byte[] originalBytes = Files.readAllBytes(classFile.file.toPath());
+					InstrumentedClassCache.Entry entry = transformer.instrument(instrumenter, classFile.classFName,
+							originalBytes);
+					if (!loadedClasses.contains(classFile.classFName)) {
+						results.put(classFile.classFName, new PreTransformedClass(originalBytes, entry));
+					}
+				} catch (Throwable e) {
+					AgentLogger.info(String.format("Pre-transform %s failed: %s", classFile.classFName, e.getMessage()));
+				}
+			}
+		}
+	}
+
+	private static class ClassFile {
+		String classFName;
+		File file;
+
+		public ClassFile(String classFName, File file) {
+			this.classFName = classFName;
+			this.file = file;
+		}
+	}
+
+	private static class PreTransformedClass {
+		byte[] originalBytes;
+		InstrumentedClassCache.Entry entry;
+
+		public PreTransformedClass(byte[] originalBytes, InstrumentedClassCache.Entry entry) {
+			this.originalBytes = originalBytes;
+			this.entry = entry;
+		}
+	}
+}
@@ -0,0 +1,233 @@
+package microbat.instrumentation.instr;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import microbat.instrumentation.AgentLogger;
+
+/**
+ * @author LLT
+ *
+ * On-disk cache of instrumented class bytes, shared between agent runs.
+ * An entry is keyed by the digest of the original class bytes and the instrumentation
+ * relevant agent params, so a changed class or a changed configuration is simply a miss.
+ *
+ * Several agents can use the same cache folder at the same time: an entry is written
+ * into a temp file then moved into place, a broken or missing entry is treated as a miss.
+ * Entries are touched on hit, and the least recently used ones are removed when
+ * the folder exceeds the size limit.
+ */
+public class InstrumentedClassCache {
+	private static final String ENTRY_SUFFIX = ".icls";
+	private static final int ENTRY_MAGIC = 0x1C1A55E5;
+	private static final int NO_INSTRUMENTATION = -1;
+	private static final int EVICTION_CHECK_INTERVAL = 200;
+
+	private File cacheDir;
+	private long maxSize;
+	private byte[] paramsKey;
+	private AtomicInteger putCount = new AtomicInteger();
+
+	public InstrumentedClassCache(String cacheDir, long maxSize, String paramsKey) {
+		this.cacheDir = new File(cacheDir);
+		this.cacheDir.mkdirs();
+		this.maxSize = maxSize;
+		try {
+			this.paramsKey = paramsKey.getBytes("UTF-8");
+		} catch (IOException e) {
+			this.paramsKey = paramsKey.getBytes();
+		}
+		evictIfNeeded();
+	}
+
+	/**
+	 * @return null if there is no cached entry for the class.
+	 */
+	public Entry get(String classFName, byte[] classfileBuffer) {
+		File file = getEntryFile(classFName, classfileBuffer);
+		if (file == null || !file.exists()) {
+			return null;
+		}
+		DataInputStream in = null;
+		try {
+			in = new DataInputStream(new FileInputStream(file));
+			if (in.readInt() != ENTRY_MAGIC) {
+				throw new IOException("Invalid cache entry: " + file.getName());
+			}
+			int skippedSize = in.readInt();
+			List<String> skippedMethods = new ArrayList<>(skippedSize);
+			for (int i = 0; i < skippedSize; i++) {
+				skippedMethods.add(in.readUTF());
+			}
+			int length = in.readInt();
+			byte[] data = null;
+			if (length != NO_INSTRUMENTATION) {
+				data = new byte[length];
+				in.readFully(data);
+			}
+			file.setLastModified(System.currentTimeMillis());
+			return new Entry(data, skippedMethods);
+		} catch (IOException e) {
+			AgentLogger.debug("Instrumented class cache - invalid entry for " + classFName + ": " + e.getMessage());
+			close(in);
+			in = null;
+			file.delete();
+			return null;
+		} finally {
+			close(in);
+		}
+	}
+
+	public void put(String classFName, byte[] classfileBuffer, Entry entry) {
+		File file = getEntryFile(classFName, classfileBuffer);
+		if (file == null) {
+			return;
+		}
+		File tempFile = null;
+		try {
+			ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+			DataOutputStream out = new DataOutputStream(bytes);
+			out.writeInt(ENTRY_MAGIC);
+			out.writeInt(entry.skippedOverLongMethods.size());
+			for (String method : entry.skippedOverLongMethods) {
+				out.writeUTF(method);
+			}
+			if (entry.data == null) {
+				out.writeInt(NO_INSTRUMENTATION);
+			} else {
+				out.writeInt(entry.data.length);
+				out.write(entry.data);
+			}
+			out.flush();
+			tempFile = File.createTempFile("entry", ".tmp", cacheDir);
+			FileOutputStream fileOut = new FileOutputStream(tempFile);
+			try {
+				fileOut.write(bytes.toByteArray());
+			} finally {
+				fileOut.close();
+			}
+			Files.move(tempFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING,
+					StandardCopyOption.ATOMIC_MOVE);
+		} catch (IOException e) {
+			AgentLogger.debug("Instrumented class cache - cannot store " + classFName + ": " + e.getMessage());
+			if (tempFile != null) {
+				tempFile.delete();
+			}
+		}
+		if (putCount.incrementAndGet() % EVICTION_CHECK_INTERVAL == 0) {
+			evictIfNeeded();
+		}
+	}
+
+	private File getEntryFile(String classFName, byte[] classfileBuffer) {
+		try {
+			MessageDigest digest = MessageDigest.getInstance("SHA-1");
+			digest.update(paramsKey);
+			digest.update((byte) 0);
+			digest.update(classFName.getBytes("UTF-8"));
+			digest.update((byte) 0);
+			digest.update(classfileBuffer);
+			return new File(cacheDir, toHex(digest.digest()) + ENTRY_SUFFIX);
+		} catch (NoSuchAlgorithmException | IOException e) {
+			AgentLogger.error(e);
+			return null;
+		}
+	}
+
+	/**
+	 * remove the least recently used entries until the cache size is down to 80% of the limit.
+	 */
+	public synchronized void evictIfNeeded() {
+		File[] files = cacheDir.listFiles();
+		if (files == null) {
+			return;
+		}
+		long totalSize = 0;
+		List<File> entries = new ArrayList<>(files.length);
+		for (File file : files) {
+			if (file.getName().endsWith(ENTRY_SUFFIX)) {
+				entries.add(file);
+				totalSize += file.length();
+			}
+		}
+		if (totalSize <= maxSize) {
+			return;
+		}
+		final long[] lastModified = new long[entries.size()];
+		for (int i = 0; i < lastModified.length; i++) {
+			lastModified[i] = entries.get(i).lastModified();
+		}
+		Integer[] order = new Integer[entries.size()];
+		for (int i = 0; i < order.length; i++) {
+			order[i] = i;
+		}
+		Arrays.sort(order, new Comparator<Integer>() {
+			@Override
+			public int compare(Integer o1, Integer o2) {
+				return Long.compare(lastModified[o1], lastModified[o2]);
+			}
+		});
+		long targetSize = (long) (maxSize * 0.8);
+		for (int i = 0; i < order.length && totalSize > targetSize; i++) {
+			File file = entries.get(order[i]);
+			long length = file.length();
+			if (file.delete()) {
+				totalSize -= length;
+			}
+		}
+		AgentLogger.debug("Instrumented class cache - evicted down to " + totalSize + " bytes");
+	}
+
+	private static String toHex(byte[] bytes) {
+		StringBuilder sb = new StringBuilder(bytes.length * 2);
+		for (byte b : bytes) {
+			sb.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+		}
+		return sb.toString();
+	}
+
+	private static void close(InputStream in) {
+		if (in != null) {
+			try {
+				in.close();
+			} catch (IOException e) {
+				// ignore
+			}
+		}
+	}
+
+	public static class Entry {
+		private byte[] data;
+		private List<String> skippedOverLongMethods;
+
+		public Entry(byte[] data, List<String> skippedOverLongMethods) {
+			this.data = data;
+			this.skippedOverLongMethods = skippedOverLongMethods == null ? Collections.<String>emptyList()
+					: skippedOverLongMethods;
+		}
+
+		public byte[] getData() {
+			return data;
+		}
+
+		public List<String> getSkippedOverLongMethods() {
+			return skippedOverLongMethods;
+		}
+	}
+}
@@ -52,6 +52,7 @@ public class TestRunnerTranformer extends AbstractTransformer implements ClassFi
 			return null;
 		}
 		if ("microbat/evaluation/junit/MicroBatTestRunner".equals(classFName)
+				|| "microbat/evaluation/junit/MicroBatWorkerTestRunner".equals(classFName)
 				|| "sav/junit/SavJunitRunner".equals(classFName)
 				|| "sav/junit/SavSimpleRunner".equals(classFName)
 				|| "sav/junit/SavSocketTestRunner".equals(classFName)) {
@@ -94,6 +95,10 @@ public class TestRunnerTranformer extends AbstractTransformer implements ClassFi
 				agentMethodIdx = constPool.addMethodref(CoverageAgent.class.getName().replace(".", "/"), "_storeCoverage",
 						"(Ljava/io/OutputStream;Ljava/lang/Boolean;)V");
 				paramSize = 2;
+			} else if ("$storeCoverageDelta".equals(method.getName())) {
+				agentMethodIdx = constPool.addMethodref(CoverageAgent.class.getName().replace(".", "/"), "_storeCoverageDelta",
+						"(Ljava/io/OutputStream;Ljava/lang/Boolean;)V");
+				paramSize = 2;
 			}
  			if (agentMethodIdx >= 0) {
  				instrumentDelegateMethod(method, classFName, constPool, agentMethodIdx, classGen, paramSize);
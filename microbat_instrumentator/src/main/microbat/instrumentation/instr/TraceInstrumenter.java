@@ -1,5 +1,6 @@
 package microbat.instrumentation.instr;
 
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Set;
@@ -73,6 +74,8 @@ public class TraceInstrumenter extends AbstractInstrumenter {
 	private EntryPoint entryPoint;
 	private Set<String> requireSplittingMethods = Collections.emptySet();
 	private UserFilters userFilters;
+	/* methods left uninstrumented because their instrumented bytecode exceeds the limit */
+	private List<String> skippedOverLongMethods = new ArrayList<>();
 	
 	TraceInstrumenter() {
 	}
@@ -108,8 +111,9 @@ public class TraceInstrumenter extends AbstractInstrumenter {
 				GeneratedMethods generatedMethods = runMethodInstrumentation(classGen, constPool, methodGen, method, isAppClass, isMainMethod);
 				if (generatedMethods != null) {
 					if (doesBytecodeExceedLimit(generatedMethods)) {
-						AgentLogger.info(String.format("Warning: %s exceeds bytecode limit!",
-								MicrobatUtils.getMicrobatMethodFullName(classGen.getClassName(), method)));
+						String methodFullName = MicrobatUtils.getMicrobatMethodFullName(classGen.getClassName(), method);
+						AgentLogger.info(String.format("Warning: %s exceeds bytecode limit!", methodFullName));
+						skippedOverLongMethods.add(methodFullName);
 					} else {
 						for (MethodGen newMethod : generatedMethods.getExtractedMethods()) {
 							newMethod.setMaxStack();
@@ -1004,6 +1008,10 @@ public class TraceInstrumenter extends AbstractInstrumenter {
 	private String nextTempVarName() {
 		return TEMP_VAR_NAME + (++tempVarIdx);
 	}
+	
+	public List<String> getSkippedOverLongMethods() {
+		return skippedOverLongMethods;
+	}
 
 	
 }
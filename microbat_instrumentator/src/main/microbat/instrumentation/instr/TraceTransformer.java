@@ -1,9 +1,15 @@
 package microbat.instrumentation.instr;
 
+import java.io.File;
 import java.lang.instrument.ClassFileTransformer;
 import java.lang.instrument.IllegalClassFormatException;
+import java.lang.management.ManagementFactory;
 import java.security.ProtectionDomain;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 
+import microbat.instrumentation.AgentLogger;
 import microbat.instrumentation.AgentParams;
 import microbat.instrumentation.filter.GlobalFilterChecker;
 
@@ -13,15 +19,33 @@ import microbat.instrumentation.filter.GlobalFilterChecker;
  *
  */
 public class TraceTransformer extends AbstractTransformer implements ClassFileTransformer {
+	private AgentParams params;
 	private TraceInstrumenter instrumenter;
+	private List<String> skippedOverLongMethods = Collections.synchronizedList(new ArrayList<String>());
+	private ClassPreTransformer preTransformer;
+	/* only collected in single run mode, to produce precheck info */
+	private List<String> loadedClasses;
+	private static final String JAVAAGENT_OPTION = "-javaagent:";
+	private InstrumentedClassCache cache;
 	
 	public TraceTransformer(AgentParams params) {
+		this.params = params;
 		instrumenter = new TraceInstrumenter(params);
+		if (params.isSingleRun()) {
+			loadedClasses = new ArrayList<>();
+		}
+		if (params.getInstrCacheDir() != null) {
+			cache = new InstrumentedClassCache(params.getInstrCacheDir(), params.getInstrCacheSize(),
+					params.getInstrumentationKey() + "|" + getAgentStamp());
+		}
 	}
 	
 	@Override
 	protected byte[] doTransform(ClassLoader loader, String classFName, Class<?> classBeingRedefined,
 			ProtectionDomain protectionDomain, byte[] classfileBuffer) throws IllegalClassFormatException {
+		if (loadedClasses != null) {
+			loadedClasses.add(classFName.replace("/", "."));
+		}
 		/* bootstrap classes */
 		if ((loader == null) || (protectionDomain == null)) {
 			if (!GlobalFilterChecker.isTransformable(classFName, null, true)) {
@@ -37,11 +61,85 @@ public class TraceTransformer extends AbstractTransformer implements ClassFileTr
 		
 		/* do instrumentation */
 		try {
-			return instrumenter.instrument(classFName, classfileBuffer);
+			InstrumentedClassCache.Entry entry = null;
+			if (preTransformer != null) {
+				entry = preTransformer.take(classFName, classfileBuffer);
+			}
+			if (entry == null) {
+				entry = instrument(instrumenter, classFName, classfileBuffer);
+			}
+			skippedOverLongMethods.addAll(entry.getSkippedOverLongMethods());
+			return entry.getData();
 		} catch (Exception e) {
 			e.printStackTrace();
 		}
 		return null;
 	}
-
+	
+	/**
+	 * instrument the class using the given instrumenter (or get it from cache),
+	 * can be called by the pre-transform threads, each with its own instrumenter.
+	 */
+	InstrumentedClassCache.Entry instrument(TraceInstrumenter instrumenter, String classFName, byte[] classfileBuffer)
+			throws Exception {
+		InstrumentedClassCache.Entry entry = null;
+		if (cache != null) {
+			entry = cache.get(classFName, classfileBuffer);
+			if (entry != null) {
+				return entry;
+			}
+		}
+		List<String> skippedMethods = instrumenter.getSkippedOverLongMethods();
+		byte[] data = instrumenter.instrument(classFName, classfileBuffer);
+		entry = new InstrumentedClassCache.Entry(data, new ArrayList<>(skippedMethods));
+		skippedMethods.clear();
+		if (cache != null) {
+			cache.put(classFName, classfileBuffer, entry);
+		}
+		return entry;
+	}
+	
+	/**
+	 * instrument all classes in app binary folders in background.
+	 */
+	public void startPreTransform(List<File> appBinFolders) {
+		preTransformer = new ClassPreTransformer(this, params);
+		preTransformer.start(appBinFolders);
+	}
+	
+	public void stopPreTransform() {
+		if (preTransformer != null) {
+			preTransformer.shutdown();
+		}
+	}
+	
+	/**
+	 * cached classes must be invalidated when the agent itself is changed.
+	 * (agent classes are loaded by bootstrap classloader, so the agent jar is taken from the -javaagent option)
+	 */
+	private static String getAgentStamp() {
+		for (String arg : ManagementFactory.getRuntimeMXBean().getInputArguments()) {
+			if (arg.startsWith(JAVAAGENT_OPTION)) {
+				String jarPath = arg.substring(JAVAAGENT_OPTION.length());
+				int endIdx = jarPath.indexOf("=");
+				if (endIdx > 0) {
+					jarPath = jarPath.substring(0, endIdx);
+				}
+				File agentJar = new File(jarPath);
+				if (agentJar.exists()) {
+					return agentJar.lastModified() + ":" + agentJar.length();
+				}
+			}
+		}
+		AgentLogger.debug("Instrumented class cache - cannot find agent jar!");
+		return String.valueOf(System.currentTimeMillis()); // do not reuse cache of an unknown agent.
+	}
+	
+	public List<String> getLoadedClasses() {
+		return loadedClasses;
+	}
+	
+	public List<String> getSkippedOverLongMethods() {
+		return skippedOverLongMethods;
+	}
 }
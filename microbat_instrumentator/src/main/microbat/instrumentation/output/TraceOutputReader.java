@@ -119,6 +119,7 @@ public class TraceOutputReader extends OutputReader {
 				loopParent.addLoopChild(step);
 			}
 			step.setException(readBoolean());
+			step.setControlFlowOnly(readBoolean());
 		}
 		readRWVarValues(allSteps, false);
 		readRWVarValues(allSteps, true);
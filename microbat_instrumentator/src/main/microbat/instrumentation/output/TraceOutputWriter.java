@@ -134,6 +134,7 @@ public class TraceOutputWriter extends OutputWriter {
 			allReadVars.add(node.getReadVariables());
 			allWrittenVars.add(node.getWrittenVariables());
 			writeBoolean(node.isException());
+			writeBoolean(node.isControlFlowOnly());
 		}
 		writeVarValues(allReadVars);
 		writeVarValues(allWrittenVars);
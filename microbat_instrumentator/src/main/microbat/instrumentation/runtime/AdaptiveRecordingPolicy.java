@@ -0,0 +1,183 @@
+package microbat.instrumentation.runtime;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import microbat.instrumentation.AgentLogger;
+import microbat.instrumentation.filter.CodeRangeEntry;
+import microbat.model.trace.TraceNode;
+
+/**
+ * Decides for each step whether the tracer records its variables (full capture) or only the step
+ * itself (control flow). Variables are recorded for methods in the focus ranges (e.g. around the
+ * failure point) and for methods called from them up to <code>focusCallDepth</code> levels, or
+ * for every method if there is no focus range. A line which is hit more than
+ * <code>loopSummaryIterations</code> times in the same invocation is only kept as control flow.
+ * The time spent in the tracer is counted per method, and when the traced run gets slower than
+ * <code>targetSlowdown</code> times the plain run, the most expensive method out of the focus
+ * ranges is demoted to control flow.
+ *
+ * The counters are not synchronized, they are only estimations.
+ */
+public class AdaptiveRecordingPolicy {
+	private static final int BUDGET_CHECK_INTERVAL = 4096;
+	private List<CodeRangeEntry> focusRanges;
+	private int focusCallDepth;
+	private int loopSummaryIterations;
+	private int targetSlowdown;
+	private ConcurrentHashMap<String, MethodStats> methodStats = new ConcurrentHashMap<>();
+	private long startTime = System.nanoTime();
+	private long tracingTime;
+	private int steps;
+	private int summarizedSteps;
+	private int demotedMethods;
+
+	public AdaptiveRecordingPolicy(List<CodeRangeEntry> focusRanges, int focusCallDepth, int loopSummaryIterations,
+			int targetSlowdown) {
+		this.focusRanges = focusRanges;
+		this.focusCallDepth = focusCallDepth;
+		this.loopSummaryIterations = loopSummaryIterations;
+		this.targetSlowdown = targetSlowdown;
+	}
+
+	/**
+	 * @param startLine
+	 * @param endLine
+	 *            lines of the method, only used when the method is seen for the first time.
+	 */
+	public MethodStats getMethodStats(String className, String methodSignature, int startLine, int endLine) {
+		MethodStats stats = methodStats.get(methodSignature);
+		if (stats == null) {
+			stats = new MethodStats(startLine, isFocus(className, startLine, endLine));
+			MethodStats existing = methodStats.putIfAbsent(methodSignature, stats);
+			if (existing != null) {
+				stats = existing;
+			}
+		}
+		return stats;
+	}
+
+	/**
+	 * @return null if the method is not entered through
+	 *         {@link #getMethodStats(String, String, int, int)} yet, e.g. a static initializer,
+	 *         so its lines are unknown.
+	 */
+	public MethodStats getMethodStats(String methodSignature) {
+		return methodStats.get(methodSignature);
+	}
+
+	private boolean isFocus(String className, int startLine, int endLine) {
+		for (CodeRangeEntry entry : focusRanges) {
+			if (entry.overlaps(className, startLine, endLine)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * @param lineHits
+	 *            number of times the line of the step is hit in the current invocation of the
+	 *            method.
+	 */
+	public boolean isDataRecorded(MethodStats method, MethodCallStack callStack, int lineHits) {
+		boolean recorded = true;
+		if (loopSummaryIterations > 0 && lineHits > loopSummaryIterations) {
+			recorded = false;
+		} else if (!method.focus) {
+			recorded = !method.demoted && (focusRanges.isEmpty() || isNearFocus(callStack));
+		}
+		if (!recorded) {
+			summarizedSteps++;
+		}
+		return recorded;
+	}
+
+	private boolean isNearFocus(MethodCallStack callStack) {
+		for (int i = 0; i < focusCallDepth; i++) {
+			TraceNode caller = callStack.peek(i);
+			if (caller == null) {
+				return false;
+			}
+			MethodStats callerStats = methodStats.get(caller.getMethodSign());
+			if (callerStats != null && callerStats.focus) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * count the tracing time of the previous step of the method, and every
+	 * {@link #BUDGET_CHECK_INTERVAL} steps, demote a method if the run is over the target
+	 * slowdown.
+	 */
+	public void addStep(MethodStats method, long stepTracingTime) {
+		if (method != null) {
+			method.tracingTime += stepTracingTime;
+		}
+		tracingTime += stepTracingTime;
+		if (++steps % BUDGET_CHECK_INTERVAL == 0 && targetSlowdown > 0) {
+			checkBudget();
+		}
+	}
+
+	private void checkBudget() {
+		long programTime = System.nanoTime() - startTime - tracingTime;
+		if (programTime > 0 && tracingTime <= (targetSlowdown - 1) * programTime) {
+			return;
+		}
+		String mostExpensive = null;
+		MethodStats mostExpensiveStats = null;
+		for (Map.Entry<String, MethodStats> entry : methodStats.entrySet()) {
+			MethodStats stats = entry.getValue();
+			if (!stats.focus && !stats.demoted
+					&& (mostExpensiveStats == null || stats.tracingTime > mostExpensiveStats.tracingTime)) {
+				mostExpensive = entry.getKey();
+				mostExpensiveStats = stats;
+			}
+		}
+		if (mostExpensiveStats != null) {
+			mostExpensiveStats.demoted = true;
+			demotedMethods++;
+			AgentLogger.debug("Slowdown over " + targetSlowdown + "x, record control flow only for " + mostExpensive);
+		}
+	}
+
+	/**
+	 * start measuring a new run, methods which were demoted in the previous run are recorded
+	 * again.
+	 */
+	public void start() {
+		methodStats.clear();
+		startTime = System.nanoTime();
+		tracingTime = 0;
+		steps = 0;
+		summarizedSteps = 0;
+		demotedMethods = 0;
+	}
+
+	@Override
+	public String toString() {
+		return "Adaptive recording: steps=" + steps + ", controlFlowOnlySteps=" + summarizedSteps
+				+ ", demotedMethods=" + demotedMethods + ", tracingTime=" + tracingTime / 1000000 + "ms, totalTime="
+				+ (System.nanoTime() - startTime) / 1000000 + "ms";
+	}
+
+	public static class MethodStats {
+		private int startLine;
+		private boolean focus;
+		private volatile boolean demoted;
+		private long tracingTime;
+
+		MethodStats(int startLine, boolean focus) {
+			this.startLine = startLine;
+			this.focus = focus;
+		}
+
+		public int getStartLine() {
+			return startLine;
+		}
+	}
+}
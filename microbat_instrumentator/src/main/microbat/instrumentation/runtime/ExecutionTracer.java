@@ -9,6 +9,7 @@ import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.apache.bcel.Repository;
 import org.apache.bcel.classfile.LocalVariable;
@@ -50,13 +51,22 @@ public class ExecutionTracer implements IExecutionTracer, ITracer {
 	private static int stepLimit = Integer.MAX_VALUE;
 	private static int expectedSteps = Integer.MAX_VALUE;
 	private static int tolerantExpectedSteps = expectedSteps;
+	private static boolean stepLimitExceeded = false;
 	public static boolean avoidProxyToString = false;
+	/* null if every step is fully recorded */
+	private static AdaptiveRecordingPolicy recordingPolicy;
 	private long threadId;
 	
 	private Trace trace;
 
 	private MethodCallStack methodCallStack;
 	private Locker locker;
+	/* whether the variables of the latest step are recorded */
+	private boolean recordingData = true;
+	/* adaptive recording: the step limit is reached, the trace is kept as it is */
+	private boolean recordingStopped = false;
+	private AdaptiveRecordingPolicy.MethodStats currentMethod;
+	private InvocationLineHits lineHits;
 	
 	public static void setExpectedSteps(int expectedSteps) {
 		if (expectedSteps != AgentConstants.UNSPECIFIED_INT_VALUE) {
@@ -71,11 +81,22 @@ public class ExecutionTracer implements IExecutionTracer, ITracer {
 		}
 	}
 
+	public static void setRecordingPolicy(AdaptiveRecordingPolicy recordingPolicy) {
+		ExecutionTracer.recordingPolicy = recordingPolicy;
+	}
+	
+	public static AdaptiveRecordingPolicy getRecordingPolicy() {
+		return recordingPolicy;
+	}
+
 	public ExecutionTracer(long threadId) {
 		this.threadId = threadId;
 		locker = new Locker(threadId);
 		methodCallStack = new MethodCallStack();
 		trace = new Trace(appJavaClassPath);
+		if (recordingPolicy != null) {
+			lineHits = new InvocationLineHits();
+		}
 	}
 
 	private void buildDataRelation(TraceNode currentNode, VarValue value, String rw){
@@ -275,39 +296,42 @@ public class ExecutionTracer implements IExecutionTracer, ITracer {
 	public void enterMethod(String className, String methodSignature, int methodStartLine, int methodEndLine, 
 			String paramTypeSignsCode, String paramNamesCode, Object[] params) {
 		locker.lock();
+		if (recordingStopped) {
+			locker.unLock();
+			return;
+		}
 		TraceNode caller = trace.getLatestNode();
 		if(caller!=null && caller.getMethodSign().contains("<clinit>")){
 			caller = caller.getInvocationParent();
 		}
 		
 		if(caller!=null){
-			int varScopeStart = methodStartLine;
+			MethodEntryDescriptor descriptor = getMethodEntryDescriptor(className, methodSignature,
+					paramTypeSignsCode, paramNamesCode);
+			int varScopeStart = descriptor.getVarScopeStart(methodStartLine);
 			int varScopeEnd = methodEndLine;
 			
-			String[] parameterTypes = TraceUtils.parseArgTypesOrNames(paramTypeSignsCode);
-			String[] parameterNames = paramNamesCode.split(":");
-			if(parameterNames.length != 0){
-				int adjust = adjustVariableStartScope(methodSignature, className);
-				varScopeStart = (adjust > 0) ? adjust : varScopeStart;
-			}
-			
-			for(int i=0; i<parameterTypes.length; i++){
-				String pType = parameterTypes[i];
-				String parameterType = SignatureUtils.signatureToName(pType);
-				String varName = parameterNames[i];
+			for(int i=0; i<descriptor.getParamNum(); i++){
+				String pType = descriptor.getParamTypeSign(i);
+				String parameterType = descriptor.getParamType(i);
+				String varName = descriptor.getParamName(i);
 				
 				Variable var = new LocalVar(varName, parameterType, className, methodStartLine);
 				
 				String varID = Variable.concanateLocalVarID(className, varName, varScopeStart, 
 						varScopeEnd, caller.getInvocationLevel()+1);
 				var.setVarID(varID);
-				if(!PrimitiveUtils.isPrimitive(pType)){
+				if(!descriptor.isPrimitiveParam(i)){
 					String aliasID = TraceUtils.getObjectVarId(params[i], pType);
 					var.setAliasVarID(aliasID);				
 				}
 				
-				VarValue value = appendVarValue(params[i], var, null);
-				addRWriteValue(caller, value, true);
+				if (recordingData) {
+					VarValue value = appendVarValue(params[i], var, null);
+					addRWriteValue(caller, value, true);
+				} else {
+					defineUnrecordedVar(caller, var);
+				}
 			}
 		}
 		
@@ -316,6 +340,10 @@ public class ExecutionTracer implements IExecutionTracer, ITracer {
 			if(caller!=null){
 				methodCallStack.push(caller);
 			}
+			if (recordingPolicy != null) {
+				recordingPolicy.getMethodStats(className, methodSignature, methodStartLine, methodEndLine);
+				lineHits.enterMethod(methodSignature, methodStartLine, methodEndLine);
+			}
 			hitLine(methodStartLine, className, methodSignature);
 		} else {
 			locker.unLock();
@@ -324,12 +352,19 @@ public class ExecutionTracer implements IExecutionTracer, ITracer {
 		locker.unLock();
 	}
 
-	private static Map<String, Integer> adjustVarMap = new HashMap<>();
-	private int adjustVariableStartScope(String fullSign, String className) {
-		Integer value = adjustVarMap.get(fullSign);
-		if (value != null) {
-			return value;
+	private static Map<String, MethodEntryDescriptor> methodEntryDescriptors = new ConcurrentHashMap<>();
+	private MethodEntryDescriptor getMethodEntryDescriptor(String className, String methodSignature,
+			String paramTypeSignsCode, String paramNamesCode) {
+		MethodEntryDescriptor descriptor = methodEntryDescriptors.get(methodSignature);
+		if (descriptor == null) {
+			descriptor = new MethodEntryDescriptor(paramTypeSignsCode, paramNamesCode,
+					adjustVariableStartScope(methodSignature, className));
+			methodEntryDescriptors.put(methodSignature, descriptor);
 		}
+		return descriptor;
+	}
+	
+	private int adjustVariableStartScope(String fullSign, String className) {
 		String shortSign = fullSign.substring(fullSign.indexOf("#")+1, fullSign.length());
 		MethodFinderBySignature finder = new MethodFinderBySignature(shortSign);
 		ByteCodeParser.parse(className, finder, appJavaClassPath);
@@ -350,7 +385,6 @@ public class ExecutionTracer implements IExecutionTracer, ITracer {
 				}
 			}
 		}
-		adjustVarMap.put(fullSign, start);
 		Repository.clearCache();
 		return start;
 	}
@@ -370,9 +404,17 @@ public class ExecutionTracer implements IExecutionTracer, ITracer {
 		locker.lock();
 		try {
 			hitLine(line, residingClassName, residingMethodSignature);
+			if (recordingStopped) {
+				locker.unLock();
+				return;
+			}
 			TraceNode latestNode = trace.getLatestNode();
 			if (latestNode != null) {
 				latestNode.setInvokingMethod(methodSig);
+				if (!recordingData) {
+					locker.unLock();
+					return;
+				}
 				initInvokingDetail(invokeObj, invokeTypeSign, methodSig, params, paramTypeSignsCode, residingClassName,
 						latestNode);
 				
@@ -452,8 +494,32 @@ public class ExecutionTracer implements IExecutionTracer, ITracer {
 		locker.lock();
 		try {
 			hitLine(line, className, residingMethodSignature);
+			if (recordingStopped) {
+				locker.unLock();
+				return;
+			}
+			TraceNode latestNode = trace.getLatestNode();
+			if (latestNode != null) {
+				latestNode.setInvokingMethod(methodSig);
+			}
+			boolean isArrayCopy = methodSig.equals("java.lang.System#arraycopy(Ljava/lang/Object;ILjava/lang/Object;II)V");
+			if (!recordingData) {
+				if (isArrayCopy) {
+					Object targetArray = params[2];
+					int targetPosition = (Integer)params[3];
+					int length = (Integer)params[4];
+					for (int i = 0; i < length; i++) {
+						Object elementValue = Array.get(targetArray, targetPosition + i);
+						String elementType = elementValue == null ? null : elementValue.getClass().getName();
+						defineUnrecordedVar(latestNode,
+								newArrayElementVar(targetArray, targetPosition + i, elementValue, elementType));
+					}
+				}
+				locker.unLock();
+				return;
+			}
 			
-			if(methodSig.equals("java.lang.System#arraycopy(Ljava/lang/Object;ILjava/lang/Object;II)V")){
+			if(isArrayCopy){
 				Object sourceArray = params[0];
 				int sourcePosition = (Integer)params[1];
 				Object targetArray = params[2];
@@ -464,9 +530,7 @@ public class ExecutionTracer implements IExecutionTracer, ITracer {
 				buildWriteRelationForArrayCopy(targetArray, targetPosition, sourceArray, sourcePosition, length, line);
 			}
 			
-			TraceNode latestNode = trace.getLatestNode();
 			if (latestNode != null) {
-				latestNode.setInvokingMethod(methodSig);
 				initInvokingDetail(null, invokeTypeSign, methodSig, params, paramTypeSignsCode, className,
 						latestNode);
 			}
@@ -498,6 +562,10 @@ public class ExecutionTracer implements IExecutionTracer, ITracer {
 			boolean exclusive = GlobalFilterChecker.isExclusive(residingClassName, residingMethodSignature);
 			if (!exclusive) {
 				hitLine(line, residingClassName, residingMethodSignature);
+				if (!recordingData) {
+					locker.unLock();
+					return;
+				}
 				TraceNode latestNode = trace.getLatestNode();
 				if (latestNode != null) {
 					latestNode.setInvokingDetail(null);
@@ -574,6 +642,11 @@ public class ExecutionTracer implements IExecutionTracer, ITracer {
 			
 			String aliasID = TraceUtils.getObjectVarId(returnObj, returnGeneralTypeSign);
 			returnVar.setAliasVarID(aliasID);
+			if (!recordingData) {
+				defineUnrecordedVar(trace.getLatestNode(), returnVar);
+				locker.unLock();
+				return;
+			}
 			VarValue returnVal = appendVarValue(returnObj, returnVar, null);
 			if (returnVal != null) {
 				TraceNode latestNode = trace.getLatestNode();
@@ -618,6 +691,10 @@ public class ExecutionTracer implements IExecutionTracer, ITracer {
 		boolean isLocked = locker.isLock();
 		locker.lock();
 		try {
+			if (recordingStopped) {
+				locker.unLock(isLocked);
+				return;
+			}
 			boolean exclusive = GlobalFilterChecker.isExclusive(className, methodSignature);
 			if (exclusive) {
 				locker.unLock(isLocked);
@@ -631,8 +708,15 @@ public class ExecutionTracer implements IExecutionTracer, ITracer {
 			}
 			
 			int order = trace.size() + 1;
+			if (recordingPolicy != null && (order > stepLimit || order > tolerantExpectedSteps)) {
+				stopRecording(order - 1);
+				shutdown();
+				stepLimitExceeded = true;
+				Agent._exitProgram("fail;Trace is over long, partial trace is recorded!");
+			}
 			if (order > stepLimit) {
 				shutdown();
+				stepLimitExceeded = true;
 				Agent._exitProgram("fail;Trace is over long!");
 			}
 			if (order > tolerantExpectedSteps) {
@@ -643,6 +727,9 @@ public class ExecutionTracer implements IExecutionTracer, ITracer {
 			BreakPoint bkp = new BreakPoint(className, methodSignature, line);
 			TraceNode currentNode = new TraceNode(bkp, null, order, trace, numOfReadVars, numOfWrittenVars); 
 			trace.addTraceNode(currentNode);
+			if (recordingPolicy != null) {
+				updateRecordingData(currentNode, methodSignature, line);
+			}
 			AgentLogger.printProgress(order, expectedSteps);
 			if(!methodCallStack.isEmpty()){
 				TraceNode caller = methodCallStack.peek();
@@ -656,11 +743,45 @@ public class ExecutionTracer implements IExecutionTracer, ITracer {
 		locker.unLock(isLocked);
 	}
 
+	/**
+	 * adaptive recording: decide whether the variables of the new step are recorded and count the
+	 * tracing time of the previous step. A method which is run without
+	 * {@link #enterMethod(String, String, int, int, String, String, Object[])} (e.g. a static
+	 * initializer) has no known line range, so it can be neither focus nor loop summarized, and
+	 * it is always recorded.
+	 */
+	private void updateRecordingData(TraceNode node, String methodSignature, int line) {
+		AdaptiveRecordingPolicy.MethodStats method = recordingPolicy.getMethodStats(methodSignature);
+		recordingPolicy.addStep(currentMethod, locker.takeTracingTime());
+		currentMethod = method;
+		if (method == null) {
+			recordingData = true;
+		} else {
+			int hits = lineHits.hit(methodSignature, method.getStartLine(), line);
+			recordingData = recordingPolicy.isDataRecorded(method, methodCallStack, hits);
+		}
+		node.setControlFlowOnly(!recordingData);
+	}
+	
+	/**
+	 * adaptive recording: the steps recorded so far are kept as a partial trace when the run ends.
+	 */
+	private void stopRecording(int recordedSteps) {
+		recordingStopped = true;
+		recordingData = false;
+		AgentLogger.info("Trace is over long, stop recording at step " + recordedSteps);
+		AgentLogger.debug(recordingPolicy.toString());
+	}
+
 	@Override
 	public void _hitExeptionTarget(int line, String className, String methodSignature) {
 		locker.lock();
 		try {
 			hitLine(line, className, methodSignature);
+			if (recordingStopped) {
+				locker.unLock();
+				return;
+			}
 			TraceNode latestNode = trace.getLatestNode();
 			latestNode.setException(true);
 			boolean invocationLayerChanged = this.methodCallStack.
@@ -719,6 +840,11 @@ public class ExecutionTracer implements IExecutionTracer, ITracer {
 				String aliasID = TraceUtils.getObjectVarId(fieldValue, fieldType);
 				var.setAliasVarID(aliasID);				
 			}
+			if (!recordingData) {
+				defineUnrecordedVar(latestNode, var);
+				locker.unLock();
+				return;
+			}
 			
 			VarValue value = appendVarValue(fieldValue, var, null);
 			
@@ -789,6 +915,11 @@ public class ExecutionTracer implements IExecutionTracer, ITracer {
 				String aliasVarID = TraceUtils.getObjectVarId(fieldValue, fieldType);
 				var.setAliasVarID(aliasVarID);				
 			}
+			if (!recordingData) {
+				defineUnrecordedVar(trace.getLatestNode(), var);
+				locker.unLock();
+				return;
+			}
 			VarValue value = appendVarValue(fieldValue, var, null);
 			addRWriteValue(trace.getLatestNode(), value, true);
 		} catch (Throwable t) {
@@ -822,6 +953,10 @@ public class ExecutionTracer implements IExecutionTracer, ITracer {
 				}
 			}
 			hitLine(line, className, methodSignature);
+			if (!recordingData) {
+				locker.unLock();
+				return;
+			}
 			String parentVarId = TraceUtils.getObjectVarId(refValue, refValue.getClass().getName());
 			String fieldVarId = TraceUtils.getFieldVarId(parentVarId, fieldName, fieldType, fieldValue);
 			//		invokeTrack.updateRelevant(parentVarId, fieldVarId);
@@ -859,6 +994,10 @@ public class ExecutionTracer implements IExecutionTracer, ITracer {
 //				return;
 //			}
 			hitLine(line, className, methodSignature);
+			if (!recordingData) {
+				locker.unLock();
+				return;
+			}
 			Variable var = new FieldVar(true, fieldName, fieldType, refType);
 			var.setVarID(Variable.concanateFieldVarID(refType, fieldName));
 			
@@ -900,6 +1039,11 @@ public class ExecutionTracer implements IExecutionTracer, ITracer {
 				String aliasID = TraceUtils.getObjectVarId(varValue, varType);
 				var.setAliasVarID(aliasID);				
 			}
+			if (!recordingData) {
+				defineUnrecordedVar(latestNode, var);
+				locker.unLock();
+				return;
+			}
 			
 			VarValue value = appendVarValue(varValue, var, null);
 			addRWriteValue(trace.getLatestNode(), value, true);
@@ -923,6 +1067,10 @@ public class ExecutionTracer implements IExecutionTracer, ITracer {
 //				return;
 //			}
 			hitLine(line, className, methodSignature);
+			if (!recordingData) {
+				locker.unLock();
+				return;
+			}
 			TraceNode latestNode = trace.getLatestNode();
 			Variable var = new LocalVar(varName, varType, className, line);
 			
@@ -1018,6 +1166,11 @@ public class ExecutionTracer implements IExecutionTracer, ITracer {
 			String varID = Variable.concanateLocalVarID(className, varName, varScopeStartLine, varScopeEndLine, latestNode.getInvocationLevel());
 //			String varID = TraceUtils.getLocalVarId(className, varScopeStartLine, varScopeEndLine, varName, varType, varValue);
 			var.setVarID(varID);
+			if (!recordingData) {
+				defineUnrecordedVar(latestNode, var);
+				locker.unLock();
+				return;
+			}
 			
 			Variable varBefore = var.clone();
 			VarValue value = appendVarValue(varValue, varBefore, null);
@@ -1057,6 +1210,10 @@ public class ExecutionTracer implements IExecutionTracer, ITracer {
 				}
 			}
 			hitLine(line, className, methodSignature);
+			if (!recordingData) {
+				locker.unLock();
+				return;
+			}
 			VarValue value = addArrayElementVarValue(arrayRef, index, eleValue, elementType, line);
 			
 			Variable parentVariable = new FieldVar(false, "unknown", arrayRef.getClass().getName(), "unknown");
@@ -1134,6 +1291,11 @@ public class ExecutionTracer implements IExecutionTracer, ITracer {
 				}
 			}
 			hitLine(line, className, methodSignature);
+			if (!recordingData) {
+				defineUnrecordedVar(trace.getLatestNode(), newArrayElementVar(arrayRef, index, eleValue, elementType));
+				locker.unLock();
+				return;
+			}
 			VarValue value = addArrayElementVarValue(arrayRef, index, eleValue, elementType, line);
 			
 			Variable parentVariable = new FieldVar(false, "unknown", arrayRef.getClass().getName(), "unknown");
@@ -1150,18 +1312,33 @@ public class ExecutionTracer implements IExecutionTracer, ITracer {
 	}
 	
 	private VarValue addArrayElementVarValue(Object arrayRef, int index, Object eleValue, String elementType, int line) {
+		Variable var = newArrayElementVar(arrayRef, index, eleValue, elementType);
+		VarValue value = appendVarValue(eleValue, var, null);
+		return value;
+	}
+	
+	private Variable newArrayElementVar(Object arrayRef, int index, Object eleValue, String elementType) {
 		String id = new StringBuilder(TraceUtils.getObjectVarId(arrayRef, elementType+"[]")).append("[").append(index).append("]").toString();
 		String name = id;
 		Variable var = new ArrayElementVar(name, elementType, id);
 		var.setVarID(id);
 		
-		if(!PrimitiveUtils.isPrimitive(elementType)){
+		if(elementType != null && !PrimitiveUtils.isPrimitive(elementType)){
 			String aliasID = TraceUtils.getObjectVarId(eleValue, elementType);
 			var.setAliasVarID(aliasID);			
 		}
-		
-		VarValue value = appendVarValue(eleValue, var, null);
-		return value;
+		return var;
+	}
+	
+	/**
+	 * adaptive recording: the value written in a control-flow-only step is not recorded, but the
+	 * step is still the latest definition of the variable, so that a later read depends on it
+	 * rather than on an older recorded write.
+	 */
+	private void defineUnrecordedVar(TraceNode node, Variable var) {
+		if (node != null && !recordingStopped) {
+			trace.findDefiningNodeOrder(Variable.WRITTEN, node, var, VariableDefinitions.USE_LAST);
+		}
 	}
 	
 	/**
@@ -1181,6 +1358,9 @@ public class ExecutionTracer implements IExecutionTracer, ITracer {
 				return EmptyExecutionTracer.getInstance();
 			}
 			long threadId = Thread.currentThread().getId();
+			if (recordingThreads != null && !recordingThreads.contains(threadId)) {
+				recordingThreads.add(threadId);
+			}
 			if (lockedThreads.contains(threadId)) {
 				return EmptyExecutionTracer.getInstance();
 			}
@@ -1222,17 +1402,49 @@ public class ExecutionTracer implements IExecutionTracer, ITracer {
 	}
 	
 	private static TracingState state = TracingState.INIT;
+	/* threads which enter instrumented code while recording, only counted in single run mode */
+	private static LockedThreads recordingThreads;
+	
+	public static void enableThreadCounting() {
+		recordingThreads = new LockedThreads();
+	}
+	
+	public static boolean isStepLimitExceeded() {
+		return stepLimitExceeded;
+	}
+	
+	public static int getRecordingThreadNumber() {
+		return recordingThreads == null ? 1 : recordingThreads.size();
+	}
+	
 	public static void shutdown() {
 		state = TracingState.SHUTDOWN;
 	}
 	
 	public static void dispose() {
-		adjustVarMap = null;
+		methodEntryDescriptors = null;
 		lockedThreads = null;
 		HeuristicIgnoringFieldRule.clearCache();
 	}
 	
+	/**
+	 * used in worker mode, clear recorded trace of the previous testcase
+	 * but keep caches which are shared between testcases in the same vm.
+	 */
+	public static synchronized void reset() {
+		rtStore = new ExecutionTracerStore();
+		lockedThreads = new LockedThreads();
+		if (recordingThreads != null) {
+			recordingThreads = new LockedThreads();
+		}
+		stepLimitExceeded = false;
+		state = TracingState.INIT;
+	}
+	
 	public static void _start() {
+		if (recordingPolicy != null) {
+			recordingPolicy.start();
+		}
 		state = TracingState.TEST_STARTED;
 	}
 	
@@ -1248,6 +1460,9 @@ public class ExecutionTracer implements IExecutionTracer, ITracer {
 	static class Locker {
 		boolean tracing;
 		long threadId;
+		/* adaptive recording: time spent in the tracer, in nanoseconds */
+		long lockedSince;
+		long tracingTime;
 		
 		public Locker(long threadId) {
 			this.threadId = threadId;
@@ -1257,6 +1472,9 @@ public class ExecutionTracer implements IExecutionTracer, ITracer {
 			if (!tracing) {
 				lockedThreads.add(threadId);
 				tracing = true;
+				if (recordingPolicy != null) {
+					lockedSince = System.nanoTime();
+				}
 			}
 		}
 		
@@ -1267,6 +1485,9 @@ public class ExecutionTracer implements IExecutionTracer, ITracer {
 		}
 		
 		public void unLock() {
+			if (tracing && recordingPolicy != null) {
+				tracingTime += System.nanoTime() - lockedSince;
+			}
 			tracing = false;
 			lockedThreads.remove(threadId);
 		}
@@ -1274,6 +1495,12 @@ public class ExecutionTracer implements IExecutionTracer, ITracer {
 		public boolean isLock() {
 			return tracing;
 		}
+		
+		public long takeTracingTime() {
+			long time = tracingTime;
+			tracingTime = 0;
+			return time;
+		}
 	}
 
 	@Override
@@ -0,0 +1,36 @@
+package microbat.instrumentation.runtime;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Number of times each line of a method is hit in the current invocation of the method, used by
+ * {@link AdaptiveRecordingPolicy} to summarize hot loops. A recursive invocation restarts the
+ * counters of the method.
+ */
+public class InvocationLineHits {
+	private Map<String, int[]> lineHits = new HashMap<>();
+
+	public void enterMethod(String methodSignature, int startLine, int endLine) {
+		int size = Math.max(endLine - startLine + 1, 1);
+		int[] hits = lineHits.get(methodSignature);
+		if (hits == null || hits.length < size) {
+			lineHits.put(methodSignature, new int[size]);
+		} else {
+			Arrays.fill(hits, 0);
+		}
+	}
+
+	/**
+	 * @return the number of hits of the line including this one, 0 if the method is not entered.
+	 */
+	public int hit(String methodSignature, int startLine, int line) {
+		int[] hits = lineHits.get(methodSignature);
+		int idx = line - startLine;
+		if (hits == null || idx < 0 || idx >= hits.length) {
+			return 0;
+		}
+		return ++hits[idx];
+	}
+}
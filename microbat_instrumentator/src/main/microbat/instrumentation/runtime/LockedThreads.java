@@ -51,6 +51,16 @@ public class LockedThreads {
         lockedThreadIds = temp;
 	 }
 
+	public int size() {
+		int size = 0;
+		for (int i = 0; i < lockedThreadIds.length; i++) {
+			if (lockedThreadIds[i] >= 0) {
+				size++;
+			}
+		}
+		return size;
+	}
+
 	public void remove(long threadId) {
 		for (int i = 0; i < lockedThreadIds.length; i++) {
 			if (lockedThreadIds[i] == threadId) {
@@ -1,33 +1,58 @@
 package microbat.instrumentation.runtime;
 
-import java.util.Stack;
+import java.util.Arrays;
 
 import microbat.model.trace.TraceNode;
 import sav.strategies.dto.AppJavaClassPath;
 
+/**
+ * Callers of the methods being executed by a thread. Each {@link ExecutionTracer} owns its stack
+ * and only touches it from its own thread, so the stack is a plain array of preallocated slots
+ * without any lock, which only grows for deeper recursion.
+ */
 public class MethodCallStack {
-	Stack<TraceNode> stack = new Stack<>();
-	
+	private static final int INITIAL_DEPTH = 256;
+	private TraceNode[] callers = new TraceNode[INITIAL_DEPTH];
+	private int size = 0;
+	private String enterMethodString;
+
 	public TraceNode safePop() {
-		if (stack.size() != 0) {
-			return stack.pop();
+		if (size != 0) {
+			TraceNode caller = callers[--size];
+			callers[size] = null;
+			return caller;
 		}
 		return null;
 	}
 
 	public TraceNode push(TraceNode node) {
-		return stack.push(node);
+		if (size == callers.length) {
+			callers = Arrays.copyOf(callers, size * 2);
+		}
+		callers[size++] = node;
+		return node;
+	}
+
+	public TraceNode peek() {
+		if (size == 0) {
+			return null;
+		}
+		return callers[size - 1];
 	}
-	
-	public synchronized TraceNode peek() {
-		if (stack.isEmpty()) {
+
+	/**
+	 * @param depth
+	 *            0 for the top of the stack.
+	 */
+	public TraceNode peek(int depth) {
+		if (depth >= size) {
 			return null;
 		}
-		return stack.peek();
+		return callers[size - 1 - depth];
 	}
-	
+
 	public boolean isEmpty(){
-		return stack.isEmpty();
+		return size == 0;
 	}
 
 	/**
@@ -36,44 +61,40 @@ public class MethodCallStack {
 	 * @return
 	 */
 	public boolean popForException(String methodSignature, AppJavaClassPath appPath) {
-		if(!stack.isEmpty()){
+		if(size != 0){
+			TraceNode top = callers[size - 1];
+			String m = top.getInvokingMethod();
+			if(m == null || m.equals(methodSignature)){
+				return false;
+			}
+
 			int popLayer = 0;
 			boolean needPop = false;
-			
-			if(!stack.isEmpty()){
-				TraceNode caller = stack.peek();
-				String m = caller.getInvokingMethod();
-				
-				if(m == null || m.equals(methodSignature)){
-					return false;
-				}
-				System.currentTimeMillis();
-			}
-			
-			for(int i=stack.size()-1; i>=0; i--){
-				TraceNode caller = stack.get(i);
+			for(int i=size-1; i>=0; i--){
 				popLayer++;
-				if(caller.getMethodSign().equals(methodSignature)){
+				if(callers[i].getMethodSign().equals(methodSignature)){
 					needPop = true;
 					break;
 				}
 			}
-			
-			String enterMethodString = appPath.getOptionalTestClass() + "#" + appPath.getOptionalTestMethod();
+
+			if(enterMethodString == null) {
+				enterMethodString = appPath.getOptionalTestClass() + "#" + appPath.getOptionalTestMethod();
+			}
 			if(methodSignature.contains(enterMethodString)) {
 				needPop = true;
 			}
-			
+
 			if(needPop){
 				for(int i=0; i<popLayer; i++){
-					stack.pop();
+					safePop();
 				}
-				
+
 				return true;
 			}
 		}
-		
+
 		return false;
 	}
-	
+
 }
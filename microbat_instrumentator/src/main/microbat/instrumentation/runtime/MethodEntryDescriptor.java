@@ -0,0 +1,54 @@
+package microbat.instrumentation.runtime;
+
+import microbat.util.PrimitiveUtils;
+import sav.common.core.utils.SignatureUtils;
+
+/**
+ * Parameters of a method, decoded once per method from the constant parameter type and name
+ * codes passed by the instrumented code, so that entering a method does not split or convert any
+ * string.
+ */
+public class MethodEntryDescriptor {
+	private String[] paramNames;
+	private String[] paramTypeSigns;
+	private String[] paramTypes;
+	private boolean[] primitiveParams;
+	/* first line of the local variable table, -1 if unknown */
+	private int varScopeStart;
+
+	public MethodEntryDescriptor(String paramTypeSignsCode, String paramNamesCode, int varScopeStart) {
+		paramTypeSigns = TraceUtils.parseArgTypesOrNames(paramTypeSignsCode);
+		paramNames = paramNamesCode.split(":");
+		paramTypes = new String[paramTypeSigns.length];
+		primitiveParams = new boolean[paramTypeSigns.length];
+		for (int i = 0; i < paramTypeSigns.length; i++) {
+			paramTypes[i] = SignatureUtils.signatureToName(paramTypeSigns[i]);
+			primitiveParams[i] = PrimitiveUtils.isPrimitive(paramTypeSigns[i]);
+		}
+		this.varScopeStart = varScopeStart;
+	}
+
+	public int getParamNum() {
+		return paramTypeSigns.length;
+	}
+
+	public String getParamName(int i) {
+		return paramNames[i];
+	}
+
+	public String getParamTypeSign(int i) {
+		return paramTypeSigns[i];
+	}
+
+	public String getParamType(int i) {
+		return paramTypes[i];
+	}
+
+	public boolean isPrimitiveParam(int i) {
+		return primitiveParams[i];
+	}
+
+	public int getVarScopeStart(int methodStartLine) {
+		return varScopeStart > 0 ? varScopeStart : methodStartLine;
+	}
+}
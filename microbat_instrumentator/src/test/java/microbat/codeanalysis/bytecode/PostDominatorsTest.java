@@ -0,0 +1,149 @@
+package microbat.codeanalysis.bytecode;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Test;
+
+public class PostDominatorsTest {
+
+	@Test
+	public void testBranch() {
+		/* 0: if -> 1 | 2, both -> 3 */
+		TestGraph graph = new TestGraph(4, new int[][] { { 0, 1 }, { 0, 2 }, { 1, 3 }, { 2, 3 } });
+		PostDominators<Integer> postDominators = solve(graph);
+		assertPostDominators(postDominators, 0, 0, 3);
+		assertPostDominators(postDominators, 1, 1, 3);
+		assertPostDominators(postDominators, 3, 3);
+		assertArrayEquals(new int[] { 1, 2 }, new ControlDependence<>(postDominators).getControlDependentees(0));
+	}
+
+	@Test
+	public void testLoop() {
+		/* 0 -> 1: loop condition -> 2: body -> 1, 1 -> 3: loop exit */
+		TestGraph graph = new TestGraph(4, new int[][] { { 0, 1 }, { 1, 2 }, { 2, 1 }, { 1, 3 } });
+		PostDominators<Integer> postDominators = solve(graph);
+		assertPostDominators(postDominators, 0, 0, 1, 3);
+		assertPostDominators(postDominators, 1, 1, 3);
+		assertPostDominators(postDominators, 2, 1, 2, 3);
+		ControlDependence<Integer> controlDependence = new ControlDependence<>(postDominators);
+		assertArrayEquals(new int[] { 2 }, controlDependence.getControlDependentees(1));
+		assertArrayEquals(new int[0], controlDependence.getControlDependentees(0));
+	}
+
+	@Test
+	public void testInfiniteLoop() {
+		/* 0 -> 1 <-> 2 never reaches the exit 3 */
+		TestGraph graph = new TestGraph(4, new int[][] { { 0, 1 }, { 0, 3 }, { 1, 2 }, { 2, 1 } }, 3);
+		PostDominators<Integer> postDominators = solve(graph);
+		assertPostDominators(postDominators, 0, 0, 3);
+		assertPostDominators(postDominators, 1, 1);
+		assertPostDominators(postDominators, 2, 2);
+		assertArrayEquals(new int[] { 1, 2 }, new ControlDependence<>(postDominators).getControlDependentees(0));
+	}
+
+	@Test
+	public void testLargeGraph() {
+		/* a chain over several bitset words with a shortcut from the first to the last node */
+		int size = 150;
+		int[][] edges = new int[size][];
+		for (int i = 0; i < size - 1; i++) {
+			edges[i] = new int[] { i, i + 1 };
+		}
+		edges[size - 1] = new int[] { 0, size - 1 };
+		TestGraph graph = new TestGraph(size, edges);
+		assertEquals(0, graph.getReversePostOrder(true)[0]);
+		assertEquals(size - 1, graph.getReversePostOrder(false)[0]);
+		PostDominators<Integer> postDominators = solve(graph);
+		assertPostDominators(postDominators, 0, 0, size - 1);
+		int[] chainEnd = new int[size - 100];
+		for (int i = 0; i < chainEnd.length; i++) {
+			chainEnd[i] = 100 + i;
+		}
+		assertPostDominators(postDominators, 100, chainEnd);
+		int[] dependentees = new ControlDependence<>(postDominators).getControlDependentees(0);
+		assertEquals(size - 2, dependentees.length);
+		for (int i = 0; i < dependentees.length; i++) {
+			assertEquals(i + 1, dependentees[i]);
+		}
+	}
+
+	@Test
+	public void testBitSets() {
+		long[] bits = BitSets.create(130);
+		assertEquals(3, bits.length);
+		assertEquals(-1, BitSets.nextSetBit(bits, 0));
+		BitSets.set(bits, 63);
+		BitSets.set(bits, 64);
+		BitSets.set(bits, 129);
+		assertEquals(63, BitSets.nextSetBit(bits, 0));
+		assertEquals(64, BitSets.nextSetBit(bits, 64));
+		assertEquals(129, BitSets.nextSetBit(bits, 65));
+		assertEquals(-1, BitSets.nextSetBit(bits, 130));
+		BitSets.clear(bits, 64);
+		assertFalse(BitSets.get(bits, 64));
+
+		long[] all = BitSets.create(130);
+		BitSets.fill(all, 130);
+		assertTrue(BitSets.get(all, 129));
+		assertEquals(-1, BitSets.nextSetBit(all, 130));
+		BitSets.andNot(all, bits);
+		assertFalse(BitSets.intersects(all, bits));
+		assertEquals(62, BitSets.nextSetBit(all, 62));
+		assertEquals(64, BitSets.nextSetBit(all, 63));
+	}
+
+	private PostDominators<Integer> solve(TestGraph graph) {
+		PostDominators<Integer> postDominators = new PostDominators<>(graph);
+		postDominators.solve();
+		return postDominators;
+	}
+
+	private void assertPostDominators(PostDominators<Integer> postDominators, int node, int... expected) {
+		List<Integer> actual = new ArrayList<>();
+		long[] bits = postDominators.getOut(node);
+		for (int i = BitSets.nextSetBit(bits, 0); i >= 0; i = BitSets.nextSetBit(bits, i + 1)) {
+			actual.add(i);
+		}
+		List<Integer> expectedList = new ArrayList<>();
+		for (int i : expected) {
+			expectedList.add(i);
+		}
+		Collections.sort(expectedList);
+		assertEquals(expectedList, actual);
+	}
+
+	/**
+	 * nodes are the integers 0..size-1, edges are pairs {from, to}.
+	 */
+	private static class TestGraph extends IndexedGraph<Integer> {
+		/* static as the super constructor already asks for the children */
+		private static List<List<Integer>> children;
+
+		public TestGraph(int size, int[][] edges, Integer... exits) {
+			super(init(size, edges), Arrays.asList(exits));
+		}
+
+		private static List<Integer> init(int size, int[][] edges) {
+			List<Integer> nodes = new ArrayList<>(size);
+			children = new ArrayList<>(size);
+			for (int i = 0; i < size; i++) {
+				nodes.add(i);
+				children.add(new ArrayList<Integer>());
+			}
+			for (int[] edge : edges) {
+				children.get(edge[0]).add(nodes.get(edge[1]));
+			}
+			return nodes;
+		}
+
+		@Override
+		protected List<Integer> getChildren(Integer node) {
+			return children.get(node);
+		}
+	}
+}
@@ -0,0 +1,219 @@
+package microbat.instrumentation.cfgcoverage.output;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+
+import microbat.instrumentation.cfgcoverage.CoverageOutput;
+import microbat.instrumentation.cfgcoverage.graph.CoverageSFNode;
+import microbat.instrumentation.cfgcoverage.graph.CoverageSFlowGraph;
+import microbat.instrumentation.cfgcoverage.runtime.MethodExecutionData;
+import microbat.model.BreakPointValue;
+import microbat.model.value.ArrayValue;
+import microbat.model.value.PrimitiveValue;
+import microbat.model.value.ReferenceValue;
+import microbat.model.value.StringValue;
+import microbat.model.value.VarValue;
+import microbat.model.variable.ArrayElementVar;
+import microbat.model.variable.ConstantVar;
+import microbat.model.variable.FieldVar;
+import microbat.model.variable.LocalVar;
+
+public class CoverageOutputFormatTest {
+
+	@Test
+	public void testInputDataRoundTrip() throws IOException {
+		Map<Integer, List<MethodExecutionData>> inputData = new HashMap<>();
+		inputData.put(0, new ArrayList<>(Arrays.asList(createExecData(0, 3), createExecData(0, 7))));
+		inputData.put(2, new ArrayList<>(Arrays.asList(createExecData(2, -1))));
+
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		CoverageOutputWriter writer = new CoverageOutputWriter(bytes);
+		writer.writeInputData(inputData);
+		writer.close();
+		CoverageOutputReader reader = new CoverageOutputReader(new ByteArrayInputStream(bytes.toByteArray()));
+		Map<Integer, List<MethodExecutionData>> result = reader.readInputData();
+		reader.close();
+
+		assertEquals(inputData.keySet(), result.keySet());
+		assertExecDataEquals(inputData.get(0), result.get(0));
+		assertExecDataEquals(inputData.get(2), result.get(2));
+	}
+
+	@Test
+	public void testCoverageDeltaRoundTrip() throws IOException {
+		CoverageSFlowGraph graph = createGraph();
+		Map<Integer, List<MethodExecutionData>> inputData = new HashMap<>();
+		CoverageDeltaState state = new CoverageDeltaState();
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		CoverageOutputWriter writer = new CoverageOutputWriter(bytes);
+
+		/* first snapshot */
+		graph.addCoveredTestcase("test1");
+		graph.getNodeList().get(0).addCoveredTestcase("test1");
+		graph.getNodeList().get(0).markCoveredBranch(graph.getNodeList().get(1), "test1");
+		inputData.put(0, new ArrayList<>(Arrays.asList(createExecData(0, 1))));
+		writer.writeCoverageDelta(graph, inputData, state);
+		/* second snapshot, only the new testcase and its input */
+		graph.addCoveredTestcase("test2");
+		graph.getNodeList().get(0).addCoveredTestcase("test2");
+		graph.getNodeList().get(2).addCoveredTestcase("test2");
+		graph.getNodeList().get(0).markCoveredBranch(graph.getNodeList().get(2), "test2");
+		inputData.put(1, new ArrayList<>(Arrays.asList(createExecData(1, 2))));
+		writer.writeCoverageDelta(graph, inputData, state);
+		/* third snapshot, nothing new */
+		writer.writeCoverageDelta(graph, inputData, state);
+		writer.close();
+
+		CoverageOutputReader reader = new CoverageOutputReader(new ByteArrayInputStream(bytes.toByteArray()));
+		CoverageOutput output = reader.readCoverageDelta(null);
+		assertEquals(Arrays.asList("test1"), output.getCoverageGraph().getCoveredTestcases());
+		assertEquals(1, output.getInputData().size());
+		output = reader.readCoverageDelta(output);
+		output = reader.readCoverageDelta(output);
+		reader.close();
+
+		CoverageSFlowGraph result = output.getCoverageGraph();
+		assertEquals(graph.getCfgSize(), result.getCfgSize());
+		assertEquals(graph.getCoveredTestcases(), result.getCoveredTestcases());
+		for (int i = 0; i < graph.getNodeList().size(); i++) {
+			CoverageSFNode node = graph.getNodeList().get(i);
+			CoverageSFNode readNode = result.getNodeList().get(i);
+			assertEquals(node.getType(), readNode.getType());
+			assertEquals(node.getContent(), readNode.getContent());
+			assertEquals(node.getCoveredTestcases(), readNode.getCoveredTestcases());
+			assertEquals(node.getBranchTargets().size(), readNode.getBranchTargets().size());
+		}
+		CoverageSFNode readStart = result.getNodeList().get(0);
+		assertEquals(Arrays.asList("test1"), readStart.getCoveredTestcasesOnBranches().get(result.getNodeList().get(1)));
+		assertEquals(Arrays.asList("test2"), readStart.getCoveredTestcasesOnBranches().get(result.getNodeList().get(2)));
+		assertEquals(inputData.keySet(), output.getInputData().keySet());
+		assertExecDataEquals(inputData.get(0), output.getInputData().get(0));
+		assertExecDataEquals(inputData.get(1), output.getInputData().get(1));
+	}
+
+	private CoverageSFlowGraph createGraph() {
+		CoverageSFlowGraph graph = new CoverageSFlowGraph(5);
+		List<CoverageSFNode> nodeList = new ArrayList<>();
+		for (int i = 0; i < 3; i++) {
+			CoverageSFNode node = new CoverageSFNode(i, graph);
+			node.setType(i == 0 ? CoverageSFNode.Type.CONDITION_NODE : CoverageSFNode.Type.BLOCK_NODE);
+			if (i == 0) {
+				node.setStartIdx(0);
+			} else {
+				node.setContent(new ArrayList<>(Arrays.asList(i * 2 - 1, i * 2)));
+			}
+			node.setBlockScope();
+			nodeList.add(node);
+		}
+		nodeList.get(0).addBranch(nodeList.get(1));
+		nodeList.get(0).addBranch(nodeList.get(2));
+		graph.setNodeList(nodeList);
+		graph.setStartNode(nodeList.get(0));
+		graph.setCoveredTestcases(new ArrayList<String>());
+		return graph;
+	}
+
+	private MethodExecutionData createExecData(int testIdx, int x) {
+		MethodExecutionData data = new MethodExecutionData(testIdx);
+		data.getExecPathId().addAll(Arrays.asList(0, x < 0 ? 1 : 2));
+		Map<String, Double> branchFitnessMap = new HashMap<>();
+		branchFitnessMap.put("0-1", (double) x);
+		branchFitnessMap.put("0-2", -0.5);
+		data.setBranchFitnessMap(branchFitnessMap);
+
+		BreakPointValue input = new BreakPointValue("Sample.foo(I[ILjava/lang/String;)V");
+		input.addChild(new PrimitiveValue(String.valueOf(x), true, new LocalVar("x", "int", "Sample", 10)));
+		LocalVar arrVar = new LocalVar("arr", "int[]", "Sample", 10);
+		arrVar.setParameter(true);
+		ArrayValue arr = new ArrayValue(false, true, arrVar);
+		arr.setComponentType("int");
+		arr.setUniqueID(100 + x);
+		arr.setStringValue("[1, 2]");
+		arr.linkAchild(new PrimitiveValue("1", false, new ArrayElementVar("arr[0]", "int", "arr[0]")));
+		arr.linkAchild(new PrimitiveValue("2", false, new ArrayElementVar("arr[1]", "int", "arr[1]")));
+		input.addChild(arr);
+		input.addChild(new StringValue(null, true, new LocalVar("s", "java.lang.String", "Sample", 10)));
+		ReferenceValue thisValue = new ReferenceValue(false, 5, true, new ConstantVar("this", "Sample"));
+		thisValue.getVariable().setRtType("SubSample");
+		thisValue.linkAchild(new StringValue("abc", false, new FieldVar(false, "name", "java.lang.String", "Sample")));
+		ReferenceValue nullField = new ReferenceValue(true, 0, false, new FieldVar(true, "next", "Sample", "Sample"));
+		nullField.setNull(true);
+		thisValue.linkAchild(nullField);
+		input.addChild(thisValue);
+		input.addChild(null);
+		data.setMethodInputValue(input);
+		return data;
+	}
+
+	private void assertExecDataEquals(List<MethodExecutionData> expected, List<MethodExecutionData> actual) {
+		assertEquals(expected.size(), actual.size());
+		for (int i = 0; i < expected.size(); i++) {
+			MethodExecutionData exp = expected.get(i);
+			MethodExecutionData act = actual.get(i);
+			assertEquals(exp.getTestIdx(), act.getTestIdx());
+			assertEquals(exp.getExecPathId(), act.getExecPathId());
+			assertEquals(exp.getBranchFitnessMap(), act.getBranchFitnessMap());
+			assertEquals(exp.getMethodInputValue().getName(), act.getMethodInputValue().getName());
+			assertValueEquals(exp.getMethodInputValue().getChildren(), act.getMethodInputValue().getChildren());
+		}
+	}
+
+	private void assertValueEquals(List<VarValue> expected, List<VarValue> actual) {
+		if (expected == null) {
+			assertNull(actual);
+			return;
+		}
+		assertEquals(expected.size(), actual.size());
+		for (int i = 0; i < expected.size(); i++) {
+			VarValue exp = expected.get(i);
+			VarValue act = actual.get(i);
+			if (exp == null) {
+				assertNull(act);
+				continue;
+			}
+			assertEquals(exp.getClass(), act.getClass());
+			assertEquals(exp.getVariable().getClass(), act.getVariable().getClass());
+			assertEquals(exp.getVarName(), act.getVarName());
+			assertEquals(exp.getType(), act.getType());
+			assertEquals(exp.getRuntimeType(), act.getRuntimeType());
+			assertEquals(exp.getVarID(), act.getVarID());
+			assertEquals(exp.isRoot(), act.isRoot());
+			assertEquals(exp.getStringValue(), act.getStringValue());
+			if (exp instanceof ReferenceValue) {
+				assertEquals(((ReferenceValue) exp).isNull(), ((ReferenceValue) act).isNull());
+				assertEquals(((ReferenceValue) exp).getUniqueID(), ((ReferenceValue) act).getUniqueID());
+			}
+			if (exp instanceof ArrayValue) {
+				assertEquals(((ArrayValue) exp).getComponentType(), ((ArrayValue) act).getComponentType());
+			}
+			if (exp.getVariable() instanceof LocalVar) {
+				LocalVar expVar = (LocalVar) exp.getVariable();
+				LocalVar actVar = (LocalVar) act.getVariable();
+				assertEquals(expVar.getLocationClass(), actVar.getLocationClass());
+				assertEquals(expVar.getLineNumber(), actVar.getLineNumber());
+				assertEquals(expVar.isParameter(), actVar.isParameter());
+			}
+			if (exp.getVariable() instanceof FieldVar) {
+				assertEquals(((FieldVar) exp.getVariable()).isStatic(), ((FieldVar) act.getVariable()).isStatic());
+				assertEquals(((FieldVar) exp.getVariable()).getDeclaringType(),
+						((FieldVar) act.getVariable()).getDeclaringType());
+			}
+			if (act.getChildren() != null) {
+				for (VarValue child : act.getChildren()) {
+					assertSame(act, child.getParents().get(0));
+				}
+			}
+			assertValueEquals(exp.getChildren(), act.getChildren());
+		}
+	}
+}
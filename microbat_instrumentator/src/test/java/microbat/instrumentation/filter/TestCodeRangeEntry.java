@@ -35,5 +35,29 @@ public class TestCodeRangeEntry {
 		}
 		assertEquals(s1.toString(), s2.toString());
 	}
+	
+	@Test
+	public void testContains() {
+		CodeRangeEntry entry = entries.get(0);
+		assertTrue(entry.contains("Sample1", 11));
+		assertTrue(entry.contains("Sample1", 15));
+		assertTrue(entry.contains("Sample1", 22));
+		assertFalse(entry.contains("Sample1", 10));
+		assertFalse(entry.contains("Sample1", 23));
+		assertFalse(entry.contains("Sample2", 15));
+	}
+	
+	@Test
+	public void testOverlaps() {
+		CodeRangeEntry entry = entries.get(1);
+		assertTrue(entry.overlaps("Sample2", 18, 22));
+		assertTrue(entry.overlaps("Sample2", 10, 18));
+		assertTrue(entry.overlaps("Sample2", 22, 30));
+		assertTrue(entry.overlaps("Sample2", 19, 20));
+		assertTrue(entry.overlaps("Sample2", 1, 100));
+		assertFalse(entry.overlaps("Sample2", 10, 17));
+		assertFalse(entry.overlaps("Sample2", 23, 30));
+		assertFalse(entry.overlaps("Sample1", 18, 22));
+	}
 
 }
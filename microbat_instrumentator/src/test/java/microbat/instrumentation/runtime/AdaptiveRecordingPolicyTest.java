@@ -0,0 +1,125 @@
+package microbat.instrumentation.runtime;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+import microbat.instrumentation.filter.CodeRangeEntry;
+import microbat.instrumentation.runtime.AdaptiveRecordingPolicy.MethodStats;
+import microbat.model.BreakPoint;
+import microbat.model.trace.TraceNode;
+
+public class AdaptiveRecordingPolicyTest {
+	private static final String FOCUS_METHOD = "Sample#focus()V";
+	private static final String CALLEE = "Sample#callee()V";
+	private static final String NESTED_CALLEE = "Sample#nestedCallee()V";
+	private static final String OTHER_METHOD = "Other#other()V";
+
+	@Test
+	public void testLoopSummary() {
+		AdaptiveRecordingPolicy policy = new AdaptiveRecordingPolicy(new ArrayList<CodeRangeEntry>(), 0, 3, 0);
+		MethodStats method = policy.getMethodStats("Sample", FOCUS_METHOD, 10, 20);
+		MethodCallStack callStack = new MethodCallStack();
+		assertTrue(policy.isDataRecorded(method, callStack, 0));
+		assertTrue(policy.isDataRecorded(method, callStack, 1));
+		assertTrue(policy.isDataRecorded(method, callStack, 3));
+		assertFalse(policy.isDataRecorded(method, callStack, 4));
+		assertFalse(policy.isDataRecorded(method, callStack, 100));
+	}
+
+	@Test
+	public void testNoLoopSummary() {
+		AdaptiveRecordingPolicy policy = new AdaptiveRecordingPolicy(new ArrayList<CodeRangeEntry>(), 0, 0, 0);
+		MethodStats method = policy.getMethodStats("Sample", FOCUS_METHOD, 10, 20);
+		assertTrue(policy.isDataRecorded(method, new MethodCallStack(), 100));
+	}
+
+	@Test
+	public void testFocusDepth() {
+		List<CodeRangeEntry> focusRanges = Arrays.asList(new CodeRangeEntry("Sample", 12, 14));
+		AdaptiveRecordingPolicy policy = new AdaptiveRecordingPolicy(focusRanges, 1, 0, 0);
+		MethodStats focus = policy.getMethodStats("Sample", FOCUS_METHOD, 10, 20);
+		MethodStats callee = policy.getMethodStats("Sample", CALLEE, 30, 40);
+		MethodStats nestedCallee = policy.getMethodStats("Sample", NESTED_CALLEE, 50, 60);
+		MethodStats other = policy.getMethodStats("Other", OTHER_METHOD, 10, 20);
+
+		MethodCallStack callStack = new MethodCallStack();
+		assertTrue(policy.isDataRecorded(focus, callStack, 1));
+		assertFalse(policy.isDataRecorded(other, callStack, 1));
+
+		callStack.push(newStep("Sample", FOCUS_METHOD, 13));
+		assertTrue(policy.isDataRecorded(callee, callStack, 1));
+
+		callStack.push(newStep("Sample", CALLEE, 35));
+		assertFalse(policy.isDataRecorded(nestedCallee, callStack, 1));
+	}
+
+	@Test
+	public void testNestedFocusDepth() {
+		List<CodeRangeEntry> focusRanges = Arrays.asList(new CodeRangeEntry("Sample", 12, 14));
+		AdaptiveRecordingPolicy policy = new AdaptiveRecordingPolicy(focusRanges, 2, 0, 0);
+		policy.getMethodStats("Sample", FOCUS_METHOD, 10, 20);
+		policy.getMethodStats("Sample", CALLEE, 30, 40);
+		MethodStats nestedCallee = policy.getMethodStats("Sample", NESTED_CALLEE, 50, 60);
+
+		MethodCallStack callStack = new MethodCallStack();
+		callStack.push(newStep("Sample", FOCUS_METHOD, 13));
+		callStack.push(newStep("Sample", CALLEE, 35));
+		assertTrue(policy.isDataRecorded(nestedCallee, callStack, 1));
+	}
+
+	@Test
+	public void testUnknownMethod() {
+		AdaptiveRecordingPolicy policy = new AdaptiveRecordingPolicy(new ArrayList<CodeRangeEntry>(), 0, 0, 0);
+		assertNull(policy.getMethodStats("Sample#<clinit>()V"));
+		MethodStats method = policy.getMethodStats("Sample", FOCUS_METHOD, 10, 20);
+		assertSame(method, policy.getMethodStats(FOCUS_METHOD));
+		assertSame(method, policy.getMethodStats("Sample", FOCUS_METHOD, 15, 15));
+		assertEquals(10, method.getStartLine());
+	}
+
+	@Test
+	public void testBudgetDemotion() {
+		List<CodeRangeEntry> focusRanges = Arrays.asList(new CodeRangeEntry("Sample", 12, 14));
+		AdaptiveRecordingPolicy policy = new AdaptiveRecordingPolicy(focusRanges, 1, 0, 2);
+		MethodStats focus = policy.getMethodStats("Sample", FOCUS_METHOD, 10, 20);
+		MethodStats callee = policy.getMethodStats("Sample", CALLEE, 30, 40);
+		MethodStats other = policy.getMethodStats("Other", OTHER_METHOD, 10, 20);
+		MethodCallStack callStack = new MethodCallStack();
+		callStack.push(newStep("Sample", FOCUS_METHOD, 13));
+		assertTrue(policy.isDataRecorded(callee, callStack, 1));
+		assertTrue(policy.isDataRecorded(other, callStack, 1));
+
+		/* the tracing time is far over the run time, the most expensive method out of focus is demoted */
+		for (int i = 0; i < 4096; i++) {
+			policy.addStep(i % 2 == 0 ? callee : other, 2000000000L);
+			policy.addStep(focus, 4000000000L);
+		}
+		assertFalse(policy.isDataRecorded(callee, callStack, 1));
+		assertFalse(policy.isDataRecorded(other, callStack, 1));
+		assertTrue(policy.isDataRecorded(focus, callStack, 1));
+
+		policy.start();
+		callee = policy.getMethodStats("Sample", CALLEE, 30, 40);
+		policy.getMethodStats("Sample", FOCUS_METHOD, 10, 20);
+		assertTrue(policy.isDataRecorded(callee, callStack, 1));
+	}
+
+	@Test
+	public void testNoDemotionWithinBudget() {
+		AdaptiveRecordingPolicy policy = new AdaptiveRecordingPolicy(new ArrayList<CodeRangeEntry>(), 0, 0, 1000000);
+		MethodStats method = policy.getMethodStats("Sample", CALLEE, 30, 40);
+		for (int i = 0; i < 4096; i++) {
+			policy.addStep(method, 0);
+		}
+		assertTrue(policy.isDataRecorded(method, new MethodCallStack(), 1));
+	}
+
+	private TraceNode newStep(String className, String methodSignature, int line) {
+		return new TraceNode(new BreakPoint(className, methodSignature, line), null, 1, null);
+	}
+}
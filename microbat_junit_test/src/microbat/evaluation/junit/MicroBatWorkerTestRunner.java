@@ -0,0 +1,100 @@
+package microbat.evaluation.junit;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.net.Socket;
+import java.util.List;
+
+import org.junit.runner.Description;
+import org.junit.runner.JUnitCore;
+import org.junit.runner.Request;
+import org.junit.runner.Result;
+import org.junit.runner.notification.Failure;
+import org.junit.runner.notification.RunListener;
+
+/**
+ * A long-living test runner which keeps the vm warm between testcases.
+ *
+ * The runner connects to the controller at the port given in args[0], then
+ * repeatedly reads a request line "className methodName", runs the testcase and
+ * answers with a line "done". The trace of each testcase is dumped by the agent
+ * (in worker mode) when $exitTest is invoked.
+ * The runner stops when it receives "exit" or the connection is closed.
+ *
+ * @author LLT
+ */
+public class MicroBatWorkerTestRunner {
+	public static final String EXIT_REQUEST = "exit";
+	public static final String DONE_RESPONSE = "done";
+
+	public static void main(String[] args) throws IOException {
+		int port = Integer.valueOf(args[0]);
+		Socket socket = new Socket("localhost", port);
+		try {
+			BufferedReader reader = new BufferedReader(new InputStreamReader(socket.getInputStream()));
+			PrintWriter writer = new PrintWriter(socket.getOutputStream(), true);
+			MicroBatWorkerTestRunner runner = new MicroBatWorkerTestRunner();
+			String line;
+			while ((line = reader.readLine()) != null) {
+				line = line.trim();
+				if (EXIT_REQUEST.equals(line)) {
+					break;
+				}
+				String[] frags = line.split(" ");
+				if (frags.length != 2) {
+					continue;
+				}
+				runner.runTest(frags[0], frags[1]);
+				writer.println(DONE_RESPONSE);
+			}
+		} finally {
+			socket.close();
+		}
+		System.exit(0);
+	}
+
+	public void runTest(final String className, final String methodName) {
+		boolean successful = false;
+		String failureMessage = "no fail";
+		try {
+			Request request = Request.method(Class.forName(className), methodName);
+			JUnitCore jUnitCore = new JUnitCore();
+			jUnitCore.addListener(new RunListener() {
+				@Override
+				public void testStarted(Description description) throws Exception {
+					$testStarted(className, methodName);
+				}
+
+				@Override
+				public void testFinished(Description description) throws Exception {
+					$testFinished(className, methodName);
+				}
+			});
+			Result result = jUnitCore.run(request);
+			successful = result.wasSuccessful();
+
+			List<Failure> failures = result.getFailures();
+			for(Failure failure: failures){
+				Throwable exception = failure.getException();
+				failureMessage = exception.getMessage();
+			}
+		} catch (ClassNotFoundException e) {
+			e.printStackTrace();
+		}
+		$exitTest(successful + ";" + failureMessage, className, methodName, Thread.currentThread().getId());
+	}
+
+	private void $testFinished(String className, String methodName) {
+		// for agent part.
+	}
+
+	private void $testStarted(String className, String methodName) {
+		// for agent part.
+	}
+
+	private void $exitTest(String resultMsg, String className, String methodName, Long threadId) {
+		// for agent part.
+	}
+}
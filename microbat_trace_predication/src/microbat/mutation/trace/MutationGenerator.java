@@ -137,8 +137,9 @@ public class MutationGenerator {
 		String precheckPath = traceExecPath.replace("fix.exec", "precheck.info");
 		InstrumentationExecutor executor = new InstrumentationExecutor(testcaseConfig, traceExecPath,
 				includedClassNames, excludedClassNames);
-		executor.setTimeout(params.getAnalysisParams().getExecutionTimeout());
-		PreCheckInformation precheckInfo = executor.runPrecheck(precheckPath, params.getAnalysisParams().getStepLimit());
+		configure(executor, params.getAnalysisParams());
+		RunningInformation info = runInSingleMode(executor, precheckPath, params.getAnalysisParams());
+		PreCheckInformation precheckInfo = precheck(executor, precheckPath, params.getAnalysisParams(), info);
 
 		if (!precheckInfo.isPassTest() || precheckInfo.isOverLong()) {
 			System.out.println(params.getTestcaseName() + " is failed to get build trace: " + precheckInfo.toString());
@@ -147,7 +148,9 @@ public class MutationGenerator {
 		}
 
 		System.out.println(params.getTestcaseName() + " is a passed test case");
-		RunningInformation info = executor.execute(precheckInfo);
+		if (info == null) {
+			info = executor.execute(precheckInfo);
+		}
 		if (!info.isExpectedStepsMet()) {
 			return null;
 		}
@@ -157,6 +160,36 @@ public class MutationGenerator {
 		return new TraceExecutionInfo(precheckInfo, correctTrace, executor.getTraceExecFilePath(), precheckPath);
 	}
 
+	private void configure(InstrumentationExecutor executor, AnalysisParams analysisParams) {
+		executor.setTimeout(analysisParams.getExecutionTimeout());
+		executor.setWorkerPool(analysisParams.getTraceWorkerPool());
+	}
+	
+	/**
+	 * @return the trace recorded with its precheck info in one run if single run trace is enabled,
+	 *         null if it is disabled or the single run does not give a result.
+	 */
+	private RunningInformation runInSingleMode(InstrumentationExecutor executor, String precheckPath,
+			AnalysisParams analysisParams) {
+		if (!Settings.isSingleRunTrace) {
+			return null;
+		}
+		return executor.runInSingleMode(precheckPath, analysisParams.getStepLimit());
+	}
+	
+	/**
+	 * the precheck info of the single run if there is one (or if it timed out), otherwise run
+	 * precheck.
+	 */
+	private PreCheckInformation precheck(InstrumentationExecutor executor, String precheckPath,
+			AnalysisParams analysisParams, RunningInformation singleRunInfo) {
+		PreCheckInformation precheckInfo = executor.getPrecheckInfo();
+		if (singleRunInfo != null || (precheckInfo != null && precheckInfo.isTimeout())) {
+			return precheckInfo;
+		}
+		return executor.runPrecheck(precheckPath, analysisParams.getStepLimit());
+	}
+
 	public boolean runSingleTestcase(TraceExecutionInfo correctTrace, AnalysisTestcaseParams params,
 			IMutationExperimentMonitor monitor) throws JavaModelException {
 		if (correctTrace == null) {
@@ -313,7 +346,7 @@ public class MutationGenerator {
 		params.getBkClassFiles().restoreMutatedClassFile();
 		InstrumentationExecutor executor = new InstrumentationExecutor(testcaseConfig, traceDir, "bug",
 				includedClassNames, excludedClassNames);
-		executor.setTimeout(params.getAnalysisParams().getExecutionTimeout());
+		configure(executor, params.getAnalysisParams());
 		RunningInformation runningInfo = executor.execute(buggyPrecheck);
 		return runningInfo.getTrace();
 	}
@@ -324,7 +357,7 @@ public class MutationGenerator {
 		params.getBkClassFiles().restoreOrgClassFile();
 		InstrumentationExecutor executor = new InstrumentationExecutor(testcaseConfig, outputFolder, "fix",
 				includedClassNames, excludedClassNames);
-		executor.setTimeout(params.getAnalysisParams().getExecutionTimeout());
+		configure(executor, params.getAnalysisParams());
 		RunningInformation info = executor.execute(correctPrecheck);
 		return info.getTrace();
 	}
@@ -379,8 +412,10 @@ public class MutationGenerator {
 			String precheckPath = traceExecPath.replace("bug.exec", "bugPrecheck.info");
 			InstrumentationExecutor executor = new InstrumentationExecutor(testcaseConfig, traceExecPath,
 					includedClassNames, excludedClassNames);
-			executor.setTimeout(analysisParams.getExecutionTimeout());
-			PreCheckInformation precheck = executor.runPrecheck(precheckPath, analysisParams.getStepLimit());
+			configure(executor, analysisParams);
+			long t1 = System.currentTimeMillis();
+			RunningInformation singleRunInfo = runInSingleMode(executor, precheckPath, analysisParams);
+			PreCheckInformation precheck = precheck(executor, precheckPath, analysisParams, singleRunInfo);
 			
 			muTrace.setTimeOut(precheck.isTimeout());
 			muTrace.setKill(!precheck.isPassTest() && !precheck.isTimeout()); 
@@ -395,8 +430,11 @@ public class MutationGenerator {
 				} else{
 					System.out.println("A valid trace of " + precheck.getStepNum() + 
 							" steps is to be generated for " + testMethod + " (mutation: " + mutation.getFile() + ")");
-					long t1 = System.currentTimeMillis();
-					RunningInformation info = executor.execute(precheck);
+					RunningInformation info = singleRunInfo;
+					if (info == null) {
+						t1 = System.currentTimeMillis();
+						info = executor.execute(precheck);
+					}
 					if(info.isExpectedStepsMet()){
 						Trace trace = info.getTrace();
 						long t2 = System.currentTimeMillis();
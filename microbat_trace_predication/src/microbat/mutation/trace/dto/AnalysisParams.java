@@ -2,9 +2,11 @@ package microbat.mutation.trace.dto;
 
 import java.util.List;
 
+import microbat.agent.TraceWorkerPool;
 import microbat.evaluation.io.IgnoredTestCaseFiles;
 import microbat.mutation.mutation.MutationType;
 import microbat.mutation.trace.preference.MutationRegressionSettings;
+import microbat.util.Settings;
 import tregression.junit.ParsedTrials;
 
 public class AnalysisParams {
@@ -21,10 +23,15 @@ public class AnalysisParams {
 	private final int stepLimit = 10000;
 	private final long executionTimeout = 30000l;
 	private String mutationOutputSpace;
+	/* null if each trace is run in a new vm */
+	private TraceWorkerPool traceWorkerPool;
 	
 	public AnalysisParams(MutationRegressionSettings mutationSettings) {
 		this.mutationTypes = mutationSettings.getMutationTypes();
 		this.mutationOutputSpace = mutationSettings.getMutationOutputSpace();
+		if (Settings.useTraceWorkers) {
+			traceWorkerPool = new TraceWorkerPool();
+		}
 	}
 
 	public IgnoredTestCaseFiles getIgnoredTestCaseFiles() {
@@ -118,4 +125,17 @@ public class AnalysisParams {
 	public String getMutationOutputSpace() {
 		return mutationOutputSpace;
 	}
+	
+	public TraceWorkerPool getTraceWorkerPool() {
+		return traceWorkerPool;
+	}
+	
+	/**
+	 * stop the idle trace workers, to call once the evaluation is done.
+	 */
+	public void dispose() {
+		if (traceWorkerPool != null) {
+			traceWorkerPool.shutdown();
+		}
+	}
 }
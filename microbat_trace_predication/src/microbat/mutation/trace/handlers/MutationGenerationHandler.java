@@ -66,10 +66,14 @@ public class MutationGenerationHandler extends AbstractHandler {
 		if (testRoot == null) {
 			return;
 		}
-		for (IJavaElement element : testRoot.getChildren()) {
-			if (element instanceof IPackageFragment) {
-				mutationGenerator.generateMutations((IPackageFragment) element, analysisParams, experimentMonitor);
+		try {
+			for (IJavaElement element : testRoot.getChildren()) {
+				if (element instanceof IPackageFragment) {
+					mutationGenerator.generateMutations((IPackageFragment) element, analysisParams, experimentMonitor);
+				}
 			}
+		} finally {
+			analysisParams.dispose();
 		}
 	}
 }
@@ -11,6 +11,7 @@ package sav.strategies.vm;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -75,6 +76,14 @@ public class AgentVmRunner extends VMRunner {
 		agentParams.put(opt, value);
 	}
 	
+	public String getAgentParam(String opt) {
+		return agentParams.get(opt);
+	}
+	
+	public Map<String, String> getAgentParamMap() {
+		return Collections.unmodifiableMap(agentParams);
+	}
+	
 	public void removeAgentParam(String opt) {
 		agentParams.remove(opt);
 	}